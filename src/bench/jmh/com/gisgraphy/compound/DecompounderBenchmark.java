@@ -0,0 +1,77 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.compound;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.gisgraphy.helper.BenchmarkCorpus;
+
+/**
+ * The (de)compounding of the streets of the multilingual corpus, most of them
+ * are not compound words. One operation processes the whole corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DecompounderBenchmark {
+
+    private String[] streets;
+
+    private Decompounder decompounder;
+
+    @Setup
+    public void loadCorpus() {
+	streets = BenchmarkCorpus.column(BenchmarkCorpus.load(BenchmarkCorpus.ADDRESSES, 5), BenchmarkCorpus.STREET);
+	decompounder = new Decompounder();
+    }
+
+    @Benchmark
+    public void decompound(Blackhole blackhole) {
+	for (String street : streets) {
+	    blackhole.consume(decompounder.decompound(street));
+	}
+    }
+
+    @Benchmark
+    public void getOtherFormat(Blackhole blackhole) {
+	for (String street : streets) {
+	    blackhole.consume(decompounder.getOtherFormat(street));
+	}
+    }
+
+}
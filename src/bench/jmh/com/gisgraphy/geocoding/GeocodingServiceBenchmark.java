@@ -0,0 +1,76 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.geocoding;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.gisgraphy.helper.BenchmarkCorpus;
+
+/**
+ * The detection of the house number in the addresses of the multilingual
+ * corpus, the geocoding service is not wired, only the text processing is
+ * measured. One operation processes the whole corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class GeocodingServiceBenchmark {
+
+    private String[] addresses;
+
+    private String[] countryCodes;
+
+    private GeocodingService geocodingService;
+
+    @Setup
+    public void loadCorpus() {
+	List<String[]> lines = BenchmarkCorpus.load(BenchmarkCorpus.ADDRESSES, 5);
+	addresses = BenchmarkCorpus.column(lines, BenchmarkCorpus.ADDRESS);
+	countryCodes = BenchmarkCorpus.column(lines, BenchmarkCorpus.COUNTRY_CODE);
+	geocodingService = new GeocodingService();
+    }
+
+    @Benchmark
+    public void findHouseNumber(Blackhole blackhole) {
+	for (int i = 0; i < addresses.length; i++) {
+	    blackhole.consume(geocodingService.findHouseNumber(addresses[i], countryCodes[i]));
+	}
+    }
+
+}
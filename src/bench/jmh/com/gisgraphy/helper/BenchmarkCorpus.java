@@ -0,0 +1,122 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.helper;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The corpora of the benchmarks, in <code>data/tests/bench</code> : the lines
+ * are tab separated and the ones that begin with '#' are comments. The
+ * benchmarks are run from the project directory (see the jmh profile of the
+ * pom), an other directory can be given with the
+ * <code>gisgraphy.bench.corpus</code> system property.
+ */
+public class BenchmarkCorpus {
+
+    public static final String CORPUS_DIRECTORY_PROPERTY = "gisgraphy.bench.corpus";
+
+    public static final String DEFAULT_CORPUS_DIRECTORY = "data/tests/bench";
+
+    /**
+     * countrycode, full address, street, house number, zipcode
+     */
+    public static final String ADDRESSES = "addresses.txt";
+
+    /**
+     * countrycode, expected street name, actual street name
+     */
+    public static final String STREET_NAMES = "streetnames.txt";
+
+    public static final int COUNTRY_CODE = 0;
+
+    public static final int ADDRESS = 1;
+
+    public static final int STREET = 2;
+
+    public static final int HOUSE_NUMBER = 3;
+
+    public static final int ZIPCODE = 4;
+
+    public static final int EXPECTED_NAME = 1;
+
+    public static final int ACTUAL_NAME = 2;
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * @return the lines of the corpus, as arrays of the given number of
+     *         columns (the missing ones are empty)
+     */
+    public static List<String[]> load(String name, int numberOfColumns) {
+	File file = new File(System.getProperty(CORPUS_DIRECTORY_PROPERTY, DEFAULT_CORPUS_DIRECTORY), name);
+	List<String[]> lines = new ArrayList<String[]>();
+	BufferedReader reader = null;
+	try {
+	    reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+	    String line;
+	    while ((line = reader.readLine()) != null) {
+		if (line.trim().length() == 0 || line.startsWith("#")) {
+		    continue;
+		}
+		String[] fields = line.split("\t", -1);
+		String[] columns = new String[numberOfColumns];
+		for (int i = 0; i < numberOfColumns; i++) {
+		    columns[i] = i < fields.length ? fields[i] : "";
+		}
+		lines.add(columns);
+	    }
+	} catch (IOException e) {
+	    throw new IllegalStateException("can not read the benchmark corpus " + file.getAbsolutePath() + " : " + e.getMessage(), e);
+	} finally {
+	    if (reader != null) {
+		try {
+		    reader.close();
+		} catch (IOException ignore) {
+		}
+	    }
+	}
+	if (lines.isEmpty()) {
+	    throw new IllegalStateException("the benchmark corpus " + file.getAbsolutePath() + " is empty");
+	}
+	return lines;
+    }
+
+    /**
+     * @return the given column of all the lines of the corpus
+     */
+    public static String[] column(List<String[]> lines, int column) {
+	String[] values = new String[lines.size()];
+	for (int i = 0; i < values.length; i++) {
+	    values[i] = lines.get(i)[column];
+	}
+	return values;
+    }
+
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.helper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The distance between the expected and the actual street names of the
+ * multilingual corpus. One operation processes the whole corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class LevenshteinAlgorithmBenchmark {
+
+    private String[] expectedNames;
+
+    private String[] actualNames;
+
+    private LevenshteinAlgorithm levenshtein;
+
+    @Setup
+    public void loadCorpus() {
+	List<String[]> lines = BenchmarkCorpus.load(BenchmarkCorpus.STREET_NAMES, 3);
+	expectedNames = BenchmarkCorpus.column(lines, BenchmarkCorpus.EXPECTED_NAME);
+	actualNames = BenchmarkCorpus.column(lines, BenchmarkCorpus.ACTUAL_NAME);
+	levenshtein = new LevenshteinAlgorithm();
+    }
+
+    @Benchmark
+    public void execute(Blackhole blackhole) {
+	for (int i = 0; i < expectedNames.length; i++) {
+	    blackhole.consume(levenshtein.execute(expectedNames[i], actualNames[i]));
+	}
+    }
+
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.helper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The text normalization of {@link StringHelper}, on the addresses and the
+ * street names of the multilingual corpus. One operation processes the whole
+ * corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class StringHelperBenchmark {
+
+    private String[] addresses;
+
+    private String[] addressCountryCodes;
+
+    private String[] streets;
+
+    private String[] expectedNames;
+
+    private String[] actualNames;
+
+    private String[] nameCountryCodes;
+
+    @Setup
+    public void loadCorpus() {
+	List<String[]> addressLines = BenchmarkCorpus.load(BenchmarkCorpus.ADDRESSES, 5);
+	addresses = BenchmarkCorpus.column(addressLines, BenchmarkCorpus.ADDRESS);
+	addressCountryCodes = BenchmarkCorpus.column(addressLines, BenchmarkCorpus.COUNTRY_CODE);
+	streets = BenchmarkCorpus.column(addressLines, BenchmarkCorpus.STREET);
+	List<String[]> nameLines = BenchmarkCorpus.load(BenchmarkCorpus.STREET_NAMES, 3);
+	expectedNames = BenchmarkCorpus.column(nameLines, BenchmarkCorpus.EXPECTED_NAME);
+	actualNames = BenchmarkCorpus.column(nameLines, BenchmarkCorpus.ACTUAL_NAME);
+	nameCountryCodes = BenchmarkCorpus.column(nameLines, BenchmarkCorpus.COUNTRY_CODE);
+    }
+
+    @Benchmark
+    public void normalize(Blackhole blackhole) {
+	for (String address : addresses) {
+	    blackhole.consume(StringHelper.normalize(address));
+	}
+    }
+
+    @Benchmark
+    public void prepareQuery(Blackhole blackhole) {
+	for (String address : addresses) {
+	    blackhole.consume(StringHelper.prepareQuery(address));
+	}
+    }
+
+    @Benchmark
+    public void isSameStreetName(Blackhole blackhole) {
+	for (int i = 0; i < expectedNames.length; i++) {
+	    blackhole.consume(StringHelper.isSameStreetName(expectedNames[i], actualNames[i], nameCountryCodes[i]));
+	}
+    }
+
+    @Benchmark
+    public void expandStreetType(Blackhole blackhole) {
+	for (int i = 0; i < streets.length; i++) {
+	    blackhole.consume(StringHelper.expandStreetType(streets[i], addressCountryCodes[i]));
+	}
+    }
+
+    @Benchmark
+    public void removeStreetType(Blackhole blackhole) {
+	for (int i = 0; i < streets.length; i++) {
+	    blackhole.consume(StringHelper.removeStreetType(streets[i], addressCountryCodes[i]));
+	}
+    }
+
+}
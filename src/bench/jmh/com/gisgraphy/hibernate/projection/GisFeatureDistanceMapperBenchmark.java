@@ -0,0 +1,123 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.hibernate.projection;
+
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gisgraphy.domain.geoloc.entity.City;
+import com.gisgraphy.domain.valueobject.GisFeatureDistance;
+import com.gisgraphy.helper.GeolocHelper;
+import com.gisgraphy.helper.IntrospectionHelper;
+import com.gisgraphy.hibernate.criterion.ResultTransformerUtil;
+
+/**
+ * Compare the mapping of 100 geoloc tuples of cities to
+ * {@link GisFeatureDistance} : the fields introspection and the aliasToBean
+ * transformer of each query versus the cached {@link GisFeatureDistanceMapper}.
+ * The tuples are the ones the database returns, there is no database access.
+ * Run it with the jmh profile of the pom :
+ * <code>mvn -Pjmh test -Djmh.include=GisFeatureDistanceMapper</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class GisFeatureDistanceMapperBenchmark {
+
+    private static final int NUMBER_OF_ROWS = 100;
+
+    private List<Object[]> tuples;
+
+    @Setup
+    public void createTuples() throws Exception {
+	String[] aliases = IntrospectionHelper.getFieldsAsArray(City.class);
+	Map<String, PropertyDescriptor> descriptors = new HashMap<String, PropertyDescriptor>();
+	for (PropertyDescriptor descriptor : Introspector.getBeanInfo(City.class).getPropertyDescriptors()) {
+	    descriptors.put(descriptor.getName(), descriptor);
+	}
+	tuples = new ArrayList<Object[]>();
+	for (int i = 0; i < NUMBER_OF_ROWS; i++) {
+	    City city = new City();
+	    city.setId((long) i);
+	    city.setFeatureId((long) i);
+	    city.setName("city " + i);
+	    city.setAsciiName("city " + i);
+	    city.setCountryCode("FR");
+	    city.setFeatureClass("P");
+	    city.setFeatureCode("PPL");
+	    city.setLocation(GeolocHelper.createPoint(2F + i / 1000F, 48F + i / 1000F));
+	    Object[] tuple = new Object[aliases.length + 1];
+	    for (int j = 0; j < aliases.length; j++) {
+		PropertyDescriptor descriptor = descriptors.get(aliases[j]);
+		if (descriptor != null && descriptor.getReadMethod() != null) {
+		    tuple[j] = descriptor.getReadMethod().invoke(city);
+		}
+	    }
+	    tuple[aliases.length] = (double) i;
+	    tuples.add(tuple);
+	}
+	//the mapper is created once per placetype, at the first query
+	GisFeatureDistanceMapper.getInstance(City.class);
+    }
+
+    /**
+     * what {@code GenericGisDao.getNearestAndDistanceFrom} did for each query
+     */
+    @Benchmark
+    public List<GisFeatureDistance> aliasToBeanTransformer() {
+	List<String> fieldList = IntrospectionHelper.getFieldsAsList(City.class);
+	ProjectionBean.fieldList(fieldList, true);
+	String[] aliasList = IntrospectionHelper.getFieldsAsArray(City.class);
+	aliasList = Arrays.copyOf(aliasList, aliasList.length + 1);
+	aliasList[aliasList.length - 1] = GisFeatureDistanceMapper.DISTANCE_ALIAS;
+	return ResultTransformerUtil.transformToGisFeatureDistance(aliasList, tuples, null, City.class);
+    }
+
+    @Benchmark
+    public List<GisFeatureDistance> cachedMapper() {
+	GisFeatureDistanceMapper mapper = GisFeatureDistanceMapper.getInstance(City.class);
+	mapper.createProjectionList();
+	return mapper.transform(tuples, null);
+    }
+
+}
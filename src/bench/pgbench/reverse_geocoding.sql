@@ -0,0 +1,8 @@
+-- reverse geocoding queries of CityDao.getByShape, AdmDao.ListByShape and
+-- OpenStreetMapDao.getNearestsFrom (with the default distance), random points in France.
+-- see run.sh
+\set lng random(-4000, 8000)
+\set lat random(43000, 50000)
+select c.id from city c where st_contains(c.shape, ST_SetSRID(ST_MakePoint(:lng / 1000.0, :lat / 1000.0), 4326)) = true and c.municipality = true and c.countryCode = 'FR' order by st_area(c.shape) limit 1;
+select a.id from adm a where st_contains(a.shape, ST_SetSRID(ST_MakePoint(:lng / 1000.0, :lat / 1000.0), 4326)) = true and a.countryCode = 'FR' order by st_area(a.shape) desc;
+select o.id from openstreetmap o where o.shape && ST_MakeEnvelope(:lng / 1000.0 - 0.09, :lat / 1000.0 - 0.063, :lng / 1000.0 + 0.09, :lat / 1000.0 + 0.063, 4326) and o.name is not null order by st_distance_sphere(ST_SetSRID(ST_MakePoint(:lng / 1000.0, :lat / 1000.0), 4326), ST_ClosestPoint(o.shape, ST_SetSRID(ST_MakePoint(:lng / 1000.0, :lat / 1000.0), 4326))) limit 1;
@@ -0,0 +1,21 @@
+#!/bin/bash
+# Micro benchmark of the parse / plan cost of the spatial queries.
+# Each script is run twice against an imported database :
+#  - simple   : the coordinates are sent as literals, postgres parses and plans every query
+#    (this is what happened when the dao built the sql with ST_GeometryFromText('POINT(x y)'))
+#  - prepared : the coordinates are bound, the statements are parsed and planned once per
+#    connection (this is what happens now with the pooled prepared statements)
+# usage : run.sh [database] [user] [duration in seconds]
+# requires pgbench 9.6+
+
+DATABASE=${1:-gisgraphy}
+USER=${2:-postgres}
+DURATION=${3:-60}
+DIR=$(dirname "$0")
+
+for script in reverse_geocoding street_search; do
+	for mode in simple prepared; do
+		echo "=== $script ($mode)"
+		pgbench -n -U "$USER" -M $mode -c 4 -j 4 -T "$DURATION" -r -f "$DIR/$script.sql" "$DATABASE" | grep -E "tps|latency|select"
+	done
+done
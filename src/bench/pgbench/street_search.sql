@@ -0,0 +1,5 @@
+-- street search query of OpenStreetMapDao.getNearestsFrom (only roads), random points in France.
+-- see run.sh
+\set lng random(-4000, 8000)
+\set lat random(43000, 50000)
+select o.id from openstreetmap o where o.shape && ST_MakeEnvelope(:lng / 1000.0 - 0.013, :lat / 1000.0 - 0.009, :lng / 1000.0 + 0.013, :lat / 1000.0 + 0.009, 4326) and o.streetType <> 'FOOTWAY' order by st_distance_sphere(ST_SetSRID(ST_MakePoint(:lng / 1000.0, :lat / 1000.0), 4326), ST_ClosestPoint(o.shape, ST_SetSRID(ST_MakePoint(:lng / 1000.0, :lat / 1000.0), 4326)));
@@ -22,12 +22,8 @@
  *******************************************************************************/
 package com.gisgraphy.compound;
 
-import static com.gisgraphy.compound.Trie.CONDENSE;
-import static com.gisgraphy.compound.Trie.trie;
-
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -38,11 +34,27 @@ import java.util.regex.Pattern;
  * This decompounder aim is to split a word based on words list but keep the unknow words: 
  * e.g : if words are {weg,wald} then foowegwald will return [foowegwald foo weg wald].
  * lucene one would have returned [weg wald].
+ * <br/><br/>
+ * The words are compiled in {@link WordTrie}s, the texts are split and joined
+ * in one pass, as the previous alternation regexp did : the longest ending word
+ * followed by a word boundary (and an optional point), or else the longest
+ * word.
  * 
  */
 public class Decompounder {
-	private Pattern p;
-	private Pattern concatenatePattern;
+	/**
+	 * the ending words, case insensitive, to decompound
+	 */
+	private WordTrie endWordTrie;
+	/**
+	 * the other words, case insensitive, to decompound
+	 */
+	private WordTrie inWordTrie;
+	/**
+	 * the ending words, case insensitive for the ASCII letters only, to
+	 * separate and concatenate
+	 */
+	private WordTrie concatenateTrie;
 	public enum state {CONCATENATE, SEPARATE, NOT_APPLICABLE};
 	Pattern ENDING_POINT = Pattern.compile("\\.$");
 	
@@ -94,98 +106,92 @@ public class Decompounder {
 			}
 			
 		}
-		String re = trie(inWords, CONDENSE);
-		String re2 = trie(endWords, CONDENSE);
-		concatenatePattern = Pattern
-				.compile("((\\S|\\s)("+re2+"\\b[\\.]?))",Pattern.CASE_INSENSITIVE);
-		
-		re= "((?:("+re2+"\\b[\\.]?))|(?:"+re+"))";
-		//System.out.println(re);
-		p = Pattern
-				.compile(re, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+		endWordTrie = new WordTrie(endWords, true);
+		inWordTrie = new WordTrie(inWords, true);
+		concatenateTrie = new WordTrie(endWords, false);
 	}
 
 	public String[] decompound(String str) {
-		//Simple but probably not optimized
-		Matcher m = p.matcher(str);
-		StringBuffer s = new StringBuffer();
+		int length = str.length();
+		StringBuilder s = new StringBuilder(length + 16);
 		boolean found=false;
-		while (m.find()) {
+		int appended = 0;
+		int position = 0;
+		while (position <= length) {
+			int matched = matchEndWord(endWordTrie, str, position);
+			if (matched < 0){
+				matched = inWordTrie.longestMatch(str, position);
+			}
+			if (matched < 0){
+				position++;
+				continue;
+			}
 			found=true;
-			m.appendReplacement(s, " " + m.group(0) + " ");
+			appendCollapsed(s, str, appended, position);
+			appendCollapsed(s, ' ');
+			appendCollapsed(s, str, position, position + matched);
+			appendCollapsed(s, ' ');
+			appended = position + matched;
+			//an empty match (no word) doesn't move
+			position = matched == 0 ? position + 1 : appended;
 		}
-		m.appendTail(s);
 		if(found){
-		return s.toString().replaceAll("\\s+", " ").trim().split(" ");
+			appendCollapsed(s, str, appended, length);
+			return split(s.toString().trim());
 		} else {
 			return new String[]{str};
 		}
 	}
 	
 	public String getOtherFormat(String str){
-		state state = getSate(str);
-		if (state==com.gisgraphy.compound.Decompounder.state.CONCATENATE){
-			return separate(str);
-		} else if (state == com.gisgraphy.compound.Decompounder.state.SEPARATE){
-			return concatenate(str);
-		} else {
-			return str;
-		}
+		//separate and concatenate are the same
+		return separate(str);
 	}
 	
 	public String getOtherFormatForText(String text){
 		if (text==null){
 			return text;
 		}
-		Matcher m = concatenatePattern.matcher(text);
-				StringBuffer s = new StringBuffer();
-				while (m.find()) {
-					if (" ".equals(m.group(2))|| "-".equals(m.group(2))){
-					m.appendReplacement(s,  m.group(3) );
-					} else {
-						m.appendReplacement(s,  m.group(2)+" " +m.group(3) + " ");
-					}
+		int length = text.length();
+		StringBuilder s = new StringBuilder(length + 16);
+		int appended = 0;
+		int position = 0;
+		while (position < length) {
+			int matched = matchConcatenation(text, position);
+			if (matched < 0){
+				position++;
+				continue;
+			}
+			appendCollapsed(s, text, appended, position);
+			appended = appendOtherFormat(s, text, position, matched, true);
+			position = appended;
 		}
-				m.appendTail(s);
-				return s.toString().replaceAll("\\s+", " ").trim();
+		appendCollapsed(s, text, appended, length);
+		return s.toString().trim();
 	}
 	
 
-	/*public String separate(String str) {
-		//Simple but probably not optimized
-		Matcher m = p.matcher(str);
-		StringBuffer s = new StringBuffer();
-		boolean found=false;
-		while (m.find()) {
-			found=true;
-			m.appendReplacement(s, " " + m.group(0) + " ");
-		}
-		m.appendTail(s);
-		if(found){
-		return s.toString().replaceAll("\\s+", " ").trim();
-		} else {
-			return str;
-		}
-	}*/
-	
 	public String concatenate(String text){
 		return separate(text);
 	}
 	
+	/**
+	 * separate or concatenate the first ending word of the text
+	 */
 	public String separate(String text){
 		if (text==null){
 			return text;
 		}
-		Matcher m = concatenatePattern.matcher(text);
-				StringBuffer s = new StringBuffer();
-				while (m.find()) {
-					if (" ".equals(m.group(2))){
-					m.appendReplacement(s,  m.group(3) );
-					} else {
-						m.appendReplacement(s,  m.group(2)+" " +m.group(3) + " ");
-					}
-				m.appendTail(s);
-				return s.toString().replaceAll("\\s+", " ").trim();
+		int length = text.length();
+		for (int position = 0; position < length; position++) {
+			int matched = matchConcatenation(text, position);
+			if (matched >= 0){
+				StringBuilder s = new StringBuilder(length + 2);
+				appendCollapsed(s, text, 0, position);
+				int end = appendOtherFormat(s, text, position, matched, false);
+				appendCollapsed(s, text, end, length);
+				return s.toString().trim();
+			}
 		}
 		return text;
 	}
@@ -194,17 +200,140 @@ public class Decompounder {
 		if (text==null){
 			return state.NOT_APPLICABLE;
 		}
-		Matcher m = concatenatePattern.matcher(text);
-		if (m.find()){
-			if (" ".equals(m.group(2))){
-				return state.SEPARATE;
-			} else {
-				return state.CONCATENATE;
+		for (int position = 0; position < text.length(); position++) {
+			if (matchConcatenation(text, position) >= 0){
+				if (text.charAt(position) == ' '){
+					return state.SEPARATE;
+				} else {
+					return state.CONCATENATE;
+				}
 			}
 		}
 		return state.NOT_APPLICABLE;
 	}
 	
+	/**
+	 * @return the length of the ending word (and of its optional point) that
+	 *         begins at the given position and is followed by a word boundary,
+	 *         -1 if there is none
+	 */
+	private static int matchEndWord(WordTrie trie, String text, int position) {
+		int matched = trie.longestMatch(text, position);
+		if (matched < 0){
+			return -1;
+		}
+		int end = position + matched;
+		if (!isWordBoundary(text, end)){
+			return -1;
+		}
+		if (end < text.length() && text.charAt(end) == '.'){
+			end++;
+		}
+		return end - position;
+	}
+	
+	/**
+	 * @return the length of the ending word that follows the char at the given
+	 *         position (the separator), -1 if there is none
+	 */
+	private int matchConcatenation(String text, int position) {
+		return matchEndWord(concatenateTrie, text, position + 1);
+	}
+	
+	/**
+	 * append the ending word that follows the separator at the given position,
+	 * without the separator if it is a space (or a dash, if dashAsSpace) and
+	 * separated otherwise
+	 * 
+	 * @return the end of the ending word
+	 */
+	private static int appendOtherFormat(StringBuilder s, String text, int position, int matched, boolean dashAsSpace) {
+		char separator = text.charAt(position);
+		int end = position + 1 + matched;
+		if (separator == ' ' || (dashAsSpace && separator == '-')){
+			appendCollapsed(s, text, position + 1, end);
+		} else {
+			appendCollapsed(s, separator);
+			appendCollapsed(s, ' ');
+			appendCollapsed(s, text, position + 1, end);
+			appendCollapsed(s, ' ');
+		}
+		return end;
+	}
+	
+	/**
+	 * append the chars, with the consecutive whitespaces replaced by one space
+	 */
+	private static void appendCollapsed(StringBuilder s, String text, int start, int end) {
+		for (int i = start; i < end; i++) {
+			appendCollapsed(s, text.charAt(i));
+		}
+	}
+	
+	private static void appendCollapsed(StringBuilder s, char c) {
+		if (WordTrie.isWhitespace(c)){
+			if (s.length() == 0 || s.charAt(s.length() - 1) != ' '){
+				s.append(' ');
+			}
+		} else {
+			s.append(c);
+		}
+	}
+	
+	/**
+	 * @return the words of a trimmed text without consecutive spaces
+	 */
+	private static String[] split(String text) {
+		List<String> words = new ArrayList<String>();
+		int start = 0;
+		int space;
+		while ((space = text.indexOf(' ', start)) >= 0) {
+			words.add(text.substring(start, space));
+			start = space + 1;
+		}
+		words.add(text.substring(start));
+		return words.toArray(new String[words.size()]);
+	}
+	
+	/**
+	 * @return true if there is a word boundary at the given position, as \b
+	 *         of the regular expressions
+	 */
+	private static boolean isWordBoundary(String text, int position) {
+		boolean left = false;
+		boolean right = false;
+		if (position > 0){
+			int c = Character.codePointBefore(text, position);
+			left = isWordChar(c) || (Character.getType(c) == Character.NON_SPACING_MARK && hasBaseCharacter(text, position - 1));
+		}
+		if (position < text.length()){
+			int c = Character.codePointAt(text, position);
+			right = isWordChar(c) || (Character.getType(c) == Character.NON_SPACING_MARK && hasBaseCharacter(text, position));
+		}
+		return left ^ right;
+	}
+	
+	private static boolean isWordChar(int c) {
+		return Character.isLetterOrDigit(c) || c == '_';
+	}
+	
+	/**
+	 * @return true if the non spacing mark at the given position is the one of
+	 *         a letter or a digit
+	 */
+	private static boolean hasBaseCharacter(String text, int position) {
+		for (int i = position; i >= 0; i--) {
+			int c = Character.codePointAt(text, i);
+			if (Character.isLetterOrDigit(c)){
+				return true;
+			}
+			if (Character.getType(c) != Character.NON_SPACING_MARK){
+				return false;
+			}
+		}
+		return false;
+	}
+	
 	public static boolean isDecompoudCountryCode(String countryCode){
 		if (countryCode!=null){
 		return DECOMPOUND_COUNTRIES.contains(countryCode.toUpperCase());
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.compound;
+
+import java.util.Collection;
+
+/**
+ * A case folded trie of words, that finds the longest word that begins at a
+ * given position of a text, in one pass and without backtracking.
+ * <br/>
+ * It matches what the regular expression created by {@link Trie#trie(Collection, int)}
+ * for the same words (a non backtracking trie) matches once compiled case
+ * insensitive : the words are trimmed, a blank in a word matches one or more
+ * whitespaces, and a trie without words matches the empty string.
+ * <br/>
+ * This class is thread safe once created.
+ *
+ * @author david Masclet
+ */
+public class WordTrie {
+
+	private static final class Node {
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+		private boolean word;
+
+		private Node getChild(char key) {
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] == key) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		private Node getOrAddChild(char key) {
+			Node child = getChild(key);
+			if (child == null) {
+				child = new Node();
+				int size = keys.length;
+				char[] newKeys = new char[size + 1];
+				Node[] newChildren = new Node[size + 1];
+				System.arraycopy(keys, 0, newKeys, 0, size);
+				System.arraycopy(children, 0, newChildren, 0, size);
+				newKeys[size] = key;
+				newChildren[size] = child;
+				keys = newKeys;
+				children = newChildren;
+			}
+			return child;
+		}
+	}
+
+	/**
+	 * the key of the blanks, that match one or more whitespaces
+	 */
+	private static final char BLANK = ' ';
+
+	private final Node root = new Node();
+
+	private final boolean unicodeCase;
+
+	/**
+	 * @param words
+	 *            the words to match
+	 * @param unicodeCase
+	 *            whether the case of all the letters is ignored (as with
+	 *            {@link java.util.regex.Pattern#UNICODE_CASE}) or only the
+	 *            one of the ASCII letters
+	 */
+	public WordTrie(Collection<String> words, boolean unicodeCase) {
+		this.unicodeCase = unicodeCase;
+		boolean empty = true;
+		for (String word : words) {
+			String trimmed = word.trim();
+			if (trimmed.length() == 0) {
+				continue;
+			}
+			empty = false;
+			Node node = root;
+			for (int i = 0; i < trimmed.length(); i++) {
+				char c = trimmed.charAt(i);
+				if (isWhitespace(c)) {
+					node = node.getOrAddChild(BLANK);
+					while (i + 1 < trimmed.length() && isWhitespace(trimmed.charAt(i + 1))) {
+						i++;
+					}
+				} else {
+					node = node.getOrAddChild(fold(c));
+				}
+			}
+			node.word = true;
+		}
+		//as the regexp of an empty list
+		root.word = empty;
+	}
+
+	/**
+	 * @return the length of the longest word that begins at the given
+	 *         position of the text (0 if there is no word in the trie), or -1
+	 *         if no word begins at this position
+	 */
+	public int longestMatch(CharSequence text, int position) {
+		int longest = root.word ? 0 : -1;
+		Node node = root;
+		int i = position;
+		int length = text.length();
+		while (i < length) {
+			char c = text.charAt(i);
+			if (isWhitespace(c)) {
+				node = node.getChild(BLANK);
+				do {
+					i++;
+				} while (i < length && isWhitespace(text.charAt(i)));
+			} else {
+				node = node.getChild(fold(c));
+				i++;
+			}
+			if (node == null) {
+				break;
+			}
+			if (node.word) {
+				longest = i - position;
+			}
+		}
+		return longest;
+	}
+
+	private char fold(char c) {
+		if (unicodeCase) {
+			return Character.toLowerCase(Character.toUpperCase(c));
+		}
+		return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+	}
+
+	/**
+	 * @return true if the char is a whitespace as \s of the regular
+	 *         expressions
+	 */
+	public static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+}
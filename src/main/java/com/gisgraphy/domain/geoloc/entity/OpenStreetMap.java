@@ -57,6 +57,7 @@ import com.gisgraphy.domain.valueobject.GISSource;
 import com.gisgraphy.domain.valueobject.SRID;
 import com.gisgraphy.domain.valueobject.SpeedMode;
 import com.gisgraphy.helper.IntrospectionIgnoredField;
+import com.gisgraphy.street.EncodedHouseNumbers;
 import com.gisgraphy.street.HouseNumberComparator;
 import com.gisgraphy.street.StreetSearchMode;
 import com.gisgraphy.street.StreetType;
@@ -184,6 +185,12 @@ public class OpenStreetMap {
     //@Sort(comparator=HouseNumberComparator.class,type=SortType.COMPARATOR)
     private SortedSet<HouseNumber> houseNumbers;
 
+    @IntrospectionIgnoredField
+    private byte[] encodedHouseNumbers;
+
+    @IntrospectionIgnoredField
+    private boolean houseNumbersChanged = false;
+
     @IntrospectionIgnoredField
     private String partialSearchName;
 
@@ -996,6 +1003,41 @@ public class OpenStreetMap {
 		this.houseNumbers = houseNumbers;
 	}
 	
+	/**
+	 * @return the house numbers of the street encoded by
+	 *         {@link EncodedHouseNumbers}, to read them without loading
+	 *         {@link #getHouseNumbers()}. it is updated by
+	 *         {@link #encodeHouseNumbers()}
+	 */
+	@Column(nullable = true)
+	public byte[] getEncodedHouseNumbers() {
+		return encodedHouseNumbers;
+	}
+
+	/**
+	 * @param encodedHouseNumbers the encoded house numbers to set
+	 */
+	public void setEncodedHouseNumbers(byte[] encodedHouseNumbers) {
+		this.encodedHouseNumbers = encodedHouseNumbers;
+	}
+
+	/**
+	 * Encode the current house numbers in {@link #getEncodedHouseNumbers()}
+	 */
+	public void encodeHouseNumbers() {
+		setEncodedHouseNumbers(EncodedHouseNumbers.encode(houseNumbers, countryCode));
+		houseNumbersChanged = false;
+	}
+
+	/**
+	 * @return true if a house number has been added since the last
+	 *         {@link #encodeHouseNumbers()}
+	 */
+	@Transient
+	public boolean isHouseNumbersChanged() {
+		return houseNumbersChanged;
+	}
+
 	/**
      * Do a double set : add the house number to the current street and set
      * this street as the street of the specified AlternateName
@@ -1012,6 +1054,7 @@ public class OpenStreetMap {
 			currentHouseNumbers.add(houseNumber);
 			this.setHouseNumbers(currentHouseNumbers);
 			houseNumber.setStreet(this);
+			houseNumbersChanged = true;
 		}
 	}
 
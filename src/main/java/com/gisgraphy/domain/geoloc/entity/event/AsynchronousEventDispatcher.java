@@ -0,0 +1,266 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.domain.geoloc.entity.event;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+/**
+ * Deliver the events to one {@link IEventListener} from dedicated threads, so
+ * that the callers (the DAOs) don't wait for the listener. Each thread has
+ * its own bounded queue (the callers are blocked when it is full) and the
+ * events of a feature always go to the same thread, so that they are
+ * delivered in order.
+ * <br/>
+ * The events of a feature hold Hibernate entities that can not be read from
+ * an other thread : they are queued only if the listener is an
+ * {@link IAsynchronousEventListener}, once prepared from the calling thread.
+ * They are delivered from the calling thread to the other listeners.
+ * <br/>
+ * The events that are not about one feature (e.g : the deletion of all the
+ * features of a placetype) are barriers : the queued events are delivered
+ * first, then the event is delivered from the calling thread.
+ * <br/>
+ * If the listener throws an exception, it is logged and thrown on the next
+ * call to {@link #dispatch(IEvent)} or {@link #flush()}.
+ *
+ * @see EventManager
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class AsynchronousEventDispatcher {
+
+    protected static final Logger logger = LoggerFactory
+	    .getLogger(AsynchronousEventDispatcher.class);
+
+    /**
+     * The time between two checks that a lane is alive, when flushing
+     */
+    private static final long FLUSH_CHECK_INTERVAL_MILLIS = 1000;
+
+    private final IEventListener listener;
+
+    private final Lane[] lanes;
+
+    private volatile RuntimeException lastError;
+
+    /**
+     * @param listener
+     *                the listener to deliver the events to
+     * @param numberOfThreads
+     *                the number of threads that deliver the events
+     * @param queueCapacity
+     *                the max number of queued events per thread before the
+     *                callers are blocked
+     */
+    public AsynchronousEventDispatcher(IEventListener listener, int numberOfThreads, int queueCapacity) {
+	Assert.notNull(listener, "can not dispatch the events to a null listener");
+	Assert.isTrue(numberOfThreads > 0, "the number of threads should be positive");
+	Assert.isTrue(queueCapacity > 0, "the queue capacity should be positive");
+	this.listener = listener;
+	this.lanes = new Lane[numberOfThreads];
+	for (int i = 0; i < numberOfThreads; i++) {
+	    lanes[i] = new Lane(queueCapacity, "eventDispatcher-" + listener.getClass().getSimpleName() + "-" + i);
+	}
+    }
+
+    /**
+     * Queue the event, block if the queue of the feature is full. The event is
+     * delivered from the calling thread if it can not be queued (see the
+     * class javadoc)
+     *
+     * @param event
+     *                the event to deliver
+     */
+    public void dispatch(IEvent event) {
+	checkError();
+	Long featureId = getFeatureId(event);
+	if (featureId == null) {
+	    flush();
+	    listener.handleEvent(event);
+	} else if (listener instanceof IAsynchronousEventListener) {
+	    IEvent prepared = ((IAsynchronousEventListener) listener).prepare(event);
+	    if (prepared != null) {
+		lanes[(int) Math.abs(featureId % lanes.length)].add(prepared);
+	    }
+	} else {
+	    listener.handleEvent(event);
+	}
+    }
+
+    /**
+     * Wait until all the queued events are delivered
+     */
+    public void flush() {
+	for (Lane lane : lanes) {
+	    lane.flush();
+	}
+	checkError();
+    }
+
+    /**
+     * Deliver the queued events and stop the threads
+     */
+    public void shutdown() {
+	try {
+	    flush();
+	} finally {
+	    for (Lane lane : lanes) {
+		lane.stop();
+	    }
+	}
+    }
+
+    /**
+     * @return the number of events that are queued or being delivered
+     */
+    public int getPendingEvents() {
+	int pending = 0;
+	for (Lane lane : lanes) {
+	    pending += lane.getPending();
+	}
+	return pending;
+    }
+
+    /**
+     * @return the listener the events are delivered to
+     */
+    public IEventListener getListener() {
+	return listener;
+    }
+
+    /**
+     * @return the feature id of the event or null if the event is not about
+     *         one feature
+     */
+    static Long getFeatureId(IEvent event) {
+	if (event instanceof GisFeatureEvent) {
+	    return ((GisFeatureEvent) event).getGisFeature().getFeatureId();
+	}
+	return null;
+    }
+
+    private void checkError() {
+	RuntimeException error = lastError;
+	if (error != null) {
+	    lastError = null;
+	    throw error;
+	}
+    }
+
+    /**
+     * A thread and its queue
+     */
+    private class Lane implements Runnable {
+
+	private final BlockingQueue<IEvent> queue;
+
+	/**
+	 * the number of events that are queued or being delivered, guarded
+	 * by pendingLock
+	 */
+	private final Object pendingLock = new Object();
+	private int pending = 0;
+
+	private volatile boolean stopped = false;
+
+	private final Thread thread;
+
+	private Lane(int queueCapacity, String name) {
+	    this.queue = new ArrayBlockingQueue<IEvent>(queueCapacity);
+	    this.thread = new Thread(this, name);
+	    this.thread.setDaemon(true);
+	    this.thread.start();
+	}
+
+	private void add(IEvent event) {
+	    if (stopped) {
+		throw new IllegalStateException("The event dispatcher is stopped");
+	    }
+	    synchronized (pendingLock) {
+		pending++;
+	    }
+	    try {
+		queue.put(event);
+	    } catch (InterruptedException e) {
+		decreasePending();
+		Thread.currentThread().interrupt();
+		throw new IllegalStateException("interrupted while queuing an event", e);
+	    }
+	}
+
+	private void flush() {
+	    synchronized (pendingLock) {
+		while (pending > 0 && thread.isAlive()) {
+		    try {
+			pendingLock.wait(FLUSH_CHECK_INTERVAL_MILLIS);
+		    } catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while flushing the events", e);
+		    }
+		}
+	    }
+	}
+
+	private void stop() {
+	    stopped = true;
+	    thread.interrupt();
+	}
+
+	private int getPending() {
+	    synchronized (pendingLock) {
+		return pending;
+	    }
+	}
+
+	private void decreasePending() {
+	    synchronized (pendingLock) {
+		pending--;
+		pendingLock.notifyAll();
+	    }
+	}
+
+	public void run() {
+	    while (!stopped) {
+		IEvent event;
+		try {
+		    event = queue.take();
+		} catch (InterruptedException e) {
+		    continue;
+		}
+		try {
+		    listener.handleEvent(event);
+		} catch (RuntimeException e) {
+		    logger.error("can not deliver " + event + " to " + listener.getClass().getSimpleName() + " : " + e.getMessage(), e);
+		    lastError = e;
+		} finally {
+		    decreasePending();
+		}
+	    }
+	}
+    }
+
+}
@@ -22,6 +22,7 @@
  *******************************************************************************/
 package com.gisgraphy.domain.geoloc.entity.event;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Required;
@@ -30,6 +31,17 @@ import org.springframework.stereotype.Component;
 /**
  * Manage all the Event Received. Default implementation of
  * {@link IEventManager}
+ * <br/>
+ * By default, the listeners are called from the thread that sends the event.
+ * In asynchronous mode, each listener receives the events from its own
+ * threads (see {@link AsynchronousEventDispatcher}), so that the DAOs don't
+ * wait for the indexing. Only the {@link IAsynchronousEventListener}s
+ * receive the events of the features asynchronously, once prepared from the
+ * thread of the DAO (e.g : the fulltext document is built from the entity).
+ * The listeners are then called outside of the transaction of the DAO : it
+ * is intended for the imports, and
+ * {@link #flush()} must be called before relying on what the listeners have
+ * done (e.g : before a commit of the fulltext engine).
  * 
  * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
  */
@@ -41,19 +53,85 @@ public class EventManager implements IEventManager {
      */
     private List<IEventListener> listeners;
 
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    private boolean asynchronous = false;
+
+    private int threadsPerListener = 1;
+
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+    private volatile List<AsynchronousEventDispatcher> dispatchers;
+
     /*
      * (non-Javadoc)
      * 
      * @see com.gisgraphy.domain.geoloc.entity.event.IEventManager#handleEvent(com.gisgraphy.domain.geoloc.entity.event.IEvent)
      */
     public void handleEvent(IEvent event) {
-	for (IEventListener listener : listeners) {
-	    if (listener.supports(event)) {
-		listener.handleEvent(event);
+	if (asynchronous) {
+	    for (AsynchronousEventDispatcher dispatcher : getDispatchers()) {
+		if (dispatcher.getListener().supports(event)) {
+		    dispatcher.dispatch(event);
+		}
+	    }
+	} else {
+	    for (IEventListener listener : listeners) {
+		if (listener.supports(event)) {
+		    listener.handleEvent(event);
+		}
+	    }
+	}
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.gisgraphy.domain.geoloc.entity.event.IEventManager#flush()
+     */
+    public void flush() {
+	List<AsynchronousEventDispatcher> currentDispatchers = dispatchers;
+	if (currentDispatchers != null) {
+	    for (AsynchronousEventDispatcher dispatcher : currentDispatchers) {
+		dispatcher.flush();
 	    }
 	}
     }
 
+    /**
+     * Deliver the queued events and stop the threads of the asynchronous
+     * mode
+     */
+    public void shutdown() {
+	List<AsynchronousEventDispatcher> currentDispatchers;
+	synchronized (this) {
+	    currentDispatchers = dispatchers;
+	    dispatchers = null;
+	}
+	if (currentDispatchers != null) {
+	    for (AsynchronousEventDispatcher dispatcher : currentDispatchers) {
+		dispatcher.shutdown();
+	    }
+	}
+    }
+
+    private List<AsynchronousEventDispatcher> getDispatchers() {
+	List<AsynchronousEventDispatcher> currentDispatchers = dispatchers;
+	if (currentDispatchers == null) {
+	    synchronized (this) {
+		currentDispatchers = dispatchers;
+		if (currentDispatchers == null) {
+		    currentDispatchers = new ArrayList<AsynchronousEventDispatcher>();
+		    for (IEventListener listener : listeners) {
+			currentDispatchers.add(new AsynchronousEventDispatcher(listener, threadsPerListener, queueCapacity));
+		    }
+		    dispatchers = currentDispatchers;
+		}
+	    }
+	}
+	return currentDispatchers;
+    }
+
     /**
      * @param listeners
      *                The listeners to set that must be aware of events
@@ -63,4 +141,33 @@ public class EventManager implements IEventManager {
 	this.listeners = listeners;
     }
 
+    /**
+     * @param asynchronous
+     *                whether the listeners receive the events from their own
+     *                threads. default to false
+     */
+    public void setAsynchronous(boolean asynchronous) {
+	this.asynchronous = asynchronous;
+    }
+
+    /**
+     * @param threadsPerListener
+     *                the number of threads that deliver the events to each
+     *                listener in asynchronous mode. The events of a feature
+     *                are always delivered in order
+     */
+    public void setThreadsPerListener(int threadsPerListener) {
+	this.threadsPerListener = threadsPerListener;
+    }
+
+    /**
+     * @param queueCapacity
+     *                the max number of queued events per thread in
+     *                asynchronous mode, the DAOs wait when it is reached.
+     *                default to {@link #DEFAULT_QUEUE_CAPACITY}
+     */
+    public void setQueueCapacity(int queueCapacity) {
+	this.queueCapacity = queueCapacity;
+    }
+
 }
@@ -34,7 +34,7 @@ import com.gisgraphy.domain.repository.ISolRSynchroniser;
  * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
  */
 @Component
-public class GisFeatureEventListener implements IEventListener {
+public class GisFeatureEventListener implements IAsynchronousEventListener {
 
     ISolRSynchroniser solRSynchroniser;
 
@@ -47,6 +47,15 @@ public class GisFeatureEventListener implements IEventListener {
 	solRSynchroniser.handleEvent(event);
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.gisgraphy.domain.geoloc.entity.event.IAsynchronousEventListener#prepare(com.gisgraphy.domain.geoloc.entity.event.IEvent)
+     */
+    public IEvent prepare(IEvent event) {
+	return solRSynchroniser.prepare(event);
+    }
+
     /*
      * (non-Javadoc)
      * 
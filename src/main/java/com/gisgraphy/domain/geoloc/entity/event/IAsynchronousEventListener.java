@@ -0,0 +1,48 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.domain.geoloc.entity.event;
+
+/**
+ * A listener that can receive the events from an other thread than the one
+ * that sends them (see {@link AsynchronousEventDispatcher}). The events of the
+ * DAOs hold Hibernate entities that belong to the session of the sender, which
+ * keeps modifying and clearing them : they must not be read from an other
+ * thread. {@link #prepare(IEvent)} is called from the thread that sends the
+ * event and returns an event that does not hold any entity, which is then
+ * given to {@link #handleEvent(IEvent)} from the threads of the dispatcher.
+ * 
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public interface IAsynchronousEventListener extends IEventListener {
+
+    /**
+     * Called from the thread that sends the event, in the transaction of the
+     * DAO
+     * 
+     * @param event
+     *                the event that is sent
+     * @return the event to handle asynchronously, that must not hold any
+     *         Hibernate entity, or null if there is nothing to handle
+     */
+    public IEvent prepare(IEvent event);
+}
@@ -35,4 +35,10 @@ public interface IEventManager {
      */
     void handleEvent(IEvent event);
 
+    /**
+     * Wait until the events that have been sent are handled by all the
+     * listeners. It does nothing if the events are handled synchronously
+     */
+    void flush();
+
 }
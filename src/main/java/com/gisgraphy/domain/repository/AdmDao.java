@@ -39,7 +39,7 @@ import com.gisgraphy.domain.geoloc.entity.Adm;
 import com.gisgraphy.domain.geoloc.entity.City;
 import com.gisgraphy.domain.geoloc.entity.GisFeature;
 import com.gisgraphy.domain.geoloc.entity.ZipCode;
-import com.gisgraphy.domain.valueobject.SRID;
+import com.gisgraphy.helper.GisHelper;
 import com.vividsolutions.jts.geom.Point;
 
 /**
@@ -766,19 +766,21 @@ public class AdmDao extends GenericGisDao<Adm> implements IAdmDao {
 			    throws PersistenceException {
 		    	//select name,municipality,source,openstreetmapid from city c 
 		    	//where st_contains(c.shape,ST_GeometryFromText('POINT(2.349 48.868)',4326))=true limit 1
-		    String pointAsString = "ST_GeometryFromText('POINT("+location.getX()+" "+location.getY()+")',"+SRID.WGS84_SRID.getSRID()+")";
+		    //the point and the country code are bound, so that the statement is the same for all the calls
 			String queryString = "from " + persistentClass.getSimpleName()
-				+ " as a where st_contains(a.shape,"+pointAsString+")=true ";
-					;
+				+ " as a where st_contains(a.shape,"+GisHelper.getPointWithParameters()+")=true ";
 			if (countryCode!=null ){
-				queryString+=" and a.countryCode='"+countryCode+"'";
+				queryString+=" and a.countryCode=:countryCode";
 			}
 			queryString = queryString+ " order by st_area(a.shape) desc";
 			
 
 			Query qry = session.createQuery(queryString);
+			GisHelper.setPointParameters(qry, location);
+			if (countryCode!=null ){
+				qry.setString("countryCode", countryCode);
+			}
 
-			//qry.setParameter("point2", location);
 			List<Adm> result = (List<Adm>) qry.list();
 			if (result == null) {
 			    return new ArrayList<Adm>();
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Gisgraphy Project
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *    Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public
+ *    License along with this library; if not, write to the Free Software
+ *    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *   Copyright 2008  Gisgraphy project
+ *
+ *   David Masclet <davidmasclet@gisgraphy.com>
+ ******************************************************************************/
+package com.gisgraphy.domain.repository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.sql.Types;
+import java.util.Date;
+import java.util.TimeZone;
+
+import com.gisgraphy.domain.valueobject.SRID;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ByteOrderValues;
+import com.vividsolutions.jts.io.WKBWriter;
+
+/**
+ * Encode rows in the binary format of the PostgreSQL
+ * <code>COPY ... FROM STDIN WITH BINARY</code> command. The geometries are
+ * sent as EWKB, the timestamps as microseconds since 2000 (the server must
+ * use integer datetimes, the default since PostgreSQL 8.4).
+ *
+ * @see BulkWriter
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+class BinaryCopyEncoder {
+
+    static final byte[] SIGNATURE = { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0 };
+
+    /**
+     * 2000-01-01 00:00:00 UTC, the epoch of the PostgreSQL dates
+     */
+    private static final long POSTGRES_EPOCH_MILLIS = 946684800000L;
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+
+    private final DataOutputStream out = new DataOutputStream(buffer);
+
+    private final WKBWriter wkbWriter2D = new WKBWriter(2, ByteOrderValues.BIG_ENDIAN, true);
+
+    private final WKBWriter wkbWriter3D = new WKBWriter(3, ByteOrderValues.BIG_ENDIAN, true);
+
+    private int rows = 0;
+
+    BinaryCopyEncoder() {
+	try {
+	    out.write(SIGNATURE);
+	    //flags
+	    out.writeInt(0);
+	    //header extension length
+	    out.writeInt(0);
+	} catch (IOException e) {
+	    //can not happen in memory
+	    throw new IllegalStateException(e);
+	}
+    }
+
+    /**
+     * Start a new row, the values of its columns must then be written with
+     * {@link #writeValue(Object, int)}
+     */
+    void startRow(int numberOfColumns) throws IOException {
+	out.writeShort(numberOfColumns);
+	rows++;
+    }
+
+    /**
+     * @param value
+     *                the value of the column, null, a number, a string, a
+     *                boolean, an enum, a date, a byte array or a geometry
+     * @param sqlType
+     *                the {@link Types} of the column, to know if an enum is
+     *                stored by name or by ordinal and if a date is a
+     *                timestamp
+     */
+    void writeValue(Object value, int sqlType) throws IOException {
+	if (value == null) {
+	    out.writeInt(-1);
+	} else if (value instanceof String) {
+	    writeBytes(toUTF8((String) value));
+	} else if (value instanceof Long) {
+	    out.writeInt(8);
+	    out.writeLong((Long) value);
+	} else if (value instanceof Integer) {
+	    out.writeInt(4);
+	    out.writeInt((Integer) value);
+	} else if (value instanceof Short) {
+	    out.writeInt(2);
+	    out.writeShort((Short) value);
+	} else if (value instanceof Double) {
+	    out.writeInt(8);
+	    out.writeDouble((Double) value);
+	} else if (value instanceof Float) {
+	    out.writeInt(4);
+	    out.writeFloat((Float) value);
+	} else if (value instanceof Boolean) {
+	    out.writeInt(1);
+	    out.writeByte((Boolean) value ? 1 : 0);
+	} else if (value instanceof Character) {
+	    writeBytes(toUTF8(value.toString()));
+	} else if (value instanceof Enum<?>) {
+	    if (isNumeric(sqlType)) {
+		out.writeInt(4);
+		out.writeInt(((Enum<?>) value).ordinal());
+	    } else {
+		writeBytes(toUTF8(((Enum<?>) value).name()));
+	    }
+	} else if (value instanceof Date) {
+	    long time = ((Date) value).getTime();
+	    //timestamp without time zone : the local time, as the jdbc driver does
+	    long localMillis = time + TimeZone.getDefault().getOffset(time) - POSTGRES_EPOCH_MILLIS;
+	    if (sqlType == Types.DATE) {
+		out.writeInt(4);
+		out.writeInt((int) Math.floor(((double) localMillis) / MILLIS_PER_DAY));
+	    } else {
+		out.writeInt(8);
+		out.writeLong(localMillis * 1000);
+	    }
+	} else if (value instanceof byte[]) {
+	    writeBytes((byte[]) value);
+	} else if (value instanceof Geometry) {
+	    writeBytes(toEWKB((Geometry) value));
+	} else {
+	    throw new IllegalArgumentException("can not write a " + value.getClass().getName() + " in a binary copy");
+	}
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+	out.writeInt(bytes.length);
+	out.write(bytes);
+    }
+
+    private static boolean isNumeric(int sqlType) {
+	return sqlType == Types.INTEGER || sqlType == Types.SMALLINT || sqlType == Types.TINYINT
+		|| sqlType == Types.BIGINT || sqlType == Types.NUMERIC;
+    }
+
+    private static byte[] toUTF8(String value) {
+	try {
+	    return value.getBytes("UTF-8");
+	} catch (UnsupportedEncodingException e) {
+	    throw new IllegalStateException(e);
+	}
+    }
+
+    /**
+     * @return the geometry in the extended WKB format of postgis, with the
+     *         WGS84 SRID if the geometry has none
+     */
+    byte[] toEWKB(Geometry geometry) {
+	Geometry withSRID = geometry;
+	if (geometry.getSRID() == 0) {
+	    withSRID = (Geometry) geometry.clone();
+	    withSRID.setSRID(SRID.WGS84_SRID.getSRID());
+	}
+	Double z = geometry.getCoordinate() == null ? Double.NaN : geometry.getCoordinate().z;
+	return (z.isNaN() ? wkbWriter2D : wkbWriter3D).write(withSRID);
+    }
+
+    /**
+     * @return the number of rows that have been started
+     */
+    int getRows() {
+	return rows;
+    }
+
+    /**
+     * Write the trailer of the copy
+     *
+     * @return the data to send to the server
+     */
+    byte[] finish() throws IOException {
+	out.writeShort(-1);
+	out.flush();
+	return buffer.toByteArray();
+    }
+
+}
@@ -0,0 +1,492 @@
+/*******************************************************************************
+ * Gisgraphy Project
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *    Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public
+ *    License along with this library; if not, write to the Free Software
+ *    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *   Copyright 2008  Gisgraphy project
+ *
+ *   David Masclet <davidmasclet@gisgraphy.com>
+ ******************************************************************************/
+package com.gisgraphy.domain.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.persistence.PersistenceException;
+
+import org.hibernate.EntityMode;
+import org.hibernate.Session;
+import org.hibernate.cache.UpdateTimestampsCache;
+import org.hibernate.engine.CascadeStyle;
+import org.hibernate.engine.CascadingAction;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.jdbc.Work;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.type.CollectionType;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.support.nativejdbc.CommonsDbcpNativeJdbcExtractor;
+import org.springframework.jdbc.support.nativejdbc.NativeJdbcExtractor;
+import org.springframework.orm.hibernate3.HibernateCallback;
+import org.springframework.orm.hibernate3.support.HibernateDaoSupport;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import com.gisgraphy.domain.geoloc.entity.GisFeature;
+import com.gisgraphy.domain.geoloc.entity.OpenStreetMap;
+import com.gisgraphy.domain.geoloc.entity.event.EventManager;
+import com.gisgraphy.domain.geoloc.entity.event.GisFeatureStoredEvent;
+import com.gisgraphy.street.IStreetFactory;
+import com.gisgraphy.street.StreetFactory;
+
+/**
+ * {@link IBulkWriter} that inserts the new entities with the PostgreSQL
+ * <code>COPY ... FROM STDIN WITH BINARY</code> command, one copy per table,
+ * instead of one hibernate insert per entity. The tables, the columns and the
+ * ids come from the hibernate mapping, so that the copied rows are the ones
+ * hibernate would have inserted.<br/>
+ * The entities are queued in the current transaction, and written when
+ * {@link #flush()} is called or before the transaction commits. The
+ * {@link GisFeatureStoredEvent}s are sent once the entities are written, so
+ * that the fulltext engine is synchronised as with the daos.<br/>
+ * The connections of the pool must give access to the postgres connection
+ * (see {@link #setNativeJdbcExtractor(NativeJdbcExtractor)}).
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+@Repository
+public class BulkWriter extends HibernateDaoSupport implements IBulkWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkWriter.class);
+
+    private EventManager eventManager;
+
+    private IStreetFactory streetFactory = new StreetFactory();
+
+    private NativeJdbcExtractor nativeJdbcExtractor = new CommonsDbcpNativeJdbcExtractor();
+
+    private final Map<String, Table> tables = new ConcurrentHashMap<String, Table>();
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.gisgraphy.domain.repository.IBulkWriter#save(java.lang.Object)
+     */
+    public void save(final Object entity) {
+	Assert.notNull(entity, "Can not save a null entity");
+	final Batch batch = getCurrentBatch(true);
+	if (batch.contains(entity)) {
+	    //it will be written with its current values
+	    return;
+	}
+	getHibernateTemplate().executeWithNativeSession(new HibernateCallback() {
+	    public Object doInHibernate(Session session) throws PersistenceException {
+		SessionImplementor sessionImplementor = (SessionImplementor) session;
+		AbstractEntityPersister persister = getPersister(entity, sessionImplementor);
+		if (persister.getIdentifier(entity, sessionImplementor) != null) {
+		    session.saveOrUpdate(entity);
+		} else {
+		    add(batch, entity, persister, 0, sessionImplementor);
+		}
+		return null;
+	    }
+	});
+	batch.stored.add(entity);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.gisgraphy.domain.repository.IBulkWriter#flush()
+     */
+    public void flush() {
+	Batch batch = getCurrentBatch(false);
+	if (batch != null) {
+	    write(batch);
+	}
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.gisgraphy.domain.repository.IBulkWriter#getPendingEntities()
+     */
+    public int getPendingEntities() {
+	Batch batch = getCurrentBatch(false);
+	return batch == null ? 0 : batch.size();
+    }
+
+    private Batch getCurrentBatch(boolean create) {
+	Batch batch = (Batch) TransactionSynchronizationManager.getResource(this);
+	if (batch == null && create) {
+	    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+		throw new IllegalStateException("The entities can only be bulk written in a transaction");
+	    }
+	    batch = new Batch();
+	    TransactionSynchronizationManager.bindResource(this, batch);
+	    TransactionSynchronizationManager.registerSynchronization(new BatchSynchronization(batch));
+	}
+	return batch;
+    }
+
+    private AbstractEntityPersister getPersister(Object entity, SessionImplementor session) {
+	return (AbstractEntityPersister) session.getEntityPersister(null, entity);
+    }
+
+    /**
+     * Set the id of the entity and queue it, then do the same for the new
+     * entities of its one to many associations that cascade
+     */
+    private void add(Batch batch, Object entity, AbstractEntityPersister persister, int depth, SessionImplementor session) {
+	Serializable id = persister.getIdentifierGenerator().generate(session, entity);
+	persister.setIdentifier(entity, id, session);
+	batch.add(getTable(persister, session.getFactory()), entity, depth);
+	Object[] values = persister.getPropertyValues(entity, EntityMode.POJO);
+	Type[] types = persister.getPropertyTypes();
+	CascadeStyle[] cascadeStyles = persister.getPropertyCascadeStyles();
+	for (int i = 0; i < types.length; i++) {
+	    if (!types[i].isCollectionType() || values[i] == null) {
+		continue;
+	    }
+	    Collection<?> elements = values[i] instanceof Map<?, ?> ? ((Map<?, ?>) values[i]).values() : (Collection<?>) values[i];
+	    if (elements.isEmpty()) {
+		continue;
+	    }
+	    CollectionPersister collectionPersister = session.getFactory().getCollectionPersister(((CollectionType) types[i]).getRole());
+	    if (!collectionPersister.isOneToMany() || !collectionPersister.isInverse()) {
+		throw new UnsupportedOperationException("Can not bulk write " + collectionPersister.getRole()
+			+ " : only the associations that are owned by their elements are supported");
+	    }
+	    if (!cascadeStyles[i].doCascade(CascadingAction.SAVE_UPDATE)) {
+		continue;
+	    }
+	    for (Object element : elements) {
+		AbstractEntityPersister elementPersister = getPersister(element, session);
+		if (elementPersister.getIdentifier(element, session) == null) {
+		    add(batch, element, elementPersister, depth + 1, session);
+		}
+	    }
+	}
+    }
+
+    private Table getTable(AbstractEntityPersister persister, SessionFactoryImplementor factory) {
+	Table table = tables.get(persister.getEntityName());
+	if (table == null) {
+	    table = new Table(persister, factory);
+	    tables.put(persister.getEntityName(), table);
+	}
+	return table;
+    }
+
+    private void write(final Batch batch) {
+	for (Object entity : batch.stored) {
+	    //as the dao does, now that the house numbers have an id
+	    if (entity instanceof OpenStreetMap && ((OpenStreetMap) entity).isHouseNumbersChanged()) {
+		((OpenStreetMap) entity).encodeHouseNumbers();
+	    }
+	}
+	if (batch.size() != 0) {
+	    long start = System.currentTimeMillis();
+	    getHibernateTemplate().executeWithNativeSession(new HibernateCallback() {
+		public Object doInHibernate(final Session session) throws PersistenceException {
+		    //the rows may reference entities that are saved by hibernate
+		    session.flush();
+		    session.doWork(new Work() {
+			public void execute(Connection connection) throws SQLException {
+			    CopyManager copyManager = getCopyManager(connection);
+			    for (Table table : batch.getTablesInInsertOrder()) {
+				copy(copyManager, table, batch.rows.get(table), (SessionImplementor) session);
+			    }
+			}
+		    });
+		    //the cached queries on these tables are no more valid
+		    UpdateTimestampsCache updateTimestampsCache = ((SessionImplementor) session).getFactory().getUpdateTimestampsCache();
+		    if (updateTimestampsCache != null) {
+			for (Table table : batch.rows.keySet()) {
+			    updateTimestampsCache.invalidate(table.persister.getQuerySpaces());
+			}
+		    }
+		    return null;
+		}
+	    });
+	    logger.info(batch.size() + " entities have been bulk written in " + (System.currentTimeMillis() - start) + " ms");
+	}
+	List<Object> stored = new ArrayList<Object>(batch.stored);
+	batch.clear();
+	for (Object entity : stored) {
+	    fireStoredEvent(entity);
+	}
+    }
+
+    private CopyManager getCopyManager(Connection connection) throws SQLException {
+	Connection nativeConnection = nativeJdbcExtractor.getNativeConnection(connection);
+	if (!(nativeConnection instanceof PGConnection)) {
+	    throw new DataAccessResourceFailureException("Can not bulk write with a " + nativeConnection.getClass().getName()
+		    + " : a postgres connection is needed, check that the pool gives access to the underlying connection");
+	}
+	return ((PGConnection) nativeConnection).getCopyAPI();
+    }
+
+    private void copy(CopyManager copyManager, Table table, List<Object> entities, SessionImplementor session) throws SQLException {
+	BinaryCopyEncoder encoder = new BinaryCopyEncoder();
+	try {
+	    for (Object entity : entities) {
+		table.encode(entity, encoder, session);
+	    }
+	    copyManager.copyIn(table.copySql, new ByteArrayInputStream(encoder.finish()));
+	} catch (IOException e) {
+	    SQLException sqlException = new SQLException("Can not copy the rows of " + table.persister.getTableName() + " : " + e.getMessage());
+	    sqlException.initCause(e);
+	    throw sqlException;
+	}
+	logger.debug(encoder.getRows() + " rows have been copied in " + table.persister.getTableName());
+    }
+
+    private void fireStoredEvent(Object entity) {
+	if (eventManager == null) {
+	    return;
+	}
+	if (entity instanceof GisFeature) {
+	    eventManager.handleEvent(new GisFeatureStoredEvent((GisFeature) entity));
+	} else if (entity instanceof OpenStreetMap) {
+	    eventManager.handleEvent(new GisFeatureStoredEvent(streetFactory.create((OpenStreetMap) entity)));
+	}
+    }
+
+    /**
+     * @param eventManager
+     *                the eventManager to set
+     */
+    @Autowired
+    public void setEventManager(EventManager eventManager) {
+	this.eventManager = eventManager;
+    }
+
+    /**
+     * @param streetFactory
+     *                the streetFactory to set
+     */
+    public void setStreetFactory(IStreetFactory streetFactory) {
+	this.streetFactory = streetFactory;
+    }
+
+    /**
+     * @param nativeJdbcExtractor
+     *                how to get the postgres connection from the pooled one,
+     *                default to the dbcp one (the
+     *                accessToUnderlyingConnectionAllowed property of the
+     *                data source must be true)
+     */
+    public void setNativeJdbcExtractor(NativeJdbcExtractor nativeJdbcExtractor) {
+	this.nativeJdbcExtractor = nativeJdbcExtractor;
+    }
+
+    /**
+     * The columns of a table, as mapped by hibernate
+     */
+    private static class Table {
+
+	private final AbstractEntityPersister persister;
+
+	private final List<Integer> properties = new ArrayList<Integer>();
+
+	private final int[] sqlTypes;
+
+	private final String copySql;
+
+	private Table(AbstractEntityPersister persister, SessionFactoryImplementor factory) {
+	    this.persister = persister;
+	    List<String> columns = new ArrayList<String>();
+	    List<Integer> types = new ArrayList<Integer>();
+	    String[] identifierColumns = persister.getIdentifierColumnNames();
+	    if (identifierColumns.length != 1) {
+		throw new UnsupportedOperationException("Can not bulk write " + persister.getEntityName() + " : composite ids are not supported");
+	    }
+	    columns.add(identifierColumns[0]);
+	    types.add(persister.getIdentifierType().sqlTypes(factory)[0]);
+	    boolean[] insertability = persister.getPropertyInsertability();
+	    Type[] propertyTypes = persister.getPropertyTypes();
+	    for (int i = 0; i < propertyTypes.length; i++) {
+		if (!insertability[i] || propertyTypes[i].isCollectionType()) {
+		    continue;
+		}
+		String[] propertyColumns = persister.getPropertyColumnNames(i);
+		if (propertyColumns.length == 0) {
+		    continue;
+		}
+		if (propertyColumns.length != 1
+			|| (propertyTypes[i].isEntityType() && !((EntityType) propertyTypes[i]).isReferenceToPrimaryKey())) {
+		    throw new UnsupportedOperationException("Can not bulk write " + persister.getEntityName() + "."
+			    + persister.getPropertyNames()[i] + " : only the properties of one column are supported");
+		}
+		properties.add(i);
+		columns.add(propertyColumns[0]);
+		types.add(propertyTypes[i].sqlTypes(factory)[0]);
+	    }
+	    sqlTypes = new int[types.size()];
+	    for (int i = 0; i < sqlTypes.length; i++) {
+		sqlTypes[i] = types.get(i);
+	    }
+	    StringBuilder sql = new StringBuilder("COPY ").append(persister.getTableName()).append(" (");
+	    for (int i = 0; i < columns.size(); i++) {
+		sql.append(i == 0 ? "" : ", ").append(columns.get(i));
+	    }
+	    copySql = sql.append(") FROM STDIN WITH BINARY").toString();
+	}
+
+	private void encode(Object entity, BinaryCopyEncoder encoder, SessionImplementor session) throws IOException {
+	    Object[] values = persister.getPropertyValues(entity, EntityMode.POJO);
+	    Type[] propertyTypes = persister.getPropertyTypes();
+	    encoder.startRow(sqlTypes.length);
+	    encoder.writeValue(persister.getIdentifier(entity, session), sqlTypes[0]);
+	    for (int i = 0; i < properties.size(); i++) {
+		int property = properties.get(i);
+		Object value = values[property];
+		if (value != null && propertyTypes[property].isEntityType()) {
+		    value = getIdentifier(value, session);
+		}
+		encoder.writeValue(value, sqlTypes[i + 1]);
+	    }
+	}
+
+	private static Object getIdentifier(Object associated, SessionImplementor session) {
+	    if (associated instanceof HibernateProxy) {
+		return ((HibernateProxy) associated).getHibernateLazyInitializer().getIdentifier();
+	    }
+	    Serializable id = session.getEntityPersister(null, associated).getIdentifier(associated, session);
+	    if (id == null) {
+		throw new IllegalStateException("Can not bulk write a reference to an unsaved " + associated.getClass().getSimpleName());
+	    }
+	    return id;
+	}
+    }
+
+    /**
+     * The entities to write in the current transaction, by table
+     */
+    private static class Batch {
+
+	private final Map<Table, List<Object>> rows = new LinkedHashMap<Table, List<Object>>();
+
+	private final Map<Table, Integer> depths = new IdentityHashMap<Table, Integer>();
+
+	private final Map<Object, Boolean> entities = new IdentityHashMap<Object, Boolean>();
+
+	/**
+	 * the saved entities, for the events
+	 */
+	private final List<Object> stored = new ArrayList<Object>();
+
+	private void add(Table table, Object entity, int depth) {
+	    List<Object> tableRows = rows.get(table);
+	    if (tableRows == null) {
+		tableRows = new ArrayList<Object>();
+		rows.put(table, tableRows);
+		depths.put(table, depth);
+	    } else if (depth < depths.get(table)) {
+		depths.put(table, depth);
+	    }
+	    tableRows.add(entity);
+	    entities.put(entity, Boolean.TRUE);
+	}
+
+	private boolean contains(Object entity) {
+	    return entities.containsKey(entity);
+	}
+
+	private int size() {
+	    return entities.size();
+	}
+
+	/**
+	 * @return the tables, the ones of the saved entities before the ones of
+	 *         their children, for the foreign keys
+	 */
+	private List<Table> getTablesInInsertOrder() {
+	    List<Table> tables = new ArrayList<Table>(rows.keySet());
+	    Collections.sort(tables, new Comparator<Table>() {
+		public int compare(Table table1, Table table2) {
+		    return depths.get(table1).compareTo(depths.get(table2));
+		}
+	    });
+	    return tables;
+	}
+
+	private void clear() {
+	    rows.clear();
+	    depths.clear();
+	    entities.clear();
+	    stored.clear();
+	}
+    }
+
+    /**
+     * Write the entities that are still queued before the transaction
+     * commits, and forget them when it ends
+     */
+    private class BatchSynchronization extends TransactionSynchronizationAdapter {
+
+	private final Batch batch;
+
+	private BatchSynchronization(Batch batch) {
+	    this.batch = batch;
+	}
+
+	@Override
+	public void beforeCommit(boolean readOnly) {
+	    write(batch);
+	}
+
+	@Override
+	public void suspend() {
+	    TransactionSynchronizationManager.unbindResource(BulkWriter.this);
+	}
+
+	@Override
+	public void resume() {
+	    TransactionSynchronizationManager.bindResource(BulkWriter.this, batch);
+	}
+
+	@Override
+	public void afterCompletion(int status) {
+	    TransactionSynchronizationManager.unbindResourceIfPossible(BulkWriter.this);
+	    batch.clear();
+	}
+    }
+
+}
@@ -38,7 +38,7 @@ import com.gisgraphy.domain.geoloc.entity.Adm;
 import com.gisgraphy.domain.geoloc.entity.City;
 import com.gisgraphy.domain.geoloc.entity.OpenStreetMap;
 import com.gisgraphy.domain.geoloc.entity.ZipCode;
-import com.gisgraphy.domain.valueobject.SRID;
+import com.gisgraphy.helper.GisHelper;
 import com.vividsolutions.jts.geom.Point;
 
 /**
@@ -105,14 +105,14 @@ public class CityDao extends GenericGisDao<City> implements ICityDao {
 			    throws PersistenceException {
 		    	//select name,municipality,source,openstreetmapid from city c 
 		    	//where st_contains(c.shape,ST_GeometryFromText('POINT(2.349 48.868)',4326))=true limit 1
-		    String pointAsString = "ST_GeometryFromText('POINT("+location.getX()+" "+location.getY()+")',"+SRID.WGS84_SRID.getSRID()+")";
+		    //the point and the country code are bound, so that the statement is the same for all the calls
 			String queryString = "from " + persistentClass.getSimpleName()
-				+ " as c where st_contains(c.shape,"+pointAsString+")=true ";
+				+ " as c where st_contains(c.shape,"+GisHelper.getPointWithParameters()+")=true ";
 			if (filterMunicipality){
 				queryString+=" and c.municipality=true";
 			}
 			if (countryCode!=null ){
-				queryString+=" and c.countryCode='"+countryCode+"'";
+				queryString+=" and c.countryCode=:countryCode";
 			}
 			queryString = queryString+ " order by st_area(c.shape)";
 			//we need to sort by shape due to error in osm data 
@@ -121,8 +121,11 @@ public class CityDao extends GenericGisDao<City> implements ICityDao {
 			//cause there is the city and the district
 
 			Query qry = session.createQuery(queryString).setMaxResults(1);
+			GisHelper.setPointParameters(qry, location);
+			if (countryCode!=null ){
+				qry.setString("countryCode", countryCode);
+			}
 
-			//qry.setParameter("point2", location);
 			City result = (City) qry.uniqueResult();
 			//initialize
 			if (result!=null){
@@ -141,6 +144,31 @@ public class CityDao extends GenericGisDao<City> implements ICityDao {
 		});
 	}
 	
+	/* (non-Javadoc)
+	 * @see com.gisgraphy.domain.repository.ICityDao#listIdShapeAndMunicipalityByCountryCode(java.lang.String)
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public List<Object[]> listIdShapeAndMunicipalityByCountryCode(final String countryCode) {
+		Assert.notNull(countryCode);
+		return (List<Object[]>) this.getHibernateTemplate().execute(new HibernateCallback() {
+
+		    public Object doInHibernate(Session session)
+			    throws PersistenceException {
+			String queryString = "select c.id, c.shape, c.municipality from " + persistentClass.getSimpleName()
+				+ " as c where c.countryCode=? and c.shape is not null";
+
+			Query qry = session.createQuery(queryString);
+			qry.setParameter(0, countryCode.toUpperCase());
+			qry.setCacheable(false);
+			List<Object[]> result = (List<Object[]>) qry.list();
+			if (result == null) {
+			    return new ArrayList<Object[]>();
+			}
+			return result;
+		    }
+		});
+	}
+	
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public int fixPolygons(){
 		return (Integer) this.getHibernateTemplate().execute(
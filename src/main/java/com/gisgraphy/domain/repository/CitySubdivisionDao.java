@@ -35,7 +35,7 @@ import org.springframework.util.Assert;
 
 import com.gisgraphy.domain.geoloc.entity.City;
 import com.gisgraphy.domain.geoloc.entity.CitySubdivision;
-import com.gisgraphy.domain.valueobject.SRID;
+import com.gisgraphy.helper.GisHelper;
 import com.vividsolutions.jts.geom.Point;
 
 /**
@@ -68,11 +68,11 @@ public class CitySubdivisionDao extends GenericGisDao<CitySubdivision>
 			    throws PersistenceException {
 		    	//select name,municipality,source,openstreetmapid from city c 
 		    	//where st_contains(c.shape,ST_GeometryFromText('POINT(2.349 48.868)',4326))=true limit 1
-		    String pointAsString = "ST_GeometryFromText('POINT("+location.getX()+" "+location.getY()+")',"+SRID.WGS84_SRID.getSRID()+")";
+		    String pointAsString = GisHelper.getPointWithParameters();
 			String queryString = "from " + persistentClass.getSimpleName()
-				+ " as c where c.cityId= "+cityId;
+				+ " as c where c.cityId= :cityId";
 				if (maxDistance !=null && maxDistance >0){
-					queryString += " and ST_Distance_Sphere(c.location, "+pointAsString+" ) < "+maxDistance;
+					queryString += " and ST_Distance_Sphere(c.location, "+pointAsString+" ) < :maxDistance";
 				}
 			queryString = queryString+ " order by ST_Distance_Sphere(c.location, "+pointAsString+" )";
 			//we need to sort by distance due to error in osm data 
@@ -81,8 +81,12 @@ public class CitySubdivisionDao extends GenericGisDao<CitySubdivision>
 			//cause there is the city and the district
 
 			Query qry = session.createQuery(queryString).setMaxResults(1);
+			GisHelper.setPointParameters(qry, location);
+			qry.setLong("cityId", cityId);
+			if (maxDistance !=null && maxDistance >0){
+				qry.setFloat("maxDistance", maxDistance);
+			}
 
-			//qry.setParameter("point2", location);
 			CitySubdivision result = (CitySubdivision) qry.uniqueResult();
 
 			return result;
@@ -128,11 +132,11 @@ public class CitySubdivisionDao extends GenericGisDao<CitySubdivision>
 			    throws PersistenceException {
 		    	//select name,municipality,source,openstreetmapid from city c 
 		    	//where st_contains(c.shape,ST_GeometryFromText('POINT(2.349 48.868)',4326))=true limit 1
-		    String pointAsString = "ST_GeometryFromText('POINT("+location.getX()+" "+location.getY()+")',"+SRID.WGS84_SRID.getSRID()+")";
+		    //the point and the country code are bound, so that the statement is the same for all the calls
 			String queryString = "from " + persistentClass.getSimpleName()
-				+ " as c where st_contains(c.shape,"+pointAsString+")=true ";
+				+ " as c where st_contains(c.shape,"+GisHelper.getPointWithParameters()+")=true ";
 			if (countryCode!=null ){
-				queryString+=" and c.countryCode='"+countryCode+"'";
+				queryString+=" and c.countryCode=:countryCode";
 			}
 			queryString = queryString+ " order by st_area(c.shape)";
 			//we need to sort by shape due to error in osm data 
@@ -141,8 +145,11 @@ public class CitySubdivisionDao extends GenericGisDao<CitySubdivision>
 			//cause there is the city and the district
 
 			Query qry = session.createQuery(queryString).setMaxResults(1);
+			GisHelper.setPointParameters(qry, location);
+			if (countryCode!=null ){
+				qry.setString("countryCode", countryCode);
+			}
 
-			//qry.setParameter("point2", location);
 			CitySubdivision result = (CitySubdivision) qry.uniqueResult();
 
 			return result;
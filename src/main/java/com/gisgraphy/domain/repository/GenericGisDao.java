@@ -32,7 +32,6 @@ import java.util.Set;
 
 import javax.persistence.PersistenceException;
 
-import org.apache.commons.lang.ArrayUtils;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.response.QueryResponse;
@@ -71,11 +70,10 @@ import com.gisgraphy.fulltext.FullTextFields;
 import com.gisgraphy.fulltext.IsolrClient;
 import com.gisgraphy.helper.GeolocHelper;
 import com.gisgraphy.helper.GisHelper;
-import com.gisgraphy.helper.IntrospectionHelper;
 import com.gisgraphy.hibernate.criterion.DistanceRestriction;
+import com.gisgraphy.hibernate.criterion.KNNOrder;
 import com.gisgraphy.hibernate.criterion.ProjectionOrder;
-import com.gisgraphy.hibernate.criterion.ResultTransformerUtil;
-import com.gisgraphy.hibernate.projection.ProjectionBean;
+import com.gisgraphy.hibernate.projection.GisFeatureDistanceMapper;
 import com.gisgraphy.hibernate.projection.SpatialProjection;
 import com.gisgraphy.importer.ImporterConfig;
 import com.vividsolutions.jts.geom.Point;
@@ -110,6 +108,8 @@ public class GenericGisDao<T extends GisFeature> extends
 
     private EventManager eventManager;
 
+    private NearestNeighbourSearch nearestNeighbourSearch;
+
     /**
      * Constructor
      * 
@@ -208,31 +208,39 @@ public class GenericGisDao<T extends GisFeature> extends
 			    throws PersistenceException {
 			Criteria criteria = session
 				.createCriteria(requiredClass);
-			
-			if (maxResults > 0) {
-			    criteria = criteria.setMaxResults(maxResults);
-			}
-			if (firstResult >= 1) {
-			    criteria = criteria.setFirstResult(firstResult - 1);
+			boolean knn = nearestNeighbourSearch != null
+				&& nearestNeighbourSearch.isApplicable(maxResults, includeDistanceField);
+			int numberOfCandidates = 0;
+			if (knn) {
+			    //the page is cut after the candidates are sorted again
+			    numberOfCandidates = nearestNeighbourSearch.getNumberOfCandidates(firstResult, maxResults, point.getY());
+			    criteria = criteria.setMaxResults(numberOfCandidates);
+			} else {
+			    if (maxResults > 0) {
+				criteria = criteria.setMaxResults(maxResults);
+			    }
+			    if (firstResult >= 1) {
+				criteria = criteria.setFirstResult(firstResult - 1);
+			    }
 			}
 			criteria = criteria.add(new DistanceRestriction(point,
 				distance));
-			List<String> fieldList = IntrospectionHelper
-				.getFieldsAsList(requiredClass);
-			ProjectionList projections = ProjectionBean.fieldList(
-				fieldList,true);
+			GisFeatureDistanceMapper mapper = GisFeatureDistanceMapper.getInstance(requiredClass);
+			ProjectionList projections = mapper.createProjectionList();
 			if (includeDistanceField){
 			    projections.add(
 				SpatialProjection.distance_sphere(point,GisFeature.LOCATION_COLUMN_NAME).as(
-					"distance"));
+					GisFeatureDistanceMapper.DISTANCE_ALIAS));
 			}
 			criteria.setProjection(projections);
 			if (pointId != 0) {
 			    // remove The From Point
 			    criteria = criteria.add(Restrictions.not(Restrictions.idEq(pointId)));
 			}
-			if (includeDistanceField){
-			    criteria.addOrder(new ProjectionOrder("distance"));
+			if (knn) {
+			    criteria.addOrder(new KNNOrder(point, GisFeature.LOCATION_COLUMN_NAME));
+			} else if (includeDistanceField){
+			    criteria.addOrder(new ProjectionOrder(GisFeatureDistanceMapper.DISTANCE_ALIAS));
 			}
 			if (isMunicipality && (requiredClass == City.class || requiredClass == GisFeature.class)){
 				criteria.add(Restrictions.eq(City.MUNICIPALITY_FIELD_NAME, isMunicipality));
@@ -240,26 +248,14 @@ public class GenericGisDao<T extends GisFeature> extends
 			
 			criteria.setCacheable(true);
 			List<Object[]> queryResults = criteria.list();
-			
-			String[] aliasList;
-			if (includeDistanceField){
-			aliasList = (String[]) ArrayUtils
-				.add(
-					IntrospectionHelper
-						.getFieldsAsArray(requiredClass),
-					"distance");
-			} else {
-			    aliasList = IntrospectionHelper
-				.getFieldsAsArray(requiredClass);
-			}
-			int idPropertyIndexInAliasList=0;
-			for (int i=0;i<aliasList.length;i++){
-			    if (aliasList[i]=="id"){
-				idPropertyIndexInAliasList = i;
-				break;
-			    }
+			while (knn && !nearestNeighbourSearch.containsTheNearest(queryResults, projections.getLength() - 1,
+				numberOfCandidates, firstResult, maxResults, point.getY())) {
+			    numberOfCandidates = nearestNeighbourSearch.getNextNumberOfCandidates(numberOfCandidates);
+			    queryResults = criteria.setMaxResults(numberOfCandidates).list();
 			}
 			
+			int idPropertyIndexInAliasList = mapper.getIdIndex();
+			
 			
 			boolean hasZipCodesProperty = ZipCodesAware.class.isAssignableFrom(requiredClass);
 			Map<Long, Set<String>> idToZipCodesMap = null;
@@ -289,10 +285,11 @@ public class GenericGisDao<T extends GisFeature> extends
 			    }
 			}
 			}
-			List<GisFeatureDistance> results = ResultTransformerUtil
-			.transformToGisFeatureDistance(
-					aliasList,
-				queryResults,idToZipCodesMap,requiredClass);
+			List<GisFeatureDistance> results = mapper.transform(queryResults, idToZipCodesMap);
+			if (knn) {
+			    results = nearestNeighbourSearch.rerank(results, firstResult, maxResults,
+				    NearestNeighbourSearch.GIS_FEATURE_DISTANCE_COMPARATOR);
+			}
 			return results;
 		    }
 		});
@@ -625,6 +622,16 @@ public class GenericGisDao<T extends GisFeature> extends
     public void setEventManager(EventManager eventManager) {
 	this.eventManager = eventManager;
     }
+
+    /**
+     * @param nearestNeighbourSearch
+     *                the configuration of the k nearest neighbour mode of
+     *                {@link #getNearestAndDistanceFrom(Point, double, int, int, boolean, boolean)},
+     *                if null the results are sorted on their distance
+     */
+    public void setNearestNeighbourSearch(NearestNeighbourSearch nearestNeighbourSearch) {
+	this.nearestNeighbourSearch = nearestNeighbourSearch;
+    }
     
     
     /* (non-Javadoc)
@@ -806,7 +813,32 @@ public class GenericGisDao<T extends GisFeature> extends
 		}
 		return 0;
 	}
-    
+	
+	/* (non-Javadoc)
+	 * @see com.gisgraphy.domain.repository.IGisDao#listIdAndShapeByCountryCode(java.lang.String)
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public List<Object[]> listIdAndShapeByCountryCode(final String countryCode) {
+		Assert.notNull(countryCode);
+		return (List<Object[]>) this.getHibernateTemplate().execute(
+				new HibernateCallback() {
+
+				    public Object doInHibernate(Session session)
+					    throws PersistenceException {
+					String queryString = "select o.id, o.shape from "
+						+ persistentClass.getSimpleName()
+						+ " as o where o.countryCode=? and o.shape is not null";
 
+					Query qry = session.createQuery(queryString);
+					qry.setParameter(0, countryCode.toUpperCase());
+					qry.setCacheable(false);
+					List<Object[]> result = (List<Object[]>) qry.list();
+					if (result == null) {
+					    return new ArrayList<Object[]>();
+					}
+					return result;
+				    }
+				});
+	}
     
 }
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Gisgraphy Project
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *    Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public
+ *    License along with this library; if not, write to the Free Software
+ *    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *   Copyright 2008  Gisgraphy project
+ *
+ *   David Masclet <davidmasclet@gisgraphy.com>
+ ******************************************************************************/
+package com.gisgraphy.domain.repository;
+
+/**
+ * Write a lot of new entities in the datastore, faster than the dao does.
+ * The entities are queued in the current transaction and written by batch,
+ * when {@link #flush()} is called or before the transaction commits.
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public interface IBulkWriter {
+
+    /**
+     * Save an entity. If it is new, its id and the ids of the new entities it
+     * cascades to (alternate names, zip codes, house numbers,...) are set and
+     * they are queued to be inserted. An entity that already has an id is
+     * updated by hibernate.
+     *
+     * @param entity
+     *                the entity to save, the
+     *                {@link com.gisgraphy.domain.geoloc.entity.event.GisFeatureStoredEvent}
+     *                is sent when it is written if it is a feature or a
+     *                street
+     */
+    public void save(Object entity);
+
+    /**
+     * Write the queued entities of the current transaction
+     */
+    public void flush();
+
+    /**
+     * @return the number of entities queued in the current transaction (the
+     *         cascaded ones included)
+     */
+    public int getPendingEntities();
+
+}
@@ -52,6 +52,14 @@ public interface ICityDao extends IGisDao<City> {
      */
     public City getByShape(Point location,final String countryCode,boolean filterMunicipality);
     
+    /**
+     * @return the id, the shape and the municipality flag
+     *         (Object[]{Long,Geometry,Boolean}) of all the cities of the
+     *         specified country that have a shape. it is useful to build an
+     *         in memory spatial index
+     */
+    public List<Object[]> listIdShapeAndMunicipalityByCountryCode(String countryCode);
+    
     /**
      * run an sql request that transfrom linestring to polygon
      * return the number of polygons modify
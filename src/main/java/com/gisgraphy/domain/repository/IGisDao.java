@@ -262,4 +262,13 @@ public interface IGisDao<T> extends IDao<T, java.lang.Long> {
      *                 if thrown by JDBC API
      */
     public long countByCountryCode(String countryCode);
+    
+    /**
+     * @param countryCode
+     *                the country code of the features
+     * @return the id and the shape (Object[]{Long,Geometry}) of all the
+     *         features of the specified country that have a shape. it is
+     *         useful to build an in memory spatial index
+     */
+    public List<Object[]> listIdAndShapeByCountryCode(String countryCode);
 }
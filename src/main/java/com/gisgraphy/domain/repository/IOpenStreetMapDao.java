@@ -186,4 +186,50 @@ public interface IOpenStreetMapDao extends IDao<OpenStreetMap, java.lang.Long> {
     
     public long countByCountryCode(String countryCode);
     
+    /**
+     * List the streets by gid, to export them (keyset pagination)
+     * 
+     * @param fromGid
+     *                the gid to start after (exclusive)
+     * @param maxResults
+     *                the maximum number of streets to return
+     * @return an array of gid, streetType, name and shape for each street
+     *         that has a shape, ordered by gid
+     */
+    public List<Object[]> listGidStreetTypeNameAndShape(long fromGid, int maxResults);
+
+    /**
+     * List the streets of a country by gid (keyset pagination)
+     * 
+     * @param countryCode
+     *                the country code of the streets
+     * @param fromGid
+     *                the gid to start after (exclusive)
+     * @param maxResults
+     *                the maximum number of streets to return
+     * @return an array of gid, name and shape for each street of the
+     *         country that has a shape, ordered by gid
+     */
+    public List<Object[]> listGidNameAndShapeByCountryCode(String countryCode, long fromGid, int maxResults);
+
+    /**
+     * @param countryCode
+     *                the country code of the streets
+     * @param fromGid
+     *                the lowest gid of the streets (exclusive)
+     * @param toGid
+     *                the highest gid of the streets (inclusive)
+     * @return an array of gid and alternate name for each alternate name of
+     *         the streets of the country whose gid is in the range
+     */
+    public List<Object[]> listAlternateNamesByCountryCode(String countryCode, long fromGid, long toGid);
+
+    /**
+     * Remove the encoded house numbers of all the streets (see
+     * {@link OpenStreetMap#getEncodedHouseNumbers()})
+     * 
+     * @return the number of streets that have been updated
+     */
+    public int clearEncodedHouseNumbers();
+    
 }
@@ -44,7 +44,31 @@ public interface ISolRSynchroniser {
     public void handleEvent(IEvent event);
 
     /**
-     * Send a commit to the full text search engine
+     * Read what is needed from the entities of the event (e.g : build the
+     * document of a stored feature), so that the returned event can be
+     * handled from an other thread with {@link #handleEvent(IEvent)}
+     * 
+     * @param event
+     *            The event to prepare
+     * @return the event to handle, that does not hold any entity, or null if
+     *         there is nothing to synchronise
+     * @see com.gisgraphy.domain.geoloc.entity.event.IAsynchronousEventListener
+     */
+    public IEvent prepare(IEvent event);
+
+    /**
+     * Send the documents that are waiting in the indexing pipeline (if the
+     * batch mode is enabled) and wait until they are sent. It does not commit.
+     * Importers can call it to be sure that all the features are sent.
+     * 
+     * @throws com.gisgraphy.geoloc.GisgraphyCommunicationException
+     *             if some documents can not be sent
+     */
+    public void flush();
+
+    /**
+     * Send a commit to the full text search engine. The pending documents are
+     * flushed before.
      * 
      * @return true if success or false other case. it does not throw exception
      *         because the commit may not be required because of the auto commit
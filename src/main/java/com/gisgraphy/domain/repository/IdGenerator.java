@@ -91,11 +91,16 @@ public class IdGenerator implements IIdGenerator {
 		return openstreetmapGid.get();
 	}
 
-	private AtomicLong featureId ;
+	private final AtomicLong featureId = new AtomicLong();
 	
 	
-	private AtomicLong openstreetmapGid;
+	private final AtomicLong openstreetmapGid = new AtomicLong();
 
+	/**
+	 * Set the ids to the max ones in the database. The ids never decrease :
+	 * an importer can sync while an other one is still taking ids, the ids
+	 * that are already given are not given again.
+	 */
 	@PostConstruct
 	public void sync() {
 		//order is important
@@ -109,7 +114,7 @@ public class IdGenerator implements IIdGenerator {
 		if (maxGidInDatabase<OPENSTREETMAP_GID_NO_CONFLICT){
 			maxGidInDatabase= OPENSTREETMAP_GID_NO_CONFLICT;
 		}
-		openstreetmapGid = new AtomicLong(Math.max(featureId.get(), maxGidInDatabase));
+		raiseTo(openstreetmapGid, Math.max(featureId.get(), maxGidInDatabase));
 		
 	}
 
@@ -121,7 +126,17 @@ public class IdGenerator implements IIdGenerator {
 		if(maxFeatureIdInDatabase<FEATUREID_INCREMENT_NO_CONFLICT){
 		    maxFeatureIdInDatabase = FEATUREID_INCREMENT_NO_CONFLICT;
 		}
-		featureId = new AtomicLong(maxFeatureIdInDatabase);
+		raiseTo(featureId, maxFeatureIdInDatabase);
+	}
+
+	private static void raiseTo(AtomicLong id, long value) {
+		long current;
+		do {
+			current = id.get();
+			if (current >= value) {
+				return;
+			}
+		} while (!id.compareAndSet(current, value));
 	}
 
 
@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Gisgraphy Project
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *    Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public
+ *    License along with this library; if not, write to the Free Software
+ *    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *   Copyright 2008  Gisgraphy project
+ *
+ *   David Masclet <davidmasclet@gisgraphy.com>
+ ******************************************************************************/
+package com.gisgraphy.domain.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.gisgraphy.domain.valueobject.GisFeatureDistance;
+import com.gisgraphy.domain.valueobject.StreetDistance;
+
+/**
+ * Configure the k nearest neighbour mode of the geoloc and street searches :
+ * when it is enabled the candidates are read in the order of the GIST index
+ * (see {@link com.gisgraphy.hibernate.criterion.KNNOrder}) and only the first
+ * results plus a margin are sorted again with their exact distance, the
+ * number of rows that are read does not depend on the radius anymore.<br>
+ * The index order is the cartesian distance in degrees : at the latitude
+ * <code>lat</code>, a degree of longitude is <code>cos(lat)</code> times
+ * shorter than a degree of latitude, so the k nearest places in meters are
+ * among the <code>k / cos(lat)</code> nearest in degrees (if the places are
+ * evenly spread). The number of candidates is scaled accordingly (up to
+ * {@link #MAX_LATITUDE}) and the margin is added. If the places are not evenly
+ * spread, the candidates are read again, twice as many, until they contain
+ * the nearest places (see {@link #containsTheNearest(List, int, int, int, int, double)}).
+ * A geography order (<code>::geography &lt;-&gt;</code>) would be exact but
+ * can not use the GIST index of the geometry columns.
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class NearestNeighbourSearch {
+
+    public static final int DEFAULT_MARGIN = 10;
+
+    /**
+     * The latitude above which the number of candidates is not increased
+     * anymore (it would be 11 times the results at 85 degrees)
+     */
+    public static final double MAX_LATITUDE = 85;
+
+    /**
+     * Sort the places by distance, the ones without distance at the end
+     */
+    public static final Comparator<GisFeatureDistance> GIS_FEATURE_DISTANCE_COMPARATOR = new Comparator<GisFeatureDistance>() {
+	public int compare(GisFeatureDistance o1, GisFeatureDistance o2) {
+	    return compareDistances(o1.getDistance(), o2.getDistance());
+	}
+    };
+
+    /**
+     * Sort the streets by distance, the ones without distance at the end
+     */
+    public static final Comparator<StreetDistance> STREET_DISTANCE_COMPARATOR = new Comparator<StreetDistance>() {
+	public int compare(StreetDistance o1, StreetDistance o2) {
+	    return compareDistances(o1.getDistance(), o2.getDistance());
+	}
+    };
+
+    private static final Comparator<Double> DISTANCE_COMPARATOR = new Comparator<Double>() {
+	public int compare(Double o1, Double o2) {
+	    return compareDistances(o1, o2);
+	}
+    };
+
+    private boolean enabled = false;
+
+    private int margin = DEFAULT_MARGIN;
+
+    static int compareDistances(Double distance1, Double distance2) {
+	if (distance1 == null) {
+	    return distance2 == null ? 0 : 1;
+	} else if (distance2 == null) {
+	    return -1;
+	}
+	return distance1.compareTo(distance2);
+    }
+
+    /**
+     * @param maxResults
+     *                the maximum number of results of the search
+     * @param sortedByDistance
+     *                whether the results must be sorted by distance
+     * @return true if the search should use the k nearest neighbour mode :
+     *         it is enabled, there is a limit and a distance to sort on
+     */
+    public boolean isApplicable(int maxResults, boolean sortedByDistance) {
+	return enabled && maxResults > 0 && sortedByDistance;
+    }
+
+    /**
+     * @param firstResult
+     *                the first result of the page, numbered from 1, if < 1
+     *                it is not taken into account
+     * @param maxResults
+     *                the maximum number of results of the page
+     * @param latitude
+     *                the latitude of the point of the search
+     * @return the number of candidates to read in the index order
+     */
+    public int getNumberOfCandidates(int firstResult, int maxResults, double latitude) {
+	double candidates = Math.ceil((Math.max(firstResult - 1, 0) + maxResults) / getCosine(latitude)) + margin;
+	return (int) Math.min(candidates, Integer.MAX_VALUE);
+    }
+
+    /**
+     * A place that has not been read is farther in degrees than all the
+     * candidates, so it is farther in meters than the farthest candidate
+     * multiplied by <code>cos(lat)</code> : if this distance is greater than
+     * the one of the last result of the page, the page is exact. The latitude
+     * of the search is used for all the candidates, it is an approximation for
+     * the large radius.
+     *
+     * @param rows
+     *                the candidates read in the index order
+     * @param distanceIndex
+     *                the index of the exact distance (in meters) in the rows
+     * @param numberOfCandidates
+     *                the number of candidates that were read
+     * @param firstResult
+     *                the first result of the page, numbered from 1, if < 1
+     *                it is not taken into account
+     * @param maxResults
+     *                the maximum number of results of the page
+     * @param latitude
+     *                the latitude of the point of the search
+     * @return true if the candidates contain the nearest places of the page,
+     *         or all the places of the restrictions
+     */
+    public boolean containsTheNearest(List<Object[]> rows, int distanceIndex, int numberOfCandidates,
+	    int firstResult, int maxResults, double latitude) {
+	if (rows == null || rows.size() < numberOfCandidates || numberOfCandidates == Integer.MAX_VALUE) {
+	    return true;
+	}
+	List<Double> distances = new ArrayList<Double>(rows.size());
+	for (Object[] row : rows) {
+	    distances.add((Double) row[distanceIndex]);
+	}
+	Collections.sort(distances, DISTANCE_COMPARATOR);
+	int last = Math.min(Math.max(firstResult - 1, 0) + maxResults, distances.size()) - 1;
+	Double lastResultDistance = distances.get(last);
+	Double farthestDistance = distances.get(distances.size() - 1);
+	if (lastResultDistance == null || farthestDistance == null) {
+	    return true;
+	}
+	return farthestDistance * getCosine(latitude) >= lastResultDistance;
+    }
+
+    /**
+     * @param numberOfCandidates
+     *                the number of candidates that were read
+     * @return the number of candidates to read when they don't contain the
+     *         nearest places
+     */
+    public int getNextNumberOfCandidates(int numberOfCandidates) {
+	return (int) Math.min(numberOfCandidates * 2L, Integer.MAX_VALUE);
+    }
+
+    private static double getCosine(double latitude) {
+	return Math.cos(Math.toRadians(Math.min(Math.abs(latitude), MAX_LATITUDE)));
+    }
+
+    /**
+     * Sort the candidates with their exact distance and return the page
+     *
+     * @param candidates
+     *                the candidates read in the index order
+     * @param firstResult
+     *                the first result of the page, numbered from 1, if < 1
+     *                it is not taken into account
+     * @param maxResults
+     *                the maximum number of results of the page
+     * @param comparator
+     *                the comparator of the exact distances
+     * @return the results of the page (never null)
+     */
+    public <T> List<T> rerank(List<T> candidates, int firstResult,
+	    int maxResults, Comparator<? super T> comparator) {
+	if (candidates == null || candidates.isEmpty()) {
+	    return new ArrayList<T>();
+	}
+	List<T> sorted = new ArrayList<T>(candidates);
+	//stable : the candidates at the same distance keep the index order
+	Collections.sort(sorted, comparator);
+	int from = Math.min(Math.max(firstResult - 1, 0), sorted.size());
+	int to = Math.min(from + maxResults, sorted.size());
+	return new ArrayList<T>(sorted.subList(from, to));
+    }
+
+    /**
+     * @return whether the k nearest neighbour mode is enabled
+     */
+    public boolean isEnabled() {
+	return enabled;
+    }
+
+    /**
+     * @param enabled
+     *                whether the k nearest neighbour mode is enabled,
+     *                default to false
+     */
+    public void setEnabled(boolean enabled) {
+	this.enabled = enabled;
+    }
+
+    /**
+     * @return the number of candidates that are read after the scaled
+     *         number of results
+     */
+    public int getMargin() {
+	return margin;
+    }
+
+    /**
+     * @param margin
+     *                the number of candidates that are read after the scaled
+     *                number of results, for the places that are not evenly
+     *                spread, default to
+     *                {@link #DEFAULT_MARGIN}
+     */
+    public void setMargin(int margin) {
+	if (margin < 0) {
+	    throw new IllegalArgumentException("the margin can not be negative");
+	}
+	this.margin = margin;
+    }
+
+}
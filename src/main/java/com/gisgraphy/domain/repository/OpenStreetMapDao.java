@@ -34,6 +34,7 @@ import org.apache.commons.lang.NotImplementedException;
 import org.hibernate.Criteria;
 import org.hibernate.FetchMode;
 import org.hibernate.Query;
+import org.hibernate.SQLQuery;
 import org.hibernate.Session;
 import org.hibernate.criterion.ProjectionList;
 import org.hibernate.criterion.Restrictions;
@@ -55,14 +56,13 @@ import com.gisgraphy.domain.geoloc.entity.event.GisFeatureDeletedEvent;
 import com.gisgraphy.domain.geoloc.entity.event.GisFeatureStoredEvent;
 import com.gisgraphy.domain.geoloc.entity.event.PlaceTypeDeleteAllEvent;
 import com.gisgraphy.domain.valueobject.GisgraphyConfig;
-import com.gisgraphy.domain.valueobject.SRID;
 import com.gisgraphy.domain.valueobject.StreetDistance;
 import com.gisgraphy.helper.GeolocHelper;
+import com.gisgraphy.helper.GisHelper;
 import com.gisgraphy.helper.IntrospectionHelper;
 import com.gisgraphy.helper.StringHelper;
-import com.gisgraphy.hibernate.criterion.DistanceRestriction;
 import com.gisgraphy.hibernate.criterion.IntersectsRestriction;
-import com.gisgraphy.hibernate.criterion.NativeSQLOrder;
+import com.gisgraphy.hibernate.criterion.KNNOrder;
 import com.gisgraphy.hibernate.criterion.ProjectionOrder;
 import com.gisgraphy.hibernate.criterion.ResultTransformerUtil;
 import com.gisgraphy.hibernate.projection.ProjectionBean;
@@ -71,6 +71,7 @@ import com.gisgraphy.street.IStreetFactory;
 import com.gisgraphy.street.StreetFactory;
 import com.gisgraphy.street.StreetSearchMode;
 import com.gisgraphy.street.StreetType;
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Point;
 import com.vividsolutions.jts.geom.Polygon;
 
@@ -87,6 +88,8 @@ public class OpenStreetMapDao extends GenericDao<OpenStreetMap, Long> implements
 
 	private EventManager eventManager;
 
+	private NearestNeighbourSearch nearestNeighbourSearch;
+
 	/**
 	 * The logger
 	 */
@@ -95,6 +98,24 @@ public class OpenStreetMapDao extends GenericDao<OpenStreetMap, Long> implements
 
 	protected static final int DEFAULT_DISTANCE = 7000;
 
+	private static final String NEAREST_SELECT = "select {o.*} from openstreetmap o where ";
+
+	/**
+	 * order by the distance to the nearest point of the shape, the point is
+	 * bound (see {@link GisHelper#getPointWithParameters()})
+	 */
+	private static final String NEAREST_ORDER = new StringBuffer(" order by ")
+	.append(DISTANCE_SPHERE_FUNCTION)
+	.append("(")
+	.append(GisHelper.getPointWithParameters())
+	.append(",")
+	.append(SpatialProjection.ST_CLOSEST_POINT)
+	.append("(o.").append(OpenStreetMap.SHAPE_COLUMN_NAME)
+	.append(",")
+	.append(GisHelper.getPointWithParameters())
+	.append("))")
+	.toString();
+
 	/**
 	 * Default constructor
 	 */
@@ -140,14 +161,24 @@ public class OpenStreetMapDao extends GenericDao<OpenStreetMap, Long> implements
 											"distance"));
 						}
 						criteria.setProjection(projections);
-						if (includeDistanceField && point !=null){
-							criteria.addOrder(new ProjectionOrder("distance"));
-						}
-						if (maxResults > 0) {
-							criteria = criteria.setMaxResults(maxResults);
-						}
-						if (firstResult >= 1) {
-							criteria = criteria.setFirstResult(firstResult - 1);
+						boolean knn = point != null && nearestNeighbourSearch != null
+								&& nearestNeighbourSearch.isApplicable(maxResults, includeDistanceField);
+						int numberOfCandidates = 0;
+						if (knn) {
+							//the page is cut after the candidates are sorted again
+							criteria.addOrder(new KNNOrder(point, OpenStreetMap.SHAPE_COLUMN_NAME));
+							numberOfCandidates = nearestNeighbourSearch.getNumberOfCandidates(firstResult, maxResults, point.getY());
+							criteria = criteria.setMaxResults(numberOfCandidates);
+						} else {
+							if (includeDistanceField && point !=null){
+								criteria.addOrder(new ProjectionOrder("distance"));
+							}
+							if (maxResults > 0) {
+								criteria = criteria.setMaxResults(maxResults);
+							}
+							if (firstResult >= 1) {
+								criteria = criteria.setFirstResult(firstResult - 1);
+							}
 						}
 						if (point!=null){
 							Polygon polygonBox = GeolocHelper.createPolygonBox(point.getX(), point.getY(), distance);
@@ -173,6 +204,11 @@ public class OpenStreetMapDao extends GenericDao<OpenStreetMap, Long> implements
 						criteria.setCacheable(true);
 						// List<Object[]> queryResults =testCriteria.list();
 						List<?> queryResults = criteria.list();
+						while (knn && !nearestNeighbourSearch.containsTheNearest((List<Object[]>) queryResults, projections.getLength() - 1,
+								numberOfCandidates, firstResult, maxResults, point.getY())) {
+							numberOfCandidates = nearestNeighbourSearch.getNextNumberOfCandidates(numberOfCandidates);
+							queryResults = criteria.setMaxResults(numberOfCandidates).list();
+						}
 
 						if (queryResults != null && queryResults.size()!=0){
 							String[] propertiesNameArray ;
@@ -190,6 +226,10 @@ public class OpenStreetMapDao extends GenericDao<OpenStreetMap, Long> implements
 									.transformToStreetDistance(
 											propertiesNameArray,
 											queryResults);
+							if (knn) {
+								results = nearestNeighbourSearch.rerank(results, firstResult, maxResults,
+										NearestNeighbourSearch.STREET_DISTANCE_COMPARATOR);
+							}
 							return results;
 						} else {
 							return new ArrayList<StreetDistance>();
@@ -364,6 +404,10 @@ public class OpenStreetMapDao extends GenericDao<OpenStreetMap, Long> implements
 	@Override
 	public OpenStreetMap save(OpenStreetMap openStreetMap) {
 		OpenStreetMap savedEntity = super.save(openStreetMap);
+		//after the save, the new house numbers have an id. the blob is only encoded again if a house has been added
+		if (savedEntity.isHouseNumbersChanged()) {
+			savedEntity.encodeHouseNumbers();
+		}
 		Street street = streetFactory.create(savedEntity);
 		GisFeatureStoredEvent CreatedEvent = new GisFeatureStoredEvent(
 				street);
@@ -372,6 +416,76 @@ public class OpenStreetMapDao extends GenericDao<OpenStreetMap, Long> implements
 	}
 	
 
+	/* (non-Javadoc)
+	 * @see com.gisgraphy.domain.repository.IOpenStreetMapDao#listGidStreetTypeNameAndShape(long, int)
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Object[]> listGidStreetTypeNameAndShape(final long fromGid, final int maxResults) {
+		return (List<Object[]>) this.getHibernateTemplate().execute(
+				new HibernateCallback() {
+
+					public Object doInHibernate(Session session)
+							throws PersistenceException {
+						String queryString = "select o.gid, o.streetType, o.name, o."+OpenStreetMap.SHAPE_COLUMN_NAME+" from " + persistentClass.getSimpleName()
+								+ " as o where o.gid > ? and o."+OpenStreetMap.SHAPE_COLUMN_NAME+" is not null order by o.gid";
+
+						Query qry = session.createQuery(queryString);
+						qry.setParameter(0, fromGid);
+						qry.setMaxResults(maxResults);
+						qry.setCacheable(false);
+						return qry.list();
+					}
+				});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.gisgraphy.domain.repository.IOpenStreetMapDao#listGidNameAndShapeByCountryCode(java.lang.String, long, int)
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Object[]> listGidNameAndShapeByCountryCode(final String countryCode, final long fromGid, final int maxResults) {
+		Assert.notNull(countryCode);
+		return (List<Object[]>) this.getHibernateTemplate().execute(
+				new HibernateCallback() {
+
+					public Object doInHibernate(Session session)
+							throws PersistenceException {
+						String queryString = "select o.gid, o.name, o."+OpenStreetMap.SHAPE_COLUMN_NAME+" from " + persistentClass.getSimpleName()
+								+ " as o where o.countryCode = ? and o.gid > ? and o."+OpenStreetMap.SHAPE_COLUMN_NAME+" is not null order by o.gid";
+
+						Query qry = session.createQuery(queryString);
+						qry.setParameter(0, countryCode.toUpperCase());
+						qry.setParameter(1, fromGid);
+						qry.setMaxResults(maxResults);
+						qry.setCacheable(false);
+						return qry.list();
+					}
+				});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.gisgraphy.domain.repository.IOpenStreetMapDao#listAlternateNamesByCountryCode(java.lang.String, long, long)
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Object[]> listAlternateNamesByCountryCode(final String countryCode, final long fromGid, final long toGid) {
+		Assert.notNull(countryCode);
+		return (List<Object[]>) this.getHibernateTemplate().execute(
+				new HibernateCallback() {
+
+					public Object doInHibernate(Session session)
+							throws PersistenceException {
+						String queryString = "select o.gid, a.name from " + persistentClass.getSimpleName()
+								+ " as o join o.alternateNames as a where o.countryCode = ? and o.gid > ? and o.gid <= ?";
+
+						Query qry = session.createQuery(queryString);
+						qry.setParameter(0, countryCode.toUpperCase());
+						qry.setParameter(1, fromGid);
+						qry.setParameter(2, toGid);
+						qry.setCacheable(false);
+						return qry.list();
+					}
+				});
+	}
+
 	public String getShapeAsWKTByGId(final Long gid) {
 		if (gid ==null){
 			return null;
@@ -427,6 +541,25 @@ public class OpenStreetMapDao extends GenericDao<OpenStreetMap, Long> implements
 		return numberOfOpenStreetMapDeleted;
 	}
 
+	/* (non-Javadoc)
+	 * @see com.gisgraphy.domain.repository.IOpenStreetMapDao#clearEncodedHouseNumbers()
+	 */
+	public int clearEncodedHouseNumbers() {
+		return (Integer) this.getHibernateTemplate().execute(
+				new HibernateCallback() {
+
+					public Object doInHibernate(Session session)
+							throws PersistenceException {
+						String queryString = "update "
+								+ OpenStreetMap.class.getSimpleName()
+								+ " set encodedHouseNumbers = null where encodedHouseNumbers is not null";
+
+						Query qry = session.createQuery(queryString);
+						return qry.executeUpdate();
+					}
+				});
+	}
+
 
 	public OpenStreetMap getByOpenStreetMapId(final Long openstreetmapId) {
 		Assert.notNull(openstreetmapId);
@@ -474,49 +607,19 @@ public class OpenStreetMapDao extends GenericDao<OpenStreetMap, Long> implements
 	}
 
 	public OpenStreetMap getNearestByosmIds(final Point point,final List<Long> ids) {
-		if (ids==null || ids.size()==0){
-			return null;
-		}
-		return (OpenStreetMap) this.getHibernateTemplate().execute(
-				new HibernateCallback() {
-
-					public Object doInHibernate(Session session)
-							throws PersistenceException {
-
-						Criteria criteria = session
-								.createCriteria(OpenStreetMap.class);
-
-						criteria.add(new DistanceRestriction(point,DEFAULT_DISTANCE,true));
-						criteria.add(Restrictions.in("openstreetmapId", ids));
-
-						String pointAsString = "ST_GeometryFromText('POINT("+point.getX()+" "+point.getY()+")',"+SRID.WGS84_SRID.getSRID()+")";
-						String distanceCondition = new StringBuffer()
-						.append(DISTANCE_SPHERE_FUNCTION)
-						.append("(")
-						.append(pointAsString)
-						.append(",")
-						.append(SpatialProjection.ST_CLOSEST_POINT)
-						.append("(")
-						.append("this_.").append(OpenStreetMap.SHAPE_COLUMN_NAME)
-						.append(",")
-						.append(pointAsString)
-						.append(")")
-						.append(")")
-						.toString();
-						criteria.addOrder(new NativeSQLOrder(distanceCondition));
-						criteria = criteria.setMaxResults(1);
-						//criteria.setCacheable(true);
-						// List<Object[]> queryResults =testCriteria.list();
-						OpenStreetMap openStreetMap = (OpenStreetMap)criteria.uniqueResult();
-
-						return openStreetMap;
-
-					}
-				});
+		return getNearestByIds(point, ids, "openstreetmapId");
 	}
 	
 	
 	public OpenStreetMap getNearestByGIds(final Point point,final List<Long> ids) {
+		return getNearestByIds(point, ids, "gid");
+	}
+
+	/**
+	 * The point, the distance and the bounding box are bound, so that the
+	 * statement only depends on the number of ids and can be prepared once
+	 */
+	private OpenStreetMap getNearestByIds(final Point point,final List<Long> ids, final String idColumnName) {
 		if (ids==null || ids.size()==0){
 			return null;
 		}
@@ -525,35 +628,21 @@ public class OpenStreetMapDao extends GenericDao<OpenStreetMap, Long> implements
 
 					public Object doInHibernate(Session session)
 							throws PersistenceException {
-
-						Criteria criteria = session
-								.createCriteria(OpenStreetMap.class);
-
-						criteria.add(new DistanceRestriction(point,DEFAULT_DISTANCE,true));
-						criteria.add(Restrictions.in("gid", ids));
-
-						String pointAsString = "ST_GeometryFromText('POINT("+point.getX()+" "+point.getY()+")',"+SRID.WGS84_SRID.getSRID()+")";
-						String distanceCondition = new StringBuffer()
-						.append(DISTANCE_SPHERE_FUNCTION)
-						.append("(")
-						.append(pointAsString)
-						.append(",")
-						.append(SpatialProjection.ST_CLOSEST_POINT)
-						.append("(")
-						.append("this_.").append(OpenStreetMap.SHAPE_COLUMN_NAME)
-						.append(",")
-						.append(pointAsString)
-						.append(")")
-						.append(")")
+						String queryString = new StringBuffer(NEAREST_SELECT)
+						.append("o.").append(idColumnName).append(" in (:ids)")
+						.append(" and ").append(DISTANCE_SPHERE_FUNCTION).append("(o.").append(OpenStreetMap.LOCATION_COLUMN_NAME)
+						.append(",").append(GisHelper.getPointWithParameters()).append(") <= :distance")
+						.append(" and ").append(GisHelper.getBoundingBoxWithParameters("o", OpenStreetMap.LOCATION_COLUMN_NAME))
+						.append(NEAREST_ORDER)
 						.toString();
-						criteria.addOrder(new NativeSQLOrder(distanceCondition));
-						criteria = criteria.setMaxResults(1);
-						//criteria.setCacheable(true);
-						// List<Object[]> queryResults =testCriteria.list();
-						OpenStreetMap openStreetMap = (OpenStreetMap)criteria.uniqueResult();
-
-						
-						return openStreetMap;
+						SQLQuery qry = session.createSQLQuery(queryString);
+						qry.addEntity("o", OpenStreetMap.class);
+						qry.setParameterList("ids", ids);
+						qry.setDouble("distance", DEFAULT_DISTANCE);
+						GisHelper.setPointParameters(qry, point);
+						GisHelper.setBoundingBoxParameters(qry, point.getY(), point.getX(), DEFAULT_DISTANCE);
+						qry.setMaxResults(1);
+						return qry.uniqueResult();
 					}
 				});
 	}
@@ -592,6 +681,17 @@ public class OpenStreetMapDao extends GenericDao<OpenStreetMap, Long> implements
 		this.streetFactory = streetFactory;
 	}
 
+
+	/**
+	 * @param nearestNeighbourSearch
+	 *                the configuration of the k nearest neighbour mode of
+	 *                {@link #getNearestAndDistanceFrom(Point, double, int, int, StreetType, Boolean, String, StreetSearchMode, boolean)},
+	 *                if null the results are sorted on their distance
+	 */
+	public void setNearestNeighbourSearch(NearestNeighbourSearch nearestNeighbourSearch) {
+		this.nearestNeighbourSearch = nearestNeighbourSearch;
+	}
+
 	
 
 
@@ -641,40 +741,26 @@ public class OpenStreetMapDao extends GenericDao<OpenStreetMap, Long> implements
 					public Object doInHibernate(Session session)
 							throws PersistenceException {
 
-						Criteria criteria = session
-								.createCriteria(OpenStreetMap.class);
-
-						if (point!=null){
-							//An intersect restriction will probably have better performances and use the index than a distance restriction 
-							Polygon polygonBox = GeolocHelper.createPolygonBox(point.getX(), point.getY(), distance);
-							criteria = criteria.add(new IntersectsRestriction(OpenStreetMap.SHAPE_COLUMN_NAME, polygonBox));
-						}
+						//An intersect restriction will probably have better performances and use the index than a distance restriction 
+						Envelope box = GeolocHelper.createPolygonBox(point.getX(), point.getY(), distance).getEnvelopeInternal();
+						StringBuffer queryString = new StringBuffer(NEAREST_SELECT)
+						.append(GisHelper.getBoundingBoxWithParameters("o", OpenStreetMap.SHAPE_COLUMN_NAME));
 						if (onlyroad) {
-							criteria = criteria.add(Restrictions.ne("streetType",StreetType.FOOTWAY));
+							queryString.append(" and o.streetType <> :footway");
 						}
 						if (filterEmptyName){
-							criteria = criteria.add(Restrictions.isNotNull("name"));
+							queryString.append(" and o.name is not null");
 						}
-						//criteria.setFetchMode("houseNumbers", FetchMode.JOIN);
-
-						String pointAsString = "ST_GeometryFromText('POINT("+point.getX()+" "+point.getY()+")',"+SRID.WGS84_SRID.getSRID()+")";
-						String distanceCondition = new StringBuffer()
-						.append(DISTANCE_SPHERE_FUNCTION)
-						.append("(")
-						.append(pointAsString)
-						.append(",")
-						.append(SpatialProjection.ST_CLOSEST_POINT)
-						.append("(")
-						.append("this_.").append(OpenStreetMap.SHAPE_COLUMN_NAME)
-						.append(",")
-						.append(pointAsString)
-						.append(")")
-						.append(")")
-						.toString();
-						criteria.addOrder(new NativeSQLOrder(distanceCondition));
-						criteria.setCacheable(true);
-						// List<Object[]> queryResults =testCriteria.list();
-						List<OpenStreetMap> openStreetMaps = (List<OpenStreetMap>)criteria.list();
+						queryString.append(NEAREST_ORDER);
+						SQLQuery qry = session.createSQLQuery(queryString.toString());
+						qry.addEntity("o", OpenStreetMap.class);
+						GisHelper.setBoundingBoxParameters(qry, box.getMinX(), box.getMinY(), box.getMaxX(), box.getMaxY());
+						GisHelper.setPointParameters(qry, point);
+						if (onlyroad) {
+							qry.setString("footway", StreetType.FOOTWAY.name());
+						}
+						qry.setCacheable(true);
+						List<OpenStreetMap> openStreetMaps = (List<OpenStreetMap>)qry.list();
 						/*if (openStreetMaps!=null){
 							for (OpenStreetMap o : openStreetMaps){
 								if (o!=null){
@@ -0,0 +1,255 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.domain.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.gisgraphy.fulltext.IsolrClient;
+import com.gisgraphy.geoloc.GisgraphyCommunicationException;
+import com.gisgraphy.helper.RetryOnErrorTemplate;
+
+/**
+ * Send the documents to the full text search engine by batch, from a
+ * dedicated thread. The documents are queued in a bounded queue (the callers
+ * are blocked when it is full), and are sent when the batch is full, when the
+ * flush interval is reached or when {@link #flush()} is called. It never
+ * commits, it is up to the caller to commit after a {@link #flush()}.
+ * <br/>
+ * If a batch can not be sent after the number of retry, the error is thrown
+ * on the next call to {@link #add(SolrInputDocument)} or {@link #flush()}.
+ * 
+ * @see SolRSynchroniser
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class SolRIndexingPipeline {
+
+    protected static final Logger logger = LoggerFactory
+	    .getLogger(SolRIndexingPipeline.class);
+
+    /**
+     * A document that is put in the queue to ask the indexer to send the
+     * current batch without waiting
+     */
+    private static final SolrInputDocument FLUSH_MARKER = new SolrInputDocument();
+
+    private final IsolrClient solrClient;
+
+    private final BlockingQueue<SolrInputDocument> queue;
+
+    private final int batchSize;
+
+    private final long flushIntervalMillis;
+
+    private final int numberOfRetryOnFailure;
+
+    /**
+     * the number of documents that are queued or being sent, guarded by
+     * itself
+     */
+    private final Object pendingLock = new Object();
+    private int pending = 0;
+
+    private volatile GisgraphyCommunicationException lastError;
+
+    private volatile boolean stopped = false;
+
+    private final Thread indexer;
+
+    /**
+     * @param solrClient
+     *            the client to send the document to
+     * @param batchSize
+     *            the max number of documents sent in one request
+     * @param flushIntervalMillis
+     *            the max time a document can wait in the pipeline before
+     *            being sent
+     * @param queueCapacity
+     *            the max number of queued documents before the callers are
+     *            blocked
+     * @param numberOfRetryOnFailure
+     *            the number of times a batch is tried
+     */
+    public SolRIndexingPipeline(IsolrClient solrClient, int batchSize, long flushIntervalMillis, int queueCapacity, int numberOfRetryOnFailure) {
+	Assert.notNull(solrClient, "can not instanciate the indexing pipeline because the solrClient is null");
+	Assert.isTrue(batchSize > 0, "the batch size should be positive");
+	Assert.isTrue(flushIntervalMillis > 0, "the flush interval should be positive");
+	Assert.isTrue(queueCapacity > 0, "the queue capacity should be positive");
+	this.solrClient = solrClient;
+	this.batchSize = batchSize;
+	this.flushIntervalMillis = flushIntervalMillis;
+	this.numberOfRetryOnFailure = numberOfRetryOnFailure;
+	// +1 for the flush marker
+	this.queue = new ArrayBlockingQueue<SolrInputDocument>(queueCapacity + 1);
+	this.indexer = new Thread(new Runnable() {
+	    public void run() {
+		index();
+	    }
+	}, "solrIndexingPipeline");
+	this.indexer.setDaemon(true);
+	this.indexer.start();
+    }
+
+    /**
+     * Queue a document, block if the queue is full
+     * 
+     * @param document
+     *            the document to index
+     * @throws GisgraphyCommunicationException
+     *             if a previous batch has failed
+     */
+    public void add(SolrInputDocument document) {
+	checkError();
+	if (stopped) {
+	    throw new IllegalStateException("The indexing pipeline is stopped");
+	}
+	synchronized (pendingLock) {
+	    pending++;
+	}
+	try {
+	    queue.put(document);
+	} catch (InterruptedException e) {
+	    decreasePending(1);
+	    Thread.currentThread().interrupt();
+	    throw new GisgraphyCommunicationException("interrupted while queuing a document to index", e);
+	}
+    }
+
+    /**
+     * Send all the queued documents and wait until they are sent. It does not
+     * commit
+     * 
+     * @throws GisgraphyCommunicationException
+     *             if a batch has failed
+     */
+    public void flush() {
+	try {
+	    queue.put(FLUSH_MARKER);
+	    synchronized (pendingLock) {
+		while (pending > 0 && indexer.isAlive()) {
+		    pendingLock.wait(flushIntervalMillis);
+		}
+	    }
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new GisgraphyCommunicationException("interrupted while flushing the documents to index", e);
+	}
+	checkError();
+    }
+
+    /**
+     * Flush the queued documents and stop the indexing thread
+     */
+    public void shutdown() {
+	try {
+	    flush();
+	} finally {
+	    stopped = true;
+	    indexer.interrupt();
+	}
+    }
+
+    /**
+     * @return the number of documents that are queued or being sent
+     */
+    public int getPendingDocuments() {
+	synchronized (pendingLock) {
+	    return pending;
+	}
+    }
+
+    private void checkError() {
+	GisgraphyCommunicationException error = lastError;
+	if (error != null) {
+	    lastError = null;
+	    throw error;
+	}
+    }
+
+    private void decreasePending(int number) {
+	synchronized (pendingLock) {
+	    pending -= number;
+	    pendingLock.notifyAll();
+	}
+    }
+
+    private void index() {
+	List<SolrInputDocument> batch = new ArrayList<SolrInputDocument>(batchSize);
+	while (!stopped) {
+	    try {
+		SolrInputDocument document = queue.take();
+		long deadline = System.currentTimeMillis() + flushIntervalMillis;
+		while (document != FLUSH_MARKER) {
+		    batch.add(document);
+		    if (batch.size() >= batchSize) {
+			break;
+		    }
+		    long remaining = deadline - System.currentTimeMillis();
+		    if (remaining <= 0) {
+			break;
+		    }
+		    document = queue.poll(remaining, TimeUnit.MILLISECONDS);
+		    if (document == null) {
+			break;
+		    }
+		}
+	    } catch (InterruptedException e) {
+		if (stopped) {
+		    return;
+		}
+	    }
+	    if (!batch.isEmpty()) {
+		send(batch);
+		int sent = batch.size();
+		batch.clear();
+		decreasePending(sent);
+	    }
+	}
+    }
+
+    private void send(final List<SolrInputDocument> batch) {
+	try {
+	    RetryOnErrorTemplate<Boolean> retryOnError = new RetryOnErrorTemplate<Boolean>() {
+		@Override
+		public Boolean tryThat() throws Exception {
+		    solrClient.getServer().add(batch);
+		    return true;
+		}
+	    };
+	    retryOnError.setLoggingSentence("Synchronise SolR : Add a batch of " + batch.size() + " features");
+	    retryOnError.times(numberOfRetryOnFailure);
+	} catch (Exception e) {
+	    logger.error("Can not synchronise SolR : can not add a batch of " + batch.size() + " features : " + e.getMessage(), e);
+	    lastError = new GisgraphyCommunicationException("Can not synchronise SolR : can not add a batch of " + batch.size() + " features :" + e, e);
+	}
+    }
+
+}
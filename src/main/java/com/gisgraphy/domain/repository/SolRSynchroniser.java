@@ -89,6 +89,29 @@ public class SolRSynchroniser implements ISolRSynchroniser {
 
     private IsolrClient solClient;
 
+    /**
+     * The max number of documents sent in one request when the batch mode is
+     * enabled
+     */
+    private int batchSize = 1;
+
+    private long flushIntervalMillis = DEFAULT_FLUSH_INTERVAL_MILLIS;
+
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+    /**
+     * The default max time a document can wait in the indexing pipeline
+     */
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+    /**
+     * The default max number of documents queued before the callers are
+     * blocked
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    private volatile SolRIndexingPipeline indexingPipeline;
+
     public SolRSynchroniser(IsolrClient solrClient) {
 	Assert
 		.notNull(solrClient,
@@ -96,26 +119,61 @@ public class SolRSynchroniser implements ISolRSynchroniser {
 	this.solClient = solrClient;
     }
 
+    /**
+     * The document of a stored feature, built from the thread that stored it
+     * (see {@link #prepare(IEvent)})
+     */
+    static final class DocumentStoredEvent implements IEvent {
+	private final Long featureId;
+	private final SolrInputDocument document;
+
+	DocumentStoredEvent(Long featureId, SolrInputDocument document) {
+	    this.featureId = featureId;
+	    this.document = document;
+	}
+
+	SolrInputDocument getDocument() {
+	    return document;
+	}
+    }
+
+    /**
+     * The id of a deleted feature (see {@link #prepare(IEvent)})
+     */
+    static final class DocumentDeletedEvent implements IEvent {
+	private final Long featureId;
+
+	DocumentDeletedEvent(Long featureId) {
+	    this.featureId = featureId;
+	}
+    }
+
     /**
      * @param gisFeatureEvent
      */
     private void handleEvent(final GisFeatureDeletedEvent gisFeatureEvent) {
+	deleteDocument(gisFeatureEvent.getGisFeature().getFeatureId());
+    }
+
+    private void deleteDocument(final Long featureId) {
+	//the pending documents must be sent before they are deleted
+	flushPipelineQuietly();
 	try {
 	    RetryOnErrorTemplate<Object> retryOnError = new RetryOnErrorTemplate<Object>() {
 		    @Override
 		    public String tryThat() throws Exception {
 			solClient.getServer().deleteById(
-				    gisFeatureEvent.getGisFeature().getFeatureId().toString());
+				    featureId.toString());
 			    solClient.getServer().commit(true, true);
 			    return null;
 		    }
 		};
-		retryOnError.setLoggingSentence("Synchronise SolR : deletion of feature with id="+gisFeatureEvent.getGisFeature().getFeatureId());
+		retryOnError.setLoggingSentence("Synchronise SolR : deletion of feature with id="+featureId);
 		retryOnError.times(numberOfRetryOnFailure);
 	    
 	    
 	} catch (Exception e) {
-	    throw new GisgraphyCommunicationException("Can not synchronise SolR : can not delete feature with id="+gisFeatureEvent.getGisFeature().getFeatureId(),e.getCause());
+	    throw new GisgraphyCommunicationException("Can not synchronise SolR : can not delete feature with id="+featureId,e.getCause());
 	} 
     }
 
@@ -125,6 +183,8 @@ public class SolRSynchroniser implements ISolRSynchroniser {
      * @see com.gisgraphy.domain.repository.ISolRSynchroniser#deleteAll()
      */
     public void deleteAll() {
+	//the pending documents must be sent before they are deleted
+	flushPipelineQuietly();
 	try {
 	    RetryOnErrorTemplate<Object> retryOnError = new RetryOnErrorTemplate<Object>() {
 		    @Override
@@ -155,6 +215,8 @@ public class SolRSynchroniser implements ISolRSynchroniser {
     }
 
     public void deleteAllByPlaceType(final Class<? extends GisFeature> placetype) {
+	//the pending documents must be sent before they are deleted
+	flushPipelineQuietly();
 	try {
 	    RetryOnErrorTemplate<Object> retryOnError = new RetryOnErrorTemplate<Object>() {
 		    @Override
@@ -179,6 +241,8 @@ public class SolRSynchroniser implements ISolRSynchroniser {
     }
 
     private void handleEvent(final GisFeatureDeleteAllEvent gisFeatureDeleteAllEvent) {
+	//the pending documents must be sent before they are deleted
+	flushPipelineQuietly();
 	try {
 	    RetryOnErrorTemplate<Object> retryOnError = new RetryOnErrorTemplate<Object>() {
 		    @Override
@@ -212,6 +276,11 @@ public class SolRSynchroniser implements ISolRSynchroniser {
 	    handleEvent((GisFeatureStoredEvent) event);
 	} else if (event instanceof GisFeatureDeletedEvent) {
 	    handleEvent((GisFeatureDeletedEvent) event);
+	} else if (event instanceof DocumentStoredEvent) {
+	    DocumentStoredEvent documentStoredEvent = (DocumentStoredEvent) event;
+	    addDocument(documentStoredEvent.document, "feature with id " + documentStoredEvent.featureId);
+	} else if (event instanceof DocumentDeletedEvent) {
+	    deleteDocument(((DocumentDeletedEvent) event).featureId);
 	} else if (event instanceof GisFeatureDeleteAllEvent) {
 	    handleEvent((GisFeatureDeleteAllEvent) event);
 	} else if (event instanceof PlaceTypeDeleteAllEvent) {
@@ -221,12 +290,34 @@ public class SolRSynchroniser implements ISolRSynchroniser {
 	}
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.gisgraphy.domain.repository.ISolRSynchroniser#prepare(com.gisgraphy.domain.geoloc.entity.event.IEvent)
+     */
+    public IEvent prepare(IEvent event) {
+	if (event instanceof GisFeatureStoredEvent) {
+	    GisFeature gisFeature = ((GisFeatureStoredEvent) event).getGisFeature();
+	    SolrInputDocument document = buildDocument((GisFeatureStoredEvent) event);
+	    return document == null ? null : new DocumentStoredEvent(gisFeature.getFeatureId(), document);
+	} else if (event instanceof GisFeatureDeletedEvent) {
+	    return new DocumentDeletedEvent(((GisFeatureDeletedEvent) event).getGisFeature().getFeatureId());
+	}
+	return event;
+    }
+
     /*
      * (non-Javadoc)
      * 
      * @see com.gisgraphy.domain.repository.ISolRSynchroniser#commit()
      */
     public boolean commit() {
+	try {
+	    flush();
+	} catch (GisgraphyCommunicationException e) {
+	    logger.error("Can not synchronise SolR : can not flush the pending documents before commit ",e);
+	    return false;
+	}
 	try {
 	    RetryOnErrorTemplate<Boolean> retryOnError = new RetryOnErrorTemplate<Boolean>() {
 		    @Override
@@ -251,6 +342,7 @@ public class SolRSynchroniser implements ISolRSynchroniser {
      * @see com.gisgraphy.domain.repository.ISolRSynchroniser#optimize()
      */
     public void optimize() {
+	flush();
 	try {
 	    RetryOnErrorTemplate<Boolean> retryOnError = new RetryOnErrorTemplate<Boolean>() {
 		    @Override
@@ -268,78 +360,203 @@ public class SolRSynchroniser implements ISolRSynchroniser {
 	}
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.gisgraphy.domain.repository.ISolRSynchroniser#flush()
+     */
+    public void flush() {
+	SolRIndexingPipeline pipeline = indexingPipeline;
+	if (pipeline != null) {
+	    pipeline.flush();
+	}
+    }
+
+    private void flushPipelineQuietly() {
+	try {
+	    flush();
+	} catch (GisgraphyCommunicationException e) {
+	    logger.error("Can not synchronise SolR : can not flush the pending documents ",e);
+	}
+    }
+
+    /**
+     * Flush the pending documents and stop the indexing pipeline, if any
+     */
+    public void destroy() {
+	SolRIndexingPipeline pipeline;
+	synchronized (this) {
+	    pipeline = indexingPipeline;
+	    indexingPipeline = null;
+	}
+	if (pipeline != null) {
+	    pipeline.shutdown();
+	}
+    }
+
+    /**
+     * @return the indexing pipeline, created at the first call, or null if
+     *         the documents are sent one by one
+     */
+    private SolRIndexingPipeline getIndexingPipeline() {
+	if (batchSize <= 1) {
+	    return null;
+	}
+	SolRIndexingPipeline pipeline = indexingPipeline;
+	if (pipeline == null) {
+	    synchronized (this) {
+		pipeline = indexingPipeline;
+		if (pipeline == null) {
+		    pipeline = new SolRIndexingPipeline(solClient, batchSize, flushIntervalMillis, queueCapacity, numberOfRetryOnFailure);
+		    indexingPipeline = pipeline;
+		}
+	    }
+	}
+	return pipeline;
+    }
+
+    /**
+     * @param batchSize
+     *            the max number of documents sent in one request. if it is
+     *            greater than 1, the stored features are sent by batch from a
+     *            dedicated thread and are only searchable after a
+     *            {@link #commit()}. Default to 1 : the features are sent
+     *            synchronously one by one
+     */
+    public void setBatchSize(int batchSize) {
+	this.batchSize = batchSize;
+    }
+
+    /**
+     * @param flushIntervalMillis
+     *            the max time (in milliseconds) a document can wait in the
+     *            pipeline before being sent, when the batch mode is enabled
+     */
+    public void setFlushIntervalMillis(long flushIntervalMillis) {
+	this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * @param queueCapacity
+     *            the max number of documents waiting to be sent before the
+     *            callers are blocked, when the batch mode is enabled
+     */
+    public void setQueueCapacity(int queueCapacity) {
+	this.queueCapacity = queueCapacity;
+    }
+
     private void handleEvent(final GisFeatureStoredEvent gisfeatureCreatedEventEvent) {
+	SolrInputDocument document = buildDocument(gisfeatureCreatedEventEvent);
+	if (document == null) {
+	    return;
+	}
+	addDocument(document, "feature with id " + gisfeatureCreatedEventEvent.getGisFeature());
+    }
+
+    private SolrInputDocument buildDocument(GisFeatureStoredEvent gisfeatureCreatedEventEvent) {
+	try {
+	    return buildDocument(gisfeatureCreatedEventEvent.getGisFeature());
+	} catch (Exception e) {
+	    throw new GisgraphyCommunicationException("Can not synchronise SolR : can not synchronize  "+gisfeatureCreatedEventEvent.getGisFeature()+":" +e,e.getCause());
+	}
+    }
+
+    private void addDocument(final SolrInputDocument document, String featureLabel) {
+	SolRIndexingPipeline pipeline = getIndexingPipeline();
+	if (pipeline != null) {
+	    pipeline.add(document);
+	    return;
+	}
 	try {
 	    RetryOnErrorTemplate<Boolean> retryOnError = new RetryOnErrorTemplate<Boolean>() {
 		    @Override
 		    public Boolean tryThat() throws Exception {
-			SolrInputDocument ex = new SolrInputDocument();
-			GisFeature gisFeature = gisfeatureCreatedEventEvent.getGisFeature();
+			solClient.getServer().add(document);
+			return true;
+		    }
+		};
+		retryOnError.setLoggingSentence("Synchronise SolR : Add "+featureLabel);
+		retryOnError.times(numberOfRetryOnFailure);
+	    
+	    
+	} catch (Exception e) {
+	  throw new GisgraphyCommunicationException("Can not synchronise SolR : can not synchronize  "+featureLabel+":" +e,e.getCause());
+	}
+    }
 
-			if (gisFeature == null) {
-			    logger.info("Can not synchronize a null gisFeature");
-			    return false;
-			}
-			if (gisFeature.getFeatureId() == null || gisFeature.getFeatureId() <= 0) {
-			    logger
-				    .info("Can not synchronize GisFeature with wrong featureId : "
-					    + gisFeature.getFeatureId());
-			    return false;
-			}
+    /**
+     * @param gisFeature
+     *            the feature to index
+     * @return the document to send to the full text search engine or null if
+     *         the feature should not be indexed
+     */
+    private SolrInputDocument buildDocument(GisFeature gisFeature) throws Exception {
+	SolrInputDocument ex = new SolrInputDocument();
+	
+	if (gisFeature == null) {
+	    logger.info("Can not synchronize a null gisFeature");
+	    return null;
+	}
+	if (gisFeature.getFeatureId() == null || gisFeature.getFeatureId() <= 0) {
+	    logger
+		    .info("Can not synchronize GisFeature with wrong featureId : "
+			    + gisFeature.getFeatureId());
+	    return null;
+	}
 
-			if (gisFeature.getLatitude() == 0 && gisFeature.getLongitude() == 0) {
-			    logger.info("Can not synchronize GisFeature "
-				    + gisFeature.getFeatureId() + " with wrong Location "
-				    + gisFeature.getName() + ": [" + gisFeature.getLongitude()
-				    + "," + gisFeature.getLatitude() + "]");
-			    return false;
-			}
-			
-			
-			if (!gisFeature.isFullTextSearchable()) {
-			    logger.debug(gisFeature.getClass().getSimpleName()
-				    + " is not FullTextSearchable");
-			    return false;
-			}
+	if (gisFeature.getLatitude() == 0 && gisFeature.getLongitude() == 0) {
+	    logger.info("Can not synchronize GisFeature "
+		    + gisFeature.getFeatureId() + " with wrong Location "
+		    + gisFeature.getName() + ": [" + gisFeature.getLongitude()
+		    + "," + gisFeature.getLatitude() + "]");
+	    return null;
+	}
+	
+	
+	if (!gisFeature.isFullTextSearchable()) {
+	    logger.debug(gisFeature.getClass().getSimpleName()
+		    + " is not FullTextSearchable");
+	    return null;
+	}
 
-			ex.setField(FullTextFields.FEATUREID.getValue(), gisFeature
-				.getFeatureId());
-			if (gisFeature.getName()!=null && !gisFeature.getName().trim().equals("")){
-			ex.setField(FullTextFields.NAME.getValue(), EncodingHelper
-				.toUTF8(gisFeature.getName()));
-			}
-			if (gisFeature.getLabel()!=null && !gisFeature.getLabel().trim().equals("")){
-				ex.setField(FullTextFields.LABEL.getValue(), EncodingHelper
-					.toUTF8(gisFeature.getLabel()));
-				}
-			if (gisFeature.getLabelPostal()!=null && !gisFeature.getLabelPostal().trim().equals("")){
-				ex.setField(FullTextFields.LABEL_POSTAL.getValue(), EncodingHelper
-					.toUTF8(gisFeature.getLabelPostal()));
-				}
-			ex.setField(FullTextFields.FULLY_QUALIFIED_NAME.getValue(),
-					EncodingHelper.toUTF8(gisFeature.getFullyQualifiedName()));
-			ex.setField(FullTextFields.LAT.getValue(), gisFeature.getLatitude());
-			ex.setField(FullTextFields.LONG.getValue(), gisFeature.getLongitude());
-			if (gisFeature.getAdminCentreLocation()!=null){
-				ex.setField(FullTextFields.ADMIN_CENTRE_LAT.getValue(), gisFeature.getAdminCentreLatitude());
-				ex.setField(FullTextFields.ADMIN_CENTRE_LONG.getValue(), gisFeature.getAdminCentreLongitude());
-			}
-			String latAsString = String.format(Locale.US, "%s", gisFeature.getLatitude().doubleValue());
-			String lngAsString = String.format(Locale.US, "%s", gisFeature.getLongitude().doubleValue());
-			ex.setField(FullTextFields.LOCATION.getValue(), latAsString+","+lngAsString);
-			ex.setField(FullTextFields.OPENSTREETMAP_ID.getValue(), gisFeature.getOpenstreetmapId());
-			
-			String placetype = ClassNameHelper.stripEnhancerClass(gisFeature
-					.getClass().getSimpleName());
-				ex.setField(FullTextFields.PLACETYPE.getValue(), placetype);
-			String countryCode = gisFeature.getCountryCode();
-			if (countryCode != null) {
-				    ex.setField(FullTextFields.COUNTRYCODE.getValue(), gisFeature.getCountryCode().toUpperCase());
-				    //Since V4.0, we don't preprocess some field for memory storage 
-				   /* ex.setField(FullTextFields.COUNTRY_FLAG_URL.getValue(), URLUtils
-							.createCountryFlagUrl(gisFeature.getCountryCode()));*/
-				}
-			if (gisFeature.getIsIn()!=null && !gisFeature.getIsIn().trim().equals("")){
+	ex.setField(FullTextFields.FEATUREID.getValue(), gisFeature
+		.getFeatureId());
+	if (gisFeature.getName()!=null && !gisFeature.getName().trim().equals("")){
+	ex.setField(FullTextFields.NAME.getValue(), EncodingHelper
+		.toUTF8(gisFeature.getName()));
+	}
+	if (gisFeature.getLabel()!=null && !gisFeature.getLabel().trim().equals("")){
+		ex.setField(FullTextFields.LABEL.getValue(), EncodingHelper
+			.toUTF8(gisFeature.getLabel()));
+		}
+	if (gisFeature.getLabelPostal()!=null && !gisFeature.getLabelPostal().trim().equals("")){
+		ex.setField(FullTextFields.LABEL_POSTAL.getValue(), EncodingHelper
+			.toUTF8(gisFeature.getLabelPostal()));
+		}
+	ex.setField(FullTextFields.FULLY_QUALIFIED_NAME.getValue(),
+			EncodingHelper.toUTF8(gisFeature.getFullyQualifiedName()));
+	ex.setField(FullTextFields.LAT.getValue(), gisFeature.getLatitude());
+	ex.setField(FullTextFields.LONG.getValue(), gisFeature.getLongitude());
+	if (gisFeature.getAdminCentreLocation()!=null){
+		ex.setField(FullTextFields.ADMIN_CENTRE_LAT.getValue(), gisFeature.getAdminCentreLatitude());
+		ex.setField(FullTextFields.ADMIN_CENTRE_LONG.getValue(), gisFeature.getAdminCentreLongitude());
+	}
+	String latAsString = String.format(Locale.US, "%s", gisFeature.getLatitude().doubleValue());
+	String lngAsString = String.format(Locale.US, "%s", gisFeature.getLongitude().doubleValue());
+	ex.setField(FullTextFields.LOCATION.getValue(), latAsString+","+lngAsString);
+	ex.setField(FullTextFields.OPENSTREETMAP_ID.getValue(), gisFeature.getOpenstreetmapId());
+	
+	String placetype = ClassNameHelper.stripEnhancerClass(gisFeature
+			.getClass().getSimpleName());
+		ex.setField(FullTextFields.PLACETYPE.getValue(), placetype);
+	String countryCode = gisFeature.getCountryCode();
+	if (countryCode != null) {
+		    ex.setField(FullTextFields.COUNTRYCODE.getValue(), gisFeature.getCountryCode().toUpperCase());
+		    //Since V4.0, we don't preprocess some field for memory storage 
+		   /* ex.setField(FullTextFields.COUNTRY_FLAG_URL.getValue(), URLUtils
+					.createCountryFlagUrl(gisFeature.getCountryCode()));*/
+		}
+	if (gisFeature.getIsIn()!=null && !gisFeature.getIsIn().trim().equals("")){
 	    	    ex.setField(FullTextFields.IS_IN.getValue(), gisFeature.getIsIn());
 	    	}
 	    	if (gisFeature.getIsInPlace()!=null && !gisFeature.getIsInPlace().trim().equals("")){
@@ -348,212 +565,202 @@ public class SolRSynchroniser implements ISolRSynchroniser {
 	    	if (gisFeature.getIsInAdm()!=null && !gisFeature.getIsInAdm().trim().equals("")){
 	    	    ex.setField(FullTextFields.IS_IN_ADM.getValue(), gisFeature.getIsInAdm());
 	    	}
-			if (gisFeature instanceof City){
-				ex.setField(FullTextFields.MUNICIPALITY.getValue(), ((City) gisFeature).isMunicipality());
-			}
-			if (gisFeature.getIsInZip()!=null && gisFeature.getIsInZip().size()>0){
-				ex.setField(FullTextFields.IS_IN_ZIP.getValue(), gisFeature.getIsInZip() );
-			}
-			if (gisFeature.getIsInCityAlternateNames()!=null && gisFeature.getIsInCityAlternateNames().size()>0){
-				ex.setField(FullTextFields.IS_IN_CITIES.getValue(), gisFeature.getIsInCityAlternateNames() );
-			}
-			if (gisFeature.getAlternateLabels()!=null && gisFeature.getAlternateLabels().size()>0){
-				ex.setField(FullTextFields.ALTERNATE_LABELS.getValue(), gisFeature.getAlternateLabels());
-			}
-		    if (gisFeature instanceof Street) {
-		    	ex.setField(FullTextFields.LENGTH.getValue(), ((Street) gisFeature).getLength());
-		    	ex.setField(FullTextFields.ONE_WAY.getValue(), ((Street) gisFeature).isOneWay());
-		    	ex.setField(FullTextFields.STREET_TYPE.getValue(), ((Street) gisFeature).getStreetType());
-		    	ex.setField(FullTextFields.STREET_REF.getValue(), ((Street) gisFeature).getStreetRef());
-		    	ex.setField(FullTextFields.CITY_POPULATION.getValue(), ((Street) gisFeature).getPopulation());
-		    	
-		    	ex.setField(FullTextFields.LANES.getValue(), ((Street) gisFeature).getLanes());
-		    	ex.setField(FullTextFields.TOLL.getValue(), ((Street) gisFeature).isToll());
-		    	ex.setField(FullTextFields.SURFACE.getValue(), ((Street) gisFeature).getSurface());
-		    	ex.setField(FullTextFields.MAX_SPEED.getValue(), ((Street) gisFeature).getMaxSpeed());
-		    	ex.setField(FullTextFields.SPEED_MODE.getValue(), ((Street) gisFeature).getSpeedMode());
-		    	ex.setField(FullTextFields.MAX_SPEED_BACKWARD.getValue(), ((Street) gisFeature).getMaxSpeedBackward());
-		    	ex.setField(FullTextFields.AZIMUTH_START.getValue(), ((Street) gisFeature).getAzimuthStart());
-		    	ex.setField(FullTextFields.AZIMUTH_END.getValue(), ((Street) gisFeature).getAzimuthEnd());
-		    	
-		    	
-		    	/*if (((Street) gisFeature).getFullyQualifiedAddress()!=null && !((Street) gisFeature).getFullyQualifiedAddress().trim().equals("")){
-		    	    ex.setField(FullTextFields.FULLY_QUALIFIED_ADDRESS.getValue(), ((Street) gisFeature).getFullyQualifiedAddress());
-		    	}*/
-		    	SortedSet<HouseNumber> houseNumbersFromEntity = ((Street) gisFeature).getHouseNumbers();
-		    	if (houseNumbersFromEntity!=null && houseNumbersFromEntity.size()!=0){
-			    	//SortedSet<HouseNumber> houseNumbers = new TreeSet<HouseNumber>(houseNumberComparator);
-					//houseNumbers.addAll(houseNumbersFromEntity);
-						 List<String> houseNumbersToAdd= new ArrayList<String>();
-						// Collections.sort(houseNumbers,houseNumberComparator);
-			    		for (HouseNumber houseNumber:houseNumbersFromEntity){
-			    			houseNumbersToAdd.add(houseNumberListSerializer.serialize(houseNumber));
-			    		}
-			    		ex.setField(FullTextFields.HOUSE_NUMBERS.getValue(),houseNumbersToAdd );
-		    	}
-				populateAlternateNamesForStreet(gisFeature.getAlternateNames(),ex);
-				ex.setField(FullTextFields.ADM1NAME.getValue(), gisFeature.getAdm1Name());
-				ex.setField(FullTextFields.ADM2NAME.getValue(), gisFeature.getAdm2Name());
-				ex.setField(FullTextFields.ADM3NAME.getValue(), gisFeature.getAdm3Name());
-				ex.setField(FullTextFields.ADM4NAME.getValue(), gisFeature.getAdm4Name());
-				ex.setField(FullTextFields.ADM5NAME.getValue(), gisFeature.getAdm5Name());
-				ex.setField(FullTextFields.ZIPCODE.getValue(),((Street) gisFeature).getZipCode());
-		    } else {
-			
-			ex.setField(FullTextFields.FEATURECLASS.getValue(), gisFeature
-				.getFeatureClass());
-			ex.setField(FullTextFields.FEATURECODE.getValue(), gisFeature
-				.getFeatureCode());
-			if (gisFeature.getAsciiName()!=null && !gisFeature.getAsciiName().trim().equals("")){
-			ex.setField(FullTextFields.NAMEASCII.getValue(), gisFeature
-				.getAsciiName());
-			}
-			
-			ex.setField(FullTextFields.ELEVATION.getValue(), gisFeature
-				.getElevation());
-			ex.setField(FullTextFields.AMENITY.getValue(), gisFeature
-					.getAmenity());
-			ex.setField(FullTextFields.GTOPO30.getValue(), gisFeature.getGtopo30());
-			ex.setField(FullTextFields.TIMEZONE.getValue(), gisFeature
-				.getTimezone());
-			
-			 if (gisFeature instanceof City || gisFeature instanceof CitySubdivision || gisFeature instanceof Adm || gisFeature instanceof Country ) { 
-				 ex.setField(FullTextFields.POPULATION.getValue(), gisFeature
-						 .getPopulation());
-			 } else {
-				 //it is a poi
-				 ex.setField(FullTextFields.CITY_POPULATION.getValue(), gisFeature.getPopulation());
-			 }
-		
-			/*ex.setField(FullTextFields.GOOGLE_MAP_URL.getValue(), URLUtils
-				.createGoogleMapUrl(gisFeature.getLocation(), gisFeature
-					.getName()));
-			ex.setField(FullTextFields.YAHOO_MAP_URL.getValue(), URLUtils
-				.createYahooMapUrl(gisFeature.getLocation()));
-			ex.setField(FullTextFields.OPENSTREETMAP_MAP_URL.getValue(), URLUtils
-					.createOpenstreetmapMapUrl(gisFeature.getLocation()));*/
-			
-			// setAdmCode from adm not from the gisfeature one because of
-			// syncAdmCodesWithLinkedAdmOnes if it is false , the value may not be
-			// the same
-			Adm adm = null;
-
-			if (gisFeature instanceof Adm) {
-			    adm = (Adm) gisFeature;
-			    ex.setField(FullTextFields.LEVEL.getValue(), adm.getLevel());
-			    
-			} else {
-			    adm = gisFeature.getAdm();
-			}
-			// we set admCode once for all
-			if (adm != null) {
-			    ex.setField(FullTextFields.ADM1CODE.getValue(), adm.getAdm1Code());
-			    ex.setField(FullTextFields.ADM2CODE.getValue(), adm.getAdm2Code());
-			    ex.setField(FullTextFields.ADM3CODE.getValue(), adm.getAdm3Code());
-			    ex.setField(FullTextFields.ADM4CODE.getValue(), adm.getAdm4Code());
-			    ex.setField(FullTextFields.ADM5CODE.getValue(), adm.getAdm5Code());
-			}
-			while (adm != null) {
-				int level = adm.getLevel();
-				String admLevelName = FullTextFields
-						.valueOf("ADM" + level + "NAME").getValue();
-				String admName = gisFeature.getAdmName(level);
-				//we prefer the specified one
-				if (admName !=null){
-					ex.setField(admLevelName, EncodingHelper.toUTF8(admName));
-				} else {
-					ex.setField(admLevelName, EncodingHelper.toUTF8(adm.getName()));
-				}
-				if (level == 1 || level == 2) {
-					populateAlternateNames(admLevelName, adm.getAlternateNames(),
-							ex);
-				}
-				adm = adm.getParent();
-			}
-			
-			Set<ZipCode> zipCodes =gisFeature.getZipCodes();
-			if (zipCodes != null) {
-				List<String> zipCodesToAdd = new ArrayList<String>();
-				for (ZipCode zipCode:zipCodes){
-					zipCodesToAdd.add(zipCode.getCode().trim());
-				}
-				ex.setField(FullTextFields.ZIPCODE.getValue(),zipCodesToAdd);
-			}
+	if (gisFeature instanceof City){
+		ex.setField(FullTextFields.MUNICIPALITY.getValue(), ((City) gisFeature).isMunicipality());
+	}
+	if (gisFeature.getIsInZip()!=null && gisFeature.getIsInZip().size()>0){
+		ex.setField(FullTextFields.IS_IN_ZIP.getValue(), gisFeature.getIsInZip() );
+	}
+	if (gisFeature.getIsInCityAlternateNames()!=null && gisFeature.getIsInCityAlternateNames().size()>0){
+		ex.setField(FullTextFields.IS_IN_CITIES.getValue(), gisFeature.getIsInCityAlternateNames() );
+	}
+	if (gisFeature.getAlternateLabels()!=null && gisFeature.getAlternateLabels().size()>0){
+		ex.setField(FullTextFields.ALTERNATE_LABELS.getValue(), gisFeature.getAlternateLabels());
+	}
+    if (gisFeature instanceof Street) {
+    	ex.setField(FullTextFields.LENGTH.getValue(), ((Street) gisFeature).getLength());
+    	ex.setField(FullTextFields.ONE_WAY.getValue(), ((Street) gisFeature).isOneWay());
+    	ex.setField(FullTextFields.STREET_TYPE.getValue(), ((Street) gisFeature).getStreetType());
+    	ex.setField(FullTextFields.STREET_REF.getValue(), ((Street) gisFeature).getStreetRef());
+    	ex.setField(FullTextFields.CITY_POPULATION.getValue(), ((Street) gisFeature).getPopulation());
+    	
+    	ex.setField(FullTextFields.LANES.getValue(), ((Street) gisFeature).getLanes());
+    	ex.setField(FullTextFields.TOLL.getValue(), ((Street) gisFeature).isToll());
+    	ex.setField(FullTextFields.SURFACE.getValue(), ((Street) gisFeature).getSurface());
+    	ex.setField(FullTextFields.MAX_SPEED.getValue(), ((Street) gisFeature).getMaxSpeed());
+    	ex.setField(FullTextFields.SPEED_MODE.getValue(), ((Street) gisFeature).getSpeedMode());
+    	ex.setField(FullTextFields.MAX_SPEED_BACKWARD.getValue(), ((Street) gisFeature).getMaxSpeedBackward());
+    	ex.setField(FullTextFields.AZIMUTH_START.getValue(), ((Street) gisFeature).getAzimuthStart());
+    	ex.setField(FullTextFields.AZIMUTH_END.getValue(), ((Street) gisFeature).getAzimuthEnd());
+    	
+    	
+    	/*if (((Street) gisFeature).getFullyQualifiedAddress()!=null && !((Street) gisFeature).getFullyQualifiedAddress().trim().equals("")){
+    	    ex.setField(FullTextFields.FULLY_QUALIFIED_ADDRESS.getValue(), ((Street) gisFeature).getFullyQualifiedAddress());
+    	}*/
+    	SortedSet<HouseNumber> houseNumbersFromEntity = ((Street) gisFeature).getHouseNumbers();
+    	if (houseNumbersFromEntity!=null && houseNumbersFromEntity.size()!=0){
+	    	//SortedSet<HouseNumber> houseNumbers = new TreeSet<HouseNumber>(houseNumberComparator);
+			//houseNumbers.addAll(houseNumbersFromEntity);
+				 List<String> houseNumbersToAdd= new ArrayList<String>();
+				// Collections.sort(houseNumbers,houseNumberComparator);
+	    		for (HouseNumber houseNumber:houseNumbersFromEntity){
+	    			houseNumbersToAdd.add(houseNumberListSerializer.serialize(houseNumber));
+	    		}
+	    		ex.setField(FullTextFields.HOUSE_NUMBERS.getValue(),houseNumbersToAdd );
+    	}
+		populateAlternateNamesForStreet(gisFeature.getAlternateNames(),ex);
+		ex.setField(FullTextFields.ADM1NAME.getValue(), gisFeature.getAdm1Name());
+		ex.setField(FullTextFields.ADM2NAME.getValue(), gisFeature.getAdm2Name());
+		ex.setField(FullTextFields.ADM3NAME.getValue(), gisFeature.getAdm3Name());
+		ex.setField(FullTextFields.ADM4NAME.getValue(), gisFeature.getAdm4Name());
+		ex.setField(FullTextFields.ADM5NAME.getValue(), gisFeature.getAdm5Name());
+		ex.setField(FullTextFields.ZIPCODE.getValue(),((Street) gisFeature).getZipCode());
+    } else {
+	
+	ex.setField(FullTextFields.FEATURECLASS.getValue(), gisFeature
+		.getFeatureClass());
+	ex.setField(FullTextFields.FEATURECODE.getValue(), gisFeature
+		.getFeatureCode());
+	if (gisFeature.getAsciiName()!=null && !gisFeature.getAsciiName().trim().equals("")){
+	ex.setField(FullTextFields.NAMEASCII.getValue(), gisFeature
+		.getAsciiName());
+	}
+	
+	ex.setField(FullTextFields.ELEVATION.getValue(), gisFeature
+		.getElevation());
+	ex.setField(FullTextFields.AMENITY.getValue(), gisFeature
+			.getAmenity());
+	ex.setField(FullTextFields.GTOPO30.getValue(), gisFeature.getGtopo30());
+	ex.setField(FullTextFields.TIMEZONE.getValue(), gisFeature
+		.getTimezone());
+	
+	 if (gisFeature instanceof City || gisFeature instanceof CitySubdivision || gisFeature instanceof Adm || gisFeature instanceof Country ) { 
+		 ex.setField(FullTextFields.POPULATION.getValue(), gisFeature
+				 .getPopulation());
+	 } else {
+		 //it is a poi
+		 ex.setField(FullTextFields.CITY_POPULATION.getValue(), gisFeature.getPopulation());
+	 }
+
+	/*ex.setField(FullTextFields.GOOGLE_MAP_URL.getValue(), URLUtils
+		.createGoogleMapUrl(gisFeature.getLocation(), gisFeature
+			.getName()));
+	ex.setField(FullTextFields.YAHOO_MAP_URL.getValue(), URLUtils
+		.createYahooMapUrl(gisFeature.getLocation()));
+	ex.setField(FullTextFields.OPENSTREETMAP_MAP_URL.getValue(), URLUtils
+			.createOpenstreetmapMapUrl(gisFeature.getLocation()));*/
+	
+	// setAdmCode from adm not from the gisfeature one because of
+	// syncAdmCodesWithLinkedAdmOnes if it is false , the value may not be
+	// the same
+	Adm adm = null;
+
+	if (gisFeature instanceof Adm) {
+	    adm = (Adm) gisFeature;
+	    ex.setField(FullTextFields.LEVEL.getValue(), adm.getLevel());
+	    
+	} else {
+	    adm = gisFeature.getAdm();
+	}
+	// we set admCode once for all
+	if (adm != null) {
+	    ex.setField(FullTextFields.ADM1CODE.getValue(), adm.getAdm1Code());
+	    ex.setField(FullTextFields.ADM2CODE.getValue(), adm.getAdm2Code());
+	    ex.setField(FullTextFields.ADM3CODE.getValue(), adm.getAdm3Code());
+	    ex.setField(FullTextFields.ADM4CODE.getValue(), adm.getAdm4Code());
+	    ex.setField(FullTextFields.ADM5CODE.getValue(), adm.getAdm5Code());
+	}
+	while (adm != null) {
+		int level = adm.getLevel();
+		String admLevelName = FullTextFields
+				.valueOf("ADM" + level + "NAME").getValue();
+		String admName = gisFeature.getAdmName(level);
+		//we prefer the specified one
+		if (admName !=null){
+			ex.setField(admLevelName, EncodingHelper.toUTF8(admName));
+		} else {
+			ex.setField(admLevelName, EncodingHelper.toUTF8(adm.getName()));
+		}
+		if (level == 1 || level == 2) {
+			populateAlternateNames(admLevelName, adm.getAlternateNames(),
+					ex);
+		}
+		adm = adm.getParent();
+	}
+	
+	Set<ZipCode> zipCodes =gisFeature.getZipCodes();
+	if (zipCodes != null) {
+		List<String> zipCodesToAdd = new ArrayList<String>();
+		for (ZipCode zipCode:zipCodes){
+			zipCodesToAdd.add(zipCode.getCode().trim());
+		}
+		ex.setField(FullTextFields.ZIPCODE.getValue(),zipCodesToAdd);
+	}
 
 
-			// No prefix for cities
-
-			Collection<AlternateName> alternatenames = gisFeature.getAlternateNames();
-			populateAlternateNames(FullTextFields.NAME.getValue(), alternatenames,
-				ex);
-
-			// we don't want this fields
-			// populateAlternateNames("adm3_", adm2.getAlternateNames(), ex);
-			// populateAlternateNames("adm4_", adm1.getAlternateNames(), ex);
-			if (gisFeature instanceof Country) {
-			    Country country = (Country) gisFeature;
-			    ex.setField(FullTextFields.CONTINENT.getValue(), country
-				    .getContinent());
-			    ex.setField(FullTextFields.CURRENCY_CODE.getValue(), country
-				    .getCurrencyCode());
-			    ex.setField(FullTextFields.CURRENCY_NAME.getValue(), country
-				    .getCurrencyName());
-			    ex.setField(FullTextFields.FIPS_CODE.getValue(), country
-				    .getFipsCode());
-			    ex.setField(FullTextFields.ISOALPHA2_COUNTRY_CODE.getValue(),
-				    country.getIso3166Alpha2Code());
-			    ex.setField(FullTextFields.ISOALPHA3_COUNTRY_CODE.getValue(),
-				    country.getIso3166Alpha3Code());
-			    ex.setField(FullTextFields.COUNTRYCODE.getValue(), country.getCountryCode()
-					.toUpperCase());
-			    ex.setField(FullTextFields.POSTAL_CODE_MASK.getValue(), country
-				    .getPostalCodeMask());
-			    ex.setField(FullTextFields.POSTAL_CODE_REGEX.getValue(), country
-				    .getPostalCodeRegex());
-			    ex.setField(FullTextFields.PHONE_PREFIX.getValue(), country
-				    .getPhonePrefix());
-			    List<Language> spokenLanguages = country.getSpokenLanguages();
-			    if (spokenLanguages.size() > 0){
-				    List<String> languagesToAdd= new ArrayList<String>();
-					for (Language language : spokenLanguages) {
-					languagesToAdd.add(language.getIso639LanguageName());
-				    }
-					ex.setField(FullTextFields.SPOKEN_LANGUAGES.getValue(),
-							languagesToAdd);
-			    }
-			    ex.setField(FullTextFields.TLD.getValue(), country.getTld());
-			    ex.setField(FullTextFields.CAPITAL_NAME.getValue(), country
-				    .getCapitalName());
-			    ex.setField(FullTextFields.AREA.getValue(), country.getArea());
-			    populateAlternateNames(FullTextFields.COUNTRYNAME
-				    .getValue(), country.getAlternateNames(), ex);
-			    if (country.getName()!=null){
-			    ex.setField(FullTextFields.COUNTRYNAME.getValue(),
-				    EncodingHelper.toUTF8(country.getName()));
-			    }
-			} else {
-				String country = gisFeature.getCountry();
-				if (country != null) {
-				    ex.setField(FullTextFields.COUNTRYNAME.getValue(),
-					    EncodingHelper.toUTF8(country));
-				} else {
-				    logger.error("Can not find country with code "
-					    + gisFeature.getCountryCode() + " for "
-					    + gisFeature);
-				}
-			}
-			}
-			solClient.getServer().add(ex);
-			return true;
+	// No prefix for cities
+
+	Collection<AlternateName> alternatenames = gisFeature.getAlternateNames();
+	populateAlternateNames(FullTextFields.NAME.getValue(), alternatenames,
+		ex);
+
+	// we don't want this fields
+	// populateAlternateNames("adm3_", adm2.getAlternateNames(), ex);
+	// populateAlternateNames("adm4_", adm1.getAlternateNames(), ex);
+	if (gisFeature instanceof Country) {
+	    Country country = (Country) gisFeature;
+	    ex.setField(FullTextFields.CONTINENT.getValue(), country
+		    .getContinent());
+	    ex.setField(FullTextFields.CURRENCY_CODE.getValue(), country
+		    .getCurrencyCode());
+	    ex.setField(FullTextFields.CURRENCY_NAME.getValue(), country
+		    .getCurrencyName());
+	    ex.setField(FullTextFields.FIPS_CODE.getValue(), country
+		    .getFipsCode());
+	    ex.setField(FullTextFields.ISOALPHA2_COUNTRY_CODE.getValue(),
+		    country.getIso3166Alpha2Code());
+	    ex.setField(FullTextFields.ISOALPHA3_COUNTRY_CODE.getValue(),
+		    country.getIso3166Alpha3Code());
+	    ex.setField(FullTextFields.COUNTRYCODE.getValue(), country.getCountryCode()
+			.toUpperCase());
+	    ex.setField(FullTextFields.POSTAL_CODE_MASK.getValue(), country
+		    .getPostalCodeMask());
+	    ex.setField(FullTextFields.POSTAL_CODE_REGEX.getValue(), country
+		    .getPostalCodeRegex());
+	    ex.setField(FullTextFields.PHONE_PREFIX.getValue(), country
+		    .getPhonePrefix());
+	    List<Language> spokenLanguages = country.getSpokenLanguages();
+	    if (spokenLanguages.size() > 0){
+		    List<String> languagesToAdd= new ArrayList<String>();
+			for (Language language : spokenLanguages) {
+			languagesToAdd.add(language.getIso639LanguageName());
 		    }
-		};
-		retryOnError.setLoggingSentence("Synchronise SolR : Add feature with id "+gisfeatureCreatedEventEvent.getGisFeature());
-		retryOnError.times(numberOfRetryOnFailure);
-	    
-	    
-	} catch (Exception e) {
-	  throw new GisgraphyCommunicationException("Can not synchronise SolR : can not synchronize  "+gisfeatureCreatedEventEvent.getGisFeature()+":" +e,e.getCause());
+			ex.setField(FullTextFields.SPOKEN_LANGUAGES.getValue(),
+					languagesToAdd);
+	    }
+	    ex.setField(FullTextFields.TLD.getValue(), country.getTld());
+	    ex.setField(FullTextFields.CAPITAL_NAME.getValue(), country
+		    .getCapitalName());
+	    ex.setField(FullTextFields.AREA.getValue(), country.getArea());
+	    populateAlternateNames(FullTextFields.COUNTRYNAME
+		    .getValue(), country.getAlternateNames(), ex);
+	    if (country.getName()!=null){
+	    ex.setField(FullTextFields.COUNTRYNAME.getValue(),
+		    EncodingHelper.toUTF8(country.getName()));
+	    }
+	} else {
+		String country = gisFeature.getCountry();
+		if (country != null) {
+		    ex.setField(FullTextFields.COUNTRYNAME.getValue(),
+			    EncodingHelper.toUTF8(country));
+		} else {
+		    logger.error("Can not find country with code "
+			    + gisFeature.getCountryCode() + " for "
+			    + gisFeature);
+		}
+	}
 	}
+	return ex;
     }
     
     //Same as gisfeature but ignore language 
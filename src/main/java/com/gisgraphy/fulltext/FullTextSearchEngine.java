@@ -23,19 +23,23 @@
 package com.gisgraphy.fulltext;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
-import java.net.MalformedURLException;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
 import org.apache.solr.client.solrj.SolrServerException;
-import org.apache.solr.client.solrj.impl.CommonsHttpSolrServer;
 import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +55,8 @@ import com.gisgraphy.domain.valueobject.Constants;
 import com.gisgraphy.geoloc.ZipcodeNormalizer;
 import com.gisgraphy.service.IStatsUsageService;
 import com.gisgraphy.service.ServiceException;
+import com.gisgraphy.stats.LatencyHistogram;
+import com.gisgraphy.stats.LatencyStats;
 import com.gisgraphy.stats.StatsUsageType;
 
 /**
@@ -70,8 +76,37 @@ public class FullTextSearchEngine implements IFullTextSearchEngine {
     protected static final Logger logger = LoggerFactory
 	    .getLogger(FullTextSearchEngine.class);
 
+    private static final LatencyHistogram FULLTEXT_LATENCY = LatencyStats.getHistogram(StatsUsageType.FULLTEXT, LatencyStats.TOTAL_STAGE);
+    private static final LatencyHistogram SOLR_LATENCY = LatencyStats.getHistogram(StatsUsageType.FULLTEXT, "solr");
+    private static final LatencyHistogram STREAM_LATENCY = LatencyStats.getHistogram(StatsUsageType.FULLTEXT, "stream");
+
+    /**
+     * The default time to establish a connection to the fulltext engine (in
+     * milliseconds)
+     */
+    public static final int DEFAULT_CONNECTION_TIMEOUT = 5000;
+
+    /**
+     * The default time to wait for the response of a search (in milliseconds)
+     */
+    public static final int DEFAULT_SO_TIMEOUT = 30000;
+
+    /**
+     * The size of the buffer used to copy the response of the fulltext engine
+     */
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
+    /**
+     * The solr response writer version, the same as the one sent by solrj
+     */
+    private static final String SOLR_WRITER_VERSION = "2.2";
+
     private HttpClient httpClient;
 
+    private MultiThreadedHttpConnectionManager multiThreadedHttpConnectionManager;
+
+    private int soTimeout = DEFAULT_SO_TIMEOUT;
+
     private IsolrClient solrClient;
     
     FulltextResultDtoBuilder builder = new FulltextResultDtoBuilder();
@@ -106,10 +141,12 @@ public class FullTextSearchEngine implements IFullTextSearchEngine {
 	    throws FullTextSearchException {
 	Assert.notNull(multiThreadedHttpConnectionManager,
 		"multiThreadedHttpConnectionManager can not be null");
-	HttpConnectionManagerParams p = new HttpConnectionManagerParams();
+	this.multiThreadedHttpConnectionManager = multiThreadedHttpConnectionManager;
+	//the manager is shared with the indexing (commit and optimize can be
+	//long) : no read timeout here, it is set for each search
+	HttpConnectionManagerParams p = multiThreadedHttpConnectionManager.getParams();
 	p.setSoTimeout(0);
-	p.setConnectionTimeout(0);
-	multiThreadedHttpConnectionManager.setParams(p);
+	p.setConnectionTimeout(DEFAULT_CONNECTION_TIMEOUT);
 	this.httpClient = new HttpClient(multiThreadedHttpConnectionManager);
 	if (this.httpClient == null) {
 	    throw new FullTextSearchException(
@@ -138,19 +175,14 @@ public class FullTextSearchEngine implements IFullTextSearchEngine {
 		}
 
 	    ModifiableSolrParams params = FulltextQuerySolrHelper.parameterize(query);
-	    CommonsHttpSolrServer server = new CommonsHttpSolrServer(solrClient
-		    .getURL(), this.httpClient,
-		    new OutputstreamResponseWrapper(outputStream, params
-			    .get(Constants.OUTPUT_FORMAT_PARAMETER)));
-	    server.query(params);
-	} catch (SolrServerException e) {
+	    long start = System.nanoTime();
+	    stream(params, outputStream);
+	    STREAM_LATENCY.recordSince(start);
+	} catch (IOException e) {
 	    logger.error("Can not execute query " + FulltextQuerySolrHelper.toQueryString(query)
 		    + "for URL : " + solrClient.getURL() + " : "
-		    + e.getCause().getMessage(),e);
-	    throw new FullTextSearchException(e.getCause().getMessage());
-	} catch (MalformedURLException e1) {
-	    logger.error("The URL " + solrClient.getURL() + " is incorrect",e1);
-	    throw new FullTextSearchException(e1);
+		    + e.getMessage(),e);
+	    throw new FullTextSearchException(e.getMessage(),e);
 	} catch (RuntimeException e2) {
 	    String message = e2.getCause()!=null?e2.getCause().getMessage():e2.getMessage();
 	    logger
@@ -161,6 +193,44 @@ public class FullTextSearchEngine implements IFullTextSearchEngine {
 
     }
 
+    /**
+     * Send the query to the fulltext engine with the shared http client and
+     * copy the response bytes as is into the outputStream, without parsing
+     * them. The outputStream is closed when the response has been copied.
+     */
+    private void stream(ModifiableSolrParams params, OutputStream outputStream) throws IOException {
+	if (params.get(Constants.OUTPUT_FORMAT_PARAMETER) == null) {
+	    params.set(Constants.OUTPUT_FORMAT_PARAMETER, "XML");
+	}
+	if (params.get(CommonParams.VERSION) == null) {
+	    params.set(CommonParams.VERSION, SOLR_WRITER_VERSION);
+	}
+	GetMethod method = new GetMethod(solrClient.getURL() + "select" + ClientUtils.toQueryString(params, false));
+	method.getParams().setSoTimeout(soTimeout);
+	try {
+	    int statusCode = httpClient.executeMethod(method);
+	    if (statusCode != HttpStatus.SC_OK) {
+		throw new IOException("The fulltext engine returns " + statusCode + " : " + method.getStatusText());
+	    }
+	    InputStream inputStream = method.getResponseBodyAsStream();
+	    if (inputStream != null) {
+		byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+		int read;
+		while ((read = inputStream.read(buffer)) != -1) {
+		    outputStream.write(buffer, 0, read);
+		}
+	    }
+	    try {
+		outputStream.flush();
+		outputStream.close();
+	    } catch (IOException e) {
+
+	    }
+	} finally {
+	    method.releaseConnection();
+	}
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -220,10 +290,12 @@ public class FullTextSearchEngine implements IFullTextSearchEngine {
 	    throws ServiceException {
 	statsUsageService.increaseUsage(StatsUsageType.FULLTEXT);
 	Assert.notNull(query, "Can not execute a null query");
+	long start = System.nanoTime();
 	String queryString = ZipcodeNormalizer.normalize(query.getQuery(), query.getCountryCode());
 	query.withQuery(queryString);
 	ModifiableSolrParams params = FulltextQuerySolrHelper.parameterize(query);
 	QueryResponse response = null;
+	long solrStart = System.nanoTime();
 	try {
 	    response = solrClient.getServer().query(params);
 	} catch (SolrServerException e) {
@@ -231,6 +303,7 @@ public class FullTextSearchEngine implements IFullTextSearchEngine {
 	} catch (RuntimeException e) {
 	    throw new FullTextSearchException(e.getMessage(), e);
 	}
+	SOLR_LATENCY.recordSince(solrStart);
 	if (response != null) {
 	    long numberOfResults = response.getResults() != null ? response
 		    .getResults().getNumFound() : 0;
@@ -238,8 +311,11 @@ public class FullTextSearchEngine implements IFullTextSearchEngine {
 		    	logger.info(query + " took " + response.getQTime()
 		    	+ " ms and returns " + numberOfResults + " results");
 		    }
-	    return builder.build(response);
+	    FulltextResultsDto results = builder.build(response);
+	    FULLTEXT_LATENCY.recordSince(start);
+	    return results;
 	} else {
+	    FULLTEXT_LATENCY.recordSince(start);
 	    return new FulltextResultsDto();
 	}
     }
@@ -326,4 +402,24 @@ public class FullTextSearchEngine implements IFullTextSearchEngine {
 	return solrClient.getURL();
     }
 
+    /**
+     * @param connectionTimeout
+     *                the time to establish a connection to the fulltext
+     *                engine, in milliseconds (0 means no timeout)
+     */
+    public void setConnectionTimeout(int connectionTimeout) {
+	if (multiThreadedHttpConnectionManager != null) {
+	    multiThreadedHttpConnectionManager.getParams().setConnectionTimeout(connectionTimeout);
+	}
+    }
+
+    /**
+     * @param soTimeout
+     *                the time to wait for data when a search is streamed,
+     *                in milliseconds (0 means no timeout)
+     */
+    public void setSoTimeout(int soTimeout) {
+	this.soTimeout = soTimeout;
+    }
+
 }
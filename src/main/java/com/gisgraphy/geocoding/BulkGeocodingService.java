@@ -0,0 +1,540 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.geocoding;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.gisgraphy.addressparser.AddressQuery;
+import com.gisgraphy.addressparser.AddressResultsDto;
+import com.gisgraphy.addressparser.AddressResultsDtoSerializer;
+import com.gisgraphy.domain.valueobject.Constants;
+import com.gisgraphy.serializer.common.OutputFormat;
+import com.gisgraphy.service.ServiceException;
+
+/**
+ * Geocode a stream of addresses (a file of a customer) on a pool of threads.
+ * The rows are read, geocoded and written at the same time : at most
+ * {@link #setMaxPendingRows(int)} rows are in progress, so a stream of
+ * millions of rows needs a constant memory. The results are written in the
+ * order of the rows, as json lines : <code>{"row":1,"result":{...}}</code>
+ * or <code>{"row":2,"error":"..."}</code>, an error on a row doesn't stop
+ * the others. The rows are numbered by their line in the stream.
+ * <br/>
+ * The rows are either :
+ * <ul>
+ * <li>CSV : <code>address[,country]</code>, the fields can be quoted with
+ * double quotes, an optional first line "address,country" is ignored. A
+ * quoted field can not have a line break.</li>
+ * <li>Json lines : <code>{"address":"...","country":"FR"}</code>, one flat
+ * object per line</li>
+ * </ul>
+ * The identical addresses (once normalized) of a stream are geocoded once.
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class BulkGeocodingService {
+
+    public enum InputFormat {
+	CSV, JSON_LINES
+    }
+
+    protected static final Logger logger = LoggerFactory.getLogger(BulkGeocodingService.class);
+
+    public static final int DEFAULT_MAX_PENDING_ROWS = 1000;
+
+    public static final int DEFAULT_DEDUPLICATION_CACHE_SIZE = 10000;
+
+    private IGeocodingService geocodingService;
+
+    private int numberOfThreads = 0;
+
+    private int maxPendingRows = DEFAULT_MAX_PENDING_ROWS;
+
+    private int deduplicationCacheSize = DEFAULT_DEDUPLICATION_CACHE_SIZE;
+
+    private ExecutorService executor;
+
+    private AddressResultsDtoSerializer addressResultsDtoSerializer = new AddressResultsDtoSerializer();
+
+    public void init() {
+	int threads = numberOfThreads > 0 ? numberOfThreads : Runtime.getRuntime().availableProcessors();
+	logger.info("bulk geocoding will use " + threads + " threads");
+	executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+	    private final AtomicInteger count = new AtomicInteger();
+
+	    public Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, "bulk-geocoding-" + count.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	    }
+	});
+    }
+
+    public void destroy() {
+	if (executor != null) {
+	    executor.shutdownNow();
+	}
+    }
+
+    /**
+     * @param reader
+     *            the rows to geocode
+     * @param inputFormat
+     *            the format of the rows
+     * @param defaultCountry
+     *            the country of the rows that don't have one, optional
+     * @param outputStream
+     *            where the results are written, it is flushed each time the
+     *            next result is not available
+     * @return the number of rows
+     * @throws IOException
+     *             if the rows can not be read or the results can not be
+     *             written, the pending rows are then cancelled
+     */
+    public int geocodeAndSerialize(Reader reader, InputFormat inputFormat, String defaultCountry,
+	    OutputStream outputStream) throws IOException {
+	Assert.notNull(reader, "Can not geocode a null reader");
+	Assert.notNull(inputFormat, "the input format is required");
+	Assert.notNull(outputStream, "Can not serialize into a null outputStream");
+	if (executor == null) {
+	    throw new ServiceException("the bulk geocoding service is not initialized");
+	}
+	BufferedReader bufferedReader = reader instanceof BufferedReader ? (BufferedReader) reader
+		: new BufferedReader(reader);
+	Map<String, Future<AddressResultsDto>> deduplicationCache = createDeduplicationCache();
+	Deque<PendingRow> pendingRows = new ArrayDeque<PendingRow>();
+	ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	int lineNumber = 0;
+	int rowCount = 0;
+	try {
+	    String line;
+	    while ((line = bufferedReader.readLine()) != null) {
+		lineNumber++;
+		if (line.trim().length() == 0) {
+		    continue;
+		}
+		String[] fields;
+		try {
+		    fields = inputFormat == InputFormat.CSV ? parseCsvLine(line) : parseJsonLine(line);
+		} catch (IllegalArgumentException e) {
+		    pendingRows.add(new PendingRow(lineNumber, e.getMessage()));
+		    rowCount++;
+		    continue;
+		}
+		if (lineNumber == 1 && inputFormat == InputFormat.CSV && "address".equalsIgnoreCase(fields[0])) {
+		    continue;
+		}
+		rowCount++;
+		pendingRows.add(submit(lineNumber, fields[0], fields[1] != null ? fields[1] : defaultCountry,
+			deduplicationCache));
+		while (!pendingRows.isEmpty()
+			&& (pendingRows.size() >= maxPendingRows || pendingRows.peek().isDone())) {
+		    write(pendingRows.poll(), outputStream, buffer);
+		}
+	    }
+	    while (!pendingRows.isEmpty()) {
+		if (!pendingRows.peek().isDone()) {
+		    outputStream.flush();
+		}
+		write(pendingRows.poll(), outputStream, buffer);
+	    }
+	    outputStream.flush();
+	} catch (IOException e) {
+	    cancel(pendingRows);
+	    throw e;
+	} catch (RuntimeException e) {
+	    cancel(pendingRows);
+	    throw e;
+	}
+	return rowCount;
+    }
+
+    private PendingRow submit(int row, final String address, String country,
+	    Map<String, Future<AddressResultsDto>> deduplicationCache) {
+	if (address == null || address.trim().length() == 0) {
+	    return new PendingRow(row, "the address is required");
+	}
+	final String countryCode = country == null || country.trim().length() == 0 ? null : country.trim();
+	String key = normalize(address, countryCode);
+	Future<AddressResultsDto> future = deduplicationCache.get(key);
+	if (future == null) {
+	    future = executor.submit(new Callable<AddressResultsDto>() {
+		public AddressResultsDto call() throws Exception {
+		    return geocodingService.geocode(new AddressQuery(address, countryCode));
+		}
+	    });
+	    deduplicationCache.put(key, future);
+	}
+	return new PendingRow(row, future);
+    }
+
+    private void write(PendingRow row, OutputStream outputStream, ByteArrayOutputStream buffer) throws IOException {
+	buffer.reset();
+	String error = row.error;
+	if (error == null) {
+	    try {
+		buffer.write(("{\"row\":" + row.row + ",\"result\":").getBytes(Constants.CHARSET));
+		addressResultsDtoSerializer.serialize(buffer, OutputFormat.JSON, row.future.get(), false,
+			new HashMap<String, Object>());
+		buffer.write('}');
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+		throw new ServiceException("the bulk geocoding has been interrupted", e);
+	    } catch (ExecutionException e) {
+		Throwable cause = e.getCause() == null ? e : e.getCause();
+		error = cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage();
+		buffer.reset();
+	    } catch (RuntimeException e) {
+		error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+		buffer.reset();
+	    }
+	}
+	if (error != null) {
+	    buffer.write(("{\"row\":" + row.row + ",\"error\":\"" + escapeJson(error) + "\"}").getBytes(Constants.CHARSET));
+	}
+	buffer.write('\n');
+	buffer.writeTo(outputStream);
+    }
+
+    private void cancel(Deque<PendingRow> pendingRows) {
+	for (PendingRow row : pendingRows) {
+	    if (row.future != null) {
+		row.future.cancel(true);
+	    }
+	}
+    }
+
+    private Map<String, Future<AddressResultsDto>> createDeduplicationCache() {
+	return new LinkedHashMap<String, Future<AddressResultsDto>>(16, 0.75f, true) {
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected boolean removeEldestEntry(Map.Entry<String, Future<AddressResultsDto>> eldest) {
+		return size() > deduplicationCacheSize;
+	    }
+	};
+    }
+
+    /**
+     * A row that is geocoded or that can not be
+     */
+    private static class PendingRow {
+
+	private final int row;
+
+	private final Future<AddressResultsDto> future;
+
+	private final String error;
+
+	PendingRow(int row, Future<AddressResultsDto> future) {
+	    this.row = row;
+	    this.future = future;
+	    this.error = null;
+	}
+
+	PendingRow(int row, String error) {
+	    this.row = row;
+	    this.future = null;
+	    this.error = error;
+	}
+
+	boolean isDone() {
+	    return future == null || future.isDone();
+	}
+    }
+
+    /**
+     * @return the key of an address : the normalized address (see
+     *         {@link GeocodingResultCache#normalize(String)}) followed by the
+     *         country
+     */
+    static String normalize(String address, String countryCode) {
+	String normalized = GeocodingResultCache.normalize(address);
+	return countryCode == null ? normalized : normalized + "|" + countryCode.toUpperCase(Locale.ENGLISH);
+    }
+
+    /**
+     * @return the address and the country (null if there is none)
+     * @throws IllegalArgumentException
+     *             if a quote is not closed
+     */
+    static String[] parseCsvLine(String line) {
+	List<String> fields = new ArrayList<String>(2);
+	StringBuilder field = new StringBuilder();
+	boolean quoted = false;
+	for (int i = 0; i < line.length(); i++) {
+	    char c = line.charAt(i);
+	    if (quoted) {
+		if (c == '"') {
+		    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+			field.append('"');
+			i++;
+		    } else {
+			quoted = false;
+		    }
+		} else {
+		    field.append(c);
+		}
+	    } else if (c == '"') {
+		quoted = true;
+	    } else if (c == ',') {
+		fields.add(field.toString().trim());
+		field.setLength(0);
+	    } else {
+		field.append(c);
+	    }
+	}
+	if (quoted) {
+	    throw new IllegalArgumentException("the quote of the row is not closed");
+	}
+	fields.add(field.toString().trim());
+	return new String[] { fields.get(0), fields.size() > 1 && fields.get(1).length() > 0 ? fields.get(1) : null };
+    }
+
+    /**
+     * @return the address and the country (null if there is none) of a flat
+     *         json object, the other attributes are ignored
+     * @throws IllegalArgumentException
+     *             if the line is not a flat json object
+     */
+    static String[] parseJsonLine(String line) {
+	String[] fields = new String[2];
+	JsonCursor cursor = new JsonCursor(line);
+	cursor.expect('{');
+	if (cursor.peek() == '}') {
+	    cursor.expect('}');
+	} else {
+	    do {
+		String name = cursor.readString();
+		cursor.expect(':');
+		String value = cursor.readValue();
+		if ("address".equals(name)) {
+		    fields[0] = value;
+		} else if ("country".equals(name)) {
+		    fields[1] = value;
+		}
+	    } while (cursor.next(',', '}') == ',');
+	}
+	cursor.expectEnd();
+	return fields;
+    }
+
+    private static class JsonCursor {
+
+	private final String line;
+
+	private int position = 0;
+
+	JsonCursor(String line) {
+	    this.line = line;
+	}
+
+	char peek() {
+	    while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+		position++;
+	    }
+	    if (position == line.length()) {
+		throw new IllegalArgumentException("the row is not a complete json object");
+	    }
+	    return line.charAt(position);
+	}
+
+	void expect(char expected) {
+	    if (peek() != expected) {
+		throw new IllegalArgumentException("'" + expected + "' expected at position " + (position + 1));
+	    }
+	    position++;
+	}
+
+	char next(char first, char second) {
+	    char c = peek();
+	    if (c != first && c != second) {
+		throw new IllegalArgumentException("'" + first + "' or '" + second + "' expected at position "
+			+ (position + 1));
+	    }
+	    position++;
+	    return c;
+	}
+
+	void expectEnd() {
+	    if (line.substring(position).trim().length() != 0) {
+		throw new IllegalArgumentException("unexpected characters after the json object");
+	    }
+	}
+
+	/**
+	 * @return a string, the text of a number or a boolean, or null
+	 */
+	String readValue() {
+	    if (peek() == '"') {
+		return readString();
+	    }
+	    int start = position;
+	    while (position < line.length() && ",} \t".indexOf(line.charAt(position)) == -1) {
+		position++;
+	    }
+	    String value = line.substring(start, position);
+	    if (value.length() == 0 || value.startsWith("{") || value.startsWith("[")) {
+		throw new IllegalArgumentException("only strings, numbers and booleans are supported at position "
+			+ (start + 1));
+	    }
+	    return "null".equals(value) ? null : value;
+	}
+
+	String readString() {
+	    expect('"');
+	    StringBuilder value = new StringBuilder();
+	    while (position < line.length()) {
+		char c = line.charAt(position++);
+		if (c == '"') {
+		    return value.toString();
+		}
+		if (c != '\\') {
+		    value.append(c);
+		    continue;
+		}
+		if (position == line.length()) {
+		    break;
+		}
+		char escaped = line.charAt(position++);
+		switch (escaped) {
+		case 'n':
+		    value.append('\n');
+		    break;
+		case 't':
+		    value.append('\t');
+		    break;
+		case 'r':
+		    value.append('\r');
+		    break;
+		case 'b':
+		    value.append('\b');
+		    break;
+		case 'f':
+		    value.append('\f');
+		    break;
+		case 'u':
+		    if (position + 4 > line.length()) {
+			throw new IllegalArgumentException("invalid unicode escape at position " + position);
+		    }
+		    try {
+			value.append((char) Integer.parseInt(line.substring(position, position + 4), 16));
+		    } catch (NumberFormatException e) {
+			throw new IllegalArgumentException("invalid unicode escape at position " + position);
+		    }
+		    position += 4;
+		    break;
+		default:
+		    value.append(escaped);
+		}
+	    }
+	    throw new IllegalArgumentException("a string of the row is not closed");
+	}
+    }
+
+    static String escapeJson(String value) {
+	StringBuilder escaped = new StringBuilder(value.length() + 8);
+	for (int i = 0; i < value.length(); i++) {
+	    char c = value.charAt(i);
+	    switch (c) {
+	    case '"':
+		escaped.append("\\\"");
+		break;
+	    case '\\':
+		escaped.append("\\\\");
+		break;
+	    case '\n':
+		escaped.append("\\n");
+		break;
+	    case '\r':
+		escaped.append("\\r");
+		break;
+	    case '\t':
+		escaped.append("\\t");
+		break;
+	    default:
+		if (c < 0x20) {
+		    escaped.append(String.format("\\u%04x", (int) c));
+		} else {
+		    escaped.append(c);
+		}
+	    }
+	}
+	return escaped.toString();
+    }
+
+    public void setGeocodingService(IGeocodingService geocodingService) {
+	this.geocodingService = geocodingService;
+    }
+
+    /**
+     * @param numberOfThreads
+     *            the number of addresses that are geocoded at the same time,
+     *            for all the streams. 0 to use the number of processors
+     */
+    public void setNumberOfThreads(int numberOfThreads) {
+	this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * @param maxPendingRows
+     *            the maximum number of rows of a stream that are read but not
+     *            written yet
+     */
+    public void setMaxPendingRows(int maxPendingRows) {
+	this.maxPendingRows = maxPendingRows;
+    }
+
+    /**
+     * @param deduplicationCacheSize
+     *            the number of the last distinct addresses of a stream that
+     *            are remembered to not geocode them twice
+     */
+    public void setDeduplicationCacheSize(int deduplicationCacheSize) {
+	this.deduplicationCacheSize = deduplicationCacheSize;
+    }
+
+}
@@ -0,0 +1,296 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.geocoding;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.gisgraphy.addressparser.AddressResultsDto;
+import com.gisgraphy.domain.geoloc.entity.event.IEvent;
+import com.gisgraphy.domain.geoloc.entity.event.IEventListener;
+import com.gisgraphy.domain.geoloc.entity.event.IGisRepositoryEvent;
+
+/**
+ * A bounded cache of the geocoding results, in front of
+ * {@link GeocodingService#geocode(com.gisgraphy.addressparser.AddressQuery)}.
+ * <br/>
+ * It is a segmented LRU : a new result goes in the probation segment and is
+ * promoted in the protected segment when it is read again, so that the
+ * addresses that are geocoded once (most of a bulk file) don't evict the
+ * frequent ones. The size is a weight : one per result plus one per address
+ * of the result.
+ * <br/>
+ * The cache is invalidated when a feature is stored or deleted (it listens to
+ * the {@link IGisRepositoryEvent}s) and by the {@link com.gisgraphy.importer.ImporterManager}.
+ * An invalidation only increments a generation, the entries are dropped by
+ * the next read or write. The results are shared, they must not be modified.
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class GeocodingResultCache implements IEventListener {
+
+    protected static final Logger logger = LoggerFactory.getLogger(GeocodingResultCache.class);
+
+    public static final int DEFAULT_MAX_WEIGHT = 100000;
+
+    /**
+     * the part of the weight for the protected segment, in percent
+     */
+    private static final int PROTECTED_PERCENT = 80;
+
+    private static final Pattern ADDRESS_SEPARATORS_PATTERN = Pattern.compile("[\\s,;\\.]+");
+
+    private boolean enabled = true;
+
+    private int maxWeight = DEFAULT_MAX_WEIGHT;
+
+    private final LinkedHashMap<String, Entry> probation = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    private final LinkedHashMap<String, Entry> protectedSegment = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    private int probationWeight = 0;
+
+    private int protectedWeight = 0;
+
+    /**
+     * the generation of the entries, the segments are cleared when it is not
+     * the current generation
+     */
+    private long entriesGeneration = 0;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private static class Entry {
+
+	private final AddressResultsDto results;
+
+	private final int weight;
+
+	Entry(AddressResultsDto results, int weight) {
+	    this.results = results;
+	    this.weight = weight;
+	}
+    }
+
+    /**
+     * @return the cached results or null
+     */
+    public AddressResultsDto get(String key) {
+	if (!enabled || key == null) {
+	    return null;
+	}
+	synchronized (this) {
+	    dropOldGeneration();
+	    Entry entry = protectedSegment.get(key);
+	    if (entry == null) {
+		entry = probation.remove(key);
+		if (entry != null) {
+		    probationWeight -= entry.weight;
+		    promote(key, entry);
+		}
+	    }
+	    if (entry == null) {
+		misses.incrementAndGet();
+		return null;
+	    }
+	    hits.incrementAndGet();
+	    return entry.results;
+	}
+    }
+
+    /**
+     * @param generation
+     *            the generation when the results have been computed, see
+     *            {@link #getGeneration()}. The results are not cached if the
+     *            cache has been invalidated since
+     */
+    public void put(String key, AddressResultsDto results, long generation) {
+	if (!enabled || key == null || results == null) {
+	    return;
+	}
+	int weight = 1 + (results.getResult() == null ? 0 : results.getResult().size());
+	if (weight > maxWeight / 10) {
+	    return;
+	}
+	synchronized (this) {
+	    dropOldGeneration();
+	    if (generation != entriesGeneration || protectedSegment.containsKey(key) || probation.containsKey(key)) {
+		return;
+	    }
+	    probation.put(key, new Entry(results, weight));
+	    probationWeight += weight;
+	    evict();
+	}
+    }
+
+    private void promote(String key, Entry entry) {
+	protectedSegment.put(key, entry);
+	protectedWeight += entry.weight;
+	int maxProtectedWeight = (int) ((long) maxWeight * PROTECTED_PERCENT / 100);
+	Iterator<Map.Entry<String, Entry>> eldests = protectedSegment.entrySet().iterator();
+	while (protectedWeight > maxProtectedWeight && eldests.hasNext()) {
+	    Map.Entry<String, Entry> eldest = eldests.next();
+	    if (eldest.getValue() == entry) {
+		break;
+	    }
+	    //the eldest protected entry gets a last chance in probation
+	    eldests.remove();
+	    protectedWeight -= eldest.getValue().weight;
+	    probation.put(eldest.getKey(), eldest.getValue());
+	    probationWeight += eldest.getValue().weight;
+	}
+	evict();
+    }
+
+    private void evict() {
+	Iterator<Map.Entry<String, Entry>> eldests = probation.entrySet().iterator();
+	while (probationWeight + protectedWeight > maxWeight && eldests.hasNext()) {
+	    probationWeight -= eldests.next().getValue().weight;
+	    eldests.remove();
+	    evictions.incrementAndGet();
+	}
+	eldests = protectedSegment.entrySet().iterator();
+	while (probationWeight + protectedWeight > maxWeight && eldests.hasNext()) {
+	    protectedWeight -= eldests.next().getValue().weight;
+	    eldests.remove();
+	    evictions.incrementAndGet();
+	}
+    }
+
+    private void dropOldGeneration() {
+	long current = generation.get();
+	if (current != entriesGeneration) {
+	    probation.clear();
+	    protectedSegment.clear();
+	    probationWeight = 0;
+	    protectedWeight = 0;
+	    entriesGeneration = current;
+	}
+    }
+
+    /**
+     * Drop all the results, they will be computed again
+     */
+    public void invalidateAll() {
+	generation.incrementAndGet();
+    }
+
+    /**
+     * @return the current generation, to give to {@link #put(String, AddressResultsDto, long)}
+     */
+    public long getGeneration() {
+	return generation.get();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.gisgraphy.domain.geoloc.entity.event.IEventListener#handleEvent(com.gisgraphy.domain.geoloc.entity.event.IEvent)
+     */
+    public void handleEvent(IEvent event) {
+	invalidateAll();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.gisgraphy.domain.geoloc.entity.event.IEventListener#supports(com.gisgraphy.domain.geoloc.entity.event.IEvent)
+     */
+    public boolean supports(IEvent event) {
+	return enabled && event instanceof IGisRepositoryEvent;
+    }
+
+    /**
+     * @return the address in lower case, without punctuation and with single
+     *         spaces
+     */
+    public static String normalize(String address) {
+	return ADDRESS_SEPARATORS_PATTERN.matcher(address.toLowerCase(Locale.ENGLISH)).replaceAll(" ").trim();
+    }
+
+    public long getHits() {
+	return hits.get();
+    }
+
+    public long getMisses() {
+	return misses.get();
+    }
+
+    public long getEvictions() {
+	return evictions.get();
+    }
+
+    /**
+     * @return the ratio of the reads that have found a result, between 0 and 1
+     */
+    public double getHitRate() {
+	long hitCount = hits.get();
+	long total = hitCount + misses.get();
+	return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public synchronized int getSize() {
+	dropOldGeneration();
+	return probation.size() + protectedSegment.size();
+    }
+
+    public synchronized int getWeight() {
+	dropOldGeneration();
+	return probationWeight + protectedWeight;
+    }
+
+    public boolean isEnabled() {
+	return enabled;
+    }
+
+    /**
+     * @param enabled
+     *            whether the geocoding results should be cached
+     */
+    public void setEnabled(boolean enabled) {
+	this.enabled = enabled;
+    }
+
+    /**
+     * @param maxWeight
+     *            the maximum number of results plus the number of their
+     *            addresses
+     */
+    public void setMaxWeight(int maxWeight) {
+	this.maxWeight = maxWeight;
+    }
+
+}
@@ -28,7 +28,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -78,8 +80,11 @@ import com.gisgraphy.importer.LabelGenerator;
 import com.gisgraphy.serializer.UniversalSerializer;
 import com.gisgraphy.serializer.common.UniversalSerializerConstant;
 import com.gisgraphy.service.IStatsUsageService;
+import com.gisgraphy.stats.LatencyHistogram;
+import com.gisgraphy.stats.LatencyStats;
 import com.gisgraphy.stats.StatsUsageType;
 import com.gisgraphy.street.HouseNumberDto;
+import com.gisgraphy.street.HouseNumberIndex;
 import com.gisgraphy.street.HouseNumberUtil;
 import com.vividsolutions.jts.geom.Point;
 
@@ -103,14 +108,40 @@ public class GeocodingService implements IGeocodingService {
 	//private static final Pattern GERMAN_SYNONYM_PATTEN = Pattern.compile("(?<=\\w)(str\\b)[\\.]?",Pattern.CASE_INSENSITIVE);
 	
 	private static final int INTERPOLATION_CURVE_TOLERANCE = 45;
+
+	//the latencies of the stages, they can be nested
+	private static final LatencyHistogram GEOCODING_LATENCY = LatencyStats.getHistogram(StatsUsageType.GEOCODING, LatencyStats.TOTAL_STAGE);
+	private static final LatencyHistogram COUNTRY_DETECTION_LATENCY = LatencyStats.getHistogram(StatsUsageType.GEOCODING, "countryDetection");
+	private static final LatencyHistogram ADDRESS_PARSER_LATENCY = LatencyStats.getHistogram(StatsUsageType.GEOCODING, "addressParser");
+	private static final LatencyHistogram HOUSE_NUMBER_DETECTION_LATENCY = LatencyStats.getHistogram(StatsUsageType.GEOCODING, "houseNumberDetection");
+	private static final LatencyHistogram STREET_TYPE_DETECTION_LATENCY = LatencyStats.getHistogram(StatsUsageType.GEOCODING, "streetTypeDetection");
+	private static final LatencyHistogram SEARCH_LATENCY = LatencyStats.getHistogram(StatsUsageType.GEOCODING, "search");
+	private static final LatencyHistogram SOLR_LATENCY = LatencyStats.getHistogram(StatsUsageType.GEOCODING, "solr");
+	private static final LatencyHistogram BUILD_RESULTS_LATENCY = LatencyStats.getHistogram(StatsUsageType.GEOCODING, "buildResults");
+	private static final LatencyHistogram INTERPOLATION_LATENCY = LatencyStats.getHistogram(StatsUsageType.GEOCODING, "houseNumberInterpolation");
 	private IStatsUsageService statsUsageService;
 	private ImporterConfig importerConfig;
 	private IAddressParserService addressParser;
 	private FullTextSearchEngine fullTextSearchEngine;
 	private GisgraphyConfig gisgraphyConfig;
+	private GeocodingResultCache geocodingResultCache;
 	
 	private LabelGenerator labelGenerator = LabelGenerator.getInstance();
 	private BasicAddressFormater addressFormater = BasicAddressFormater.getInstance();
+
+	protected static final int HOUSE_NUMBER_INDEX_CACHE_SIZE = 5000;
+
+	/**
+	 * the house numbers of the last streets, normalized and sorted, by feature id
+	 */
+	private final Map<Long, HouseNumberIndex> houseNumberIndexCache = Collections.synchronizedMap(new LinkedHashMap<Long, HouseNumberIndex>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, HouseNumberIndex> eldest) {
+			return size() > HOUSE_NUMBER_INDEX_CACHE_SIZE;
+		}
+	});
 	
 	CountryDetector countryDetector = new CountryDetector();
 	
@@ -235,6 +266,49 @@ public class GeocodingService implements IGeocodingService {
 		if (query == null) {
 			throw new GeocodingException("Can not geocode a null query");
 		}
+		long start = System.nanoTime();
+		try {
+			String cacheKey = buildCacheKey(query);
+			if (cacheKey == null) {
+				return geocodeWithoutCache(query);
+			}
+			AddressResultsDto cachedResults = geocodingResultCache.get(cacheKey);
+			if (cachedResults != null) {
+				logger.info("geocoding of " + query + " found in cache");
+				statsUsageService.increaseUsage(StatsUsageType.GEOCODING);
+				return cachedResults;
+			}
+			long generation = geocodingResultCache.getGeneration();
+			AddressResultsDto results = geocodeWithoutCache(query);
+			geocodingResultCache.put(cacheKey, results, generation);
+			return results;
+		} finally {
+			GEOCODING_LATENCY.recordSince(start);
+		}
+	}
+
+	/**
+	 * @return the key of the query in the {@link GeocodingResultCache}, or
+	 *         null if the query should not be cached (no cache, structured
+	 *         address)
+	 */
+	protected String buildCacheKey(AddressQuery query) {
+		if (geocodingResultCache == null || !geocodingResultCache.isEnabled() || query instanceof StructuredAddressQuery
+				|| isEmptyString(query.getAddress())) {
+			return null;
+		}
+		StringBuilder key = new StringBuilder(GeocodingResultCache.normalize(query.getAddress()));
+		key.append('|').append(query.getCountry() == null ? "" : query.getCountry().trim().toUpperCase());
+		key.append('|').append(query.isPostal()).append('|').append(query.isFuzzy());
+		if (query.getPoint() != null) {
+			key.append('|').append(query.getPoint().getX()).append(',').append(query.getPoint().getY())
+					.append('|').append(query.getRadius());
+		}
+		key.append('|').append(shouldSetParseAddress(query));
+		return key.toString();
+	}
+
+	protected AddressResultsDto geocodeWithoutCache(AddressQuery query) throws GeocodingException {
 		logger.info(query.toString());
 		String countryCode = query.getCountry();
 		if (countryCode !=null  && countryCode.trim().length() != 2) {
@@ -258,7 +332,9 @@ public class GeocodingService implements IGeocodingService {
 		}
 	//	rawAddress = prepareQuery(rawAddress);
 		//always search for country to remove it
+			long stageStart = System.nanoTime();
 			CountryDetectorDto detectorDto = countryDetector.detectAndRemoveCountry(rawAddress);
+			COUNTRY_DETECTION_LATENCY.recordSince(stageStart);
 			if (detectorDto != null && detectorDto.getCountryCode()!=null){
 				if (detectorDto.getAddress()!= null && !detectorDto.getAddress().trim().equals("")){
 					rawAddress = detectorDto.getAddress();
@@ -285,12 +361,14 @@ public class GeocodingService implements IGeocodingService {
 		logger.debug("is postal address : " +query.isPostal());
 		boolean needParsing = needParsing(query.getAddress());
 		if ((gisgraphyConfig.useAddressParserWhenGeocoding || query.isPostal()) && needParsing) {
+			stageStart = System.nanoTime();
 			try {
 				logger.debug("address parser is enabled");
 				addressResultDto = addressParser.execute(addressQuery);
 			} catch (AddressParserException e) {
 				logger.error("An error occurs during parsing of address" + e.getMessage(), e);
 			}
+			ADDRESS_PARSER_LATENCY.recordSince(stageStart);
 		} else {
 			logger.debug("won't parse "+rawAddress);
 		}
@@ -311,7 +389,9 @@ public class GeocodingService implements IGeocodingService {
 			statsUsageService.increaseUsage(StatsUsageType.GEOCODING);
 			AddressResultsDto results;
 			rawAddress = StringHelper.prepareQuery(rawAddress);
+			stageStart = System.nanoTime();
 			HouseNumberAddressDto houseNumberAddressDto = findHouseNumber(rawAddress, countryCode);
+			HOUSE_NUMBER_DETECTION_LATENCY.recordSince(stageStart);
 			String newAddress = rawAddress;
 			
 			String houseNumber = null;
@@ -319,7 +399,9 @@ public class GeocodingService implements IGeocodingService {
 				houseNumber = houseNumberAddressDto.getHouseNumber();
 				newAddress = houseNumberAddressDto.getAddressWithoutHouseNumber();
 			} 
+			stageStart = System.nanoTime();
 			List<String> streettypes = smartStreetDetection.getStreetTypes(newAddress);
+			STREET_TYPE_DETECTION_LATENCY.recordSince(stageStart);
 			for (String streettype : streettypes){
 				logger.info("found street type : "+streettype);
 			}
@@ -340,15 +422,19 @@ public class GeocodingService implements IGeocodingService {
 					logger.error("don't proces specific german address");
 				}
 			}
+				stageStart = System.nanoTime();
 				results = doSearch(newAddress,alternativeGermanAddress, countryCode, 
 						needParsing,houseNumber, false, query.getPoint(), query.getRadius(), smartstreetdetection);
+				SEARCH_LATENCY.recordSince(stageStart);
 				
 					
 					
 					//try in fuzzy
 					if (results.getNumFound()==0 && query.isFuzzy()){
+						stageStart = System.nanoTime();
 						results = doSearch(newAddress,alternativeGermanAddress, countryCode,
 								needParsing,houseNumber, true, query.getPoint(), query.getRadius(), smartstreetdetection);
+						SEARCH_LATENCY.recordSince(stageStart);
 					}
 					
 				//------------------------------------------------------------------------------------
@@ -498,7 +584,9 @@ public class GeocodingService implements IGeocodingService {
 			//have been probably found by exact match, so we search for address and so a street*/
 			if (!needParsing && exactMatches!=null && exactMatches.size() >=1){
 				//only one word and exact match ok
+				long start = System.nanoTime();
 				results = buildAddressResultDtoFromSolrResponseDto(exactMatches, houseNumber);
+				BUILD_RESULTS_LATENCY.recordSince(start);
 			} else {
 				
 				List<SolrResponseDto> fulltextResultsDto = doSearchStreet(
@@ -525,7 +613,9 @@ public class GeocodingService implements IGeocodingService {
 					logger.error(result.getScore()+" : "+(result.getOpenstreetmap_id()==null?result.getFeature_id():result.getOpenstreetmap_id())+"-"+result.getFully_qualified_name());
 				}
 				}
+				long start = System.nanoTime();
 				results = buildAddressResultDtoFromSolrResponseDto(exactMatches, houseNumber);
+				BUILD_RESULTS_LATENCY.recordSince(start);
 			}
 			if (fuzzy){
 				results.setMessage(FUZZY_ACTIVE);
@@ -673,7 +763,9 @@ public class GeocodingService implements IGeocodingService {
 				}
 			}
 		}
+		long start = System.nanoTime();
 		results = buildAddressResultDtoFromSolrResponseDto(streets, houseNumber);
+		BUILD_RESULTS_LATENCY.recordSince(start);
 		if (fuzzy){
 			results.setMessage(FUZZY_ACTIVE);
 		}
@@ -809,69 +901,81 @@ public class GeocodingService implements IGeocodingService {
 		return result;
 	}
 
-	protected HouseNumberDtoInterpolation searchHouseNumber(Integer houseNumberToFindAsInt, List<HouseNumberDto> houseNumbersList,String countryCode, boolean doInterpolation) { //TODO pass the house as int directly
+	protected HouseNumberDtoInterpolation searchHouseNumber(Integer houseNumberToFindAsInt, List<HouseNumberDto> houseNumbersList,String countryCode, boolean doInterpolation) {
 		if(houseNumberToFindAsInt==null || houseNumbersList==null || houseNumbersList.size()==0){
-			logger.info("no house number to search : ");
+			logger.debug("no house number to search");
 			return null;
 		}
-		Integer nearestLower = null;
-		Integer nearestUpper = null;
-		HouseNumberDto nearestHouseLower = null;
-		HouseNumberDto nearestHouseUpper = null;
-		//for debug purpose, need to be removed
-		StringBuffer sb = new StringBuffer();
-		for (HouseNumberDto candidate :houseNumbersList){
-			if (candidate!=null){
-				sb.append(candidate.getNumber()).append(",");
-			}
+		return searchHouseNumber(houseNumberToFindAsInt, HouseNumberIndex.build(houseNumbersList, countryCode), doInterpolation);
+	}
+
+	/**
+	 * Same as {@link #searchHouseNumber(Integer, List, String, boolean)} but
+	 * the house numbers of the street are normalized and sorted only once per
+	 * street (they are cached by feature id)
+	 */
+	protected HouseNumberDtoInterpolation searchHouseNumber(Integer houseNumberToFindAsInt, SolrResponseDto street,String countryCode, boolean doInterpolation) {
+		if(houseNumberToFindAsInt==null || street==null){
+			logger.debug("no house number to search");
+			return null;
 		}
-		logger.info("will analyze HN  : "+sb.toString());
-		
-		for (HouseNumberDto candidate :houseNumbersList){
-			if (candidate != null && candidate.getNumber()!=null){
-				Integer candidateNormalized;
-				if (countryCode!=null && ("SK".equalsIgnoreCase(countryCode) || "CZ".equalsIgnoreCase(countryCode))){
-					candidateNormalized = HouseNumberUtil.normalizeSkCzNumberToInt(candidate.getNumber());
-				} else {
-					candidateNormalized = HouseNumberUtil.normalizeNumberToInt(candidate.getNumber());
-				}
-				if (candidateNormalized!=null && candidateNormalized == houseNumberToFindAsInt){
-					logger.info("house number candidate found : "+candidate.getNumber());
-					return new HouseNumberDtoInterpolation(candidate.getLocation(),houseNumberToFindAsInt);
-				} else if (candidateNormalized < houseNumberToFindAsInt ){
-					if (nearestLower ==null || candidateNormalized > nearestLower){
-						nearestLower = candidateNormalized;
-						nearestHouseLower = candidate;
-					}
-				} else if (candidateNormalized > houseNumberToFindAsInt){
-					if (nearestUpper == null || candidateNormalized < nearestUpper){
-						nearestUpper = candidateNormalized;
-						nearestHouseUpper = candidate;
-					}
-				}
+		List<HouseNumberDto> houseNumbersList = street.getHouse_numbers();
+		if(houseNumbersList==null || houseNumbersList.size()==0){
+			logger.debug("no house number to search");
+			return null;
+		}
+		Long featureId = street.getFeature_id();
+		if (featureId == null){
+			return searchHouseNumber(houseNumberToFindAsInt, HouseNumberIndex.build(houseNumbersList, countryCode), doInterpolation);
 		}
+		HouseNumberIndex index = houseNumberIndexCache.get(featureId);
+		if (index == null || !index.isBuiltFrom(houseNumbersList, countryCode)){
+			index = HouseNumberIndex.build(houseNumbersList, countryCode);
+			houseNumberIndexCache.put(featureId, index);
 		}
-		logger.info("no exact house number candidate found for "+houseNumberToFindAsInt);
-		//do interpolation
-		if (nearestHouseLower == null && nearestHouseUpper ==null){
-			logger.info(" no lower, nor upper house number found");
+		return searchHouseNumber(houseNumberToFindAsInt, index, doInterpolation);
+	}
+
+	protected HouseNumberDtoInterpolation searchHouseNumber(int houseNumberToFindAsInt, HouseNumberIndex index, boolean doInterpolation) {
+		long start = System.nanoTime();
+		try {
+			return searchHouseNumberInIndex(houseNumberToFindAsInt, index, doInterpolation);
+		} finally {
+			INTERPOLATION_LATENCY.recordSince(start);
+		}
+	}
+
+	private HouseNumberDtoInterpolation searchHouseNumberInIndex(int houseNumberToFindAsInt, HouseNumberIndex index, boolean doInterpolation) {
+		int position = index.lowerBound(houseNumberToFindAsInt);
+		if (position < index.size() && index.getNumber(position) == houseNumberToFindAsInt){
+			if (logger.isDebugEnabled()){
+				logger.debug("house number candidate found : "+houseNumberToFindAsInt);
+			}
+			return new HouseNumberDtoInterpolation(index.getLocation(position),houseNumberToFindAsInt);
+		}
+		if (logger.isDebugEnabled()){
+			logger.debug("no exact house number candidate found for "+houseNumberToFindAsInt);
+		}
+		//the first house number of the nearest lower ones and the first of the nearest upper ones
+		int lowerPosition = position > 0 ? index.lowerBound(index.getNumber(position-1)) : -1;
+		int upperPosition = position < index.size() ? position : -1;
+		if (lowerPosition == -1 && upperPosition == -1){
+			logger.debug("no lower, nor upper house number found");
 			return null;
 		}
 		HouseNumberDtoInterpolation result = new HouseNumberDtoInterpolation();
-		if (nearestHouseUpper !=null){
-			logger.info(" higher : "+nearestUpper);
-			result.setHigherLocation(nearestHouseUpper.getLocation());
-			result.setHigherNumber(nearestUpper);
+		if (upperPosition != -1){
+			result.setHigherLocation(index.getLocation(upperPosition));
+			result.setHigherNumber(index.getNumber(upperPosition));
 		}
-		if (nearestHouseLower != null){
-			logger.info(" lower : "+nearestLower);
-			result.setLowerLocation(nearestHouseLower.getLocation());
-			result.setLowerNumber(nearestLower);
+		if (lowerPosition != -1){
+			result.setLowerLocation(index.getLocation(lowerPosition));
+			result.setLowerNumber(index.getNumber(lowerPosition));
 		}
 			//this do interpolation, but if the street is not a line or is curve the point will be out
 			if (doInterpolation){
-				if (nearestHouseLower !=null && nearestHouseUpper != null){
-					Point location = GeolocHelper.interpolatedPoint(nearestHouseLower.getLocation(), nearestHouseUpper.getLocation(), nearestUpper, nearestLower, houseNumberToFindAsInt);
+				if (lowerPosition != -1 && upperPosition != -1){
+					Point location = GeolocHelper.interpolatedPoint(index.getLocation(lowerPosition), index.getLocation(upperPosition), index.getNumber(upperPosition), index.getNumber(lowerPosition), houseNumberToFindAsInt);
 					if (location !=null){
 						return new HouseNumberDtoInterpolation(location,houseNumberToFindAsInt);
 					} else {
@@ -993,7 +1097,7 @@ public class GeocodingService implements IGeocodingService {
 							if (allowInterpolation(solrResponseDto) ){
 								doInterpolation=true;
 							}
-							HouseNumberDtoInterpolation houseNumber = searchHouseNumber(houseNumberToFindAsInt,houseNumbersList,countryCode, doInterpolation);
+							HouseNumberDtoInterpolation houseNumber = searchHouseNumber(houseNumberToFindAsInt,solrResponseDto,countryCode, doInterpolation);
 								if (houseNumber !=null){
 									if (houseNumber.isApproximative()){
 										
@@ -1034,7 +1138,7 @@ public class GeocodingService implements IGeocodingService {
 								if (allowInterpolation(solrResponseDto) ){
 									doInterpolation=true;
 								}
-								HouseNumberDtoInterpolation houseNumber = searchHouseNumber(houseNumberToFindAsInt,houseNumbersList,countryCode, doInterpolation);
+								HouseNumberDtoInterpolation houseNumber = searchHouseNumber(houseNumberToFindAsInt,solrResponseDto,countryCode, doInterpolation);
 							if (houseNumber !=null){
 								if (houseNumber.isApproximative()){
 									
@@ -1062,7 +1166,7 @@ public class GeocodingService implements IGeocodingService {
 						if (allowInterpolation(solrResponseDto) ){
 							doInterpolation=true;
 						}
-						HouseNumberDtoInterpolation houseNumber = searchHouseNumber(houseNumberToFindAsInt,houseNumbersList,countryCode, doInterpolation);
+						HouseNumberDtoInterpolation houseNumber = searchHouseNumber(houseNumberToFindAsInt,solrResponseDto,countryCode, doInterpolation);
 					if (houseNumber !=null){
 						if (houseNumber.isApproximative()){
 							
@@ -1186,7 +1290,9 @@ public class GeocodingService implements IGeocodingService {
 				query.withRadius(radius);
 			}
 		}
+		long start = System.nanoTime();
 		FulltextResultsDto results = fullTextSearchEngine.executeQuery(query);
+		SOLR_LATENCY.recordSince(start);
 		if (results.getResultsSize() >= 1) {
 			return results.getResults();
 		} else {
@@ -1475,7 +1581,9 @@ public class GeocodingService implements IGeocodingService {
 			query.around(point);
 			query.withRadius(radius);
 		}
+		long start = System.nanoTime();
 		FulltextResultsDto results = fullTextSearchEngine.executeQuery(query);
+		SOLR_LATENCY.recordSince(start);
 		if (results.getResultsSize() >= 1) {
 			return results.getResults();
 		} else {
@@ -1555,4 +1663,9 @@ public class GeocodingService implements IGeocodingService {
 		this.gisgraphyConfig = gisgraphyConfig;
 	}
 
+	@Autowired(required = false)
+	public void setGeocodingResultCache(GeocodingResultCache geocodingResultCache) {
+		this.geocodingResultCache = geocodingResultCache;
+	}
+
 }
@@ -47,6 +47,8 @@ import com.gisgraphy.geocoloc.IGeolocSearchEngine;
 import com.gisgraphy.serializer.common.UniversalSerializerConstant;
 import com.gisgraphy.service.IStatsUsageService;
 import com.gisgraphy.service.ServiceException;
+import com.gisgraphy.stats.LatencyHistogram;
+import com.gisgraphy.stats.LatencyStats;
 import com.gisgraphy.stats.StatsUsageType;
 
 /**
@@ -80,6 +82,10 @@ public class GeolocSearchEngine implements IGeolocSearchEngine {
     protected static final Logger logger = LoggerFactory
 	    .getLogger(GeolocSearchEngine.class);
 
+    private static final LatencyHistogram GEOLOC_LATENCY = LatencyStats.getHistogram(StatsUsageType.GEOLOC, LatencyStats.TOTAL_STAGE);
+    private static final LatencyHistogram DATABASE_LATENCY = LatencyStats.getHistogram(StatsUsageType.GEOLOC, "database");
+    private static final LatencyHistogram SERIALIZE_LATENCY = LatencyStats.getHistogram(StatsUsageType.GEOLOC, "serialize");
+
 
 
     /*
@@ -92,6 +98,7 @@ public class GeolocSearchEngine implements IGeolocSearchEngine {
 	statsUsageService.increaseUsage(StatsUsageType.GEOLOC);
 	Assert.notNull(query, "Can not execute a null query");
 	long start = System.currentTimeMillis();
+	long startNanos = System.nanoTime();
 	Class<?> placetype = query.getPlaceType();
 	IGisDao<?> dao = repositoryStrategy
 		.getDao(GisFeature.class);
@@ -106,6 +113,7 @@ public class GeolocSearchEngine implements IGeolocSearchEngine {
 	List<GisFeatureDistance> results = dao.getNearestAndDistanceFrom(query
 		.getPoint(), query.getRadius(),
 		query.getFirstPaginationIndex(), query.getMaxNumberOfResults(),query.hasDistanceField(), query.hasMunicipalityFilter());
+	DATABASE_LATENCY.recordSince(startNanos);
 
 	long end = System.currentTimeMillis();
 	long qTime = end - start;
@@ -113,7 +121,9 @@ public class GeolocSearchEngine implements IGeolocSearchEngine {
 		logger.info(query + " took " + (qTime) + " ms and returns "
 				+ results.size() + " results");
 	}
-	return new GeolocResultsDto(results, qTime);
+	GeolocResultsDto resultsDto = new GeolocResultsDto(results, qTime);
+	GEOLOC_LATENCY.recordSince(startNanos);
+	return resultsDto;
 
     }
 
@@ -129,10 +139,12 @@ public class GeolocSearchEngine implements IGeolocSearchEngine {
 	Assert.notNull(outputStream,
 		"Can not serialize into a null outputStream");
 	GeolocResultsDto geolocResultsDto = executeQuery(query);
+	long start = System.nanoTime();
 	Map<String, Object> extraParameter = new HashMap<String, Object>();
 	extraParameter.put(GeolocResultsDtoSerializer.START_PAGINATION_INDEX_EXTRA_PARAMETER, query.getFirstPaginationIndex());
 	extraParameter.put(UniversalSerializerConstant.CALLBACK_METHOD_NAME, query.getCallback());
 	geolocResultsDtoSerializer.serialize(outputStream, query.getOutputFormat(), geolocResultsDto, query.isOutputIndented(),extraParameter);
+	SERIALIZE_LATENCY.recordSince(start);
     }
 
     /*
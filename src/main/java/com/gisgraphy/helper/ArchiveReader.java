@@ -0,0 +1,181 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.helper;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+
+/**
+ * Read the files of an archive (a .gis file, a tar that may be compressed
+ * with bzip2 or gzip, or a single compressed file) one after the other,
+ * without extracting them on the disk. The bzip2 archives are decompressed
+ * on several cores (see {@link ParallelBZip2InputStream}).
+ *
+ * <pre>
+ * ArchiveReader archive = new ArchiveReader(file, 0);
+ * try {
+ *     String name;
+ *     while ((name = archive.nextEntry()) != null) {
+ *         read(archive.getInputStream());
+ *     }
+ * } finally {
+ *     archive.close();
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class ArchiveReader {
+
+    private static final String[] BZIP2_EXTENSIONS = { ".gis", ".tbz2", ".bz2" };
+
+    private static final String[] GZIP_EXTENSIONS = { ".tgz", ".gz", ".gzip" };
+
+    private static final String[] TAR_EXTENSIONS = { ".gis", ".tar", ".tbz2", ".tgz", ".tar.bz2", ".tar.gz", ".tar.gzip" };
+
+    private final InputStream decompressed;
+
+    private final TarArchiveInputStream tar;
+
+    private String singleEntryName;
+
+    private long entrySize = -1;
+
+    private final InputStream entryInputStream;
+
+    /**
+     * @param archive
+     *                the archive to read
+     * @param decompressionThreads
+     *                the number of threads that decompress the bzip2
+     *                archives, the number of processors if 0 or less
+     * @throws IOException
+     *                 if the archive can not be opened
+     * @throws IllegalArgumentException
+     *                 if the file is not an archive
+     * @see #isArchive(File)
+     */
+    public ArchiveReader(File archive, int decompressionThreads) throws IOException {
+	if (!isArchive(archive)) {
+	    throw new IllegalArgumentException(archive + " is not an archive");
+	}
+	String name = archive.getName().toLowerCase();
+	InputStream fileInputStream = new FileInputStream(archive);
+	if (endsWith(name, BZIP2_EXTENSIONS)) {
+	    decompressed = new BufferedInputStream(new ParallelBZip2InputStream(fileInputStream, decompressionThreads));
+	} else if (endsWith(name, GZIP_EXTENSIONS)) {
+	    decompressed = new GZIPInputStream(new BufferedInputStream(fileInputStream), 64 * 1024);
+	} else {
+	    decompressed = new BufferedInputStream(fileInputStream);
+	}
+	if (endsWith(name, TAR_EXTENSIONS)) {
+	    tar = new TarArchiveInputStream(decompressed);
+	    singleEntryName = null;
+	} else {
+	    tar = null;
+	    singleEntryName = archive.getName().substring(0, archive.getName().lastIndexOf('.'));
+	}
+	entryInputStream = new FilterInputStream(tar != null ? tar : decompressed) {
+	    @Override
+	    public void close() {
+		//the entries are closed with the archive
+	    }
+	};
+    }
+
+    /**
+     * @return true if the file can be read by this class, according to its
+     *         extension
+     */
+    public static boolean isArchive(File file) {
+	String name = file.getName().toLowerCase();
+	return endsWith(name, BZIP2_EXTENSIONS) || endsWith(name, GZIP_EXTENSIONS) || endsWith(name, TAR_EXTENSIONS);
+    }
+
+    private static boolean endsWith(String name, String[] extensions) {
+	for (String extension : extensions) {
+	    if (name.endsWith(extension)) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Go to the next file of the archive, the directories are skipped
+     *
+     * @return the name (with the path in the archive) of the next file, or
+     *         null if there is no more file
+     */
+    public String nextEntry() throws IOException {
+	if (tar == null) {
+	    String name = singleEntryName;
+	    singleEntryName = null;
+	    return name;
+	}
+	TarArchiveEntry entry;
+	while ((entry = tar.getNextTarEntry()) != null) {
+	    if (!entry.isDirectory()) {
+		entrySize = entry.getSize();
+		return entry.getName();
+	    }
+	}
+	entrySize = -1;
+	return null;
+    }
+
+    /**
+     * @return the size of the current file, -1 if it is not known (a
+     *         compressed file that is not a tar)
+     */
+    public long getEntrySize() {
+	return entrySize;
+    }
+
+    /**
+     * @return the content of the current file, closing it does nothing
+     */
+    public InputStream getInputStream() {
+	return entryInputStream;
+    }
+
+    /**
+     * Close the archive and stop the decompression threads
+     */
+    public void close() throws IOException {
+	if (tar != null) {
+	    tar.close();
+	} else {
+	    decompressed.close();
+	}
+    }
+
+}
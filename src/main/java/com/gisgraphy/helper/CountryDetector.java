@@ -22,16 +22,20 @@
  *******************************************************************************/
 package com.gisgraphy.helper;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * 
- * Detect Country
+ * Detect Country.
+ * <p>
+ * All the country alternate names are compiled once into a reversed character
+ * trie (a suffix automaton over the names), so the detection is a single
+ * right to left pass over the address that doesn't allocate anything but the
+ * result.
  * 
  * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
  * 
@@ -43,38 +47,155 @@ public class CountryDetector {
 	 */
 	public static final Logger logger = LoggerFactory.getLogger(CountryDetector.class);
 
-	 public CountryDetectorDto detectAndRemoveCountry(String address) {
-		 for (String countryCode: com.gisgraphy.helper.CountriesStaticData.countryCodeSortedByPopularity){
-	    	if (countryCode == null || "SG".equalsIgnoreCase(countryCode) || "PA".equalsIgnoreCase(countryCode)) {
-	    		// shortcut for specific country that got countryname and city is
-	    		// the same (panama, singapour
-	    		continue;
-	    	}
-	    	List<String> alternateNames = CountriesStaticData.countryAlternateNames.get(countryCode.toUpperCase());
-	    	if (alternateNames != null) {
-	    		String sanitarizeAddress = address.replaceAll("[\\s\\-\\']+", " ").trim().toLowerCase();
-	    		for (String alternateName : alternateNames) {
-	    			if (alternateName!=null && alternateName.toLowerCase().contains("mexico")){
-	    				 //special case for mexico =>we should not remove because it is also a city and a sate
-	    				continue;
-	    			}
-	    			if (sanitarizeAddress.endsWith(alternateName.toLowerCase())) {
-	    				//String pattern = "(?i)" + alternateName + "\\s*$";
-	    				Matcher matcher = Pattern.compile("(?i)" + alternateName + "\\s*$").matcher(sanitarizeAddress);
-	    				if (matcher.find()){
-	    					int index = matcher.start();
-	    					String result = address.substring(0, index).trim();
-	    					if (result != null && Pattern.matches(".*[,-]$", result) ){
-	    						result = result.substring(0, result.length()-1).trim();
-	    					}
-	    					logger.info("'"+alternateName +"' has been detected as a country name and removed from "+address +" : "+result);
-	    					return new CountryDetectorDto(result, countryCode);
-	    				}
-	    			}
-	    		}
-	    	}
+	/**
+	 * The root of the reversed alternate names trie, shared by all the
+	 * instances
+	 */
+	private static final SuffixNode ROOT = buildSuffixTrie();
+
+	/**
+	 * A node of the reversed trie. children are sorted by char in order to be
+	 * found by a binary search.
+	 */
+	private static final class SuffixNode {
+		private char[] chars = new char[0];
+		private SuffixNode[] children = new SuffixNode[0];
+		/**
+		 * the popularity rank of the most popular country that ends here, or
+		 * -1 if no alternate name ends on this node
+		 */
+		private int rank = -1;
+		private String countryCode;
+		private String alternateName;
+
+		private SuffixNode get(char c) {
+			int index = Arrays.binarySearch(chars, c);
+			return index < 0 ? null : children[index];
+		}
+
+		private SuffixNode getOrCreate(char c) {
+			int index = Arrays.binarySearch(chars, c);
+			if (index >= 0) {
+				return children[index];
+			}
+			int insertion = -index - 1;
+			char[] newChars = new char[chars.length + 1];
+			SuffixNode[] newChildren = new SuffixNode[children.length + 1];
+			System.arraycopy(chars, 0, newChars, 0, insertion);
+			System.arraycopy(children, 0, newChildren, 0, insertion);
+			System.arraycopy(chars, insertion, newChars, insertion + 1, chars.length - insertion);
+			System.arraycopy(children, insertion, newChildren, insertion + 1, children.length - insertion);
+			SuffixNode child = new SuffixNode();
+			newChars[insertion] = c;
+			newChildren[insertion] = child;
+			chars = newChars;
+			children = newChildren;
+			return child;
+		}
+	}
 
-	    }
-		 return new CountryDetectorDto(address, null);
-	 }
+	private static SuffixNode buildSuffixTrie() {
+		SuffixNode root = new SuffixNode();
+		List<String> countryCodes = CountriesStaticData.countryCodeSortedByPopularity;
+		for (int rank = 0; rank < countryCodes.size(); rank++) {
+			String countryCode = countryCodes.get(rank);
+			if (countryCode == null || "SG".equalsIgnoreCase(countryCode) || "PA".equalsIgnoreCase(countryCode)) {
+				// shortcut for specific country that got countryname and city is
+				// the same (panama, singapour
+				continue;
+			}
+			List<String> alternateNames = CountriesStaticData.countryAlternateNames.get(countryCode.toUpperCase());
+			if (alternateNames == null) {
+				continue;
+			}
+			for (String alternateName : alternateNames) {
+				if (alternateName == null || alternateName.length() == 0) {
+					continue;
+				}
+				if (alternateName.toLowerCase().contains("mexico")) {
+					// special case for mexico =>we should not remove because it is also a city and a sate
+					continue;
+				}
+				SuffixNode node = root;
+				for (int i = alternateName.length() - 1; i >= 0; i--) {
+					node = node.getOrCreate(Character.toLowerCase(alternateName.charAt(i)));
+				}
+				//the most popular country wins, names are already sanitized
+				if (node.rank == -1 || rank < node.rank) {
+					node.rank = rank;
+					node.countryCode = countryCode;
+					node.alternateName = alternateName;
+				}
+			}
+		}
+		return root;
+	}
+
+	/**
+	 * @return true if the char is one of the chars that are replaced by a
+	 *         space when the address is sanitized (the same as the
+	 *         alternate names)
+	 */
+	private static boolean isSeparator(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r' || c == '-' || c == '\'';
+	}
+
+	/**
+	 * Detect the country at the end of the address and remove it. The address
+	 * is compared to the country alternate names after whitespaces, dashes and
+	 * quotes have been collapsed into one space. If several names matches, the
+	 * most popular country wins and for a same country, the longest name wins.
+	 * 
+	 * @param address
+	 *            the address to process
+	 * @return the address without the country and the detected country code,
+	 *         or the original address and a null country code if no country
+	 *         is detected
+	 */
+	public CountryDetectorDto detectAndRemoveCountry(String address) {
+		if (address == null) {
+			return new CountryDetectorDto(address, null);
+		}
+		SuffixNode node = ROOT;
+		SuffixNode best = null;
+		int bestIndex = -1;
+		boolean pendingSpace = false;
+		boolean started = false;
+		for (int i = address.length() - 1; i >= 0 && node != null; i--) {
+			char c = address.charAt(i);
+			if (isSeparator(c)) {
+				// the trailing separators are trimmed, the others are collapsed into one space
+				pendingSpace = started;
+				continue;
+			}
+			if (pendingSpace) {
+				node = node.get(' ');
+				pendingSpace = false;
+				if (node == null) {
+					break;
+				}
+			}
+			started = true;
+			node = node.get(Character.toLowerCase(c));
+			if (node != null && node.rank != -1 && (best == null || node.rank <= best.rank)) {
+				// equal rank : the deeper, the longer
+				best = node;
+				bestIndex = i;
+			}
+		}
+		if (best == null) {
+			return new CountryDetectorDto(address, null);
+		}
+		String result = address.substring(0, bestIndex).trim();
+		if (result.length() > 0) {
+			char last = result.charAt(result.length() - 1);
+			if (last == ',' || last == '-') {
+				result = result.substring(0, result.length() - 1).trim();
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("'" + best.alternateName + "' has been detected as a country name and removed from " + address + " : " + result);
+		}
+		return new CountryDetectorDto(result, best.countryCode);
+	}
 }
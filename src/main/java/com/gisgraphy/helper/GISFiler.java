@@ -38,7 +38,6 @@ import org.apache.commons.compress.archivers.ArchiveException;
 import org.apache.commons.compress.archivers.ArchiveStreamFactory;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
-import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.utils.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,6 +52,7 @@ public class GISFiler {
     private String gisFileName;
     private File dest;
     private String currentFileNameIntoArchiveExtracted;
+    private int decompressionThreads = 0;
 
     /**
      * The logger
@@ -68,6 +68,17 @@ public class GISFiler {
     	this.dest = dest;
     }
 
+    /**
+     * @param gisFileName
+     * @param dest
+     * @param decompressionThreads the number of threads that decompress the bzip2 files,
+     * the number of processors if 0 or less
+     */
+    public GISFiler(String gisFileName, File dest, int decompressionThreads) {
+    	this(gisFileName, dest);
+    	this.decompressionThreads = decompressionThreads;
+    }
+
     private InputStream getDecompressedInputStream(final String name, final InputStream istream) throws IOException {
 	logger.info("decompress " + name + " to " + dest);
 	if (name == null) {
@@ -130,7 +141,8 @@ public class GISFiler {
 
        // final File outputFile = new File(outputDir, inputFile.getName().substring(0, inputFile.getName().length() - 3));
 
-        final InputStream in = new BZip2CompressorInputStream(new FileInputStream(inputFile));
+        //the blocks are decoded on several cores
+        final InputStream in = new ParallelBZip2InputStream(new FileInputStream(inputFile), decompressionThreads);
        /* final FileOutputStream out = new FileOutputStream(outputFile);
 
         IOUtils.copy(in, out);
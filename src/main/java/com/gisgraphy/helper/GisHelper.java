@@ -22,6 +22,7 @@
  *******************************************************************************/
 package com.gisgraphy.helper;
 
+import org.hibernate.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,6 +44,16 @@ public class GisHelper {
     
     private static final String INTERSECTION = "&&";
     private static final String BBOX = "BOX3D";
+
+    public static final String LONGITUDE_PARAMETER = "lng";
+    public static final String LATITUDE_PARAMETER = "lat";
+    public static final String MIN_X_PARAMETER = "minX";
+    public static final String MIN_Y_PARAMETER = "minY";
+    public static final String MAX_X_PARAMETER = "maxX";
+    public static final String MAX_Y_PARAMETER = "maxY";
+
+    private static final String POINT_WITH_PARAMETERS = "ST_SetSRID(ST_MakePoint(:" + LONGITUDE_PARAMETER + ",:"
+	    + LATITUDE_PARAMETER + ")," + SRID.WGS84_SRID.getSRID() + ")";
     
     /**
      * The logger
@@ -90,31 +101,11 @@ public class GisHelper {
      */
     public static String getBoundingBox(String alias, double latInDegree, double longInDegree,
 	    double distance) {
-    
-    double lat = Math.toRadians(latInDegree);
-    double lon = Math.toRadians(longInDegree);
-
-	double deltaXInDegrees = Math.abs(
-			Math.asin(
-					Math.sin(distance / Constants.RADIUS_OF_EARTH_IN_METERS)/ Math.cos(lat)
-					)
-		);
-if (Double.isNaN(deltaXInDegrees)){
-	deltaXInDegrees=0;
-}
-double deltaYInDegrees = Math.abs(distance
-	/ Constants.RADIUS_OF_EARTH_IN_METERS);
-if (Double.isNaN(deltaYInDegrees)){
-	deltaYInDegrees=0;
-}
-double minX = Math.toDegrees(lon - deltaXInDegrees);
-if (Double.isNaN(minX)){minX=lon;}
-double maxX = Math.toDegrees(lon + deltaXInDegrees);
-if (Double.isNaN(maxX)){minX=lon;}
-double minY = Math.toDegrees(lat - deltaYInDegrees);
-if (Double.isNaN(minY)){minX=lat;}
-double maxY = Math.toDegrees(lat + deltaYInDegrees);
-if (Double.isNaN(maxY)){minX=lat;}
+	double[] boundingBox = getBoundingBoxCoordinates(latInDegree, longInDegree, distance);
+	double minX = boundingBox[0];
+	double minY = boundingBox[1];
+	double maxX = boundingBox[2];
+	double maxY = boundingBox[3];
 
 	StringBuffer sb = new StringBuffer();
 	// {alias}.location && setSRID(BOX3D(...), 4326)
@@ -150,6 +141,102 @@ if (Double.isNaN(maxY)){minX=lat;}
 
     }
 
+
+    /**
+     * @param latInDegree
+     *                the latitude in degree
+     * @param longInDegree
+     *                the longitude in degree
+     * @param distance
+     *                the boundingbox distance
+     * @return the bounding box as an array : minX, minY, maxX, maxY
+     */
+    public static double[] getBoundingBoxCoordinates(double latInDegree, double longInDegree,
+	    double distance) {
+    double lat = Math.toRadians(latInDegree);
+    double lon = Math.toRadians(longInDegree);
+
+	double deltaXInDegrees = Math.abs(
+			Math.asin(
+					Math.sin(distance / Constants.RADIUS_OF_EARTH_IN_METERS)/ Math.cos(lat)
+					)
+		);
+	if (Double.isNaN(deltaXInDegrees)){
+		deltaXInDegrees=0;
+	}
+	double deltaYInDegrees = Math.abs(distance
+		/ Constants.RADIUS_OF_EARTH_IN_METERS);
+	if (Double.isNaN(deltaYInDegrees)){
+		deltaYInDegrees=0;
+	}
+	double minX = Math.toDegrees(lon - deltaXInDegrees);
+	if (Double.isNaN(minX)){minX=lon;}
+	double maxX = Math.toDegrees(lon + deltaXInDegrees);
+	if (Double.isNaN(maxX)){minX=lon;}
+	double minY = Math.toDegrees(lat - deltaYInDegrees);
+	if (Double.isNaN(minY)){minX=lat;}
+	double maxY = Math.toDegrees(lat + deltaYInDegrees);
+	if (Double.isNaN(maxY)){minX=lat;}
+	return new double[] { minX, minY, maxX, maxY };
+    }
+
+    /**
+     * @return a sql (or hql) String that represents a point with two named
+     *         parameters : {@link #LONGITUDE_PARAMETER} and
+     *         {@link #LATITUDE_PARAMETER}. Unlike a WKT literal, the query
+     *         string is the same for all the points, so that the statement
+     *         can be prepared and planned only once by the database
+     * @see #setPointParameters(Query, Point)
+     */
+    public static String getPointWithParameters() {
+	return POINT_WITH_PARAMETERS;
+    }
+
+    /**
+     * @param alias
+     *                the sql alias
+     * @param columnName
+     *                the name of the geometry column
+     * @return a sql String that checks that the column intersects a bounding
+     *         box given by four named parameters
+     * @see #setBoundingBoxParameters(Query, double, double, double)
+     */
+    public static String getBoundingBoxWithParameters(String alias, String columnName) {
+	return new StringBuffer(alias).append(".").append(columnName).append(" ").append(INTERSECTION)
+		.append(" ST_MakeEnvelope(:").append(MIN_X_PARAMETER).append(",:").append(MIN_Y_PARAMETER)
+		.append(",:").append(MAX_X_PARAMETER).append(",:").append(MAX_Y_PARAMETER).append(",")
+		.append(SRID.WGS84_SRID.getSRID()).append(")").toString();
+    }
+
+    /**
+     * Bind the parameters of {@link #getPointWithParameters()}
+     */
+    public static Query setPointParameters(Query query, Point point) {
+	query.setDouble(LONGITUDE_PARAMETER, point.getX());
+	query.setDouble(LATITUDE_PARAMETER, point.getY());
+	return query;
+    }
+
+    /**
+     * Bind the parameters of
+     * {@link #getBoundingBoxWithParameters(String, String)}
+     */
+    public static Query setBoundingBoxParameters(Query query, double latInDegree, double longInDegree, double distance) {
+	double[] boundingBox = getBoundingBoxCoordinates(latInDegree, longInDegree, distance);
+	return setBoundingBoxParameters(query, boundingBox[0], boundingBox[1], boundingBox[2], boundingBox[3]);
+    }
+
+    /**
+     * Bind the parameters of
+     * {@link #getBoundingBoxWithParameters(String, String)}
+     */
+    public static Query setBoundingBoxParameters(Query query, double minX, double minY, double maxX, double maxY) {
+	query.setDouble(MIN_X_PARAMETER, minX);
+	query.setDouble(MIN_Y_PARAMETER, minY);
+	query.setDouble(MAX_X_PARAMETER, maxX);
+	query.setDouble(MAX_Y_PARAMETER, maxY);
+	return query;
+    }
     
     /**
      * @param alias the
@@ -95,6 +95,11 @@ public class LevenshteinAlgorithm {
 		this(1,1,1,1);
 	}
 
+  /**
+   * The rows of the bounded computation, reused by the calls of a thread.
+   */
+  private final ThreadLocal<int[]> rows = new ThreadLocal<int[]>();
+
   /**
    * Compute the Damerau-Levenshtein distance between the specified source
    * string and the specified target string.
@@ -167,4 +172,144 @@ public class LevenshteinAlgorithm {
     }
     return table[source.length() - 1][target.length() - 1];
   }
+
+  /**
+   * Compute the Damerau-Levenshtein distance between the specified source
+   * string and the specified target string, as {@link #execute(String, String)}
+   * does, when it is lower or equal to the threshold. Only the cells of the
+   * table that are near the diagonal (the band where the distance can be
+   * lower than the threshold) are computed, on a few rows that are reused,
+   * and the computation stops as soon as the threshold is exceeded.
+   * 
+   * @return the distance if it is lower or equal to the threshold, the
+   *         threshold + 1 otherwise, -1 if the source or the target is null
+   */
+  public int execute(String source, String target, int threshold) {
+    if (source == null || target == null) {
+      return -1;
+    }
+    if (threshold < 0) {
+      throw new IllegalArgumentException("The threshold must be positive");
+    }
+    int exceeded = threshold + 1;
+    int sourceLength = source.length();
+    int targetLength = target.length();
+    if (sourceLength == 0) {
+      return Math.min(targetLength * insertCost, exceeded);
+    }
+    if (targetLength == 0) {
+      return Math.min(sourceLength * deleteCost, exceeded);
+    }
+    if (deleteCost == 0 || insertCost == 0) {
+      // no band
+      return Math.min(execute(source, target), exceeded);
+    }
+    int band = threshold / Math.min(deleteCost, insertCost);
+    if (Math.abs(sourceLength - targetLength) > band) {
+      return exceeded;
+    }
+    // a swap that deletes or inserts more chars exceeds the threshold
+    int maxDeletes = threshold / deleteCost;
+    int maxInserts = threshold / insertCost;
+    int depth = maxDeletes + 3;
+    int[] table = rows.get();
+    if (table == null || table.length < depth * targetLength) {
+      table = new int[depth * targetLength];
+      rows.set(table);
+    }
+    int lastRowUnderThreshold = -1;
+    for (int i = 0; i < sourceLength; i++) {
+      char sourceChar = source.charAt(i);
+      int from = Math.max(0, i - band);
+      int to = Math.min(targetLength - 1, i + band);
+      int maxSourceLetterMatchIndex = -1;
+      for (int j = from - 1; j >= 0 && j >= from - 1 - maxInserts; j--) {
+        if (target.charAt(j) == sourceChar) {
+          maxSourceLetterMatchIndex = j;
+          break;
+        }
+      }
+      boolean underThreshold = false;
+      for (int j = from; j <= to; j++) {
+        char targetChar = target.charAt(j);
+        int distance;
+        if (i == 0 && j == 0) {
+          distance = sourceChar == targetChar ? 0 : Math.min(replaceCost,
+              deleteCost + insertCost);
+        } else if (i == 0) {
+          int deleteDistance = (j + 1) * insertCost + deleteCost;
+          int insertDistance = cell(table, targetLength, depth, band, exceeded, 0, j - 1)
+              + insertCost;
+          int matchDistance = j * insertCost
+              + (sourceChar == targetChar ? 0 : replaceCost);
+          distance = Math.min(Math.min(deleteDistance, insertDistance),
+              matchDistance);
+        } else if (j == 0) {
+          int deleteDistance = cell(table, targetLength, depth, band, exceeded, i - 1, 0)
+              + deleteCost;
+          int insertDistance = (i + 1) * deleteCost + insertCost;
+          int matchDistance = i * deleteCost
+              + (sourceChar == targetChar ? 0 : replaceCost);
+          distance = Math.min(Math.min(deleteDistance, insertDistance),
+              matchDistance);
+        } else {
+          int deleteDistance = cell(table, targetLength, depth, band, exceeded, i - 1, j)
+              + deleteCost;
+          int insertDistance = cell(table, targetLength, depth, band, exceeded, i, j - 1)
+              + insertCost;
+          int matchDistance = cell(table, targetLength, depth, band, exceeded, i - 1, j - 1)
+              + (sourceChar == targetChar ? 0 : replaceCost);
+          distance = Math.min(Math.min(deleteDistance, insertDistance),
+              matchDistance);
+          int jSwap = maxSourceLetterMatchIndex;
+          if (jSwap != -1 && j - jSwap - 1 <= maxInserts) {
+            for (int iSwap = i - 1; iSwap >= 0 && iSwap >= i - 1 - maxDeletes; iSwap--) {
+              if (source.charAt(iSwap) == targetChar) {
+                int preSwapCost;
+                if (iSwap == 0 && jSwap == 0) {
+                  preSwapCost = 0;
+                } else {
+                  preSwapCost = cell(table, targetLength, depth, band, exceeded,
+                      Math.max(0, iSwap - 1), Math.max(0, jSwap - 1));
+                }
+                int swapDistance = preSwapCost + (i - iSwap - 1) * deleteCost
+                    + (j - jSwap - 1) * insertCost + swapCost;
+                distance = Math.min(distance, swapDistance);
+                break;
+              }
+            }
+          }
+        }
+        if (sourceChar == targetChar) {
+          maxSourceLetterMatchIndex = j;
+        }
+        if (distance <= threshold) {
+          underThreshold = true;
+        } else {
+          distance = exceeded;
+        }
+        table[(i % depth) * targetLength + j] = distance;
+      }
+      if (underThreshold) {
+        lastRowUnderThreshold = i;
+      } else if (i + 1 > lastRowUnderThreshold + 2 + maxDeletes) {
+        // the next rows can only be computed from the ones over the threshold
+        return exceeded;
+      }
+    }
+    return cell(table, targetLength, depth, band, exceeded, sourceLength - 1,
+        targetLength - 1);
+  }
+
+  /**
+   * @return the cell of a row of the bounded computation, the threshold + 1
+   *         if it is out of the band
+   */
+  private static int cell(int[] table, int targetLength, int depth, int band,
+      int exceeded, int i, int j) {
+    if (j < i - band || j > i + band) {
+      return exceeded;
+    }
+    return table[(i % depth) * targetLength + j];
+  }
 }
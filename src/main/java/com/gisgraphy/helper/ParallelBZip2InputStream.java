@@ -0,0 +1,487 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.helper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+
+/**
+ * Decompress a bzip2 stream on several cores. The blocks of a bzip2 stream
+ * are independent and begin with a 48 bits magic number (that is not aligned
+ * on a byte), so a thread splits the stream on the magic numbers and the
+ * blocks are decoded by a pool of threads, each one as a standalone bzip2
+ * stream. The decoded blocks are read in the order of the stream.
+ * <br/>
+ * As the magic number may appear by chance in the compressed data, a block
+ * that can not be decoded is decoded again with the following part of the
+ * stream. The concatenated streams (e.g : created by pbzip2) are supported.
+ * <br/>
+ * This class is not thread safe, as most of the streams.
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class ParallelBZip2InputStream extends InputStream {
+
+    /**
+     * The magic number of a block, the 48 first bits of pi
+     */
+    static final long BLOCK_MAGIC = 0x314159265359L;
+
+    /**
+     * The magic number of the end of a stream, the 48 first bits of sqrt(pi)
+     */
+    static final long END_OF_STREAM_MAGIC = 0x177245385090L;
+
+    private static final long MAGIC_MASK = (1L << 48) - 1;
+
+    /**
+     * The max number of parts of the stream that are decoded together when a
+     * block can not be decoded alone, before giving up
+     */
+    private static final int MAX_MERGED_SEGMENTS = 16;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final AtomicInteger streamCount = new AtomicInteger();
+
+    private final InputStream in;
+
+    private final ExecutorService scanner;
+
+    private final ExecutorService decoders;
+
+    private final BlockingQueue<Future<Segment>> segments;
+
+    private byte[] decoded = new byte[0];
+
+    private int position = 0;
+
+    private boolean endOfStream = false;
+
+    private boolean closed = false;
+
+    /**
+     * @param in
+     *                the bzip2 stream, it is closed when this stream is closed
+     * @param numberOfThreads
+     *                the number of threads that decode the blocks, the number
+     *                of processors if 0 or less
+     * @throws IOException
+     *                 if the stream doesn't start with a bzip2 header
+     */
+    public ParallelBZip2InputStream(InputStream in, int numberOfThreads) throws IOException {
+	if (in.read() != 'B' || in.read() != 'Z' || in.read() != 'h') {
+	    in.close();
+	    throw new IOException("The stream is not a bzip2 stream");
+	}
+	int threads = numberOfThreads > 0 ? numberOfThreads : Runtime.getRuntime().availableProcessors();
+	String name = "bzip2-" + streamCount.incrementAndGet();
+	this.in = in;
+	this.segments = new ArrayBlockingQueue<Future<Segment>>(threads * 2);
+	this.decoders = Executors.newFixedThreadPool(threads, new DaemonThreadFactory(name + "-decoder"));
+	this.scanner = Executors.newSingleThreadExecutor(new DaemonThreadFactory(name + "-scanner"));
+	scanner.execute(new Scanner());
+    }
+
+    @Override
+    public int read() throws IOException {
+	if (!fill()) {
+	    return -1;
+	}
+	return decoded[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+	if (length == 0) {
+	    return 0;
+	}
+	if (!fill()) {
+	    return -1;
+	}
+	int count = Math.min(length, decoded.length - position);
+	System.arraycopy(decoded, position, buffer, offset, count);
+	position += count;
+	return count;
+    }
+
+    @Override
+    public int available() {
+	return decoded.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+	if (!closed) {
+	    closed = true;
+	    scanner.shutdownNow();
+	    decoders.shutdownNow();
+	    segments.clear();
+	    in.close();
+	}
+    }
+
+    /**
+     * @return false if the end of the stream is reached
+     */
+    private boolean fill() throws IOException {
+	if (closed) {
+	    throw new IOException("The stream is closed");
+	}
+	while (position == decoded.length) {
+	    if (endOfStream) {
+		return false;
+	    }
+	    Segment segment = nextSegment();
+	    if (segment == Segment.END) {
+		endOfStream = true;
+	    } else if (segment.block) {
+		decoded = decode(segment);
+		position = 0;
+	    }
+	}
+	return true;
+    }
+
+    private Segment nextSegment() throws IOException {
+	try {
+	    Segment segment = segments.take().get();
+	    if (segment.error != null && !segment.block) {
+		throw segment.error;
+	    }
+	    return segment;
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new IOException("Interrupted while waiting for the decoded blocks");
+	} catch (ExecutionException e) {
+	    throw new IOException("Can not decode the bzip2 stream : " + e.getCause());
+	}
+    }
+
+    /**
+     * @return the decoded bytes of the block, merged with the following parts
+     *         of the stream until they can be decoded
+     */
+    private byte[] decode(Segment segment) throws IOException {
+	Segment merged = segment;
+	for (int i = 0; merged.error != null; i++) {
+	    if (i == MAX_MERGED_SEGMENTS) {
+		throw segment.error;
+	    }
+	    Segment next = nextSegment();
+	    if (next == Segment.END) {
+		endOfStream = true;
+		throw segment.error;
+	    }
+	    merged = merged.append(next);
+	    merged.decode();
+	}
+	return merged.decoded;
+    }
+
+    /**
+     * A part of the bzip2 stream that begins with a magic number, as bits. It
+     * is a block, or the end of a stream with the header of the next one
+     */
+    private static final class Segment {
+
+	private static final Segment END = new Segment(false);
+
+	private final boolean block;
+
+	private byte[] bits = new byte[1024];
+
+	/**
+	 * the number of used bytes of {@link #bits}
+	 */
+	private int length = 0;
+
+	/**
+	 * the index of the first bit in the first byte, the segments are
+	 * copied from the stream byte by byte and aligned by the decoders
+	 */
+	private int offset = 0;
+
+	private long bitLength = 0;
+
+	private byte[] decoded;
+
+	private IOException error;
+
+	private Segment(boolean block) {
+	    this.block = block;
+	}
+
+	private void ensureCapacity(int capacity) {
+	    if (capacity > bits.length) {
+		byte[] newBits = new byte[Math.max(bits.length * 2, capacity)];
+		System.arraycopy(bits, 0, newBits, 0, length);
+		bits = newBits;
+	    }
+	}
+
+	private void writeByte(int value) {
+	    if (length == bits.length) {
+		ensureCapacity(length + 1);
+	    }
+	    bits[length++] = (byte) value;
+	}
+
+	/**
+	 * Shift the bits so that the first one is the first bit of the first
+	 * byte and clear the bits after the end
+	 */
+	private void align() {
+	    if (offset != 0) {
+		for (int i = 0; i < length; i++) {
+		    int next = i + 1 < length ? bits[i + 1] & 0xFF : 0;
+		    bits[i] = (byte) ((bits[i] << offset) | (next >>> (8 - offset)));
+		}
+		offset = 0;
+	    }
+	    length = (int) ((bitLength + 7) >>> 3);
+	    if ((bitLength & 7) != 0) {
+		bits[length - 1] &= 0xFF << (8 - (bitLength & 7));
+	    }
+	}
+
+	private void write(int bit) {
+	    int index = (int) (bitLength >>> 3);
+	    if (index == length) {
+		writeByte(0);
+	    }
+	    if (bit != 0) {
+		bits[index] |= 0x80 >>> (bitLength & 7);
+	    }
+	    bitLength++;
+	}
+
+	private void write(long value, int count) {
+	    for (int i = count - 1; i >= 0; i--) {
+		write((int) (value >>> i) & 1);
+	    }
+	}
+
+	private int getBit(long index) {
+	    return (bits[(int) (index >>> 3)] >>> (7 - (index & 7))) & 1;
+	}
+
+	private long getBits(long index, int count) {
+	    long value = 0;
+	    for (int i = 0; i < count; i++) {
+		value = (value << 1) | getBit(index + i);
+	    }
+	    return value;
+	}
+
+	/**
+	 * Append the bits of an aligned segment to this aligned segment
+	 */
+	private void appendBits(Segment other) {
+	    if ((bitLength & 7) == 0) {
+		//the bits after the end of the other are 0
+		ensureCapacity(length + other.length);
+		System.arraycopy(other.bits, 0, bits, length, other.length);
+		length += other.length;
+		bitLength += other.bitLength;
+		return;
+	    }
+	    for (long i = 0; i < other.bitLength; i++) {
+		write(other.getBit(i));
+	    }
+	}
+
+	private Segment append(Segment next) {
+	    Segment merged = new Segment(true);
+	    align();
+	    next.align();
+	    merged.appendBits(this);
+	    merged.appendBits(next);
+	    return merged;
+	}
+
+	/**
+	 * Decode the block as a standalone stream : a header, the block and
+	 * the end of the stream, with the CRC of the block as the CRC of the
+	 * stream. The errors are kept in {@link #error}
+	 */
+	private void decode() {
+	    align();
+	    Segment stream = new Segment(false);
+	    stream.ensureCapacity(length + 16);
+	    //the max block size, the decoder is fine with smaller ones
+	    stream.write(('B' << 24) | ('Z' << 16) | ('h' << 8) | '9', 32);
+	    stream.appendBits(this);
+	    stream.write(END_OF_STREAM_MAGIC, 48);
+	    stream.write(bitLength >= 80 ? getBits(48, 32) : 0, 32);
+	    ByteArrayOutputStream out = new ByteArrayOutputStream(stream.length * 4);
+	    try {
+		InputStream blockStream = new BZip2CompressorInputStream(new ByteArrayInputStream(stream.bits, 0, stream.length));
+		byte[] buffer = new byte[READ_BUFFER_SIZE];
+		int count;
+		while ((count = blockStream.read(buffer)) != -1) {
+		    out.write(buffer, 0, count);
+		}
+		decoded = out.toByteArray();
+		error = null;
+	    } catch (IOException e) {
+		error = e;
+	    } catch (RuntimeException e) {
+		//the decoder may fail on corrupted data with an index out of bounds
+		error = new IOException("Can not decode a bzip2 block : " + e);
+	    }
+	}
+    }
+
+    /**
+     * Split the stream on the magic numbers and queue the segments
+     */
+    private class Scanner implements Runnable {
+
+	public void run() {
+	    try {
+		byte[] buffer = new byte[READ_BUFFER_SIZE];
+		Segment current = null;
+		//the index of the first bit of the current segment in the stream
+		long currentStart = 0;
+		//the last 8 bytes
+		long window = 0;
+		long bytesRead = 0;
+		int count;
+		while ((count = in.read(buffer)) != -1) {
+		    for (int i = 0; i < count; i++) {
+			window = (window << 8) | (buffer[i] & 0xFF);
+			bytesRead++;
+			if (current != null) {
+			    current.writeByte(buffer[i]);
+			}
+			if (bytesRead < 6) {
+			    continue;
+			}
+			//the magic numbers that end in this byte, the first one first
+			for (int shift = bytesRead > 6 ? 7 : 0; shift >= 0; shift--) {
+			    long candidate = (window >>> shift) & MAGIC_MASK;
+			    if (candidate == BLOCK_MAGIC || candidate == END_OF_STREAM_MAGIC) {
+				long start = bytesRead * 8 - shift - 48;
+				if (current != null) {
+				    current.bitLength = start - currentStart;
+				    queue(current);
+				}
+				current = new Segment(candidate == BLOCK_MAGIC);
+				current.offset = (int) (start & 7);
+				for (long j = start >>> 3; j < bytesRead; j++) {
+				    current.writeByte((int) (window >>> (8 * (bytesRead - 1 - j))));
+				}
+				currentStart = start;
+			    }
+			}
+		    }
+		}
+		if (current != null) {
+		    current.bitLength = bytesRead * 8 - currentStart;
+		    queue(current);
+		}
+		segments.put(completed(Segment.END));
+	    } catch (InterruptedException e) {
+		//closed
+	    } catch (IOException e) {
+		fail(e);
+	    } catch (RuntimeException e) {
+		//e.g. the underlying stream or the decoders failed
+		fail(new IOException("Can not split the bzip2 stream : " + e, e));
+	    } catch (Error e) {
+		fail(new IOException("Can not split the bzip2 stream : " + e, e));
+		throw e;
+	    }
+	}
+
+	/**
+	 * Queue a segment with the error, the reader would wait forever for the
+	 * end of the stream otherwise
+	 */
+	private void fail(IOException error) {
+	    Segment failed = new Segment(false);
+	    failed.error = error;
+	    try {
+		segments.put(completed(failed));
+	    } catch (InterruptedException e) {
+		//closed
+	    }
+	}
+
+	private void queue(final Segment segment) throws InterruptedException {
+	    if (segment.block) {
+		segments.put(decoders.submit(new Callable<Segment>() {
+		    public Segment call() {
+			segment.decode();
+			return segment;
+		    }
+		}));
+	    } else {
+		segments.put(completed(segment));
+	    }
+	}
+    }
+
+    private static Future<Segment> completed(final Segment segment) {
+	FutureTask<Segment> future = new FutureTask<Segment>(new Callable<Segment>() {
+	    public Segment call() {
+		return segment;
+	    }
+	});
+	future.run();
+	return future;
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+
+	private final String name;
+
+	private final AtomicInteger count = new AtomicInteger();
+
+	private DaemonThreadFactory(String name) {
+	    this.name = name;
+	}
+
+	public Thread newThread(Runnable runnable) {
+	    Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+	    thread.setDaemon(true);
+	    return thread;
+	}
+    }
+
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.helper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
+/**
+ * In memory point in polygon index : the polygons are stored in a JTS
+ * {@link STRtree} as prepared geometries, so that we can find the polygons
+ * that contains a point without querying the database. The polygons are
+ * identified by an id and can be flagged (e.g : municipality). The index must
+ * be {@link #build()} before being queried, it is thread safe once built.
+ * 
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class PolygonIndex {
+
+    private static final PreparedGeometryFactory preparedGeometryFactory = new PreparedGeometryFactory();
+
+    private static final Comparator<Entry> SMALLEST_AREA_FIRST = new Comparator<Entry>() {
+	public int compare(Entry o1, Entry o2) {
+	    return Double.compare(o1.area, o2.area);
+	}
+    };
+
+    private static final Comparator<Entry> LARGEST_AREA_FIRST = new Comparator<Entry>() {
+	public int compare(Entry o1, Entry o2) {
+	    return Double.compare(o2.area, o1.area);
+	}
+    };
+
+    private static final class Entry {
+	private final long id;
+	private final PreparedGeometry geometry;
+	private final double area;
+	private final boolean flag;
+
+	private Entry(long id, Geometry geometry, boolean flag) {
+	    this.id = id;
+	    this.geometry = preparedGeometryFactory.create(geometry);
+	    this.area = geometry.getArea();
+	    this.flag = flag;
+	}
+    }
+
+    private final STRtree tree = new STRtree();
+
+    private int size = 0;
+
+    private boolean built = false;
+
+    /**
+     * Add a polygon to the index
+     * 
+     * @param id
+     *            the id of the polygon
+     * @param shape
+     *            the shape, null or empty shapes are ignored
+     * @param flag
+     *            a flag that can be used to filter the polygons
+     */
+    public void add(long id, Geometry shape, boolean flag) {
+	if (built) {
+	    throw new IllegalStateException("can not add a polygon to an index that is already built");
+	}
+	if (shape == null || shape.isEmpty()) {
+	    return;
+	}
+	tree.insert(shape.getEnvelopeInternal(), new Entry(id, shape, flag));
+	size++;
+    }
+
+    /**
+     * Build the index, no polygon can be added after
+     */
+    public void build() {
+	if (!built) {
+	    tree.build();
+	    built = true;
+	}
+    }
+
+    /**
+     * @return the number of polygons in the index
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * @param point
+     *            the point to test
+     * @param onlyFlagged
+     *            if true, only the flagged polygons are returned
+     * @param largestFirst
+     *            true to sort the result by area desc, false to sort by area
+     *            asc
+     * @return the ids of the polygons that contain the point, sorted by area
+     */
+    public List<Long> listContaining(Point point, boolean onlyFlagged, boolean largestFirst) {
+	List<Entry> entries = query(point, onlyFlagged);
+	Collections.sort(entries, largestFirst ? LARGEST_AREA_FIRST : SMALLEST_AREA_FIRST);
+	List<Long> ids = new ArrayList<Long>(entries.size());
+	for (Entry entry : entries) {
+	    ids.add(entry.id);
+	}
+	return ids;
+    }
+
+    /**
+     * @param point
+     *            the point to test
+     * @param onlyFlagged
+     *            if true, only the flagged polygons are considered
+     * @return the id of the smallest polygon that contains the point or null
+     *         if none
+     */
+    public Long getSmallestContaining(Point point, boolean onlyFlagged) {
+	Entry smallest = null;
+	for (Entry entry : query(point, onlyFlagged)) {
+	    if (smallest == null || entry.area < smallest.area) {
+		smallest = entry;
+	    }
+	}
+	return smallest == null ? null : smallest.id;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Entry> query(Point point, boolean onlyFlagged) {
+	if (!built) {
+	    throw new IllegalStateException("the index must be built before being queried");
+	}
+	List<Entry> result = new ArrayList<Entry>();
+	if (point == null) {
+	    return result;
+	}
+	List<Entry> candidates = tree.query(point.getEnvelopeInternal());
+	for (Entry candidate : candidates) {
+	    if ((!onlyFlagged || candidate.flag) && candidate.geometry.contains(point)) {
+		result.add(candidate);
+	    }
+	}
+	return result;
+    }
+
+}
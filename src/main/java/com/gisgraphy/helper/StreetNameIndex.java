@@ -0,0 +1,405 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.helper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.gisgraphy.domain.valueobject.Constants;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Point;
+
+/**
+ * In memory index of the streets of a country, to find the nearest street
+ * with a given name without querying the database. The streets are stored in
+ * a grid of {@link #CELL_SIZE} degrees, and the normalized names map to the
+ * cells that contain a street with this name. A street can have several
+ * names (the alternate ones), the unnamed streets are only found by location.
+ * <br/>
+ * The streets whose name is the same once normalized (see
+ * {@link StringHelper#normalize(String)}) are found first. The other ones
+ * that are nearer are then checked with
+ * {@link StringHelper#isSameStreetName(String, String, String)}, from the
+ * nearest to the farthest. The distances are computed from the segments of
+ * the streets on an equirectangular projection centered on the searched
+ * point, which is accurate enough at the street scale.
+ * <br/>
+ * The index must be {@link #build()} before being queried, it is thread safe
+ * once built.
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class StreetNameIndex {
+
+    /**
+     * The size of the cells of the grid, in degrees (about 1km)
+     */
+    public static final double CELL_SIZE = 0.01;
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(Constants.RADIUS_OF_EARTH_IN_METERS);
+
+    private static final String[] NO_NAMES = new String[0];
+
+    private static final Comparator<Candidate> NEAREST_FIRST = new Comparator<Candidate>() {
+	public int compare(Candidate o1, Candidate o2) {
+	    return Double.compare(o1.distance, o2.distance);
+	}
+    };
+
+    private static final class Street {
+	private final long gid;
+	private final String[] names;
+	/**
+	 * the lng, lat of the points of each line of the shape
+	 */
+	private final float[][] lines;
+
+	private Street(long gid, String[] names, float[][] lines) {
+	    this.gid = gid;
+	    this.names = names;
+	    this.lines = lines;
+	}
+    }
+
+    private static final class Candidate {
+	private final Street street;
+	private final double distance;
+
+	private Candidate(Street street, double distance) {
+	    this.street = street;
+	    this.distance = distance;
+	}
+    }
+
+    private final String countryCode;
+
+    private final List<Street> streets = new ArrayList<Street>();
+
+    private Map<Long, List<Integer>> gridBuilder = new HashMap<Long, List<Integer>>();
+
+    private Map<String, Map<Long, List<Integer>>> namesBuilder = new HashMap<String, Map<Long, List<Integer>>>();
+
+    private Map<Long, int[]> grid;
+
+    private Map<String, Map<Long, int[]>> names;
+
+    private boolean built = false;
+
+    /**
+     * @param countryCode
+     *            the country of the streets, for the street types and the
+     *            synonyms of {@link StringHelper#isSameStreetName(String, String, String)}
+     */
+    public StreetNameIndex(String countryCode) {
+	this.countryCode = countryCode;
+    }
+
+    /**
+     * @return the key of a name in the index : the normalized name, or null if
+     *         the name is empty
+     */
+    static String getNameKey(String name) {
+	if (name == null) {
+	    return null;
+	}
+	String key = StringHelper.normalize(name).trim();
+	return key.length() == 0 ? null : key;
+    }
+
+    private static long toCell(long row, long column) {
+	return (row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Add a street to the index
+     *
+     * @param gid
+     *            the gid of the street
+     * @param streetNames
+     *            the name and the alternate names of the street, can be
+     *            empty
+     * @param shape
+     *            the shape of the street, null or empty shapes are ignored
+     */
+    public void add(long gid, Collection<String> streetNames, Geometry shape) {
+	if (built) {
+	    throw new IllegalStateException("can not add a street to an index that is already built");
+	}
+	if (shape == null || shape.isEmpty()) {
+	    return;
+	}
+	float[][] lines = new float[shape.getNumGeometries()][];
+	for (int i = 0; i < lines.length; i++) {
+	    Coordinate[] coordinates = shape.getGeometryN(i).getCoordinates();
+	    lines[i] = new float[coordinates.length * 2];
+	    for (int j = 0; j < coordinates.length; j++) {
+		lines[i][j * 2] = (float) coordinates[j].x;
+		lines[i][j * 2 + 1] = (float) coordinates[j].y;
+	    }
+	}
+	Set<String> keys = new HashSet<String>();
+	Set<String> uniqueNames = new LinkedHashSet<String>();
+	if (streetNames != null) {
+	    for (String name : streetNames) {
+		String key = getNameKey(name);
+		if (key != null) {
+		    keys.add(key);
+		    uniqueNames.add(name);
+		}
+	    }
+	}
+	int index = streets.size();
+	streets.add(new Street(gid, uniqueNames.isEmpty() ? NO_NAMES : uniqueNames.toArray(new String[uniqueNames.size()]), lines));
+
+	Set<Long> cells = new HashSet<Long>();
+	for (float[] line : lines) {
+	    for (int j = 0; j < line.length; j += 2) {
+		//the cells of the bounding box of the segment
+		int next = Math.min(j + 2, line.length - 2);
+		long minRow = (long) Math.floor(Math.min(line[j + 1], line[next + 1]) / CELL_SIZE);
+		long maxRow = (long) Math.floor(Math.max(line[j + 1], line[next + 1]) / CELL_SIZE);
+		long minColumn = (long) Math.floor(Math.min(line[j], line[next]) / CELL_SIZE);
+		long maxColumn = (long) Math.floor(Math.max(line[j], line[next]) / CELL_SIZE);
+		for (long row = minRow; row <= maxRow; row++) {
+		    for (long column = minColumn; column <= maxColumn; column++) {
+			cells.add(toCell(row, column));
+		    }
+		}
+	    }
+	}
+	for (Long cell : cells) {
+	    addToCell(gridBuilder, cell, index);
+	    for (String key : keys) {
+		Map<Long, List<Integer>> cellsOfName = namesBuilder.get(key);
+		if (cellsOfName == null) {
+		    cellsOfName = new HashMap<Long, List<Integer>>();
+		    namesBuilder.put(key, cellsOfName);
+		}
+		addToCell(cellsOfName, cell, index);
+	    }
+	}
+    }
+
+    private static void addToCell(Map<Long, List<Integer>> cells, Long cell, int index) {
+	List<Integer> indexes = cells.get(cell);
+	if (indexes == null) {
+	    indexes = new ArrayList<Integer>(2);
+	    cells.put(cell, indexes);
+	}
+	indexes.add(index);
+    }
+
+    private static Map<Long, int[]> toArrays(Map<Long, List<Integer>> cells) {
+	Map<Long, int[]> result = new HashMap<Long, int[]>(cells.size() * 4 / 3 + 1);
+	for (Map.Entry<Long, List<Integer>> entry : cells.entrySet()) {
+	    List<Integer> indexes = entry.getValue();
+	    int[] array = new int[indexes.size()];
+	    for (int i = 0; i < array.length; i++) {
+		array[i] = indexes.get(i);
+	    }
+	    result.put(entry.getKey(), array);
+	}
+	return result;
+    }
+
+    /**
+     * Build the index, no street can be added after
+     */
+    public void build() {
+	if (!built) {
+	    grid = toArrays(gridBuilder);
+	    names = new HashMap<String, Map<Long, int[]>>(namesBuilder.size() * 4 / 3 + 1);
+	    for (Map.Entry<String, Map<Long, List<Integer>>> entry : namesBuilder.entrySet()) {
+		names.put(entry.getKey(), toArrays(entry.getValue()));
+	    }
+	    gridBuilder = null;
+	    namesBuilder = null;
+	    built = true;
+	}
+    }
+
+    /**
+     * @return the number of streets in the index
+     */
+    public int size() {
+	return streets.size();
+    }
+
+    /**
+     * @param streetName
+     *            the name of the street
+     * @param location
+     *            the point to search around
+     * @param maxDistance
+     *            the maximum distance of the street, in meters
+     * @return the gid of the nearest street that has the same name (see
+     *         {@link StringHelper#isSameStreetName(String, String, String)})
+     *         or null if there is none
+     */
+    public Long getNearest(String streetName, Point location, double maxDistance) {
+	checkBuilt();
+	String key = getNameKey(streetName);
+	if (location == null || key == null) {
+	    return null;
+	}
+	Candidate best = null;
+	Map<Long, int[]> cellsOfName = names.get(key);
+	if (cellsOfName != null) {
+	    for (Candidate candidate : listCandidates(cellsOfName, location, maxDistance)) {
+		if (best == null || candidate.distance < best.distance) {
+		    best = candidate;
+		}
+	    }
+	}
+	//the nearer streets whose name is not the same once normalized
+	double fuzzyDistance = best == null ? maxDistance : best.distance;
+	List<Candidate> nearer = new ArrayList<Candidate>();
+	for (Candidate candidate : listCandidates(grid, location, fuzzyDistance)) {
+	    if (candidate.distance < fuzzyDistance && candidate.street.names.length > 0) {
+		nearer.add(candidate);
+	    }
+	}
+	Collections.sort(nearer, NEAREST_FIRST);
+	for (Candidate candidate : nearer) {
+	    for (String name : candidate.street.names) {
+		if (StringHelper.isSameStreetName(streetName, name, countryCode)) {
+		    return candidate.street.gid;
+		}
+	    }
+	}
+	return best == null ? null : best.street.gid;
+    }
+
+    /**
+     * @param location
+     *            the point to search around
+     * @param maxDistance
+     *            the maximum distance of the street, in meters
+     * @return the gid of the nearest street, named or not, or null if there
+     *         is none
+     */
+    public Long getNearest(Point location, double maxDistance) {
+	checkBuilt();
+	if (location == null) {
+	    return null;
+	}
+	Candidate best = null;
+	for (Candidate candidate : listCandidates(grid, location, maxDistance)) {
+	    if (best == null || candidate.distance < best.distance) {
+		best = candidate;
+	    }
+	}
+	return best == null ? null : best.street.gid;
+    }
+
+    private void checkBuilt() {
+	if (!built) {
+	    throw new IllegalStateException("the index must be built before being queried");
+	}
+    }
+
+    /**
+     * @return the streets of the cells around the location that are at most
+     *         at maxDistance, with their distance
+     */
+    private List<Candidate> listCandidates(Map<Long, int[]> cells, Point location, double maxDistance) {
+	double lng = location.getX();
+	double lat = location.getY();
+	double cos = Math.max(Math.cos(Math.toRadians(lat)), 0.01);
+	double deltaLat = maxDistance / METERS_PER_DEGREE;
+	double deltaLng = deltaLat / cos;
+	long minRow = (long) Math.floor((lat - deltaLat) / CELL_SIZE);
+	long maxRow = (long) Math.floor((lat + deltaLat) / CELL_SIZE);
+	long minColumn = (long) Math.floor((lng - deltaLng) / CELL_SIZE);
+	long maxColumn = (long) Math.floor((lng + deltaLng) / CELL_SIZE);
+	List<Candidate> candidates = new ArrayList<Candidate>();
+	Set<Integer> seen = new HashSet<Integer>();
+	for (long row = minRow; row <= maxRow; row++) {
+	    for (long column = minColumn; column <= maxColumn; column++) {
+		int[] indexes = cells.get(toCell(row, column));
+		if (indexes == null) {
+		    continue;
+		}
+		for (int index : indexes) {
+		    if (seen.add(index)) {
+			Street street = streets.get(index);
+			double distance = distance(street, lng, lat, cos);
+			if (distance <= maxDistance) {
+			    candidates.add(new Candidate(street, distance));
+			}
+		    }
+		}
+	    }
+	}
+	return candidates;
+    }
+
+    /**
+     * @return the distance in meters between the point and the nearest
+     *         segment of the street
+     */
+    private static double distance(Street street, double lng, double lat, double cos) {
+	double min = Double.MAX_VALUE;
+	for (float[] line : street.lines) {
+	    double x1 = (line[0] - lng) * cos;
+	    double y1 = line[1] - lat;
+	    if (line.length == 2) {
+		min = Math.min(min, x1 * x1 + y1 * y1);
+	    }
+	    for (int j = 2; j < line.length; j += 2) {
+		double x2 = (line[j] - lng) * cos;
+		double y2 = line[j + 1] - lat;
+		min = Math.min(min, squaredDistanceToSegment(x1, y1, x2, y2));
+		x1 = x2;
+		y1 = y2;
+	    }
+	}
+	return Math.sqrt(min) * METERS_PER_DEGREE;
+    }
+
+    /**
+     * @return the squared distance between the origin and the segment
+     */
+    static double squaredDistanceToSegment(double x1, double y1, double x2, double y2) {
+	double dx = x2 - x1;
+	double dy = y2 - y1;
+	double lengthSquared = dx * dx + dy * dy;
+	double t = 0;
+	if (lengthSquared > 0) {
+	    t = Math.max(0, Math.min(1, -(x1 * dx + y1 * dy) / lengthSquared));
+	}
+	double x = x1 + t * dx;
+	double y = y1 + t * dy;
+	return x * x + y * y;
+    }
+
+}
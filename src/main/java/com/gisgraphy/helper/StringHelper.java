@@ -79,6 +79,8 @@ public class StringHelper {
 	private static Decompounder decompounder = new Decompounder();
 	
 	private static LevenshteinAlgorithm levenstein = new LevenshteinAlgorithm();
+	
+	private static final Pattern SPACE_DASH_PATTERN = Pattern.compile("\\s-");
 
 	/**
 	 * Process a string to apply filter as lucene and solr does :
@@ -379,20 +381,28 @@ public class StringHelper {
 				expected=expandStreetDirections(expected);
 			}
 			boolean same = (isSameStreetName_intern(expected,actual) || 
-					(actual.replaceAll("[^0-9]", "").equals(expected.replaceAll("[^0-9]", "")) && levenstein.execute(normalize(actual).replaceAll("\\s-", ""), normalize(expected).replaceAll("\\s-", ""))<2)
+					(actual.replaceAll("[^0-9]", "").equals(expected.replaceAll("[^0-9]", "")) && isAtMostOneEditAway(expected, actual))
 					);
 			if (same){
 				return true;
 			} else if (countrycode!=null){
 				actual = removeStreetType(actual, countrycode);
 				expected = removeStreetType(expected, countrycode);
-				return (isSameStreetName_intern(expected,actual) || levenstein.execute(normalize(actual).replaceAll("\\s-", ""), normalize(expected).replaceAll("\\s-", ""))<2);
+				return (isSameStreetName_intern(expected,actual) || isAtMostOneEditAway(expected, actual));
 						
 			}
 		}
 		return false;
 	}
 	
+	/**
+	 * @return true if the normalized names have a Damerau-Levenshtein
+	 *         distance of 0 or 1
+	 */
+	private static boolean isAtMostOneEditAway(String expected, String actual) {
+		return levenstein.execute(SPACE_DASH_PATTERN.matcher(normalize(actual)).replaceAll(""), SPACE_DASH_PATTERN.matcher(normalize(expected)).replaceAll(""), 1) < 2;
+	}
+	
 	public static final List<List<String>> mySynonyms = new ArrayList<List<String>>(){{
 		List<String> l1 = new ArrayList<String>(){{
 			add("doctor");
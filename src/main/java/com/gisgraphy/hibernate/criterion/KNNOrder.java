@@ -0,0 +1,86 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.hibernate.criterion;
+
+import org.hibernate.Criteria;
+import org.hibernate.HibernateException;
+import org.hibernate.criterion.CriteriaQuery;
+import org.hibernate.criterion.Order;
+
+import com.gisgraphy.domain.valueobject.SRID;
+import com.vividsolutions.jts.geom.Point;
+
+/**
+ * A criteria that sort by the postgis <code>&lt;-&gt;</code> operator, so that
+ * postgres can read the rows in the order of the GIST index of the column and
+ * stop at the limit, instead of calculating the distance of all the rows. The
+ * distance is the cartesian one (in degrees), not the {@link DistanceOrder}
+ * one : the rows must be sorted again with their distance sphere if the order
+ * must be exact.<br>
+ * The coordinates of the point are written in the SQL as double literals :
+ * an {@link Order} of hibernate 3 can not bind parameters. They are numbers,
+ * not strings, so they can not inject SQL, but each point is a different
+ * statement for the statement cache of the database.
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class KNNOrder extends Order {
+
+    private static final long serialVersionUID = -2361507453930584327L;
+
+    private Point point;
+    private String propertyName;
+
+    /**
+     * @param point
+     *                The point from which we search the nearest
+     * @param propertyName
+     *                The name of the geometry property, it must have a GIST
+     *                index
+     */
+    public KNNOrder(Point point, String propertyName) {
+	super(propertyName, true);
+	this.point = point;
+	this.propertyName = propertyName;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.hibernate.criterion.Order#toSqlString(org.hibernate.Criteria,
+     *      org.hibernate.criterion.CriteriaQuery)
+     */
+    @Override
+    public String toSqlString(Criteria criteria, CriteriaQuery criteriaQuery)
+	    throws HibernateException {
+	StringBuilder fragment = new StringBuilder();
+	fragment.append(criteriaQuery.getColumn(criteria, propertyName));
+	fragment.append(" <-> st_geometryfromtext('POINT(");
+	fragment.append(point.getX()).append(" ").append(point.getY());
+	fragment.append(")',");
+	fragment.append(SRID.WGS84_SRID.getSRID());
+	fragment.append(") asc");
+	return fragment.toString();
+    }
+
+}
@@ -0,0 +1,273 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.hibernate.projection;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.hibernate.HibernateException;
+import org.hibernate.bytecode.ReflectionOptimizer;
+import org.hibernate.bytecode.ReflectionOptimizer.AccessOptimizer;
+import org.hibernate.cfg.Environment;
+import org.hibernate.criterion.Projection;
+import org.hibernate.criterion.ProjectionList;
+import org.hibernate.criterion.Projections;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.gisgraphy.domain.geoloc.entity.GisFeature;
+import com.gisgraphy.domain.valueobject.GisFeatureDistance;
+import com.gisgraphy.domain.valueobject.GisFeatureDistanceFactory;
+import com.gisgraphy.helper.IntrospectionHelper;
+
+/**
+ * The projection of the fields of a {@link GisFeature} class and the mapping
+ * of the projected tuples to {@link GisFeatureDistance}, computed once per
+ * class. It replaces {@link ProjectionBean#fieldList(List, boolean)} and the
+ * aliasToBean transformer of
+ * {@link com.gisgraphy.hibernate.criterion.ResultTransformerUtil} for the
+ * geoloc queries : the fields are not inspected and the setters are not
+ * looked up for each query.
+ * <br/>
+ * The setters are called by an accessor generated by the hibernate bytecode
+ * provider, or by the cached setter methods if the accessor can not be
+ * generated. The tuples are the fields of {@link #getAliases()} followed by
+ * the distance, if any.
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class GisFeatureDistanceMapper {
+
+    protected static final Logger logger = LoggerFactory.getLogger(GisFeatureDistanceMapper.class);
+
+    public static final String DISTANCE_ALIAS = "distance";
+
+    private static final String ID_ALIAS = "id";
+
+    private static final ConcurrentMap<Class<?>, GisFeatureDistanceMapper> mappers = new ConcurrentHashMap<Class<?>, GisFeatureDistanceMapper>();
+
+    protected static GisFeatureDistanceFactory gisFeatureDistanceFactory = new GisFeatureDistanceFactory();
+
+    private final Class<? extends GisFeature> placetype;
+
+    /**
+     * the aliases of the fields, without the distance
+     */
+    private final String[] aliases;
+
+    private final Projection[] fieldProjections;
+
+    private final int idIndex;
+
+    /**
+     * the setters of the aliases and of the distance
+     */
+    private final Method[] setters;
+
+    /**
+     * the generated accessors of the fields, without and with the distance.
+     * null if they can not be generated
+     */
+    private final AccessOptimizer fieldsAccessor;
+
+    private final AccessOptimizer fieldsAndDistanceAccessor;
+
+    /**
+     * @return the mapper of the placetype, created at the first call
+     */
+    public static GisFeatureDistanceMapper getInstance(Class<? extends GisFeature> placetype) {
+	GisFeatureDistanceMapper mapper = mappers.get(placetype);
+	if (mapper == null) {
+	    mapper = new GisFeatureDistanceMapper(placetype);
+	    GisFeatureDistanceMapper existing = mappers.putIfAbsent(placetype, mapper);
+	    if (existing != null) {
+		mapper = existing;
+	    }
+	}
+	return mapper;
+    }
+
+    GisFeatureDistanceMapper(Class<? extends GisFeature> placetype) {
+	this.placetype = placetype;
+	this.aliases = IntrospectionHelper.getFieldsAsArray(placetype);
+	this.fieldProjections = new Projection[aliases.length];
+	int id = -1;
+	for (int i = 0; i < aliases.length; i++) {
+	    fieldProjections[i] = Projections.property(aliases[i]).as(aliases[i]);
+	    if (id == -1 && ID_ALIAS.equals(aliases[i])) {
+		id = i;
+	    }
+	}
+	this.idIndex = id == -1 ? 0 : id;
+	String[] properties = new String[aliases.length + 1];
+	System.arraycopy(aliases, 0, properties, 0, aliases.length);
+	properties[aliases.length] = DISTANCE_ALIAS;
+	this.setters = new Method[properties.length];
+	String[] setterNames = new String[properties.length];
+	String[] getterNames = new String[properties.length];
+	Class<?>[] types = new Class<?>[properties.length];
+	boolean hasAllGetters = true;
+	for (int i = 0; i < properties.length; i++) {
+	    setters[i] = findSetter(properties[i]);
+	    setterNames[i] = setters[i].getName();
+	    types[i] = setters[i].getParameterTypes()[0];
+	    Method getter = findGetter(properties[i]);
+	    if (getter == null) {
+		hasAllGetters = false;
+	    } else {
+		getterNames[i] = getter.getName();
+	    }
+	}
+	if (hasAllGetters) {
+	    this.fieldsAccessor = createAccessOptimizer(Arrays.copyOf(getterNames, aliases.length),
+		    Arrays.copyOf(setterNames, aliases.length), Arrays.copyOf(types, aliases.length));
+	    this.fieldsAndDistanceAccessor = createAccessOptimizer(getterNames, setterNames, types);
+	} else {
+	    this.fieldsAccessor = null;
+	    this.fieldsAndDistanceAccessor = null;
+	}
+	logger.info("the geoloc results of " + placetype.getSimpleName() + " will be mapped with "
+		+ (fieldsAndDistanceAccessor == null ? "the cached setters" : "a generated accessor"));
+    }
+
+    private static AccessOptimizer createAccessOptimizer(String[] getterNames, String[] setterNames, Class<?>[] types) {
+	try {
+	    ReflectionOptimizer optimizer = Environment.getBytecodeProvider().getReflectionOptimizer(
+		    GisFeatureDistance.class, getterNames, setterNames, types);
+	    return optimizer == null ? null : optimizer.getAccessOptimizer();
+	} catch (RuntimeException e) {
+	    logger.warn("can not generate the accessor of " + GisFeatureDistance.class.getSimpleName() + " : "
+		    + e.getMessage());
+	    return null;
+	}
+    }
+
+    private static Method findSetter(String property) {
+	String name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+	for (Method method : GisFeatureDistance.class.getMethods()) {
+	    if (method.getName().equals(name) && method.getParameterTypes().length == 1) {
+		return method;
+	    }
+	}
+	throw new IllegalArgumentException(GisFeatureDistance.class.getSimpleName() + " has no setter for " + property);
+    }
+
+    private static Method findGetter(String property) {
+	String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+	for (Method method : GisFeatureDistance.class.getMethods()) {
+	    if ((method.getName().equals("get" + suffix) || method.getName().equals("is" + suffix))
+		    && method.getParameterTypes().length == 0) {
+		return method;
+	    }
+	}
+	return null;
+    }
+
+    /**
+     * @return a new projection list of the fields, the distance can be added
+     */
+    public ProjectionList createProjectionList() {
+	ProjectionList projectionList = Projections.projectionList();
+	for (Projection projection : fieldProjections) {
+	    projectionList.add(projection);
+	}
+	return projectionList;
+    }
+
+    /**
+     * @return the aliases of the fields, without the distance. The array must
+     *         not be modified
+     */
+    public String[] getAliases() {
+	return aliases;
+    }
+
+    /**
+     * @return the position of the id in the tuples
+     */
+    public int getIdIndex() {
+	return idIndex;
+    }
+
+    /**
+     * @param tuple
+     *            the fields, followed by the distance if it has been projected
+     * @return a new {@link GisFeatureDistance}, without the calculated fields
+     */
+    public GisFeatureDistance map(Object[] tuple) {
+	GisFeatureDistance gisFeatureDistance = new GisFeatureDistance();
+	AccessOptimizer accessor = null;
+	if (tuple.length == aliases.length) {
+	    accessor = fieldsAccessor;
+	} else if (tuple.length == setters.length) {
+	    accessor = fieldsAndDistanceAccessor;
+	}
+	if (accessor != null) {
+	    accessor.setPropertyValues(gisFeatureDistance, tuple);
+	    return gisFeatureDistance;
+	}
+	int length = Math.min(tuple.length, setters.length);
+	for (int i = 0; i < length; i++) {
+	    try {
+		setters[i].invoke(gisFeatureDistance, tuple[i]);
+	    } catch (IllegalAccessException e) {
+		throw new HibernateException("can not set " + setters[i].getName() + " of a "
+			+ GisFeatureDistance.class.getSimpleName(), e);
+	    } catch (InvocationTargetException e) {
+		throw new HibernateException("can not set " + setters[i].getName() + " of a "
+			+ GisFeatureDistance.class.getSimpleName(), e.getCause());
+	    }
+	}
+	return gisFeatureDistance;
+    }
+
+    /**
+     * Map the tuples, the duplicates are ignored, see
+     * {@link com.gisgraphy.hibernate.criterion.ResultTransformerUtil#transformToGisFeatureDistance(String[], List, Map, Class)}
+     *
+     * @param featureIdToZipCodesMap
+     *            the zip codes of the features, optional
+     */
+    public List<GisFeatureDistance> transform(List<Object[]> tuples, Map<Long, Set<String>> featureIdToZipCodesMap) {
+	List<GisFeatureDistance> results = new ArrayList<GisFeatureDistance>(tuples.size());
+	for (Object[] tuple : tuples) {
+	    GisFeatureDistance gisFeatureDistance = map(tuple);
+	    if (results.indexOf(gisFeatureDistance) == -1) {
+		gisFeatureDistanceFactory.updateFields(gisFeatureDistance, placetype);
+		results.add(gisFeatureDistance);
+		if (featureIdToZipCodesMap != null) {
+		    gisFeatureDistance.setZipCodes(featureIdToZipCodesMap.get(gisFeatureDistance.getId()));
+		}
+	    }
+	}
+	return results;
+    }
+
+}
@@ -34,7 +34,22 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,10 +61,17 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
 
+import com.gisgraphy.domain.geoloc.entity.Adm;
+import com.gisgraphy.domain.geoloc.entity.City;
+import com.gisgraphy.domain.geoloc.entity.CitySubdivision;
+import com.gisgraphy.domain.geoloc.entity.event.IEventManager;
 import com.gisgraphy.domain.repository.GisFeatureDao;
+import com.gisgraphy.domain.repository.IBulkWriter;
 import com.gisgraphy.domain.valueobject.Constants;
 import com.gisgraphy.domain.valueobject.ImporterStatus;
+import com.gisgraphy.helper.ArchiveReader;
 import com.gisgraphy.service.IInternationalisationService;
+import com.vividsolutions.jts.geom.Point;
 
 /**
  * Base class for all geonames processor. it provides session management and the
@@ -58,8 +80,8 @@ import com.gisgraphy.service.IInternationalisationService;
  * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
  */
 public abstract class AbstractSimpleImporterProcessor implements IImporterProcessor {
-    protected int totalReadLine = 0;
-    protected int readFileLine = 0;
+    protected volatile int totalReadLine = 0;
+    protected volatile int readFileLine = 0;
     protected String statusMessage = "";
 
     protected ImporterStatus status = ImporterStatus.WAITING;
@@ -84,6 +106,12 @@ public abstract class AbstractSimpleImporterProcessor implements IImporterProces
 
     protected ImporterConfig importerConfig;
 
+    protected IEventManager eventManager;
+
+    protected IBulkWriter bulkWriter;
+
+    protected ImporterShapeIndex importerShapeIndex;
+
     /**
      * The logger
      */
@@ -176,6 +204,11 @@ public abstract class AbstractSimpleImporterProcessor implements IImporterProces
      */
     protected File currentFile;
 
+    /**
+     * The current processed file in {@link #currentFile} if it is an archive
+     */
+    private String currentEntryName;
+
     /**
      * Template method that can be override. This method is called before the
      * process start. it is not called for each file processed.
@@ -197,11 +230,27 @@ public abstract class AbstractSimpleImporterProcessor implements IImporterProces
     public String getCurrentFileName() {
 
 	if (this.currentFile != null) {
+	    if (this.currentEntryName != null) {
+		return this.currentFile.getName() + "/" + this.currentEntryName;
+	    }
 	    return this.currentFile.getName();
 	}
 	return "unknow";
     }
 
+    /**
+     * @return the country code of the processed file (or of the processed
+     *         entry of an archive), or null if it is not the file of one
+     *         country
+     * @see ImporterHelper#getCountryCodeFromFileName(String)
+     */
+    protected String getCurrentCountryCode() {
+	if (this.currentFile == null) {
+	    return null;
+	}
+	return ImporterHelper.getCountryCodeFromFileName(this.currentEntryName != null ? this.currentEntryName : this.currentFile.getName());
+    }
+
     /**
      * Process the line if needed (is not a comment, should ignore first line,
      * is end of document,...)
@@ -231,36 +280,7 @@ public abstract class AbstractSimpleImporterProcessor implements IImporterProces
 		if (this.shouldIgnoreFirstLine() && !hasConsumedFirstLine) {
 		    hasConsumedFirstLine = true;
 		} else {
-		    try {
-			this.processData(input);
-		    } catch (MissingRequiredFieldException mrfe) {
-			if (this.importerConfig.isMissingRequiredFieldThrows()) {
-			    logger.error("A requrired field is missing "
-				    + mrfe.getMessage());
-			    throw new ImporterException(
-				    "A requrired field is missing "
-					    + mrfe.getMessage(), mrfe);
-			} else {
-			    logger.warn(mrfe.getMessage());
-			}
-		    } catch (WrongNumberOfFieldsException wnofe) {
-			if (this.importerConfig.isWrongNumberOfFieldsThrows()) {
-			    logger
-				    .error("wrong number of fields during import "
-					    + wnofe.getMessage());
-			    throw new ImporterException(
-				    "Wrong number of fields during import "
-					    + wnofe.getMessage(), wnofe);
-			} else {
-			    logger.warn(wnofe.getMessage());
-			}
-		    } catch (Exception e) {
-			String message= "An Error occurred on Line "
-				+ readFileLine + " for " + input + " : "
-				+ e.getMessage();
-			throw new ImporterException(
-				message, e);
-		    }
+		    processLine(input, readFileLine);
 		}
 	    }
 
@@ -270,6 +290,51 @@ public abstract class AbstractSimpleImporterProcessor implements IImporterProces
 	return readFileLine;
     }
 
+    /**
+     * Call {@link #processData(String)} and manage the errors according to
+     * the importer config
+     * 
+     * @param input
+     *                the line to process
+     * @param lineNumber
+     *                the number of the line in the current file, used in the
+     *                error message
+     * @throws ImporterException
+     *                 if an error occurred
+     */
+    private void processLine(String input, int lineNumber) throws ImporterException {
+	try {
+	    this.processData(input);
+	} catch (MissingRequiredFieldException mrfe) {
+	    if (this.importerConfig.isMissingRequiredFieldThrows()) {
+		logger.error("A requrired field is missing "
+			+ mrfe.getMessage());
+		throw new ImporterException(
+			"A requrired field is missing "
+				+ mrfe.getMessage(), mrfe);
+	    } else {
+		logger.warn(mrfe.getMessage());
+	    }
+	} catch (WrongNumberOfFieldsException wnofe) {
+	    if (this.importerConfig.isWrongNumberOfFieldsThrows()) {
+		logger
+			.error("wrong number of fields during import "
+				+ wnofe.getMessage());
+		throw new ImporterException(
+			"Wrong number of fields during import "
+				+ wnofe.getMessage(), wnofe);
+	    } else {
+		logger.warn(wnofe.getMessage());
+	    }
+	} catch (Exception e) {
+	    String message= "An Error occurred on Line "
+		    + lineNumber + " for " + input + " : "
+		    + e.getMessage();
+	    throw new ImporterException(
+		    message, e);
+	}
+    }
+
     /**
      * Process a read line of the geonames file, must be implemented by the
      * concrete class
@@ -301,10 +366,15 @@ public abstract class AbstractSimpleImporterProcessor implements IImporterProces
 	    }
 	    for (int i = 0; i < filesToProcess.length; i++) {
 			currentFile = filesToProcess[i];
-			this.endOfDocument = false;
-			getBufferReader(filesToProcess[i]);
-			processFile();
-			closeBufferReader();
+			if (ArchiveReader.isArchive(currentFile)) {
+			    processArchive(currentFile);
+			} else {
+			    this.endOfDocument = false;
+			    getBufferReader(filesToProcess[i]);
+			    processFile();
+			    closeBufferReader();
+			}
+			refineNumberOfLinesToProcess(i + 1);
 			onFileProcessed(filesToProcess[i]);
 	    }
 	} catch (Exception e) {
@@ -384,7 +454,39 @@ public abstract class AbstractSimpleImporterProcessor implements IImporterProces
 	}
     }
 
+    /**
+     * Process the files of the archive that should be imported, one after
+     * the other, without extracting them
+     * 
+     * @see ImporterHelper#isCountryFileName(String)
+     */
+    private void processArchive(File archive) throws IOException {
+	ArchiveReader archiveReader = new ArchiveReader(archive, importerConfig.getDecompressionThreads());
+	try {
+	    String entryName;
+	    while ((entryName = archiveReader.nextEntry()) != null) {
+		if (!ImporterHelper.isCountryFileName(new File(entryName).getName())) {
+		    logger.info(entryName + " of " + archive.getName() + " is not an importable file");
+		    continue;
+		}
+		currentEntryName = entryName;
+		this.endOfDocument = false;
+		this.in = new BufferedReader(new InputStreamReader(archiveReader.getInputStream(), Constants.CHARSET));
+		processFile();
+		closeBufferReader();
+	    }
+	} finally {
+	    currentEntryName = null;
+	    archiveReader.close();
+	}
+    }
+
     private void processFile() throws ImporterException {
+	int workers = getNumberOfWorkers();
+	if (workers > 0) {
+	    processFileWithWorkers(workers);
+	    return;
+	}
 	try {
 	    hasConsumedFirstLine = false;
 	    readFileLine = 0;
@@ -423,6 +525,204 @@ public abstract class AbstractSimpleImporterProcessor implements IImporterProces
 	}
     }
 
+    /**
+     * Template method that can be override : whether {@link #processData(String)}
+     * can be called by several threads at the same time. If true and the
+     * number of workers in the importer config is greater than one, a thread
+     * reads the file and the lines are processed by batch of
+     * {@link #getMaxInsertsBeforeFlush()} lines by the workers, each batch in
+     * its own transaction. Default to false.<br>
+     * The lines must not read and update the same rows : two workers would
+     * not see the changes of each other, e.g. a line of quattroshapes can
+     * update the features of several geonames ids, and only sets a shape if
+     * the feature has none, so it is processed by the importer thread. A line
+     * of {@link OpenStreetMapSimpleImporter} inserts a new street and only reads
+     * the cities, so its lines are processed by the workers.
+     * 
+     * @see ImporterConfig#setNumberOfWorkers(int)
+     */
+    protected boolean isParallelProcessingSupported() {
+	return false;
+    }
+
+    /**
+     * Template method that can be override : whether the lines of a file must
+     * be processed in the order of the file when the importer supports
+     * parallel processing. If true, only one worker is used (the reading and
+     * the processing of the lines still run concurrently). Default to false.
+     */
+    protected boolean shouldKeepLineOrder() {
+	return false;
+    }
+
+    /**
+     * @return the number of threads that process the lines of a file, 0 if
+     *         the lines are processed by the importer thread
+     */
+    protected int getNumberOfWorkers() {
+	if (!isParallelProcessingSupported() || importerConfig.getNumberOfWorkers() <= 1) {
+	    return 0;
+	}
+	return shouldKeepLineOrder() ? 1 : importerConfig.getNumberOfWorkers();
+    }
+
+    private void processFileWithWorkers(int workers) throws ImporterException {
+	hasConsumedFirstLine = false;
+	readFileLine = 0;
+	logger.info("will process " + getCurrentFileName() + " with " + workers + " workers");
+	int batchSize = Math.max(1, getMaxInsertsBeforeFlush());
+	BlockingQueue<LineBatch> queue = new ArrayBlockingQueue<LineBatch>(workers * 2);
+	AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+	ExecutorService executor = Executors.newFixedThreadPool(workers,
+		new WorkerThreadFactory(this.getClass().getSimpleName()));
+	for (int i = 0; i < workers; i++) {
+	    executor.execute(new LineWorker(queue, failure));
+	}
+	try {
+	    int lineNumber = 0;
+	    LineBatch batch = new LineBatch(batchSize);
+	    String input;
+	    while (failure.get() == null && (input = getInput(this.in.readLine())) != null) {
+		lineNumber++;
+		if (!isNotComment(input)) {
+		    batch.skipped++;
+		} else if (this.shouldIgnoreFirstLine() && !hasConsumedFirstLine) {
+		    hasConsumedFirstLine = true;
+		    batch.skipped++;
+		} else {
+		    batch.add(input, lineNumber);
+		}
+		if (batch.isFull()) {
+		    queue.put(batch);
+		    batch = new LineBatch(batchSize);
+		}
+	    }
+	    queue.put(batch);
+	    for (int i = 0; i < workers; i++) {
+		queue.put(END_OF_FILE);
+	    }
+	    executor.shutdown();
+	    while (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+		logger.info("waiting for the workers of " + this.getClass().getSimpleName() + ", " + queue.size() + " batch(es) in queue");
+	    }
+	} catch (IOException e) {
+	    failure.compareAndSet(null, new ImporterException("can not read line ", e));
+	    executor.shutdownNow();
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    failure.compareAndSet(null, e);
+	    executor.shutdownNow();
+	}
+	this.endOfDocument = true;
+	Throwable error = failure.get();
+	if (error != null) {
+	    throw new ImporterException("An error occurred when processing "
+		    + getCurrentFileName() + " : " + error.getMessage(), error.getCause() != null ? error.getCause() : error);
+	}
+    }
+
+    private void processBatch(LineBatch batch) {
+	TransactionStatus batchTxStatus = transactionManager.getTransaction(newTransactionDefinition());
+	try {
+	    setCommitFlushMode();
+	    for (int i = 0; i < batch.size; i++) {
+		processLine(batch.lines[i], batch.lineNumbers[i]);
+	    }
+	    flushAndClear();
+	    transactionManager.commit(batchTxStatus);
+	} catch (RuntimeException e) {
+	    if (!batchTxStatus.isCompleted()) {
+		transactionManager.rollback(batchTxStatus);
+	    }
+	    throw e;
+	}
+	synchronized (progressLock) {
+	    readFileLine += batch.size + batch.skipped;
+	    totalReadLine += batch.size + batch.skipped;
+	}
+    }
+
+    private final Object progressLock = new Object();
+
+    private static final LineBatch END_OF_FILE = new LineBatch(0);
+
+    /**
+     * Lines read from the current file, with their line numbers for the
+     * error messages
+     */
+    private static class LineBatch {
+	private final String[] lines;
+	private final int[] lineNumbers;
+	private int size = 0;
+	/** comments and ignored first line, only counted */
+	private int skipped = 0;
+
+	private LineBatch(int capacity) {
+	    this.lines = new String[capacity];
+	    this.lineNumbers = new int[capacity];
+	}
+
+	private void add(String line, int lineNumber) {
+	    lines[size] = line;
+	    lineNumbers[size] = lineNumber;
+	    size++;
+	}
+
+	private boolean isFull() {
+	    return size == lines.length;
+	}
+    }
+
+    private class LineWorker implements Runnable {
+
+	private final BlockingQueue<LineBatch> queue;
+	private final AtomicReference<Throwable> failure;
+
+	private LineWorker(BlockingQueue<LineBatch> queue, AtomicReference<Throwable> failure) {
+	    this.queue = queue;
+	    this.failure = failure;
+	}
+
+	public void run() {
+	    try {
+		while (true) {
+		    LineBatch batch = queue.take();
+		    if (batch == END_OF_FILE) {
+			return;
+		    }
+		    if (failure.get() != null) {
+			//an other worker has failed, we consume the queue to not block the reader
+			continue;
+		    }
+		    try {
+			processBatch(batch);
+		    } catch (Throwable t) {
+			logger.error(t.getMessage(), t);
+			failure.compareAndSet(null, t);
+		    }
+		}
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	    }
+	}
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+	private final String prefix;
+	private final AtomicInteger count = new AtomicInteger();
+
+	private WorkerThreadFactory(String prefix) {
+	    this.prefix = prefix;
+	}
+
+	public Thread newThread(Runnable runnable) {
+	    Thread thread = new Thread(runnable, prefix + "-worker-" + count.incrementAndGet());
+	    thread.setDaemon(true);
+	    return thread;
+	}
+    }
+
     protected int incrementReadedFileLine(int increment) {
 	totalReadLine = totalReadLine+increment;
 	return totalReadLine;
@@ -444,15 +744,20 @@ public abstract class AbstractSimpleImporterProcessor implements IImporterProces
     }
 
     protected void startTransaction() {
-    txDefinition = new DefaultTransactionDefinition();
-	    txDefinition
-		    .setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
-	    txDefinition.setIsolationLevel(Isolation.READ_UNCOMMITTED.value());
-	    txDefinition.setReadOnly(false);
+	txDefinition = newTransactionDefinition();
 	txStatus = transactionManager.getTransaction(txDefinition);
 	
     }
 
+    private DefaultTransactionDefinition newTransactionDefinition() {
+	DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+	definition
+		.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+	definition.setIsolationLevel(Isolation.READ_UNCOMMITTED.value());
+	definition.setReadOnly(false);
+	return definition;
+    }
+
     /**
      * Template method that can be override. This method is called after the end
      * of the process. it is not called for each file processed.
@@ -460,6 +765,11 @@ public abstract class AbstractSimpleImporterProcessor implements IImporterProces
      */
     protected void tearDown() {
 	closeBufferReader();
+	//the listeners may still index the features in asynchronous mode,
+	//the subclasses commit or optimize the fulltext engine after
+	if (eventManager != null) {
+	    eventManager.flush();
+	}
     }
 
     private void closeBufferReader() {
@@ -626,51 +936,161 @@ public abstract class AbstractSimpleImporterProcessor implements IImporterProces
     }
 
     /**
-     * @return the number of line to process
+     * Number of bytes at the beginning of a file that are scanned to estimate
+     * its number of lines. Smaller files are counted exactly.
+     */
+    static final int LINE_COUNT_SAMPLE_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Estimated number of lines of the files, by absolute path
+     */
+    private final Map<String, Long> estimatedLines = new ConcurrentHashMap<String, Long>();
+
+    /**
+     * @return the (estimated) number of line to process. The files that are
+     *         smaller than {@link #LINE_COUNT_SAMPLE_SIZE} are counted, the
+     *         number of lines of the bigger ones is estimated from the
+     *         beginning of the file and the file size, so we don't read the
+     *         files twice. The estimation is refined when a file is processed
      */
     protected int countLines(File[] files) {
-    logger.info("counting lines");
-	int lines = 0;
-	BufferedReader br = null;
-	BufferedInputStream bis = null;
+	logger.info("counting lines");
+	long lines = 0;
 	for (int i = 0; i < files.length; i++) {
 	    File countfile = files[i];
-	    logger.info("counting lines of "+countfile);
 	    try {
-		bis = new BufferedInputStream(new FileInputStream(countfile));
-		br = new BufferedReader(new InputStreamReader(bis,
-			Constants.CHARSET));
-		while (br.readLine() != null) {
-		    lines++;
-		}
+		lines += estimateLines(countfile);
 	    } catch (Exception e) {
 		String filename = countfile == null ? null : countfile
 			.getName();
 		logger.warn("can not count lines for " + filename + " : "
 			+ e.getMessage(), e);
 		logger.info("end of counting lines");
-		return lines;
-	    } finally {
-		if (bis != null) {
-		    try {
-			bis.close();
-		    } catch (IOException e) {
-
-		    }
-		}
-		if (br != null) {
-		    try {
-			br.close();
-		    } catch (IOException e) {
-
-		    }
-		}
+		return toInt(lines);
 	    }
 	}
 
 	logger.info("There is " + lines + " to process for "
 		+ this.getClass().getSimpleName());
-	return lines;
+	return toInt(lines);
+    }
+
+    private long estimateLines(File file) throws IOException {
+	String key = file.getAbsolutePath();
+	Long estimated = estimatedLines.get(key);
+	if (estimated == null) {
+	    estimated = ArchiveReader.isArchive(file) ? estimateArchiveLines(file) : countOrEstimateLines(file);
+	    estimatedLines.put(key, estimated);
+	    logger.info(file + " has " + (file.length() > LINE_COUNT_SAMPLE_SIZE ? "about " : "") + estimated + " lines");
+	}
+	return estimated;
+    }
+
+    /**
+     * @return the number of lines of the file, as {@link BufferedReader#readLine()}
+     *         would count them, if the file is smaller than
+     *         {@link #LINE_COUNT_SAMPLE_SIZE}, an estimation otherwise
+     */
+    static long countOrEstimateLines(File file) throws IOException {
+	long size = file.length();
+	if (size == 0) {
+	    return 0;
+	}
+	FileInputStream inputStream = new FileInputStream(file);
+	try {
+	    FileChannel channel = inputStream.getChannel();
+	    int sampleSize = (int) Math.min(size, LINE_COUNT_SAMPLE_SIZE);
+	    MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, sampleSize);
+	    long newLines = countNewLines(buffer);
+	    if (sampleSize == size) {
+		//the last line may not end with a new line
+		return buffer.get(sampleSize - 1) == '\n' ? newLines : newLines + 1;
+	    }
+	    if (newLines == 0) {
+		return 1;
+	    }
+	    return Math.round(((double) size) * newLines / sampleSize);
+	} finally {
+	    inputStream.close();
+	}
+    }
+
+    /**
+     * @return an estimation of the number of lines of the first file of the
+     *         archive, from the beginning of the file and its size in the
+     *         archive. It is exact for the small files
+     */
+    static long estimateArchiveLines(File archive) throws IOException {
+	ArchiveReader archiveReader = new ArchiveReader(archive, 1);
+	try {
+	    if (archiveReader.nextEntry() == null) {
+		return 0;
+	    }
+	    byte[] sample = new byte[LINE_COUNT_SAMPLE_SIZE];
+	    InputStream entry = archiveReader.getInputStream();
+	    int sampleSize = 0;
+	    int count;
+	    while (sampleSize < sample.length && (count = entry.read(sample, sampleSize, sample.length - sampleSize)) != -1) {
+		sampleSize += count;
+	    }
+	    if (sampleSize == 0) {
+		return 0;
+	    }
+	    long newLines = countNewLines(ByteBuffer.wrap(sample, 0, sampleSize));
+	    long size = archiveReader.getEntrySize();
+	    if (sampleSize < sample.length || size <= sampleSize) {
+		//the last line may not end with a new line
+		return sample[sampleSize - 1] == '\n' ? newLines : newLines + 1;
+	    }
+	    return Math.round(((double) size) * Math.max(newLines, 1) / sampleSize);
+	} finally {
+	    archiveReader.close();
+	}
+    }
+
+    /**
+     * Count the '\n' bytes of the buffer, 8 bytes at a time.
+     */
+    static long countNewLines(ByteBuffer buffer) {
+	final long NEW_LINES = 0x0A0A0A0A0A0A0A0AL;
+	final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+	long count = 0;
+	while (buffer.remaining() >= 8) {
+	    //the bytes that are equals to '\n' become 0
+	    long word = buffer.getLong() ^ NEW_LINES;
+	    //the high bit of each byte is set if the byte is not 0
+	    long notZero = ((word & LOW_BITS) + LOW_BITS) | word;
+	    count += Long.bitCount(~notZero & ~LOW_BITS);
+	}
+	while (buffer.hasRemaining()) {
+	    if (buffer.get() == '\n') {
+		count++;
+	    }
+	}
+	return count;
+    }
+
+    /**
+     * Replace the estimation with the lines that have really been read for
+     * the processed files
+     * 
+     * @param nextFileIndex
+     *                the index of the first file that is not processed yet
+     */
+    private void refineNumberOfLinesToProcess(int nextFileIndex) {
+	long lines = totalReadLine;
+	for (int i = nextFileIndex; i < filesToProcess.length; i++) {
+	    try {
+		lines += estimateLines(filesToProcess[i]);
+	    } catch (IOException e) {
+		logger.warn("can not count lines for " + filesToProcess[i] + " : " + e.getMessage());
+	    }
+	}
+	this.numberOfLinesToProcess = toInt(lines);
+    }
+
+    private static int toInt(long lines) {
+	return (int) Math.min(lines, Integer.MAX_VALUE);
     }
 
     /*
@@ -683,7 +1103,8 @@ public abstract class AbstractSimpleImporterProcessor implements IImporterProces
 	    // it may not have been calculated yet
 	    this.numberOfLinesToProcess = countLines(getFiles());
 	}
-	return this.numberOfLinesToProcess;
+	//the number of lines may be under estimated
+	return Math.max(this.numberOfLinesToProcess, this.totalReadLine);
     }
 
     /*
@@ -708,6 +1129,7 @@ public abstract class AbstractSimpleImporterProcessor implements IImporterProces
 	this.readFileLine = 0;
 	this.totalReadLine = 0;
 	this.numberOfLinesToProcess = 0;
+	this.estimatedLines.clear();
 	this.status = ImporterStatus.WAITING;
 	this.statusMessage = "";
     }
@@ -725,4 +1147,63 @@ public abstract class AbstractSimpleImporterProcessor implements IImporterProces
         this.internationalisationService = internationalisationService;
     }
 
+    /**
+     * @param eventManager
+     *                the event manager to flush before the fulltext engine
+     *                is committed
+     */
+    public void setEventManager(IEventManager eventManager) {
+	this.eventManager = eventManager;
+    }
+
+    /**
+     * @param bulkWriter
+     *                the writer of the new entities when
+     *                {@link ImporterConfig#isBulkInsert()} is true
+     */
+    public void setBulkWriter(IBulkWriter bulkWriter) {
+	this.bulkWriter = bulkWriter;
+    }
+
+    /**
+     * @return true if the new entities should be saved with the
+     *         {@link IBulkWriter}. They are only written by
+     *         {@link #flushAndClear()}, so a constraint violation fails the
+     *         whole batch, it can not be ignored for one line
+     * @see ImporterConfig#setBulkInsert(boolean)
+     */
+    protected boolean isBulkInsert() {
+	return bulkWriter != null && importerConfig.isBulkInsert();
+    }
+
+    /**
+     * @see ImporterShapeIndex#getCityByShape(Point, String, boolean)
+     */
+    protected City getCityByShape(Point location, String countryCode, boolean filterMunicipality) {
+	return importerShapeIndex.getCityByShape(location, countryCode, filterMunicipality);
+    }
+
+    /**
+     * @see ImporterShapeIndex#getCitySubdivisionByShape(Point, String)
+     */
+    protected CitySubdivision getCitySubdivisionByShape(Point location, String countryCode) {
+	return importerShapeIndex.getCitySubdivisionByShape(location, countryCode);
+    }
+
+    /**
+     * @see ImporterShapeIndex#listAdmByShape(Point, String)
+     */
+    protected List<Adm> listAdmByShape(Point location, String countryCode) {
+	return importerShapeIndex.listAdmByShape(location, countryCode);
+    }
+
+    /**
+     * @param importerShapeIndex
+     *                the lookups by shape of the importers, in memory or in
+     *                the database if the index is disabled
+     */
+    public void setImporterShapeIndex(ImporterShapeIndex importerShapeIndex) {
+	this.importerShapeIndex = importerShapeIndex;
+    }
+
 }
@@ -365,7 +365,7 @@ public class GeonamesFeatureSimpleImporter extends AbstractSimpleImporterProcess
 	    }
 
 	}*/
-	List<Adm > adms = admDao.ListByShape(gisFeature.getLocation(), countryCode);
+	List<Adm > adms = listAdmByShape(gisFeature.getLocation(), countryCode);
 	if (adms.size()>0){
 		adm = adms.get(adms.size()-1);
 	}
@@ -392,12 +392,12 @@ public class GeonamesFeatureSimpleImporter extends AbstractSimpleImporterProcess
 		if (foundZipCode != null){
 			gisFeature.addZipCode(new ZipCode(foundZipCode));//TODO tests zip we should take embeded option into account
 		}
-	    this.gisFeatureDao.save(gisFeature);
+	    saveGisFeature(gisFeature);
 	} else {
 	    logger.debug(featureClass + "_" + featureCode
 		    + " have no entry in " + FeatureCode.class.getSimpleName()
 		    + " and will be considered as a GisFeature");
-	    this.gisFeatureDao.save(gisFeature);
+	    saveGisFeature(gisFeature);
 	}
 	// }
 
@@ -405,10 +405,22 @@ public class GeonamesFeatureSimpleImporter extends AbstractSimpleImporterProcess
     
     
     
+    /**
+     * Save a new feature (not an adm nor a country) with its alternate names
+     * and zip codes, with the bulk writer if it is enabled
+     */
+    protected void saveGisFeature(GisFeature gisFeature) {
+	if (isBulkInsert()) {
+	    bulkWriter.save(gisFeature);
+	} else {
+	    this.gisFeatureDao.save(gisFeature);
+	}
+    }
+
 	 protected void setIsInFields(GisFeature poi) {
 	    	if (poi != null && poi.getLocation() != null) {
 	    		//first searchByShape because it is the more reliable :
-	    		City cityByShape = cityDao.getByShape(poi.getLocation(),poi.getCountryCode(),true);
+	    		City cityByShape = getCityByShape(poi.getLocation(),poi.getCountryCode(),true);
 	    		if (cityByShape != null){
 	    			poi.setIsIn(cityByShape.getName());
 	    			poi.setCityId(cityByShape.getId());
@@ -844,6 +856,9 @@ public class GeonamesFeatureSimpleImporter extends AbstractSimpleImporterProcess
      */
     @Override
     protected void flushAndClear() {
+    	if (isBulkInsert()) {
+    		bulkWriter.flush();
+    	}
     	this.cityDao.flushAndClear();
     	this.gisFeatureDao.flushAndClear();
     	this.alternateNameDao.flushAndClear();
@@ -919,6 +934,9 @@ public class GeonamesFeatureSimpleImporter extends AbstractSimpleImporterProcess
     this.statusMessage=internationalisationService.getString("import.teardown");
     try {
 	super.tearDown();
+	if (importerShapeIndex != null) {
+	    importerShapeIndex.clear();
+	}
 	if (!solRSynchroniser.commit()){
 	    logger.warn("The commit in tearDown of "+this.getClass().getSimpleName()+" has failed, the uncommitted changes will be commited with the auto commit of solr in few minuts");
 	}
@@ -171,7 +171,7 @@ public class GeonamesZipCodeSimpleImporter extends AbstractSimpleImporterProcess
 
 	protected boolean getByShape(String countryCode, String code, Point zipPoint) {
 		boolean found = false;
-		GisFeature cityByShape = cityDao.getByShape(zipPoint,countryCode,true);
+		GisFeature cityByShape = getCityByShape(zipPoint,countryCode,true);
 		if (cityByShape!=null){
 			ZipCode zipCode = new ZipCode(code);
 			//if (feature.getZipCodes() == null || !feature.getZipCodes().contains(zipCode)) {
@@ -179,7 +179,7 @@ public class GeonamesZipCodeSimpleImporter extends AbstractSimpleImporterProcess
 			cityDao.save((City)cityByShape);
 			found=true;
 		} else {
-			 cityByShape = cityDao.getByShape(zipPoint,countryCode,false);
+			 cityByShape = getCityByShape(zipPoint,countryCode,false);
 			 if (cityByShape!=null){
 					ZipCode zipCode = new ZipCode(code);
 					//if (feature.getZipCodes() == null || !feature.getZipCodes().contains(zipCode)) {
@@ -190,7 +190,7 @@ public class GeonamesZipCodeSimpleImporter extends AbstractSimpleImporterProcess
 		}
 		
 		//try with subdivision too (in addition)
-		CitySubdivision citySubdivision = citySubdivisionDao.getByShape(zipPoint, countryCode);
+		CitySubdivision citySubdivision = getCitySubdivisionByShape(zipPoint, countryCode);
 		if (citySubdivision!=null){
 			ZipCode zipCode = new ZipCode(code);
 			citySubdivision.addZipCode(zipCode);
@@ -338,7 +338,7 @@ public class GeonamesZipCodeSimpleImporter extends AbstractSimpleImporterProcess
 	} else {
 	    adm = this.admDao.getAdm(fields[0], fields[4], fields[6], fields[8], null);
 	}*/
-	List<Adm > adms = admDao.ListByShape(location, countryCode);
+	List<Adm > adms = listAdmByShape(location, countryCode);
 	if (adms.size()>0){
 		adm = adms.get(adms.size()-1);
 	}
@@ -613,6 +613,9 @@ public class GeonamesZipCodeSimpleImporter extends AbstractSimpleImporterProcess
 				.getString("import.teardown");
 		try {
 			super.tearDown();
+			if (importerShapeIndex != null) {
+				importerShapeIndex.clear();
+			}
 			if (!solRSynchroniser.commit()) {
 				logger.warn("The commit in tearDown of "
 						+ this.getClass().getSimpleName()
@@ -105,6 +105,37 @@ public class ImporterConfig {
      */
     private int maxInsertsBeforeFlush = DEFAULT_MAX_INSERT_BEFORE_FLUSH;
 
+    /**
+     * Default value for {@link #numberOfWorkers}
+     */
+    public final static int DEFAULT_NUMBER_OF_WORKERS = 1;
+
+    /**
+     * How many threads process the lines of a file for the importers that
+     * support it
+     * 
+     * @see #DEFAULT_NUMBER_OF_WORKERS
+     */
+    private int numberOfWorkers = DEFAULT_NUMBER_OF_WORKERS;
+
+    /**
+     * Whether the importers read the files in the downloaded archives instead
+     * of extracting them first
+     */
+    private boolean streamArchives = false;
+
+    /**
+     * How many threads decompress a bzip2 archive, 0 means the number of
+     * processors
+     */
+    private int decompressionThreads = 0;
+
+    /**
+     * Whether the importers insert the new features with the bulk writer
+     * instead of the daos
+     */
+    private boolean bulkInsert = false;
+
     public final static String OPENSTREETMAP_DEFAULT_FILES_TO_DOWNLOAD = "allcountries.gis";
     
     public final static String OPENADDRESSES_DEFAULT_FILES_TO_DOWNLOAD = "allcountries.gis";
@@ -1848,6 +1879,95 @@ public class ImporterConfig {
     	return this.maxInsertsBeforeFlush;
     }
 
+    /**
+     * Optional setting that allows to specify the number of threads that
+     * process the lines of a file, for the importers that support it (the
+     * others ignore it). Each thread uses its own transaction. Default value
+     * is {@link #DEFAULT_NUMBER_OF_WORKERS}, which means that the lines are
+     * processed by the importer thread.
+     * 
+     * @param numberOfWorkers
+     *            The option
+     * @see AbstractSimpleImporterProcessor#isParallelProcessingSupported()
+     */
+    public void setNumberOfWorkers(int numberOfWorkers) {
+    	this.numberOfWorkers = numberOfWorkers;
+    }
+
+    /**
+     * @return The option
+     * @see #setNumberOfWorkers(int)
+     */
+    public int getNumberOfWorkers() {
+    	return this.numberOfWorkers;
+    }
+
+    /**
+     * Optional setting that allows the importers of the .gis (and .tar.bz2,
+     * .tar.gz) files to read the lines directly from the downloaded archives,
+     * without extracting them on the disk. The file retrievers then don't
+     * decompress them. Default to false.
+     * 
+     * @param streamArchives
+     *            The option
+     * @see ImporterHelper#listCountryFilesToImport(String, boolean)
+     */
+    public void setStreamArchives(boolean streamArchives) {
+    	this.streamArchives = streamArchives;
+    }
+
+    /**
+     * @return The option
+     * @see #setStreamArchives(boolean)
+     */
+    public boolean isStreamArchives() {
+    	return this.streamArchives;
+    }
+
+    /**
+     * Optional setting that allows to specify the number of threads that
+     * decompress a bzip2 archive (when it is extracted or read by an
+     * importer). 0 or less means the number of processors, which is the
+     * default.
+     * 
+     * @param decompressionThreads
+     *            The option
+     * @see com.gisgraphy.helper.ParallelBZip2InputStream
+     */
+    public void setDecompressionThreads(int decompressionThreads) {
+    	this.decompressionThreads = decompressionThreads;
+    }
+
+    /**
+     * @return The option
+     * @see #setDecompressionThreads(int)
+     */
+    public int getDecompressionThreads() {
+    	return this.decompressionThreads;
+    }
+
+    /**
+     * Optional setting that allows the importers of the features, the streets
+     * and the pois to insert the new entities with the postgres COPY command
+     * (see {@link com.gisgraphy.domain.repository.BulkWriter}) rather than
+     * with hibernate, which is much faster. The entities that already exist
+     * are still updated by hibernate. Default to false.
+     * 
+     * @param bulkInsert
+     *            The option
+     */
+    public void setBulkInsert(boolean bulkInsert) {
+    	this.bulkInsert = bulkInsert;
+    }
+
+    /**
+     * @return The option
+     * @see #setBulkInsert(boolean)
+     */
+    public boolean isBulkInsert() {
+    	return this.bulkInsert;
+    }
+
     /**
      * @param directoryPath
      *            The directory to check. it can be absolute or relative
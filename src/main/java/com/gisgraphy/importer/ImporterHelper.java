@@ -158,7 +158,7 @@ public class ImporterHelper {
      */
     public static final String ZIP_FILE_ACCEPT_REGEX_STRING = ".*(.zip)";
 
-    public static final String GIS_FILE_ACCEPT_REGEX_STRING = ".*(.tar.bz2)|.*(.gis)";
+    public static final String GIS_FILE_ACCEPT_REGEX_STRING = ".*(.tar.bz2)|.*(.gis)|.*(.tar.gz)|.*(.tgz)";
 
     protected static final Logger logger = LoggerFactory.getLogger(ImporterHelper.class);
     
@@ -174,14 +174,41 @@ public class ImporterHelper {
 
     public static FileFilter countryFileFilter = new FileFilter() {
 	public boolean accept(File file) {
-	    Pattern patternGeonames = Pattern.compile(GEONAMES_COUNTRY_FILE_ACCEPT_REGEX_STRING,Pattern.CASE_INSENSITIVE);
-	    Pattern patternOpenStreetMapUS = Pattern.compile(OPENSTREETMAP_FILE_ACCEPT_REGEX_STRING,Pattern.CASE_INSENSITIVE);
-	    Pattern patternQuattroshapes = Pattern.compile(QUATTROSHAPES_FILE_ACCEPT_REGEX_STRING,Pattern.CASE_INSENSITIVE);
-
-	    return (file.isFile() && file.exists()) && !EXCLUDED_README_FILENAME.equals(file.getName())
-		    && ( patternGeonames.matcher(file.getName()).matches() || ALLCOUTRY_FILENAME.equals(file.getName()) || patternOpenStreetMapUS.matcher(file.getName()).matches() || patternQuattroshapes.matcher(file.getName()).matches());
+	    return (file.isFile() && file.exists()) && isCountryFileName(file.getName());
 	}
     };
+
+    /**
+     * @param fileName
+     *            the name of a file, without path
+     * @return true if a file with this name should be imported
+     * @see #countryFileFilter
+     */
+    public static boolean isCountryFileName(String fileName) {
+	Pattern patternGeonames = Pattern.compile(GEONAMES_COUNTRY_FILE_ACCEPT_REGEX_STRING,Pattern.CASE_INSENSITIVE);
+	Pattern patternOpenStreetMapUS = Pattern.compile(OPENSTREETMAP_FILE_ACCEPT_REGEX_STRING,Pattern.CASE_INSENSITIVE);
+	Pattern patternQuattroshapes = Pattern.compile(QUATTROSHAPES_FILE_ACCEPT_REGEX_STRING,Pattern.CASE_INSENSITIVE);
+
+	return !EXCLUDED_README_FILENAME.equals(fileName)
+		&& ( patternGeonames.matcher(fileName).matches() || ALLCOUTRY_FILENAME.equals(fileName) || patternOpenStreetMapUS.matcher(fileName).matches() || patternQuattroshapes.matcher(fileName).matches());
+    }
+
+    private static final Pattern COUNTRY_CODE_FILE_NAME_PATTERN = Pattern.compile("(?:.*[/\\\\])?([A-Za-z][A-Za-z])(?:[_.][0-9]+)?(?:\\.txt|\\.dat)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * @param fileName
+     *            the name of a file, with or without path
+     * @return the upper case country code of a country file, splited or not
+     *         (e.g : FR for FR.txt or FR_1.txt) or null if the file is not
+     *         the one of a country (allCountries.txt, allCountries_1.txt,...)
+     */
+    public static String getCountryCodeFromFileName(String fileName) {
+	if (fileName == null) {
+	    return null;
+	}
+	Matcher matcher = COUNTRY_CODE_FILE_NAME_PATTERN.matcher(fileName);
+	return matcher.matches() ? matcher.group(1).toUpperCase() : null;
+    }
     
 
 	public static FileFilter splitedFileFilter = new FileFilter() {
@@ -252,6 +279,31 @@ public class ImporterHelper {
 
     
     
+    /**
+     * @param directoryPath
+     *            The directory where files are
+     * @param streamArchives
+     *            whether the archives should be imported instead of the
+     *            extracted files (see {@link ImporterConfig#isStreamArchives()})
+     * @return the archives of the directory if streamArchives is true and
+     *         there are some, the files to import otherwise
+     * @see #listCountryFilesToImport(String)
+     * @see #listGisFiles(String)
+     */
+    public static File[] listCountryFilesToImport(String directoryPath, boolean streamArchives) {
+	if (streamArchives) {
+	    File[] archives = listGisFiles(directoryPath);
+	    if (archives.length > 0) {
+		for (int i = 0; i < archives.length; i++) {
+		    logger.info(archives[i].getName() + " is an importable archive");
+		}
+		return archives;
+	    }
+	    logger.info("there is no archive in " + directoryPath + ", the extracted files will be imported");
+	}
+	return listCountryFilesToImport(directoryPath);
+    }
+
     /**
      * @param directoryPath
      *            The directory where splited files are
@@ -26,6 +26,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 
 import org.slf4j.Logger;
@@ -40,6 +41,7 @@ import com.gisgraphy.domain.repository.IImporterStatusListDao;
 import com.gisgraphy.domain.repository.ISolRSynchroniser;
 import com.gisgraphy.domain.valueobject.ImporterStatusDto;
 import com.gisgraphy.fulltext.IsolrClient;
+import com.gisgraphy.geocoding.GeocodingResultCache;
 import com.gisgraphy.helper.FileHelper;
 import com.gisgraphy.service.impl.StatsUsageServiceImpl;
 import com.gisgraphy.stats.IStatsDataManager;
@@ -51,8 +53,14 @@ import com.gisgraphy.stats.IStatsDataManager;
  */
 public class ImporterManager implements IImporterManager {
 
+    public static final int DEFAULT_MAX_PARALLEL_IMPORTERS = 1;
+
     private List<IImporterProcessor> importers = null;
 
+    private Map<IImporterProcessor, List<IImporterProcessor>> importerPrerequisites = null;
+
+    private int maxParallelImporters = DEFAULT_MAX_PARALLEL_IMPORTERS;
+
     private ImporterConfig importerConfig;
 
     @Autowired
@@ -77,6 +85,8 @@ public class ImporterManager implements IImporterManager {
     
     @Autowired
     private IDatabaseHelper databaseHelper;
+
+    private GeocodingResultCache geocodingResultCache;
     
     private String hookURL="";
 
@@ -132,11 +142,7 @@ public class ImporterManager implements IImporterManager {
 	    logger.info("temporarily disabling stats");
 	    StatsUsageServiceImpl.disabled=true;
 	    this.inProgress = true;
-	    for (IImporterProcessor importer : importers) {
-		logger.info("will now process "
-			+ importer.getClass().getSimpleName());
-		importer.process();
-	    }
+	    new ImporterScheduler(importers, importerPrerequisites, maxParallelImporters).run();
 	    try {
 			statsDataManager.exportStats();
 		} catch (Exception e1) {
@@ -144,6 +150,7 @@ public class ImporterManager implements IImporterManager {
 		}
 	    logger.info("end of import");
 	} finally {
+		invalidateGeocodingResultCache();
 		try {
 			logger.info("re-enabling stats");
 			StatsUsageServiceImpl.disabled=false;
@@ -278,6 +285,7 @@ public class ImporterManager implements IImporterManager {
 	    warningAndErrorMessage.addAll(creationErrorMessage);
 	    
 	    resetFullTextSearchEngine();
+	    invalidateGeocodingResultCache();
 	    setAlreadyDone(false);
 	    for (IImporterProcessor importer :importers){
 		importer.resetStatus();
@@ -298,6 +306,13 @@ public class ImporterManager implements IImporterManager {
  	    this.inProgress = false;
     }
 
+    private void invalidateGeocodingResultCache() {
+	if (geocodingResultCache != null) {
+	    logger.info("the cached geocoding results are invalidated");
+	    geocodingResultCache.invalidateAll();
+	}
+    }
+
    /**
      * 
      */
@@ -317,6 +332,15 @@ public class ImporterManager implements IImporterManager {
 	this.solRSynchroniser = solRSynchroniser;
     }
 
+    /**
+     * @param geocodingResultCache
+     *                the cache of the geocoding results to invalidate when the
+     *                data are imported or reset, optional
+     */
+    public void setGeocodingResultCache(GeocodingResultCache geocodingResultCache) {
+	this.geocodingResultCache = geocodingResultCache;
+    }
+
     /**
      * @param importerConfig
      *                The {@link ImporterConfig} to set
@@ -335,6 +359,28 @@ public class ImporterManager implements IImporterManager {
 	this.importers = importers;
     }
 
+    /**
+     * @param importerPrerequisites
+     *                the importers that must be processed before an
+     *                importer. An importer that is not in the map depends
+     *                on all the importers that are before it in the list
+     * @see ImporterScheduler
+     */
+    public void setImporterPrerequisites(
+	    Map<IImporterProcessor, List<IImporterProcessor>> importerPrerequisites) {
+	this.importerPrerequisites = importerPrerequisites;
+    }
+
+    /**
+     * @param maxParallelImporters
+     *                the maximum number of importers that can run at the
+     *                same time, default to
+     *                {@link #DEFAULT_MAX_PARALLEL_IMPORTERS}
+     */
+    public void setMaxParallelImporters(int maxParallelImporters) {
+	this.maxParallelImporters = maxParallelImporters;
+    }
+
     /**
      * @param daos
      *                the iDaos to set
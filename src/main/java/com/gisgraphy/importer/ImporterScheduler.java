@@ -0,0 +1,270 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.importer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Run the importers according to their prerequisites : an importer is
+ * started as soon as all its prerequisites are processed, and independent
+ * importers run concurrently on a bounded pool of threads. When several
+ * importers are ready, they are started in the order of the importers list.
+ * <br/>
+ * An importer that has no declared prerequisites depends on all the importers
+ * that are before it in the list, so the default behaviour is the sequential
+ * one. An importer that declares an empty list of prerequisites can start
+ * immediately.
+ * <br/>
+ * If an importer fails, no other importer is started, the running ones are
+ * waited and the error is thrown.
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class ImporterScheduler {
+
+    protected static final Logger logger = LoggerFactory.getLogger(ImporterScheduler.class);
+
+    private final List<IImporterProcessor> importers;
+
+    private final Map<IImporterProcessor, Set<IImporterProcessor>> prerequisites;
+
+    private final int maxParallelImporters;
+
+    /**
+     * @param importers
+     *            the importers to run
+     * @param declaredPrerequisites
+     *            the prerequisites of the importers, can be null
+     * @param maxParallelImporters
+     *            the maximum number of importers that can run at the same
+     *            time
+     * @throws ImporterException
+     *             if a prerequisite is not in the importers list or if there
+     *             is a cycle
+     */
+    public ImporterScheduler(List<IImporterProcessor> importers,
+	    Map<IImporterProcessor, List<IImporterProcessor>> declaredPrerequisites, int maxParallelImporters) {
+	if (importers == null) {
+	    throw new IllegalArgumentException("importers can not be null");
+	}
+	if (maxParallelImporters < 1) {
+	    throw new IllegalArgumentException("the number of parallel importers should be greater than 0");
+	}
+	this.importers = importers;
+	this.maxParallelImporters = maxParallelImporters;
+	this.prerequisites = resolvePrerequisites(importers, declaredPrerequisites);
+	checkForCycle();
+    }
+
+    private static Map<IImporterProcessor, Set<IImporterProcessor>> resolvePrerequisites(
+	    List<IImporterProcessor> importers, Map<IImporterProcessor, List<IImporterProcessor>> declaredPrerequisites) {
+	Map<IImporterProcessor, Set<IImporterProcessor>> resolved = new IdentityHashMap<IImporterProcessor, Set<IImporterProcessor>>();
+	Set<IImporterProcessor> known = Collections.newSetFromMap(new IdentityHashMap<IImporterProcessor, Boolean>());
+	known.addAll(importers);
+	for (int i = 0; i < importers.size(); i++) {
+	    IImporterProcessor importer = importers.get(i);
+	    Set<IImporterProcessor> required = Collections.newSetFromMap(new IdentityHashMap<IImporterProcessor, Boolean>());
+	    List<IImporterProcessor> declared = declaredPrerequisites == null ? null : declaredPrerequisites.get(importer);
+	    if (declared == null) {
+		required.addAll(importers.subList(0, i));
+	    } else {
+		for (IImporterProcessor prerequisite : declared) {
+		    if (!known.contains(prerequisite)) {
+			throw new ImporterException(prerequisite.getClass().getSimpleName() + " is a prerequisite of "
+				+ importer.getClass().getSimpleName() + " but is not in the importers list");
+		    }
+		    required.add(prerequisite);
+		}
+	    }
+	    resolved.put(importer, required);
+	}
+	return resolved;
+    }
+
+    private void checkForCycle() {
+	Set<IImporterProcessor> done = Collections.newSetFromMap(new IdentityHashMap<IImporterProcessor, Boolean>());
+	boolean progress = true;
+	while (progress && done.size() < importers.size()) {
+	    progress = false;
+	    for (IImporterProcessor importer : importers) {
+		if (!done.contains(importer) && done.containsAll(prerequisites.get(importer))) {
+		    done.add(importer);
+		    progress = true;
+		}
+	    }
+	}
+	if (done.size() < importers.size()) {
+	    List<String> names = new ArrayList<String>();
+	    for (IImporterProcessor importer : importers) {
+		if (!done.contains(importer)) {
+		    names.add(importer.getClass().getSimpleName());
+		}
+	    }
+	    throw new ImporterException("there is a cycle in the prerequisites of the importers " + names);
+	}
+    }
+
+    /**
+     * @param importer
+     *            an importer of the list
+     * @return the importers that must be processed before the given one
+     */
+    public Set<IImporterProcessor> getPrerequisites(IImporterProcessor importer) {
+	Set<IImporterProcessor> required = prerequisites.get(importer);
+	return required == null ? null : Collections.unmodifiableSet(required);
+    }
+
+    /**
+     * Process all the importers, returns when all of them are processed
+     *
+     * @throws ImporterException
+     *             if an importer has failed
+     */
+    public void run() {
+	if (maxParallelImporters == 1) {
+	    //no need of thread, the prerequisites are compatible with the order of the list
+	    if (isCompatibleWithListOrder()) {
+		for (IImporterProcessor importer : importers) {
+		    process(importer);
+		}
+		return;
+	    }
+	}
+	ExecutorService executor = Executors.newFixedThreadPool(maxParallelImporters, new ImporterThreadFactory());
+	try {
+	    runConcurrently(executor);
+	} finally {
+	    executor.shutdownNow();
+	}
+    }
+
+    private boolean isCompatibleWithListOrder() {
+	Set<IImporterProcessor> before = Collections.newSetFromMap(new IdentityHashMap<IImporterProcessor, Boolean>());
+	for (IImporterProcessor importer : importers) {
+	    if (!before.containsAll(prerequisites.get(importer))) {
+		return false;
+	    }
+	    before.add(importer);
+	}
+	return true;
+    }
+
+    private void runConcurrently(ExecutorService executor) {
+	CompletionService<IImporterProcessor> completionService = new ExecutorCompletionService<IImporterProcessor>(executor);
+	Set<IImporterProcessor> processed = Collections.newSetFromMap(new IdentityHashMap<IImporterProcessor, Boolean>());
+	Set<IImporterProcessor> started = Collections.newSetFromMap(new IdentityHashMap<IImporterProcessor, Boolean>());
+	RuntimeException failure = null;
+	int running = 0;
+	while (true) {
+	    if (failure == null) {
+		for (IImporterProcessor importer : importers) {
+		    if (running >= maxParallelImporters) {
+			break;
+		    }
+		    if (!started.contains(importer) && processed.containsAll(prerequisites.get(importer))) {
+			started.add(importer);
+			running++;
+			completionService.submit(new ImporterTask(importer));
+		    }
+		}
+	    }
+	    if (running == 0) {
+		break;
+	    }
+	    try {
+		IImporterProcessor importer = completionService.take().get();
+		processed.add(importer);
+	    } catch (ExecutionException e) {
+		if (failure == null) {
+		    failure = toRuntimeException(e.getCause());
+		} else {
+		    logger.error("an other importer has failed : " + e.getCause().getMessage(), e.getCause());
+		}
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+		throw new ImporterException("the import has been interrupted", e);
+	    }
+	    running--;
+	}
+	if (failure != null) {
+	    throw failure;
+	}
+    }
+
+    private static RuntimeException toRuntimeException(Throwable t) {
+	if (t instanceof RuntimeException) {
+	    return (RuntimeException) t;
+	}
+	if (t instanceof Error) {
+	    throw (Error) t;
+	}
+	return new ImporterException(t.getMessage(), t);
+    }
+
+    private static void process(IImporterProcessor importer) {
+	logger.info("will now process " + importer.getClass().getSimpleName());
+	importer.process();
+    }
+
+    private static class ImporterTask implements Callable<IImporterProcessor> {
+
+	private final IImporterProcessor importer;
+
+	ImporterTask(IImporterProcessor importer) {
+	    this.importer = importer;
+	}
+
+	public IImporterProcessor call() {
+	    process(importer);
+	    return importer;
+	}
+    }
+
+    private static class ImporterThreadFactory implements ThreadFactory {
+
+	private final AtomicInteger count = new AtomicInteger();
+
+	public Thread newThread(Runnable runnable) {
+	    Thread thread = new Thread(runnable, "importer-" + count.incrementAndGet());
+	    thread.setDaemon(true);
+	    return thread;
+	}
+    }
+
+}
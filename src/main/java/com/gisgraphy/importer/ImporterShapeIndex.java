@@ -0,0 +1,235 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.importer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.gisgraphy.domain.geoloc.entity.Adm;
+import com.gisgraphy.domain.geoloc.entity.City;
+import com.gisgraphy.domain.geoloc.entity.CitySubdivision;
+import com.gisgraphy.domain.repository.IAdmDao;
+import com.gisgraphy.domain.repository.ICityDao;
+import com.gisgraphy.domain.repository.ICitySubdivisionDao;
+import com.gisgraphy.helper.PolygonIndex;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Point;
+
+/**
+ * Point in polygon lookups used during the import (city, city subdivision
+ * and adm by shape). When enabled, the shapes of a country are loaded once in
+ * a {@link PolygonIndex} and the lookups are done in memory, the database is
+ * only used to load the entity that is found. The indexes of the last used
+ * countries are kept, the files are generally sorted by country.
+ * When disabled (or when the country is unknown) the lookups are delegated
+ * to the daos.
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class ImporterShapeIndex {
+
+    protected static final Logger logger = LoggerFactory.getLogger(ImporterShapeIndex.class);
+
+    public static final int DEFAULT_MAX_COUNTRIES_IN_MEMORY = 3;
+
+    private ICityDao cityDao;
+
+    private ICitySubdivisionDao citySubdivisionDao;
+
+    private IAdmDao admDao;
+
+    private boolean enabled = false;
+
+    private int maxCountriesInMemory = DEFAULT_MAX_COUNTRIES_IN_MEMORY;
+
+    private final Map<String, PolygonIndex> cityIndexes = createCache();
+
+    private final Map<String, PolygonIndex> citySubdivisionIndexes = createCache();
+
+    private final Map<String, PolygonIndex> admIndexes = createCache();
+
+    private Map<String, PolygonIndex> createCache() {
+	return new LinkedHashMap<String, PolygonIndex>(16, 0.75f, true) {
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected boolean removeEldestEntry(Map.Entry<String, PolygonIndex> eldest) {
+		return size() > maxCountriesInMemory;
+	    }
+	};
+    }
+
+    /**
+     * @see ICityDao#getByShape(Point, String, boolean)
+     */
+    public City getCityByShape(Point location, String countryCode, boolean filterMunicipality) {
+	if (!enabled || countryCode == null || location == null) {
+	    return cityDao.getByShape(location, countryCode, filterMunicipality);
+	}
+	Long id = getCityIndex(countryCode).getSmallestContaining(location, filterMunicipality);
+	if (id == null) {
+	    return null;
+	}
+	City city = cityDao.get(id);
+	if (city != null) {
+	    //same behaviour as the dao
+	    if (city.getZipCodes() != null) {
+		city.getZipCodes().size();
+	    }
+	    if (city.getAdm() != null) {
+		city.getAdm().getName();
+	    }
+	}
+	return city;
+    }
+
+    /**
+     * @see ICitySubdivisionDao#getByShape(Point, String)
+     */
+    public CitySubdivision getCitySubdivisionByShape(Point location, String countryCode) {
+	if (!enabled || countryCode == null || location == null) {
+	    return citySubdivisionDao.getByShape(location, countryCode);
+	}
+	Long id = getCitySubdivisionIndex(countryCode).getSmallestContaining(location, false);
+	if (id == null) {
+	    return null;
+	}
+	return citySubdivisionDao.get(id);
+    }
+
+    /**
+     * @see IAdmDao#ListByShape(Point, String)
+     * @return the adms that contains the location, the largest first
+     */
+    public List<Adm> listAdmByShape(Point location, String countryCode) {
+	if (!enabled || countryCode == null || location == null) {
+	    return admDao.ListByShape(location, countryCode);
+	}
+	List<Long> ids = getAdmIndex(countryCode).listContaining(location, false, true);
+	List<Adm> adms = new ArrayList<Adm>(ids.size());
+	for (Long id : ids) {
+	    Adm adm = admDao.get(id);
+	    if (adm != null) {
+		adms.add(adm);
+	    }
+	}
+	return adms;
+    }
+
+    /**
+     * Free the memory used by the indexes, they will be reloaded if needed.
+     * Must be called when the shapes changed in the database
+     */
+    public synchronized void clear() {
+	cityIndexes.clear();
+	citySubdivisionIndexes.clear();
+	admIndexes.clear();
+    }
+
+    private synchronized PolygonIndex getCityIndex(String countryCode) {
+	String key = countryCode.toUpperCase();
+	PolygonIndex index = cityIndexes.get(key);
+	if (index == null) {
+	    index = new PolygonIndex();
+	    for (Object[] row : cityDao.listIdShapeAndMunicipalityByCountryCode(key)) {
+		index.add((Long) row[0], (Geometry) row[1], Boolean.TRUE.equals(row[2]));
+	    }
+	    index.build();
+	    logger.info(index.size() + " city shapes loaded in memory for " + key);
+	    cityIndexes.put(key, index);
+	}
+	return index;
+    }
+
+    private synchronized PolygonIndex getCitySubdivisionIndex(String countryCode) {
+	String key = countryCode.toUpperCase();
+	PolygonIndex index = citySubdivisionIndexes.get(key);
+	if (index == null) {
+	    index = buildIndex(citySubdivisionDao.listIdAndShapeByCountryCode(key));
+	    logger.info(index.size() + " city subdivision shapes loaded in memory for " + key);
+	    citySubdivisionIndexes.put(key, index);
+	}
+	return index;
+    }
+
+    private synchronized PolygonIndex getAdmIndex(String countryCode) {
+	String key = countryCode.toUpperCase();
+	PolygonIndex index = admIndexes.get(key);
+	if (index == null) {
+	    index = buildIndex(admDao.listIdAndShapeByCountryCode(key));
+	    logger.info(index.size() + " adm shapes loaded in memory for " + key);
+	    admIndexes.put(key, index);
+	}
+	return index;
+    }
+
+    private PolygonIndex buildIndex(List<Object[]> rows) {
+	PolygonIndex index = new PolygonIndex();
+	for (Object[] row : rows) {
+	    index.add((Long) row[0], (Geometry) row[1], false);
+	}
+	index.build();
+	return index;
+    }
+
+    public void setCityDao(ICityDao cityDao) {
+	this.cityDao = cityDao;
+    }
+
+    public void setCitySubdivisionDao(ICitySubdivisionDao citySubdivisionDao) {
+	this.citySubdivisionDao = citySubdivisionDao;
+    }
+
+    public void setAdmDao(IAdmDao admDao) {
+	this.admDao = admDao;
+    }
+
+    /**
+     * @param enabled
+     *            whether the shapes should be loaded in memory. the memory
+     *            needed depends on the number of shapes of the biggest
+     *            countries
+     */
+    public void setEnabled(boolean enabled) {
+	this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+	return enabled;
+    }
+
+    /**
+     * @param maxCountriesInMemory
+     *            the number of countries to keep in memory, per type of
+     *            shape
+     */
+    public void setMaxCountriesInMemory(int maxCountriesInMemory) {
+	this.maxCountriesInMemory = maxCountriesInMemory;
+    }
+
+}
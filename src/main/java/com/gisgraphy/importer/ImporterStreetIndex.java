@@ -0,0 +1,182 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.importer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.gisgraphy.domain.geoloc.entity.OpenStreetMap;
+import com.gisgraphy.domain.repository.IOpenStreetMapDao;
+import com.gisgraphy.helper.StreetNameIndex;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Point;
+
+/**
+ * Nearest street lookups used during the import of the house numbers. When
+ * enabled, the streets of a country (name, alternate names and shape) are
+ * loaded once in a {@link StreetNameIndex} and the lookups are done in
+ * memory, the database is only used to load the street that is found. The
+ * indexes of the last used countries are kept, the files are sorted by
+ * country. The names and the shapes of the streets must not change while
+ * the index is used.
+ * <br/>
+ * Only the streets whose country code is the one of the file are loaded :
+ * the streets without country code and the ones across a border are not
+ * found, the callers must then fall back on the fulltext search.
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class ImporterStreetIndex {
+
+    protected static final Logger logger = LoggerFactory.getLogger(ImporterStreetIndex.class);
+
+    public static final int DEFAULT_MAX_COUNTRIES_IN_MEMORY = 1;
+
+    /**
+     * The number of streets loaded per query
+     */
+    protected static final int BATCH_SIZE = 10000;
+
+    private IOpenStreetMapDao openStreetMapDao;
+
+    private boolean enabled = false;
+
+    private int maxCountriesInMemory = DEFAULT_MAX_COUNTRIES_IN_MEMORY;
+
+    private final Map<String, StreetNameIndex> indexes = new LinkedHashMap<String, StreetNameIndex>(16, 0.75f, true) {
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	protected boolean removeEldestEntry(Map.Entry<String, StreetNameIndex> eldest) {
+	    return size() > maxCountriesInMemory;
+	}
+    };
+
+    /**
+     * @param streetName
+     *            the name of the street, if empty, the nearest street is
+     *            returned
+     * @param location
+     *            the point to search around
+     * @param countryCode
+     *            the country of the streets
+     * @param distance
+     *            the maximum distance of the street, in meters
+     * @return the nearest street with the same name or null if there is none
+     * @see StreetNameIndex#getNearest(String, Point, double)
+     */
+    public OpenStreetMap getNearestStreet(String streetName, Point location, String countryCode, double distance) {
+	if (location == null) {
+	    return null;
+	}
+	StreetNameIndex index = getIndex(countryCode);
+	Long gid = streetName == null ? index.getNearest(location, distance) : index.getNearest(streetName, location, distance);
+	if (gid == null) {
+	    return null;
+	}
+	return openStreetMapDao.getByGid(gid);
+    }
+
+    /**
+     * Free the memory used by the indexes, they will be reloaded if needed.
+     * Must be called when the streets changed in the database
+     */
+    public synchronized void clear() {
+	indexes.clear();
+    }
+
+    private synchronized StreetNameIndex getIndex(String countryCode) {
+	String key = countryCode.toUpperCase();
+	StreetNameIndex index = indexes.get(key);
+	if (index == null) {
+	    index = new StreetNameIndex(key);
+	    long fromGid = 0;
+	    List<Object[]> rows;
+	    do {
+		rows = openStreetMapDao.listGidNameAndShapeByCountryCode(key, fromGid, BATCH_SIZE);
+		if (rows.isEmpty()) {
+		    break;
+		}
+		long toGid = (Long) rows.get(rows.size() - 1)[0];
+		Map<Long, List<String>> alternateNames = new HashMap<Long, List<String>>();
+		for (Object[] row : openStreetMapDao.listAlternateNamesByCountryCode(key, fromGid, toGid)) {
+		    List<String> names = alternateNames.get(row[0]);
+		    if (names == null) {
+			names = new ArrayList<String>(2);
+			alternateNames.put((Long) row[0], names);
+		    }
+		    names.add((String) row[1]);
+		}
+		for (Object[] row : rows) {
+		    List<String> names = new ArrayList<String>();
+		    if (row[1] != null) {
+			names.add((String) row[1]);
+		    }
+		    List<String> alternates = alternateNames.get(row[0]);
+		    if (alternates != null) {
+			names.addAll(alternates);
+		    }
+		    index.add((Long) row[0], names, (Geometry) row[2]);
+		}
+		fromGid = toGid;
+	    } while (rows.size() == BATCH_SIZE);
+	    index.build();
+	    logger.info(index.size() + " streets loaded in memory for " + key);
+	    indexes.put(key, index);
+	}
+	return index;
+    }
+
+    public void setOpenStreetMapDao(IOpenStreetMapDao openStreetMapDao) {
+	this.openStreetMapDao = openStreetMapDao;
+    }
+
+    /**
+     * @param enabled
+     *            whether the streets should be loaded in memory. the memory
+     *            needed depends on the number of streets of the biggest
+     *            countries
+     */
+    public void setEnabled(boolean enabled) {
+	this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+	return enabled;
+    }
+
+    /**
+     * @param maxCountriesInMemory
+     *            the number of countries to keep in memory
+     */
+    public void setMaxCountriesInMemory(int maxCountriesInMemory) {
+	this.maxCountriesInMemory = maxCountriesInMemory;
+    }
+
+}
@@ -27,6 +27,7 @@ import com.gisgraphy.helper.OrthogonalProjection;
 import com.gisgraphy.helper.StateAbbreviator;
 import com.gisgraphy.helper.CountryInfo;
 import com.gisgraphy.reversegeocoding.HouseNumberDistance;
+import com.gisgraphy.street.EncodedHouseNumbers;
 import com.vividsolutions.jts.geom.Point;
 
 /**
@@ -620,6 +621,28 @@ public class LabelGenerator {
 
 
 
+	/**
+	 * @return the nearest house of the street, found in the encoded house
+	 *         numbers of the street if any, in {@link OpenStreetMap#getHouseNumbers()} otherwise.
+	 *         the house number is not loaded from the database
+	 * @see EncodedHouseNumbers
+	 */
+	public  HouseNumberDistance getNearestHouseOfStreet(OpenStreetMap street, Point location){
+		if (street==null || location==null){
+			return null;
+		}
+		EncodedHouseNumbers encodedHouseNumbers = EncodedHouseNumbers.decode(street.getEncodedHouseNumbers());
+		if (encodedHouseNumbers==null){
+			return getNearestHouse(street.getHouseNumbers(), location);
+		}
+		int nearest = encodedHouseNumbers.getNearest(location);
+		if (nearest==-1){
+			return null;
+		}
+		HouseNumber houseNumber = encodedHouseNumbers.toHouseNumber(nearest, street);
+		return new HouseNumberDistance(houseNumber, GeolocHelper.distance(houseNumber.getLocation(), location));
+	}
+
 	public  HouseNumberDistance getNearestHouse(SortedSet<HouseNumber> houses, Point location){
 		if (location==null || houses==null || houses.size()==0){
 			return null;
@@ -69,11 +69,15 @@ public class OpenAddressesFileRetriever extends AbstractFileRetriever {
      * @see com.gisgraphy.domain.geoloc.importer.AbstractFileRetriever#decompressFiles()
      */
     public void decompressFiles() throws IOException {
+	if (importerConfig.isStreamArchives()) {
+	    logger.info("the archives of " + getDownloadDirectory() + " are not extracted, they will be read by the importer");
+	    return;
+	}
 	File[] files = getFilesToProcess();
 	File destDirectory = new File(getDownloadDirectory());
 	for (int i = 0; i < files.length; i++) {
 	    try {
-			gisFiler = new GISFiler(files[i].getAbsolutePath(),destDirectory);
+			gisFiler = new GISFiler(files[i].getAbsolutePath(),destDirectory,importerConfig.getDecompressionThreads());
 			gisFiler.process();
 		} catch (Exception e) {
 			logger.error(files[i].getAbsolutePath()+" is not a valid tar file");
@@ -24,7 +24,9 @@ package com.gisgraphy.importer;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -104,6 +106,12 @@ public class OpenAddressesSimpleImporter extends AbstractSimpleImporterProcessor
 	
 	protected OpenStreetMap lastCreatedStreet;
 
+	/**
+	 * the streets that have new house numbers, by id. they are saved once per
+	 * commit, so that their house numbers are not encoded again for each house
+	 */
+	protected Map<Long, OpenStreetMap> streetsToSave = new LinkedHashMap<Long, OpenStreetMap>();
+
 	protected String lasthash="?";
 	protected String currentHash="?";
 
@@ -152,6 +160,10 @@ public class OpenAddressesSimpleImporter extends AbstractSimpleImporterProcessor
 	 */
 	@Override
 	protected void flushAndClear() {
+		for (OpenStreetMap street : streetsToSave.values()) {
+			openStreetMapDao.save(street);
+		}
+		streetsToSave.clear();
 	}
 
 	@Override
@@ -159,6 +171,7 @@ public class OpenAddressesSimpleImporter extends AbstractSimpleImporterProcessor
 		//temporary disable logging when importing
 		FullTextSearchEngine.disableLogging=true;
 		idGenerator.sync();
+		streetsToSave.clear();
 		super.setup();
 	}
 
@@ -170,7 +183,7 @@ public class OpenAddressesSimpleImporter extends AbstractSimpleImporterProcessor
 	 */
 	@Override
 	protected File[] getFiles() {
-		return ImporterHelper.listCountryFilesToImport(importerConfig.getOpenAddressesDir());
+		return ImporterHelper.listCountryFilesToImport(importerConfig.getOpenAddressesDir(), importerConfig.isStreamArchives());
 	}
 
 
@@ -282,13 +295,14 @@ public class OpenAddressesSimpleImporter extends AbstractSimpleImporterProcessor
 		if (!isEmptyField(fields, 8, false)){
 			street.setZipCode(fields[8]);
 		} 
-		openStreetMapDao.save(street);
 		street.setCountryCode(countryCode);
 		HouseNumber hn = new HouseNumber(cleanedNumber,location);
 		hn.setName(housename);
 		hn.setSource(GISSource.OPENADDRESSES);
 		street.addHouseNumber(hn);
 		houseNumberDao.save(hn);
+		//the street is saved at the next commit, once its house numbers have an id, to encode them together
+		streetsToSave.put(street.getId(), street);
 
 		logger.debug(currentHash+ " : have save "+hn);
 		
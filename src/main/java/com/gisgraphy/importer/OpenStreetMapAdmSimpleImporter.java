@@ -127,7 +127,7 @@ public class OpenStreetMapAdmSimpleImporter extends AbstractSimpleImporterProces
 	 */
 	@Override
 	protected File[] getFiles() {
-		return ImporterHelper.listCountryFilesToImport(importerConfig.getOpenStreetMapAdmDir());
+		return ImporterHelper.listCountryFilesToImport(importerConfig.getOpenStreetMapAdmDir(), importerConfig.isStreamArchives());
 	}
 
 	/* (non-Javadoc)
@@ -130,7 +130,7 @@ public class OpenStreetMapCitiesSimpleImporter extends AbstractSimpleImporterPro
      */
     @Override
     protected File[] getFiles() {
-	return ImporterHelper.listCountryFilesToImport(importerConfig.getOpenStreetMapCitiesDir());
+	return ImporterHelper.listCountryFilesToImport(importerConfig.getOpenStreetMapCitiesDir(), importerConfig.isStreamArchives());
     }
 
     /* (non-Javadoc)
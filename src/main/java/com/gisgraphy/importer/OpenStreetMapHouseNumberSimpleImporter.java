@@ -91,6 +91,8 @@ public class OpenStreetMapHouseNumberSimpleImporter extends AbstractSimpleImport
 	protected ISolRSynchroniser solRSynchroniser;
 
 	protected IFullTextSearchEngine fullTextSearchEngine;
+
+	protected ImporterStreetIndex importerStreetIndex;
 																//id		location	number			 name				streetname		city                zip				  suburb           shape             tpe		role	
 	private static final String ASSOCIATED_HOUSE_NUMBER_REGEXP = "([0-9]+)___([^_]*)___((?:(?!___).)*)___((?:(?!___).)*)___((?:(?!___).)*)___((?:(?!___).)*)___((?:(?!___).)*)___((?:(?!___).)*)___((?:(?!___).)*)___([NW])___([^_]*)(?:___)?";
 
@@ -129,6 +131,9 @@ public class OpenStreetMapHouseNumberSimpleImporter extends AbstractSimpleImport
 	protected void setup() {
 		//temporary disable logging when importing
 		FullTextSearchEngine.disableLogging=true;
+		if (importerStreetIndex != null){
+			importerStreetIndex.clear();
+		}
 		super.setup();
 	}
 
@@ -140,7 +145,7 @@ public class OpenStreetMapHouseNumberSimpleImporter extends AbstractSimpleImport
 	 */
 	@Override
 	protected File[] getFiles() {
-		return ImporterHelper.listCountryFilesToImport(importerConfig.getOpenStreetMapHouseNumberDir());
+		return ImporterHelper.listCountryFilesToImport(importerConfig.getOpenStreetMapHouseNumberDir(), importerConfig.isStreamArchives());
 	}
 
 	/*
@@ -790,13 +795,30 @@ ___W___house"} SHAPE"
 			logger.warn("findNearestStreet :location is null");
 			return null;
 		}
+		String countryCode = getCurrentCountryCode();
+		boolean useStreetIndex = importerStreetIndex != null && importerStreetIndex.isEnabled() && countryCode != null;
 		if (streetName==null || "".equals(streetName.trim()) || "\"\"".equals(streetName.trim()) || "-".equals(streetName.trim()) || "---".equals(streetName.trim()) || "--".equals(streetName.trim())){
 				logger.warn("findNearestStreet : no streetname, we search by location "+location);
+				if (useStreetIndex){
+					OpenStreetMap osm = importerStreetIndex.getNearestStreet(null, location, countryCode, DEFAULT_SEARCH_DISTANCE);
+					if (osm != null){
+						return osm;
+					}
+					//the streets without country or of an other country are not in the index
+				}
 				OpenStreetMap osm =	openStreetMapDao.getNearestFrom(location,DEFAULT_SEARCH_DISTANCE);
 				logger.error("findNearestStreet :getNearestFrom return "+osm);
 				
 				return osm;
 		}
+		if (useStreetIndex){
+			//same name and same distance as the fulltext search, but in memory
+			OpenStreetMap osm = importerStreetIndex.getNearestStreet(streetName, location, countryCode, DEFAULT_SEARCH_DISTANCE);
+			if (osm != null){
+				return osm;
+			}
+			//the streets without country or of an other country are not in the index
+		}
 		
 		
 		FulltextQuery query;
@@ -1071,6 +1093,9 @@ ___W___house"} SHAPE"
 			deletedObjectInfo.add(new NameValueDTO<Integer>(houseNumberDao.getPersistenceClass().getSimpleName(), deleted));
 		}
 		logger.info(deleted + " house number entities have been deleted");
+		//the reverse geocoding reads the encoded copy of the house numbers first
+		int cleared = openStreetMapDao.clearEncodedHouseNumbers();
+		logger.info("the encoded house numbers of " + cleared + " streets have been removed");
 		resetStatus();
 		return deletedObjectInfo;
 	}
@@ -1082,6 +1107,9 @@ ___W___house"} SHAPE"
 	protected void tearDown() {
 		super.tearDown();
 		FullTextSearchEngine.disableLogging=false;
+		if (importerStreetIndex != null){
+			importerStreetIndex.clear();
+		}
 	}
 
 
@@ -1105,5 +1133,15 @@ ___W___house"} SHAPE"
 		this.solRSynchroniser = solRSynchroniser;
 	}
 
+	/**
+	 * @param importerStreetIndex
+	 *                the in memory index of the streets, if it is enabled,
+	 *                the streets are found without querying the fulltext
+	 *                engine and the database for the country files
+	 */
+	public void setImporterStreetIndex(ImporterStreetIndex importerStreetIndex) {
+		this.importerStreetIndex = importerStreetIndex;
+	}
+
 
 }
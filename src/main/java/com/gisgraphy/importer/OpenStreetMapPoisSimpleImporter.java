@@ -103,6 +103,9 @@ public class OpenStreetMapPoisSimpleImporter extends AbstractSimpleImporterProce
      */
     @Override
     protected void flushAndClear() {
+    	if (isBulkInsert()) {
+    		bulkWriter.flush();
+    	}
     	gisFeatureDao.flushAndClear();
     }
     
@@ -120,7 +123,7 @@ public class OpenStreetMapPoisSimpleImporter extends AbstractSimpleImporterProce
      */
     @Override
     protected File[] getFiles() {
-    	return ImporterHelper.listCountryFilesToImport(importerConfig.getOpenStreetMapPoisDir());
+    	return ImporterHelper.listCountryFilesToImport(importerConfig.getOpenStreetMapPoisDir(), importerConfig.isStreamArchives());
     }
 
     /* (non-Javadoc)
@@ -156,14 +159,21 @@ public class OpenStreetMapPoisSimpleImporter extends AbstractSimpleImporterProce
 	if (pois == null){
 		return;
 	}
-	try {
+	if (isBulkInsert()) {
+		//nothing is written before flushAndClear, a constraint violation fails the whole batch there and can not be ignored for one line
 		for (GisFeature poi:pois){
-			gisFeatureDao.save(poi);
+			bulkWriter.save(poi);
+		}
+	} else {
+		try {
+			for (GisFeature poi:pois){
+				gisFeatureDao.save(poi);
+			}
+		} catch (ConstraintViolationException e) {
+			logger.error("Can not save "+dumpFields(fields)+"(ConstraintViolationException) we continue anyway but you should consider this",e);
+		}catch (Exception e) {
+			logger.error("Can not save "+dumpFields(fields)+" we continue anyway but you should consider this",e);
 		}
-	} catch (ConstraintViolationException e) {
-		logger.error("Can not save "+dumpFields(fields)+"(ConstraintViolationException) we continue anyway but you should consider this",e);
-	}catch (Exception e) {
-		logger.error("Can not save "+dumpFields(fields)+" we continue anyway but you should consider this",e);
 	}
 
     }
@@ -272,7 +282,7 @@ public class OpenStreetMapPoisSimpleImporter extends AbstractSimpleImporterProce
 	 protected void setIsInFields(GisFeature poi) {
 	    	if (poi != null && poi.getLocation() != null) {
 	    		//first searchByShape because it is the more reliable :
-	    		City cityByShape = cityDao.getByShape(poi.getLocation(),poi.getCountryCode(),true);
+	    		City cityByShape = getCityByShape(poi.getLocation(),poi.getCountryCode(),true);
 	    		if (cityByShape != null){
 	    			poi.setIsIn(cityByShape.getName());
 	    			poi.setCityId(cityByShape.getId());
@@ -473,6 +483,9 @@ public class OpenStreetMapPoisSimpleImporter extends AbstractSimpleImporterProce
     //TODO test
     protected void tearDown() {
     	super.tearDown();
+    	if (importerShapeIndex != null){
+    		importerShapeIndex.clear();
+    	}
     	String savedMessage = this.statusMessage;
     	/*try {
     		 FullTextSearchEngine.disableLogging=true;
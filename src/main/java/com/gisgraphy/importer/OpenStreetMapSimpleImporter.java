@@ -104,6 +104,9 @@ public class OpenStreetMapSimpleImporter extends AbstractSimpleImporterProcessor
      */
     @Override
     protected void flushAndClear() {
+	if (isBulkInsert()) {
+	    bulkWriter.flush();
+	}
 	openStreetMapDao.flushAndClear();
 
     }
@@ -123,6 +126,9 @@ public class OpenStreetMapSimpleImporter extends AbstractSimpleImporterProcessor
     protected void tearDown() {
     	logger.error("start teardown");
     	super.tearDown();
+    	if (importerShapeIndex != null){
+    		importerShapeIndex.clear();
+    	}
     	FullTextSearchEngine.disableLogging=false;
     	GeolocSearchEngine.disableLogging=false;
     	 String savedMessage = this.statusMessage;
@@ -146,7 +152,7 @@ public class OpenStreetMapSimpleImporter extends AbstractSimpleImporterProcessor
      */
     @Override
     protected File[] getFiles() {
-    	return ImporterHelper.listCountryFilesToImport(importerConfig.getOpenStreetMapDir());
+    	return ImporterHelper.listCountryFilesToImport(importerConfig.getOpenStreetMapDir(), importerConfig.isStreamArchives());
     }
 
     /* (non-Javadoc)
@@ -157,7 +163,17 @@ public class OpenStreetMapSimpleImporter extends AbstractSimpleImporterProcessor
     	return 10;
     }
     
-    private long currentId = 0;
+    //the lines can be processed by several workers
+    private final ThreadLocal<Long> currentId = new ThreadLocal<Long>();
+
+    /* (non-Javadoc)
+     * @see com.gisgraphy.importer.AbstractSimpleImporterProcessor#isParallelProcessingSupported()
+     */
+    @Override
+    protected boolean isParallelProcessingSupported() {
+	//each line inserts a new street and only reads the cities, the shape decoding and the labels are the costly part
+	return true;
+    }
 
     /* (non-Javadoc)
      * @see com.gisgraphy.domain.geoloc.importer.AbstractImporterProcessor#processData(java.lang.String)
@@ -185,7 +201,7 @@ public class OpenStreetMapSimpleImporter extends AbstractSimpleImporterProcessor
 	    Long openstreetmapId= null;
 	    try {
 		openstreetmapId = new Long(fields[0].trim());
-		currentId = openstreetmapId;
+		currentId.set(openstreetmapId);
 	    } catch (NumberFormatException e) {
 		logger.warn("can not get openstreetmap id for "+fields[0]);
 	    }
@@ -205,7 +221,7 @@ public class OpenStreetMapSimpleImporter extends AbstractSimpleImporterProcessor
 		Point location = (Point) GeolocHelper.convertFromHEXEWKBToGeometry(fields[2]);
 		street.setLocation(location);
 	    } catch (RuntimeException e) {
-	    	logger.warn(currentId+" can not parse location for "+fields[1]+" : "+e);
+	    	logger.warn(currentId.get()+" can not parse location for "+fields[1]+" : "+e);
 	    	return;
 	    }
 	}
@@ -241,7 +257,7 @@ public class OpenStreetMapSimpleImporter extends AbstractSimpleImporterProcessor
 		type = StreetType.valueOf(fields[8].toUpperCase());
 		street.setStreetType(type);
 	    } catch (Exception e) {
-		logger.warn(currentId+" can not determine streetType for "+fields[0]+"/"+fields[8]+" : "+e);
+		logger.warn(currentId.get()+" can not determine streetType for "+fields[0]+"/"+fields[8]+" : "+e);
 		street.setStreetType(StreetType.UNCLASSIFIED);
 	    }
 	    
@@ -254,7 +270,7 @@ public class OpenStreetMapSimpleImporter extends AbstractSimpleImporterProcessor
 		oneWay  = fields[9].equals("t");
 		street.setOneWay(oneWay);
 	    } catch (Exception e) {
-		logger.warn(currentId+" can not determine oneway for "+fields[1]+"/"+fields[9]+" : "+e);
+		logger.warn(currentId.get()+" can not determine oneway for "+fields[1]+"/"+fields[9]+" : "+e);
 	    }
 	    
 	}
@@ -263,7 +279,7 @@ public class OpenStreetMapSimpleImporter extends AbstractSimpleImporterProcessor
 	    try {
 	    	street.setShape((LineString)GeolocHelper.convertFromHEXEWKBToGeometry(fields[10]));
 	    } catch (RuntimeException e) {
-		logger.warn(currentId+" can not parse shape for "+fields[0]+"/"+fields[10] +" : "+e);
+		logger.warn(currentId.get()+" can not parse shape for "+fields[0]+"/"+fields[10] +" : "+e);
 		return;
 	    }
 	}
@@ -279,7 +295,7 @@ public class OpenStreetMapSimpleImporter extends AbstractSimpleImporterProcessor
 			Integer lanes = Integer.parseInt(fields[12]);
 			street.setLanes(lanes);
 		} catch (NumberFormatException e) {
-			logger.warn(currentId+" can not parse lanes for "+fields[0]+"/"+fields[12] +" : "+e);
+			logger.warn(currentId.get()+" can not parse lanes for "+fields[0]+"/"+fields[12] +" : "+e);
 		}
   
 	}
@@ -337,12 +353,17 @@ public class OpenStreetMapSimpleImporter extends AbstractSimpleImporterProcessor
 	}
 	
 		
-	try {
-		openStreetMapDao.save(street);
-	} catch (ConstraintViolationException e) {
-		logger.error(currentId+" Can not save "+dumpFields(fields)+"(ConstraintViolationException) we continue anyway but you should consider this",e);
-	}catch (Exception e) {
-		logger.error(currentId+" Can not save "+dumpFields(fields)+" we continue anyway but you should consider this",e);
+	if (isBulkInsert()) {
+		//nothing is written before flushAndClear, a constraint violation fails the whole batch there and can not be ignored for one line
+		bulkWriter.save(street);
+	} else {
+		try {
+			openStreetMapDao.save(street);
+		} catch (ConstraintViolationException e) {
+			logger.error(currentId.get()+" Can not save "+dumpFields(fields)+"(ConstraintViolationException) we continue anyway but you should consider this",e);
+		}catch (Exception e) {
+			logger.error(currentId.get()+" Can not save "+dumpFields(fields)+" we continue anyway but you should consider this",e);
+		}
 	}
 	//logger.error("finish process of openstreetmapId="+currentId );
 
@@ -381,7 +402,7 @@ public class OpenStreetMapSimpleImporter extends AbstractSimpleImporterProcessor
 			return azimuth.intValue();
 			
 		} catch (NumberFormatException e) {
-			logger.warn(currentId+" can not parse azimuth "+azimutStr +" : "+e);
+			logger.warn(currentId.get()+" can not parse azimuth "+azimutStr +" : "+e);
 			return null;
 		}
 	}
@@ -426,7 +447,7 @@ public class OpenStreetMapSimpleImporter extends AbstractSimpleImporterProcessor
     protected void setIsInFields(OpenStreetMap street) {
     	if (street != null && street.getLocation() != null) {
     		//first search By Shape because it is the more reliable :
-    		City cityByShape = cityDao.getByShape(street.getLocation(),street.getCountryCode(),true);
+    		City cityByShape = getCityByShape(street.getLocation(),street.getCountryCode(),true);
     		if (cityByShape != null){
     			street.setIsIn(cityByShape.getName());
     			street.setCityId(cityByShape.getId());
@@ -452,7 +473,7 @@ public class OpenStreetMapSimpleImporter extends AbstractSimpleImporterProcessor
     				//AFTER setting admnames, we took the best one
     				street.setIsInAdm(getBestAdmName(cityByShape));//cityByShape.getAdm().getName()
     				//set the is_in_place
-    				CitySubdivision subdivision = citySubdivisionDao.getByShape(street.getLocation(),cityByShape.getCountryCode());
+    				CitySubdivision subdivision = getCitySubdivisionByShape(street.getLocation(),cityByShape.getCountryCode());
     				if (subdivision !=null){
     					street.setIsInPlace(subdivision.getName());
     				}
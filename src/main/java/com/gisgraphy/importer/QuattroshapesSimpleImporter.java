@@ -70,7 +70,7 @@ public class QuattroshapesSimpleImporter extends AbstractSimpleImporterProcessor
 	 */
 	@Override
 	protected File[] getFiles() {
-		return ImporterHelper.listCountryFilesToImport(importerConfig.getQuattroshapesDir());
+		return ImporterHelper.listCountryFilesToImport(importerConfig.getQuattroshapesDir(), importerConfig.isStreamArchives());
 	}
 	
 	 @Override
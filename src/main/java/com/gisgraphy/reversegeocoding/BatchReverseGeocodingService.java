@@ -0,0 +1,320 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.reversegeocoding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.gisgraphy.addressparser.Address;
+import com.gisgraphy.addressparser.AddressResultsDto;
+import com.gisgraphy.addressparser.AddressResultsDtoSerializer;
+import com.gisgraphy.serializer.common.OutputFormat;
+import com.gisgraphy.service.ServiceException;
+import com.vividsolutions.jts.geom.Point;
+
+/**
+ * Reverse geocode a batch of points on a bounded pool of threads. The points
+ * are sorted along a Hilbert curve and split in chunks of neighbouring
+ * points, each chunk is processed by one thread, so that the streets and the
+ * cities are likely to be in the caches (hibernate, database) for the next
+ * points. The results are returned in the order of the points.
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class BatchReverseGeocodingService {
+
+    protected static final Logger logger = LoggerFactory.getLogger(BatchReverseGeocodingService.class);
+
+    public static final int DEFAULT_NUMBER_OF_THREADS = 4;
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 10000;
+
+    public static final int DEFAULT_CHUNK_SIZE = 64;
+
+    /**
+     * number of bits of each coordinate on the hilbert curve
+     */
+    private static final int HILBERT_ORDER = 16;
+
+    private static final byte[] ARRAY_START = "[".getBytes();
+
+    private static final byte[] ARRAY_SEPARATOR = ",".getBytes();
+
+    private static final byte[] ARRAY_END = "]".getBytes();
+
+    private IReverseGeocodingService reverseGeocodingService;
+
+    private int numberOfThreads = DEFAULT_NUMBER_OF_THREADS;
+
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    private ExecutorService executor;
+
+    private AddressResultsDtoSerializer addressResultsDtoSerializer = new AddressResultsDtoSerializer();
+
+    public void init() {
+	executor = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+	    private final AtomicInteger count = new AtomicInteger();
+
+	    public Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, "reverse-geocoding-batch-" + count.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	    }
+	});
+    }
+
+    public void destroy() {
+	if (executor != null) {
+	    executor.shutdownNow();
+	}
+    }
+
+    /**
+     * @param points
+     *            the points to reverse geocode
+     * @return the results, in the order of the points
+     * @throws ServiceException
+     *             if the batch is too big or the processing has been
+     *             interrupted
+     */
+    public List<AddressResultsDto> executeQueries(List<Point> points) throws ServiceException {
+	Batch batch = submit(points);
+	List<AddressResultsDto> results = new ArrayList<AddressResultsDto>(points.size());
+	for (int i = 0; i < points.size(); i++) {
+	    results.add(batch.get(i));
+	}
+	return results;
+    }
+
+    /**
+     * Reverse geocode the points and serialize the results in a json array,
+     * in the order of the points. A result is written as soon as it and all
+     * the previous ones are available. The batch is checked before the first
+     * byte is written : an exception after it can not be sent to the client
+     * as an error, the array is then not terminated.
+     */
+    public void executeAndSerialize(List<Point> points, OutputStream outputStream) throws ServiceException {
+	Assert.notNull(outputStream, "Can not serialize into a null outputStream");
+	Batch batch = submit(points);
+	try {
+	    outputStream.write(ARRAY_START);
+	    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	    for (int i = 0; i < points.size(); i++) {
+		buffer.reset();
+		addressResultsDtoSerializer.serialize(buffer, OutputFormat.JSON, batch.get(i), false,
+			new HashMap<String, Object>());
+		if (i > 0) {
+		    outputStream.write(ARRAY_SEPARATOR);
+		}
+		buffer.writeTo(outputStream);
+	    }
+	    outputStream.write(ARRAY_END);
+	    outputStream.flush();
+	} catch (IOException e) {
+	    batch.cancel();
+	    throw new ServiceException("can not write the results of the batch : " + e.getMessage(), e);
+	} catch (RuntimeException e) {
+	    batch.cancel();
+	    throw e;
+	}
+    }
+
+    private Batch submit(List<Point> points) throws ServiceException {
+	Assert.notNull(points, "Can not execute a null batch");
+	if (points.size() > maxBatchSize) {
+	    throw new ServiceException("a batch can not have more than " + maxBatchSize + " points");
+	}
+	if (executor == null) {
+	    throw new ServiceException("the batch reverse geocoding service is not initialized");
+	}
+	return new Batch(points);
+    }
+
+    /**
+     * The chunks of a batch, the results are set by the threads of the pool
+     */
+    private class Batch {
+
+	private final AddressResultsDto[] results;
+
+	/**
+	 * the chunk of each point
+	 */
+	private final int[] chunks;
+
+	private final List<Future<?>> futures = new ArrayList<Future<?>>();
+
+	Batch(final List<Point> points) {
+	    results = new AddressResultsDto[points.size()];
+	    chunks = new int[points.size()];
+	    final int[] order = sortByHilbertIndex(points);
+	    for (int start = 0; start < order.length; start += chunkSize) {
+		final int from = start;
+		final int to = Math.min(start + chunkSize, order.length);
+		for (int i = from; i < to; i++) {
+		    chunks[order[i]] = futures.size();
+		}
+		futures.add(executor.submit(new Runnable() {
+		    public void run() {
+			for (int i = from; i < to && !Thread.currentThread().isInterrupted(); i++) {
+			    results[order[i]] = reverseGeocode(points.get(order[i]));
+			}
+		    }
+		}));
+	    }
+	}
+
+	/**
+	 * @return the result of the point, waits for it if needed
+	 */
+	AddressResultsDto get(int index) throws ServiceException {
+	    try {
+		//the future guarantees the visibility of the result
+		futures.get(chunks[index]).get();
+	    } catch (InterruptedException e) {
+		cancel();
+		Thread.currentThread().interrupt();
+		throw new ServiceException("the batch has been interrupted", e);
+	    } catch (ExecutionException e) {
+		cancel();
+		throw new ServiceException("error during the batch : " + e.getCause().getMessage(), e.getCause());
+	    }
+	    return results[index];
+	}
+
+	void cancel() {
+	    for (Future<?> future : futures) {
+		future.cancel(true);
+	    }
+	}
+    }
+
+    private AddressResultsDto reverseGeocode(Point point) {
+	try {
+	    return reverseGeocodingService.executeQuery(new ReverseGeocodingQuery(point));
+	} catch (Exception e) {
+	    logger.error("can not reverse geocode " + point + " in a batch : " + e.getMessage(), e);
+	    return new AddressResultsDto(new ArrayList<Address>(), 0L);
+	}
+    }
+
+    /**
+     * @return the positions of the points, sorted by their index on the
+     *         hilbert curve
+     */
+    static int[] sortByHilbertIndex(List<Point> points) {
+	long[] keys = new long[points.size()];
+	for (int i = 0; i < keys.length; i++) {
+	    Point point = points.get(i);
+	    keys[i] = (hilbertIndex(point.getX(), point.getY()) << 31) | i;
+	}
+	Arrays.sort(keys);
+	int[] order = new int[keys.length];
+	for (int i = 0; i < keys.length; i++) {
+	    order[i] = (int) (keys[i] & 0x7fffffff);
+	}
+	return order;
+    }
+
+    /**
+     * @return the index of the point on a hilbert curve of order 16 that
+     *         covers the world, between 0 and 2^32 - 1
+     */
+    static long hilbertIndex(double longitude, double latitude) {
+	int side = 1 << HILBERT_ORDER;
+	int x = (int) Math.min(side - 1, Math.max(0, (longitude + 180) / 360 * side));
+	int y = (int) Math.min(side - 1, Math.max(0, (latitude + 90) / 180 * side));
+	long index = 0;
+	for (int s = side / 2; s > 0; s /= 2) {
+	    int rx = (x & s) > 0 ? 1 : 0;
+	    int ry = (y & s) > 0 ? 1 : 0;
+	    index += (long) s * s * ((3 * rx) ^ ry);
+	    //rotate the quadrant
+	    if (ry == 0) {
+		if (rx == 1) {
+		    x = side - 1 - x;
+		    y = side - 1 - y;
+		}
+		int t = x;
+		x = y;
+		y = t;
+	    }
+	}
+	return index;
+    }
+
+    public void setReverseGeocodingService(IReverseGeocodingService reverseGeocodingService) {
+	this.reverseGeocodingService = reverseGeocodingService;
+    }
+
+    /**
+     * @param numberOfThreads
+     *            the number of points that are reverse geocoded at the same
+     *            time, for all the batches
+     */
+    public void setNumberOfThreads(int numberOfThreads) {
+	this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * @return the maximum number of points of a batch
+     */
+    public int getMaxBatchSize() {
+	return maxBatchSize;
+    }
+
+    /**
+     * @param maxBatchSize
+     *            the maximum number of points of a batch
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+	this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @param chunkSize
+     *            the number of neighbouring points processed by a thread
+     */
+    public void setChunkSize(int chunkSize) {
+	this.chunkSize = chunkSize;
+    }
+
+}
@@ -22,6 +22,13 @@
  *******************************************************************************/
 package com.gisgraphy.reversegeocoding;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
 import javax.servlet.http.HttpServletRequest;
 
 import com.gisgraphy.domain.valueobject.GisgraphyServiceType;
@@ -45,6 +52,10 @@ public class ReverseGeocodingQueryHttpBuilder {
     
   
 	private static ReverseGeocodingQueryHttpBuilder instance = new ReverseGeocodingQueryHttpBuilder();
+
+	private static final Pattern BATCH_COMMA_PATTERN = Pattern.compile("\\s*,\\s*");
+
+	private static final Pattern BATCH_SEPARATOR_PATTERN = Pattern.compile("\\s*[;\\s]\\s*");
 	
 	public static ReverseGeocodingQueryHttpBuilder getInstance() {
 		return instance;
@@ -126,4 +137,59 @@ public class ReverseGeocodingQueryHttpBuilder {
 	return geolocQuery;
 
 }
+
+    /**
+     * Read the points of a batch, one point per line : the latitude and the
+     * longitude separated by a comma, or by a semicolon, a space or a tab if
+     * the line is not two values separated by a comma (e.g. with decimal
+     * commas : "48,85 2,35"). The empty lines are ignored. All the lines are
+     * checked before the points are returned, so that a wrong line is an error
+     * of the request and not of the response.
+     * 
+     * @param reader
+     *                the body of the request
+     * @param maxPoints
+     *                the maximum number of points of the batch, the reading
+     *                stops after it
+     * @return the points, in the order of the lines
+     * @throws ReverseGeocodingException
+     *                 if a line is not a correct point or if there are more
+     *                 than maxPoints points
+     */
+    public List<Point> buildPointsFromReader(Reader reader, int maxPoints) throws IOException {
+	List<Point> points = new ArrayList<Point>();
+	BufferedReader lines = new BufferedReader(reader);
+	String line;
+	int lineNumber = 0;
+	while ((line = lines.readLine()) != null) {
+	    lineNumber++;
+	    line = line.trim();
+	    if (line.length() == 0) {
+		continue;
+	    }
+	    if (points.size() == maxPoints) {
+		throw new ReverseGeocodingException("a batch can not have more than " + maxPoints + " points");
+	    }
+	    String[] latLong = BATCH_COMMA_PATTERN.split(line);
+	    if (latLong.length != 2) {
+		latLong = BATCH_SEPARATOR_PATTERN.split(line);
+	    }
+	    if (latLong.length != 2) {
+		throw new ReverseGeocodingException("line " + lineNumber + " should contain a latitude and a longitude");
+	    }
+	    Float latitude;
+	    Float longitude;
+	    try {
+		latitude = GeolocHelper.parseInternationalDouble(latLong[0]);
+		longitude = GeolocHelper.parseInternationalDouble(latLong[1]);
+	    } catch (RuntimeException e) {
+		throw new ReverseGeocodingException("line " + lineNumber + " is not a correct latitude and longitude");
+	    }
+	    if (latitude == null || longitude == null || !(Math.abs(latitude) <= 90) || !(Math.abs(longitude) <= 180)) {
+		throw new ReverseGeocodingException("line " + lineNumber + " is not a correct latitude and longitude");
+	    }
+	    points.add(GeolocHelper.createPoint(longitude, latitude));
+	}
+	return points;
+    }
 }
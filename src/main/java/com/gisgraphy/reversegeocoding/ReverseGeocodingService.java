@@ -53,6 +53,8 @@ import com.gisgraphy.importer.LabelGenerator;
 import com.gisgraphy.serializer.common.UniversalSerializerConstant;
 import com.gisgraphy.service.IStatsUsageService;
 import com.gisgraphy.service.ServiceException;
+import com.gisgraphy.stats.LatencyHistogram;
+import com.gisgraphy.stats.LatencyStats;
 import com.gisgraphy.stats.StatsUsageType;
 import com.vividsolutions.jts.geom.Point;
 
@@ -78,6 +80,9 @@ public class ReverseGeocodingService implements IReverseGeocodingService {
 	@Autowired
 	protected ICityDao cityDao;
 	
+	@Autowired(required = false)
+	protected StreetSegmentLocator streetSegmentLocator;
+	
 	AddressResultsDtoSerializer addressResultsDtoSerializer = new AddressResultsDtoSerializer();
 
 	/**
@@ -89,21 +94,32 @@ public class ReverseGeocodingService implements IReverseGeocodingService {
 	public static int DEFAULT_CITY_RADIUS = 30000;
 	public static int DEFAULT_STREET_RADIUS = 1000;
 
+	private static final LatencyHistogram REVERSE_GEOCODING_LATENCY = LatencyStats.getHistogram(StatsUsageType.REVERSEGEOCODING, LatencyStats.TOTAL_STAGE);
+	private static final LatencyHistogram NEAREST_STREET_LATENCY = LatencyStats.getHistogram(StatsUsageType.REVERSEGEOCODING, "nearestStreet");
+	private static final LatencyHistogram NEAREST_HOUSE_LATENCY = LatencyStats.getHistogram(StatsUsageType.REVERSEGEOCODING, "nearestHouse");
+
 	
 
 	public AddressResultsDto executeQuery(ReverseGeocodingQuery query)
 			throws ServiceException {
+		long start = System.nanoTime();
+		try {
+			return doExecuteQuery(query);
+		} finally {
+			REVERSE_GEOCODING_LATENCY.recordSince(start);
+		}
+	}
+
+	protected AddressResultsDto doExecuteQuery(ReverseGeocodingQuery query)
+			throws ServiceException {
 		Assert.notNull(query, "Can not execute a null query");
 		Point point = query.getPoint();
 		Assert.notNull(point, "Can not execute a query without a valid point");
 		long start = System.currentTimeMillis();
 		statsUsageService.increaseUsage(StatsUsageType.REVERSEGEOCODING);
-		OpenStreetMap openStreetMap = openStreetMapDao.getNearestRoadFrom(point,DEFAULT_STREET_RADIUS);
-		//AddressResultsDto addressResultsDto = null;
-		if (openStreetMap==null){
-			logger.debug("no road found, try to search deeper");
-			openStreetMap =openStreetMapDao.getNearestFrom(point,DEFAULT_STREET_RADIUS);
-		}
+		long stageStart = System.nanoTime();
+		OpenStreetMap openStreetMap = getNearestStreet(point);
+		NEAREST_STREET_LATENCY.recordSince(stageStart);
 		if (openStreetMap!= null){
 			//stupid patch
 	/*		logger.error("patch admname");
@@ -129,10 +145,13 @@ public class ReverseGeocodingService implements IReverseGeocodingService {
 			
 			
 			logger.debug("found a street "+openStreetMap);
-			if (openStreetMap.getHouseNumbers()!=null && openStreetMap.getHouseNumbers().size() >=1 ){
+			//the encoded house numbers are read first, the house number entities are not loaded
+			if (openStreetMap.getEncodedHouseNumbers()!=null || (openStreetMap.getHouseNumbers()!=null && openStreetMap.getHouseNumbers().size() >=1) ){
 				
-				logger.debug("the street has "+openStreetMap.getHouseNumbers().size()+" housenumbers");
-				HouseNumberDistance houseNumberDistance = labelGenerator.getNearestHouse(openStreetMap.getHouseNumbers(), point);
+				logger.debug("the street has housenumbers");
+				stageStart = System.nanoTime();
+				HouseNumberDistance houseNumberDistance = labelGenerator.getNearestHouseOfStreet(openStreetMap, point);
+				NEAREST_HOUSE_LATENCY.recordSince(stageStart);
 				if (houseNumberDistance!=null){
 					Address address = labelGenerator.buildAddressFromHouseNumberDistance(houseNumberDistance);
 					if (address!=null){
@@ -206,6 +225,35 @@ public class ReverseGeocodingService implements IReverseGeocodingService {
 		return new AddressResultsDto(NO_ADDRESS_LIST, qTime);
 	}
 
+	/**
+	 * @return the nearest road or the nearest street if there is no road, in
+	 *         memory if the street index is available, in the database
+	 *         otherwise
+	 */
+	protected OpenStreetMap getNearestStreet(Point point) {
+		if (streetSegmentLocator != null && streetSegmentLocator.isAvailable()){
+			Long gid = streetSegmentLocator.getNearestStreetGid(point, DEFAULT_STREET_RADIUS, true);
+			if (gid == null){
+				logger.debug("no road found in the street index, try to search deeper");
+				gid = streetSegmentLocator.getNearestStreetGid(point, DEFAULT_STREET_RADIUS, false);
+			}
+			if (gid == null){
+				return null;
+			}
+			OpenStreetMap openStreetMap = openStreetMapDao.getByGid(gid);
+			if (openStreetMap != null){
+				return openStreetMap;
+			}
+			logger.warn("the street "+gid+" of the street index is not in the database, the street index should be exported again");
+		}
+		OpenStreetMap openStreetMap = openStreetMapDao.getNearestRoadFrom(point,DEFAULT_STREET_RADIUS);
+		if (openStreetMap==null){
+			logger.debug("no road found, try to search deeper");
+			openStreetMap =openStreetMapDao.getNearestFrom(point,DEFAULT_STREET_RADIUS);
+		}
+		return openStreetMap;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -0,0 +1,304 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.reversegeocoding;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import com.gisgraphy.domain.valueobject.Constants;
+
+/**
+ * A packed STR-tree of street segments, memory mapped from a snapshot file
+ * written by {@link StreetSegmentIndexWriter}. The data are not on the java
+ * heap, and the lookups do not query the database : they return the gid of
+ * the nearest street, the caller loads the street.
+ * <br/>
+ * The file (big endian) contains :
+ * <ul>
+ * <li>a header : magic, version, number of streets, number of segments,
+ * number of levels and the number of nodes of each level</li>
+ * <li>the gid of each street (long)</li>
+ * <li>the flags of each street (byte), see {@link #ROAD_FLAG}</li>
+ * <li>the segments in STR order : x1, y1, x2, y2 (float) and the street
+ * (int)</li>
+ * <li>the bounding box of the nodes (minX, minY, maxX, maxY as float), level
+ * by level, from the nodes of the segments to the root. The children of the
+ * node n are the items n * {@link #NODE_CAPACITY} to (n+1) *
+ * {@link #NODE_CAPACITY} - 1 of the level below</li>
+ * </ul>
+ * The distances are computed on an equirectangular projection centered on
+ * the searched point, which is accurate enough at the street scale (the 180th
+ * meridian is not handled). This class is thread safe.
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class StreetSegmentIndex {
+
+    static final int MAGIC = 0x47535349;
+
+    /**
+     * 2 : the unnamed streets are not roads
+     */
+    static final int VERSION = 2;
+
+    static final int NODE_CAPACITY = 16;
+
+    static final byte ROAD_FLAG = 1;
+
+    private static final int SEGMENT_SIZE = 20;
+
+    private static final int NODE_SIZE = 16;
+
+    /**
+     * the segments are mapped by chunks, a buffer is limited to 2GB
+     */
+    private static final int SEGMENTS_PER_CHUNK = 1 << 26;
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(Constants.RADIUS_OF_EARTH_IN_METERS);
+
+    private final int streetCount;
+
+    private final int segmentCount;
+
+    private final int[] levelSizes;
+
+    /**
+     * position of the first node of each level in {@link #nodes}
+     */
+    private final int[] levelOffsets;
+
+    private final ByteBuffer gids;
+
+    private final ByteBuffer flags;
+
+    private final ByteBuffer[] segments;
+
+    private final ByteBuffer nodes;
+
+    private StreetSegmentIndex(int streetCount, int segmentCount, int[] levelSizes, ByteBuffer gids, ByteBuffer flags,
+	    ByteBuffer[] segments, ByteBuffer nodes) {
+	this.streetCount = streetCount;
+	this.segmentCount = segmentCount;
+	this.levelSizes = levelSizes;
+	this.gids = gids;
+	this.flags = flags;
+	this.segments = segments;
+	this.nodes = nodes;
+	this.levelOffsets = new int[levelSizes.length];
+	int offset = 0;
+	for (int level = 0; level < levelSizes.length; level++) {
+	    levelOffsets[level] = offset;
+	    offset += levelSizes[level] * NODE_SIZE;
+	}
+    }
+
+    /**
+     * Map a snapshot file, the file must not be modified while it is mapped
+     *
+     * @throws IOException
+     *             if the file can not be read or is not a street index
+     */
+    public static StreetSegmentIndex open(File file) throws IOException {
+	RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+	try {
+	    FileChannel channel = randomAccessFile.getChannel();
+	    if (channel.size() < 20) {
+		throw new IOException(file + " is not a street index");
+	    }
+	    ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, 20);
+	    if (header.getInt(0) != MAGIC) {
+		throw new IOException(file + " is not a street index");
+	    }
+	    if (header.getInt(4) != VERSION) {
+		throw new IOException(file + " has an unsupported version : " + header.getInt(4));
+	    }
+	    int streetCount = header.getInt(8);
+	    int segmentCount = header.getInt(12);
+	    int levelCount = header.getInt(16);
+	    ByteBuffer levels = channel.map(MapMode.READ_ONLY, 20, levelCount * 4);
+	    int[] levelSizes = new int[levelCount];
+	    long nodesSize = 0;
+	    for (int level = 0; level < levelCount; level++) {
+		levelSizes[level] = levels.getInt(level * 4);
+		nodesSize += (long) levelSizes[level] * NODE_SIZE;
+	    }
+	    long position = 20 + levelCount * 4;
+	    ByteBuffer gids = channel.map(MapMode.READ_ONLY, position, (long) streetCount * 8);
+	    position += (long) streetCount * 8;
+	    ByteBuffer flags = channel.map(MapMode.READ_ONLY, position, streetCount);
+	    position += streetCount;
+	    ByteBuffer[] segments = new ByteBuffer[(segmentCount + SEGMENTS_PER_CHUNK - 1) / SEGMENTS_PER_CHUNK];
+	    for (int chunk = 0; chunk < segments.length; chunk++) {
+		int size = Math.min(SEGMENTS_PER_CHUNK, segmentCount - chunk * SEGMENTS_PER_CHUNK);
+		segments[chunk] = channel.map(MapMode.READ_ONLY, position, (long) size * SEGMENT_SIZE);
+		position += (long) size * SEGMENT_SIZE;
+	    }
+	    ByteBuffer nodes = channel.map(MapMode.READ_ONLY, position, nodesSize);
+	    if (position + nodesSize != channel.size()) {
+		throw new IOException(file + " is truncated or corrupted");
+	    }
+	    //the mappings stay valid after the channel is closed
+	    return new StreetSegmentIndex(streetCount, segmentCount, levelSizes, gids, flags, segments, nodes);
+	} finally {
+	    randomAccessFile.close();
+	}
+    }
+
+    /**
+     * @param longitude
+     *            the longitude of the point
+     * @param latitude
+     *            the latitude of the point
+     * @param maxDistance
+     *            the maximum distance in meters
+     * @param onlyRoad
+     *            whether the streets that are not roads should be ignored
+     * @return the gid of the street that has the nearest segment, or null if
+     *         there is no street in the distance
+     */
+    public Long getNearestStreetGid(double longitude, double latitude, double maxDistance, boolean onlyRoad) {
+	if (segmentCount == 0) {
+	    return null;
+	}
+	Search search = new Search(longitude, latitude, maxDistance, onlyRoad);
+	search.visit(levelSizes.length - 1, 0);
+	if (search.nearestSegment == -1) {
+	    return null;
+	}
+	return gids.getLong(getStreet(search.nearestSegment) * 8);
+    }
+
+    public int getStreetCount() {
+	return streetCount;
+    }
+
+    public int getSegmentCount() {
+	return segmentCount;
+    }
+
+    private float getSegmentCoordinate(int segment, int field) {
+	return segments[segment / SEGMENTS_PER_CHUNK].getFloat((segment % SEGMENTS_PER_CHUNK) * SEGMENT_SIZE + field * 4);
+    }
+
+    private int getStreet(int segment) {
+	return segments[segment / SEGMENTS_PER_CHUNK].getInt((segment % SEGMENTS_PER_CHUNK) * SEGMENT_SIZE + 16);
+    }
+
+    private boolean isRoad(int street) {
+	return (flags.get(street) & ROAD_FLAG) != 0;
+    }
+
+    private float getNodeCoordinate(int level, int node, int field) {
+	return nodes.getFloat(levelOffsets[level] + node * NODE_SIZE + field * 4);
+    }
+
+    /**
+     * A branch and bound search, the distances are squared and in degrees of
+     * latitude
+     */
+    private class Search {
+
+	private final double x;
+
+	private final double y;
+
+	private final double xScale;
+
+	private final boolean onlyRoad;
+
+	private double nearestDistance;
+
+	private int nearestSegment = -1;
+
+	Search(double longitude, double latitude, double maxDistance, boolean onlyRoad) {
+	    this.x = longitude;
+	    this.y = latitude;
+	    this.xScale = Math.cos(Math.toRadians(latitude));
+	    this.onlyRoad = onlyRoad;
+	    double maxDistanceInDegrees = maxDistance / METERS_PER_DEGREE;
+	    this.nearestDistance = maxDistanceInDegrees * maxDistanceInDegrees;
+	}
+
+	void visit(int level, int node) {
+	    int first = node * NODE_CAPACITY;
+	    int last = Math.min(first + NODE_CAPACITY, level == 0 ? segmentCount : levelSizes[level - 1]);
+	    if (level == 0) {
+		for (int segment = first; segment < last; segment++) {
+		    if (onlyRoad && !isRoad(getStreet(segment))) {
+			continue;
+		    }
+		    double distance = segmentDistance(segment);
+		    if (distance < nearestDistance) {
+			nearestDistance = distance;
+			nearestSegment = segment;
+		    }
+		}
+		return;
+	    }
+	    //visit the nearest children first, to prune the others
+	    double[] distances = new double[last - first];
+	    int[] children = new int[last - first];
+	    int count = 0;
+	    for (int child = first; child < last; child++) {
+		double distance = boxDistance(level - 1, child);
+		if (distance < nearestDistance) {
+		    int i = count++;
+		    while (i > 0 && distances[i - 1] > distance) {
+			distances[i] = distances[i - 1];
+			children[i] = children[i - 1];
+			i--;
+		    }
+		    distances[i] = distance;
+		    children[i] = child;
+		}
+	    }
+	    for (int i = 0; i < count && distances[i] < nearestDistance; i++) {
+		visit(level - 1, children[i]);
+	    }
+	}
+
+	private double boxDistance(int level, int node) {
+	    double dx = Math.max(0, Math.max(getNodeCoordinate(level, node, 0) - x, x - getNodeCoordinate(level, node, 2)))
+		    * xScale;
+	    double dy = Math.max(0, Math.max(getNodeCoordinate(level, node, 1) - y, y - getNodeCoordinate(level, node, 3)));
+	    return dx * dx + dy * dy;
+	}
+
+	private double segmentDistance(int segment) {
+	    double ax = (getSegmentCoordinate(segment, 0) - x) * xScale;
+	    double ay = getSegmentCoordinate(segment, 1) - y;
+	    double dx = (getSegmentCoordinate(segment, 2) - x) * xScale - ax;
+	    double dy = getSegmentCoordinate(segment, 3) - y - ay;
+	    double length = dx * dx + dy * dy;
+	    double t = length == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / length));
+	    double px = ax + t * dx;
+	    double py = ay + t * dy;
+	    return px * px + py * py;
+	}
+    }
+
+}
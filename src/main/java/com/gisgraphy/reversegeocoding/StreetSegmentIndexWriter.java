@@ -0,0 +1,271 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.reversegeocoding;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Collect the segments of the streets and write them in a snapshot file that
+ * can be mapped by {@link StreetSegmentIndex}. The segments are sorted with
+ * the Sort-Tile-Recursive algorithm, so that the segments of a node of the
+ * tree are contiguous in the file.
+ * <br/>
+ * The segments are kept in primitive arrays until they are written, about 20
+ * bytes per segment, and about 50 bytes per segment while they are sorted and
+ * written. A writer can not hold more than {@link #MAX_SEGMENTS} segments
+ * (about 270 millions) : it is enough for a country or a continent, not for
+ * the streets of the whole planet, which is not supported.
+ *
+ * @see StreetSegmentIndex for the file format
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class StreetSegmentIndexWriter {
+
+    /**
+     * The max number of segments, so that the coordinates fit in one array
+     */
+    public static final int MAX_SEGMENTS = Integer.MAX_VALUE / 8;
+
+    private long[] gids = new long[1024];
+
+    private byte[] flags = new byte[1024];
+
+    private int streetCount = 0;
+
+    /**
+     * x1, y1, x2, y2 of each segment
+     */
+    private float[] coordinates = new float[4 * 1024];
+
+    private int[] segmentStreets = new int[1024];
+
+    private int segmentCount = 0;
+
+    /**
+     * Add the segments of a street
+     *
+     * @param gid
+     *            the gid of the street
+     * @param road
+     *            whether the street is a road (see
+     *            {@link StreetSegmentLocator#isRoad(com.gisgraphy.street.StreetType, String)})
+     * @param shape
+     *            the shape of the street, a (multi) line string
+     */
+    public void addStreet(long gid, boolean road, Geometry shape) {
+	if (shape == null || shape.isEmpty()) {
+	    return;
+	}
+	if (streetCount == gids.length) {
+	    gids = Arrays.copyOf(gids, gids.length * 2);
+	    flags = Arrays.copyOf(flags, flags.length * 2);
+	}
+	int street = streetCount++;
+	gids[street] = gid;
+	flags[street] = road ? StreetSegmentIndex.ROAD_FLAG : 0;
+	for (int i = 0; i < shape.getNumGeometries(); i++) {
+	    Coordinate[] points = shape.getGeometryN(i).getCoordinates();
+	    if (points.length == 1) {
+		addSegment(street, points[0], points[0]);
+	    }
+	    for (int j = 1; j < points.length; j++) {
+		addSegment(street, points[j - 1], points[j]);
+	    }
+	}
+    }
+
+    private void addSegment(int street, Coordinate from, Coordinate to) {
+	if (segmentCount == segmentStreets.length) {
+	    if (segmentCount >= MAX_SEGMENTS) {
+		throw new IllegalStateException("too many segments for one street index : more than " + MAX_SEGMENTS
+			+ ", the street index can not be used for so many streets");
+	    }
+	    int capacity = Math.min(segmentStreets.length * 2, MAX_SEGMENTS);
+	    segmentStreets = Arrays.copyOf(segmentStreets, capacity);
+	    coordinates = Arrays.copyOf(coordinates, capacity * 4);
+	}
+	int offset = segmentCount * 4;
+	coordinates[offset] = (float) from.x;
+	coordinates[offset + 1] = (float) from.y;
+	coordinates[offset + 2] = (float) to.x;
+	coordinates[offset + 3] = (float) to.y;
+	segmentStreets[segmentCount++] = street;
+    }
+
+    public int getStreetCount() {
+	return streetCount;
+    }
+
+    public int getSegmentCount() {
+	return segmentCount;
+    }
+
+    /**
+     * Write the snapshot, the file is written in a temporary file first and
+     * then renamed, so that a reader never sees a partial file
+     */
+    public void write(File file) throws IOException {
+	int[] order = sortTileRecursive();
+	File temporaryFile = new File(file.getPath() + ".tmp");
+	DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile), 1 << 16));
+	try {
+	    int[] levelSizes = computeLevelSizes(segmentCount);
+	    out.writeInt(StreetSegmentIndex.MAGIC);
+	    out.writeInt(StreetSegmentIndex.VERSION);
+	    out.writeInt(streetCount);
+	    out.writeInt(segmentCount);
+	    out.writeInt(levelSizes.length);
+	    for (int size : levelSizes) {
+		out.writeInt(size);
+	    }
+	    for (int i = 0; i < streetCount; i++) {
+		out.writeLong(gids[i]);
+	    }
+	    for (int i = 0; i < streetCount; i++) {
+		out.writeByte(flags[i]);
+	    }
+	    for (int i = 0; i < segmentCount; i++) {
+		int offset = order[i] * 4;
+		out.writeFloat(coordinates[offset]);
+		out.writeFloat(coordinates[offset + 1]);
+		out.writeFloat(coordinates[offset + 2]);
+		out.writeFloat(coordinates[offset + 3]);
+		out.writeInt(segmentStreets[order[i]]);
+	    }
+	    writeNodes(out, order, levelSizes);
+	} finally {
+	    out.close();
+	}
+	if (file.exists() && !file.delete()) {
+	    throw new IOException("can not delete the old street index " + file);
+	}
+	if (!temporaryFile.renameTo(file)) {
+	    throw new IOException("can not rename " + temporaryFile + " to " + file);
+	}
+    }
+
+    /**
+     * @return the number of nodes of each level, from the nodes that contain
+     *         the segments to the root
+     */
+    static int[] computeLevelSizes(int segmentCount) {
+	int levels = 0;
+	int count = segmentCount;
+	do {
+	    count = (count + StreetSegmentIndex.NODE_CAPACITY - 1) / StreetSegmentIndex.NODE_CAPACITY;
+	    levels++;
+	} while (count > 1);
+	int[] sizes = new int[levels];
+	count = segmentCount;
+	for (int level = 0; level < levels; level++) {
+	    count = (count + StreetSegmentIndex.NODE_CAPACITY - 1) / StreetSegmentIndex.NODE_CAPACITY;
+	    sizes[level] = count;
+	}
+	return sizes;
+    }
+
+    private void writeNodes(DataOutputStream out, int[] order, int[] levelSizes) throws IOException {
+	//bounding boxes of the level below, starting with the segments
+	float[] children = new float[segmentCount * 4];
+	for (int i = 0; i < segmentCount; i++) {
+	    int offset = order[i] * 4;
+	    children[i * 4] = Math.min(coordinates[offset], coordinates[offset + 2]);
+	    children[i * 4 + 1] = Math.min(coordinates[offset + 1], coordinates[offset + 3]);
+	    children[i * 4 + 2] = Math.max(coordinates[offset], coordinates[offset + 2]);
+	    children[i * 4 + 3] = Math.max(coordinates[offset + 1], coordinates[offset + 3]);
+	}
+	int childCount = segmentCount;
+	for (int level = 0; level < levelSizes.length; level++) {
+	    float[] nodes = new float[levelSizes[level] * 4];
+	    for (int node = 0; node < levelSizes[level]; node++) {
+		float minX = Float.POSITIVE_INFINITY;
+		float minY = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY;
+		float maxY = Float.NEGATIVE_INFINITY;
+		int last = Math.min((node + 1) * StreetSegmentIndex.NODE_CAPACITY, childCount);
+		for (int child = node * StreetSegmentIndex.NODE_CAPACITY; child < last; child++) {
+		    minX = Math.min(minX, children[child * 4]);
+		    minY = Math.min(minY, children[child * 4 + 1]);
+		    maxX = Math.max(maxX, children[child * 4 + 2]);
+		    maxY = Math.max(maxY, children[child * 4 + 3]);
+		}
+		nodes[node * 4] = minX;
+		nodes[node * 4 + 1] = minY;
+		nodes[node * 4 + 2] = maxX;
+		nodes[node * 4 + 3] = maxY;
+	    }
+	    for (float value : nodes) {
+		out.writeFloat(value);
+	    }
+	    children = nodes;
+	    childCount = levelSizes[level];
+	}
+    }
+
+    /**
+     * @return the segments in the Sort-Tile-Recursive order : sorted by x in
+     *         vertical slices, then by y in each slice
+     */
+    private int[] sortTileRecursive() {
+	int leafCount = (segmentCount + StreetSegmentIndex.NODE_CAPACITY - 1) / StreetSegmentIndex.NODE_CAPACITY;
+	int sliceCount = (int) Math.ceil(Math.sqrt(leafCount));
+	int sliceSize = sliceCount * StreetSegmentIndex.NODE_CAPACITY;
+	long[] keys = new long[segmentCount];
+	for (int i = 0; i < segmentCount; i++) {
+	    keys[i] = sortKey(coordinates[i * 4] + coordinates[i * 4 + 2], i);
+	}
+	Arrays.sort(keys);
+	for (int start = 0; start < segmentCount; start += sliceSize) {
+	    int end = Math.min(start + sliceSize, segmentCount);
+	    for (int i = start; i < end; i++) {
+		int segment = (int) keys[i];
+		keys[i] = sortKey(coordinates[segment * 4 + 1] + coordinates[segment * 4 + 3], segment);
+	    }
+	    Arrays.sort(keys, start, end);
+	}
+	int[] order = new int[segmentCount];
+	for (int i = 0; i < segmentCount; i++) {
+	    order[i] = (int) keys[i];
+	}
+	return order;
+    }
+
+    /**
+     * @return a long whose natural order is the order of the float, then of
+     *         the index
+     */
+    private static long sortKey(float value, int index) {
+	int bits = Float.floatToIntBits(value);
+	bits ^= (bits >> 31) & 0x7fffffff;
+	return (((long) bits) << 32) | (index & 0xffffffffL);
+    }
+
+}
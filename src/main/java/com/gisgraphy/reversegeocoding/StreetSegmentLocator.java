@@ -0,0 +1,187 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.reversegeocoding;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.gisgraphy.domain.repository.IOpenStreetMapDao;
+import com.gisgraphy.street.StreetType;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Point;
+
+/**
+ * Find the nearest street of a point with a {@link StreetSegmentIndex}
+ * instead of a spatial query. The index is mapped from a snapshot file of the
+ * openstreetmap table. If the file doesn't exist, it is exported from the
+ * database in a background thread, and the locator is not available until the
+ * export is done. The snapshot must be exported again (see
+ * {@link #exportSnapshot()}) when the streets are re imported.
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class StreetSegmentLocator {
+
+    protected static final Logger logger = LoggerFactory.getLogger(StreetSegmentLocator.class);
+
+    public static final int DEFAULT_EXPORT_BATCH_SIZE = 10000;
+
+    private IOpenStreetMapDao openStreetMapDao;
+
+    private boolean enabled = false;
+
+    private String snapshotFile;
+
+    private int exportBatchSize = DEFAULT_EXPORT_BATCH_SIZE;
+
+    private volatile StreetSegmentIndex index;
+
+    /**
+     * Map the snapshot, or export it if it doesn't exist
+     */
+    public void init() {
+	if (!enabled) {
+	    logger.info("the in memory street index is disabled");
+	    return;
+	}
+	if (snapshotFile == null) {
+	    throw new IllegalArgumentException("the street index file is required when the in memory street index is enabled");
+	}
+	File file = new File(snapshotFile);
+	if (file.exists()) {
+	    try {
+		load(file);
+		return;
+	    } catch (IOException e) {
+		logger.error("can not load the street index " + file + ", it will be exported again : " + e.getMessage(), e);
+	    }
+	}
+	Thread exportThread = new Thread(new Runnable() {
+	    public void run() {
+		try {
+		    exportSnapshot();
+		} catch (Exception e) {
+		    logger.error("can not export the street index : " + e.getMessage(), e);
+		}
+	    }
+	}, "street-index-export");
+	exportThread.setDaemon(true);
+	exportThread.start();
+    }
+
+    /**
+     * Export the streets of the database in the snapshot file and use it
+     */
+    public synchronized void exportSnapshot() throws IOException {
+	File file = new File(snapshotFile);
+	logger.info("will export the streets in " + file);
+	long start = System.currentTimeMillis();
+	StreetSegmentIndexWriter writer = new StreetSegmentIndexWriter();
+	long lastGid = 0;
+	List<Object[]> streets;
+	do {
+	    streets = openStreetMapDao.listGidStreetTypeNameAndShape(lastGid, exportBatchSize);
+	    for (Object[] street : streets) {
+		lastGid = (Long) street[0];
+		writer.addStreet(lastGid, isRoad((StreetType) street[1], (String) street[2]), (Geometry) street[3]);
+	    }
+	} while (streets.size() == exportBatchSize);
+	writer.write(file);
+	logger.info(writer.getStreetCount() + " streets and " + writer.getSegmentCount() + " segments exported in "
+		+ file + " in " + (System.currentTimeMillis() - start) / 1000 + " s");
+	load(file);
+    }
+
+    /**
+     * @return whether the street is returned by the nearest road searches
+     *         of the database : not a footway and with a name (see
+     *         {@link IOpenStreetMapDao#getNearestRoadFrom(Point, double)})
+     */
+    static boolean isRoad(StreetType streetType, String name) {
+	return streetType != null && streetType != StreetType.FOOTWAY && name != null && name.trim().length() > 0;
+    }
+
+    private void load(File file) throws IOException {
+	StreetSegmentIndex loaded = StreetSegmentIndex.open(file);
+	logger.info("street index loaded from " + file + " : " + loaded.getStreetCount() + " streets and "
+		+ loaded.getSegmentCount() + " segments");
+	index = loaded;
+    }
+
+    /**
+     * @return true if the index is enabled and loaded
+     */
+    public boolean isAvailable() {
+	return index != null;
+    }
+
+    /**
+     * @see StreetSegmentIndex#getNearestStreetGid(double, double, double,
+     *      boolean)
+     * @return the gid of the nearest street or null if there is none, or if
+     *         the index is not available
+     */
+    public Long getNearestStreetGid(Point point, double maxDistance, boolean onlyRoad) {
+	StreetSegmentIndex current = index;
+	if (current == null || point == null) {
+	    return null;
+	}
+	return current.getNearestStreetGid(point.getX(), point.getY(), maxDistance, onlyRoad);
+    }
+
+    public void setOpenStreetMapDao(IOpenStreetMapDao openStreetMapDao) {
+	this.openStreetMapDao = openStreetMapDao;
+    }
+
+    /**
+     * @param enabled
+     *            whether the nearest streets should be found in memory. the
+     *            index is not on the heap but needs about 20 bytes per segment
+     *            of street
+     */
+    public void setEnabled(boolean enabled) {
+	this.enabled = enabled;
+    }
+
+    /**
+     * @param snapshotFile
+     *            the path of the snapshot of the streets
+     */
+    public void setSnapshotFile(String snapshotFile) {
+	this.snapshotFile = snapshotFile;
+    }
+
+    /**
+     * @param exportBatchSize
+     *            the number of streets read from the database at a time
+     *            during the export
+     */
+    public void setExportBatchSize(int exportBatchSize) {
+	this.exportBatchSize = exportBatchSize;
+    }
+
+}
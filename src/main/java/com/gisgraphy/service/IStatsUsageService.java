@@ -37,11 +37,11 @@ import com.gisgraphy.stats.StatsUsageType;
 public interface IStatsUsageService {
 
     /**
-     * The satsUsage will be flush into the database every ... It is recommended
-     * to increase this value to a higher value to improve performances. if the
-     * server is stopped, you can loose FLUSH_THRESHOLD usage at most because the
-     * value won't be persist in the datastore
+     * The satsUsage was flushed into the database every FLUSH_THRESHOLD usage
+     * by the request threads. The counters are now flushed by a background
+     * thread, see {@link #flushAll()}
      */
+    @Deprecated
     int FLUSH_THRESHOLD = 50;
 
     /**
@@ -77,4 +77,11 @@ public interface IStatsUsageService {
      */
     void flush(StatsUsageType statsUsageType);
 
+    /**
+     * Flush all the counters that have changed since the last flush into the
+     * database. It is called periodically by a background thread, so that the
+     * request threads never touch the datastore
+     */
+    void flushAll();
+
 }
@@ -22,11 +22,18 @@
  *******************************************************************************/
 package com.gisgraphy.service.impl;
 
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
@@ -37,13 +44,31 @@ import com.gisgraphy.domain.repository.IStatsUsageDao;
 import com.gisgraphy.service.IStatsUsageService;
 import com.gisgraphy.stats.StatsUsage;
 import com.gisgraphy.stats.StatsUsageType;
+import com.gisgraphy.stats.StripedCounter;
 
+/**
+ * Keep the usage counters in memory and persist them in the datastore. The
+ * counters are striped so that the request threads never contend nor touch
+ * the datastore, a background thread flush the counters that have changed
+ * every {@link #setFlushIntervalSeconds(long)} seconds.
+ * 
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
 public class StatsUsageServiceImpl implements IStatsUsageService {
 
+    protected static final Logger logger = LoggerFactory.getLogger(StatsUsageServiceImpl.class);
+
+    /**
+     * The default number of seconds between two flushes
+     */
+    public static final long DEFAULT_FLUSH_INTERVAL_SECONDS = 30;
 
-    private static final Long RESET_COUNTER_VALUE = Long.valueOf(0L);
+    private final Map<StatsUsageType, StripedCounter> counterMap = new EnumMap<StatsUsageType, StripedCounter>(StatsUsageType.class);
 
-    private Map<String, Long> counterMap = new HashMap<String, Long>();
+    /**
+     * The last value written in the datastore for each counter
+     */
+    private final Map<StatsUsageType, Long> persistedMap = new EnumMap<StatsUsageType, Long>(StatsUsageType.class);
     
     @Autowired
     IStatsUsageDao statsUsageDao;
@@ -53,13 +78,49 @@ public class StatsUsageServiceImpl implements IStatsUsageService {
     
     public static boolean disabled = false;
 
+    private long flushIntervalSeconds = DEFAULT_FLUSH_INTERVAL_SECONDS;
+
+    private ScheduledExecutorService flusher;
+
 
     @PostConstruct
     protected void init() {
 	for (StatsUsageType statsUsageType : StatsUsageType.values()) {
+	    counterMap.put(statsUsageType, new StripedCounter());
 	    initCounter(statsUsageType);
 	}
+	if (flushIntervalSeconds > 0) {
+	    flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		public Thread newThread(Runnable runnable) {
+		    Thread thread = new Thread(runnable, "statsUsageFlusher");
+		    thread.setDaemon(true);
+		    return thread;
+		}
+	    });
+	    flusher.scheduleWithFixedDelay(new Runnable() {
+		public void run() {
+		    try {
+			flushAll();
+		    } catch (RuntimeException e) {
+			//we don't want the scheduler to stop
+			logger.error("can not flush the usage stats : " + e.getMessage(), e);
+		    }
+		}
+	    }, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+	}
+    }
 
+    @PreDestroy
+    protected void destroy() {
+	if (flusher != null) {
+	    flusher.shutdown();
+	    flusher = null;
+	}
+	try {
+	    flushAll();
+	} catch (RuntimeException e) {
+	    logger.error("can not flush the usage stats on shutdown : " + e.getMessage(), e);
+	}
     }
 
     private StatsUsage initCounter(StatsUsageType statsUsageType) {
@@ -69,8 +130,11 @@ public class StatsUsageServiceImpl implements IStatsUsageService {
 	statsUsage = new StatsUsage(statsUsageType);
 	statsUsageDao.save(statsUsage);
 	}
-	this.counterMap.put(statsUsage.getStatsUsageType().toString(),
-	    statsUsage.getUsage());
+	Long usage = statsUsage.getUsage();
+	counterMap.get(statsUsageType).set(usage == null ? 0L : usage);
+	synchronized (persistedMap) {
+	    persistedMap.put(statsUsageType, usage);
+	}
 	return statsUsage;
     }
 
@@ -89,7 +153,8 @@ public class StatsUsageServiceImpl implements IStatsUsageService {
      * @see com.gisgraphy.service.IStatsUsageService#GetUsage(com.gisgraphy.stats.StatsUsageType)
      */
     public Long getUsage(StatsUsageType statsUsageType) {
-    	return counterMap.get(statsUsageType.toString());
+    	StripedCounter counter = counterMap.get(statsUsageType);
+    	return counter == null ? null : Long.valueOf(counter.sum());
     }
 
     /*
@@ -99,38 +164,78 @@ public class StatsUsageServiceImpl implements IStatsUsageService {
      */
     public void increaseUsage(StatsUsageType statsUsageType) {
     	if (!disabled){
-    		long newValue = counterMap.get(statsUsageType.toString()) + 1;
-    		counterMap.put(statsUsageType.toString(), newValue);
-    		if (newValue % IStatsUsageService.FLUSH_THRESHOLD == 0) {
-    			flush(statsUsageType);
-    		}
+    		counterMap.get(statsUsageType).increment();
     	}
     }
 
     public void resetUsage(StatsUsageType statsUsageType) {
     	if (!disabled){
-    		counterMap.put(statsUsageType.toString(), RESET_COUNTER_VALUE);
+    		counterMap.get(statsUsageType).set(0L);
     		flush(statsUsageType);
     	}
     }
 
     public void flush(StatsUsageType statsUsageType) {
     	if (!disabled){
+    		doFlush(statsUsageType, true);
+    	}
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.gisgraphy.service.IStatsUsageService#flushAll()
+     */
+    public void flushAll() {
+    	if (!disabled){
+    		for (StatsUsageType statsUsageType : StatsUsageType.values()) {
+    			doFlush(statsUsageType, false);
+    		}
+    	}
+    }
+
+    private synchronized void doFlush(StatsUsageType statsUsageType, boolean force) {
+    	Long value = Long.valueOf(counterMap.get(statsUsageType).sum());
+    	if (!force) {
+    		synchronized (persistedMap) {
+    			if (value.equals(persistedMap.get(statsUsageType))) {
+    				return;
+    			}
+    		}
+    	}
+    	TransactionStatus txStatus = null;
+    	DefaultTransactionDefinition txDefinition = new DefaultTransactionDefinition();
+    	txDefinition.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+    	txDefinition.setReadOnly(false);
+
+    	txStatus = transactionManager.getTransaction(txDefinition);
+    	try {
     		statsUsageDao.flushAndClear();
     		StatsUsage statsUsage = statsUsageDao.getByUsageType(statsUsageType);
-    		if (statsUsage==null){
-    			statsUsage= initCounter(statsUsageType);
+    		if (statsUsage == null) {
+    			statsUsage = new StatsUsage(statsUsageType);
     		}
-    		TransactionStatus txStatus = null;
-    		DefaultTransactionDefinition txDefinition = new DefaultTransactionDefinition();
-    		txDefinition.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
-    		txDefinition.setReadOnly(false);
-
-    		txStatus = transactionManager.getTransaction(txDefinition);
-    		statsUsage.setUsage(counterMap.get(statsUsageType.toString()));
+    		statsUsage.setUsage(value);
     		statsUsageDao.save(statsUsage);
-    		transactionManager.commit(txStatus);
+    	} catch (RuntimeException e) {
+    		transactionManager.rollback(txStatus);
+    		throw e;
     	}
+    	transactionManager.commit(txStatus);
+    	synchronized (persistedMap) {
+    		persistedMap.put(statsUsageType, value);
+    	}
+    }
+
+    /**
+     * @param flushIntervalSeconds
+     *                the number of seconds between two flushes of the
+     *                counters by the background thread. 0 or less to disable
+     *                the background flush. it must be set before the bean is
+     *                initialized
+     */
+    public void setFlushIntervalSeconds(long flushIntervalSeconds) {
+        this.flushIntervalSeconds = flushIntervalSeconds;
     }
 
 
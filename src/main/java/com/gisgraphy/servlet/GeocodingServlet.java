@@ -23,8 +23,10 @@
 package com.gisgraphy.servlet;
 
 import java.io.IOException;
+import java.util.ResourceBundle;
 
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
@@ -33,8 +35,12 @@ import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.context.support.WebApplicationContextUtils;
 
 import com.gisgraphy.addressparser.AddressQuery;
+import com.gisgraphy.domain.valueobject.Constants;
 import com.gisgraphy.domain.valueobject.GisgraphyServiceType;
+import com.gisgraphy.geocoding.BulkGeocodingService;
+import com.gisgraphy.geocoding.BulkGeocodingService.InputFormat;
 import com.gisgraphy.geocoding.IGeocodingService;
+import com.gisgraphy.serializer.common.OutputFormat;
 
 /**
  * Provides a servlet Wrapper around The Gisgraphy geocoding Service, it Maps web
@@ -51,6 +57,10 @@ public class GeocodingServlet extends AbstractAddressServlet {
         this.geocodingService = geocodingService;
     }
 
+    public void setBulkGeocodingService(BulkGeocodingService bulkGeocodingService) {
+        this.bulkGeocodingService = bulkGeocodingService;
+    }
+
 
 
     /**
@@ -58,6 +68,12 @@ public class GeocodingServlet extends AbstractAddressServlet {
      */
     private static final long serialVersionUID = -9054548241743095743L;
 
+    /**
+     * the parameter of the country of the rows that don't have one, for the
+     * bulk geocoding
+     */
+    public static final String BULK_COUNTRY_PARAMETER = "country";
+
     /**
      * The logger
      */
@@ -67,6 +83,8 @@ public class GeocodingServlet extends AbstractAddressServlet {
 
     private IGeocodingService geocodingService;
 
+    private BulkGeocodingService bulkGeocodingService;
+
   
 
     /* (non-Javadoc)
@@ -95,6 +113,8 @@ public class GeocodingServlet extends AbstractAddressServlet {
 	    logger
 		    .info("geocodingService is injected :"
 			    + geocodingService);
+	    bulkGeocodingService = (BulkGeocodingService) springContext
+		    .getBean("bulkGeocodingService");
 	} catch (Exception e) {
 	    logger.error("Can not start GeocodingServlet : " + e.getMessage(),e);
 	}
@@ -107,6 +127,43 @@ public class GeocodingServlet extends AbstractAddressServlet {
     	geocodingService.geocodeAndSerialize(query, resp.getOutputStream());
     }
 
+    /**
+     * Geocode the rows of the body of the request : CSV (address[,country])
+     * or json lines if the content type is json. The results are streamed as
+     * json lines, in the order of the rows. The country parameter is the
+     * country of the rows that don't have one.
+     */
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+	    throws ServletException, IOException {
+	OutputFormat format = OutputFormat.JSON;
+	String contentType = req.getContentType();
+	InputFormat inputFormat = contentType != null && contentType.toLowerCase().contains("json") ? InputFormat.JSON_LINES
+		: InputFormat.CSV;
+	try {
+	    resp.setContentType(format.getContentType());
+	    resp.setCharacterEncoding(Constants.CHARSET);
+	    long start = System.currentTimeMillis();
+	    int rows = bulkGeocodingService.geocodeAndSerialize(req.getReader(), inputFormat,
+		    req.getParameter(BULK_COUNTRY_PARAMETER), resp.getOutputStream());
+	    if (logger.isInfoEnabled()) {
+		logger.info(rows + " addresses from " + req.getRemoteHost() + " / " + req.getRemoteAddr()
+			+ " were geocoded in bulk in " + (System.currentTimeMillis() - start) + " ms");
+	    }
+	} catch (RuntimeException e) {
+	    logger.error("error while bulk geocoding from http request : " + e, e);
+	    if (resp.isCommitted()) {
+		//some results are already sent, the error can not be reported
+		return;
+	    }
+	    String errorMessage = isDebugMode() ? " : " + e.getMessage() : "";
+	    sendCustomError(ResourceBundle
+		    .getBundle(Constants.BUNDLE_ERROR_KEY).getString(
+			    "error.error")
+		    + errorMessage, format, resp, req);
+	}
+    }
+
 
 
 	/* (non-Javadoc)
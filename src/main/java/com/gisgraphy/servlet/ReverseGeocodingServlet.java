@@ -23,6 +23,7 @@
 package com.gisgraphy.servlet;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.ResourceBundle;
 
 import javax.servlet.ServletException;
@@ -39,11 +40,14 @@ import com.gisgraphy.domain.valueobject.GisgraphyServiceType;
 import com.gisgraphy.geoloc.GeolocErrorVisitor;
 import com.gisgraphy.geoloc.GeolocQuery;
 import com.gisgraphy.helper.HTMLHelper;
+import com.gisgraphy.reversegeocoding.BatchReverseGeocodingService;
 import com.gisgraphy.reversegeocoding.IReverseGeocodingService;
+import com.gisgraphy.reversegeocoding.ReverseGeocodingException;
 import com.gisgraphy.reversegeocoding.ReverseGeocodingQuery;
 import com.gisgraphy.reversegeocoding.ReverseGeocodingQueryHttpBuilder;
 import com.gisgraphy.serializer.common.IoutputFormatVisitor;
 import com.gisgraphy.serializer.common.OutputFormat;
+import com.vividsolutions.jts.geom.Point;
 
 /**
  * Provides a servlet Wrapper around The Gisgraphy Reverse geocoding Service, it Maps web
@@ -67,6 +71,8 @@ public class ReverseGeocodingServlet extends GisgraphyServlet {
 		    .getWebApplicationContext(getServletContext());
 	    reverseGeocodingService = (IReverseGeocodingService) springContext
 		    .getBean("reverseGeocodingService");
+	    batchReverseGeocodingService = (BatchReverseGeocodingService) springContext
+		    .getBean("batchReverseGeocodingService");
 	    logger
 		    .info("geolocSearchEngine is injected :"
 			    + reverseGeocodingService);
@@ -89,6 +95,8 @@ public class ReverseGeocodingServlet extends GisgraphyServlet {
 
     private IReverseGeocodingService reverseGeocodingService;
 
+    private BatchReverseGeocodingService batchReverseGeocodingService;
+
     /*
      * (non-Javadoc)
      * 
@@ -135,6 +143,50 @@ public class ReverseGeocodingServlet extends GisgraphyServlet {
     }
 
 
+    /**
+     * Reverse geocode a batch of points : the body contains one latitude and
+     * longitude per line, the results are returned in a json array, in the
+     * same order. The points are read and checked before the response is
+     * written : a wrong line or a too big batch is a 400 error
+     * 
+     * @see BatchReverseGeocodingService
+     * @see ReverseGeocodingQueryHttpBuilder#buildPointsFromReader(java.io.Reader, int)
+     */
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+	    throws ServletException, IOException {
+	OutputFormat format = OutputFormat.JSON;
+	try {
+	    List<Point> points = ReverseGeocodingQueryHttpBuilder.getInstance().buildPointsFromReader(req.getReader(),
+		    batchReverseGeocodingService.getMaxBatchSize());
+	    if (points.isEmpty()) {
+		sendCustomError(ResourceBundle.getBundle(
+			Constants.BUNDLE_ERROR_KEY).getString(
+			"error.emptyBatch"),400, format, resp,req);
+		return;
+	    }
+	    if (logger.isInfoEnabled()){
+		logger.info("A batch of "+points.size()+" reverse geocoding requests from "+req.getRemoteHost()+" / "+req.getRemoteAddr()+" was received");
+	    }
+	    resp.setContentType(format.getContentType());
+	    resp.setCharacterEncoding(Constants.CHARSET);
+	    batchReverseGeocodingService.executeAndSerialize(points, resp.getOutputStream());
+	} catch (ReverseGeocodingException e) {
+	    sendCustomError(e.getMessage(), 400, format, resp, req);
+	} catch (RuntimeException e) {
+	    logger.error("error while execute a batch of reverse geocoding queries from http request : " + e,e);
+	    if (resp.isCommitted()) {
+		//the status and a part of the results have been sent
+		return;
+	    }
+	    String errorMessage = isDebugMode() ? " : " + e.getMessage() : "";
+	    sendCustomError(ResourceBundle
+		    .getBundle(Constants.BUNDLE_ERROR_KEY).getString(
+			    "error.error")
+		    + errorMessage, format, resp,req);
+	}
+    }
+
     /* (non-Javadoc)
      * @see com.gisgraphy.servlet.GisgraphyServlet#getGisgraphyServiceType()
      */
@@ -154,6 +206,11 @@ public class ReverseGeocodingServlet extends GisgraphyServlet {
 
 
 
+	public void setBatchReverseGeocodingService(
+			BatchReverseGeocodingService batchReverseGeocodingService) {
+		this.batchReverseGeocodingService = batchReverseGeocodingService;
+	}
+
 	public void setReverseGeocodingService(
 			IReverseGeocodingService reverseGeocodingService) {
 		this.reverseGeocodingService = reverseGeocodingService;
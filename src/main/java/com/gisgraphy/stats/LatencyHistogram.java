@@ -0,0 +1,174 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies, in microseconds, with buckets of the same kind as
+ * the HdrHistogram ones : the values lower than 64 have their own bucket and
+ * the greater ones are in 32 buckets per power of two, so that the relative
+ * error of the percentiles is lower than about 3%. The values greater than
+ * about 76 hours (2<sup>38</sup> microseconds) are recorded as 76 hours.
+ * <br/>
+ * The recording doesn't allocate and doesn't lock, it is a few atomic
+ * increments, so that the histograms can stay enabled in production. This
+ * class is thread safe, the read values don't include the concurrent updates
+ * that are not finished.
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_MAGNITUDE = 32;
+
+    static final long MAX_VALUE = ((2L * SUB_BUCKET_COUNT) << MAX_MAGNITUDE) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray((MAX_MAGNITUDE + 2) * SUB_BUCKET_COUNT);
+
+    private final StripedCounter count = new StripedCounter();
+
+    private final StripedCounter sum = new StripedCounter();
+
+    private final AtomicLong max = new AtomicLong();
+
+    static int bucketIndex(long value) {
+	int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+	if (magnitude < 0) {
+	    magnitude = 0;
+	}
+	return (magnitude << SUB_BUCKET_BITS) + (int) (value >>> magnitude);
+    }
+
+    /**
+     * @return the greatest value of the bucket
+     */
+    static long bucketHighestValue(int index) {
+	int magnitude = (index >> SUB_BUCKET_BITS) - 1;
+	if (magnitude < 0) {
+	    magnitude = 0;
+	}
+	long lowest = ((long) (index - (magnitude << SUB_BUCKET_BITS))) << magnitude;
+	return lowest + (1L << magnitude) - 1;
+    }
+
+    /**
+     * @param micros
+     *                the latency to record, in microseconds
+     */
+    public void record(long micros) {
+	long value = micros < 0 ? 0 : (micros > MAX_VALUE ? MAX_VALUE : micros);
+	counts.incrementAndGet(bucketIndex(value));
+	count.increment();
+	sum.add(value);
+	long currentMax = max.get();
+	while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+	    currentMax = max.get();
+	}
+    }
+
+    /**
+     * Record the time elapsed since the start
+     *
+     * @param startNanos
+     *                the start, as given by {@link System#nanoTime()}
+     */
+    public void recordSince(long startNanos) {
+	record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    /**
+     * @param percentile
+     *                the percentile, between 0 and 100
+     * @return the value that is greater or equals to the given percentage of
+     *         the recorded values (with the precision of the buckets), 0 if
+     *         there is no value
+     */
+    public long getValueAtPercentile(double percentile) {
+	long total = 0;
+	long[] snapshot = new long[counts.length()];
+	for (int i = 0; i < snapshot.length; i++) {
+	    snapshot[i] = counts.get(i);
+	    total += snapshot[i];
+	}
+	if (total == 0) {
+	    return 0;
+	}
+	long rank = (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total);
+	if (rank < 1) {
+	    rank = 1;
+	}
+	long cumulated = 0;
+	for (int i = 0; i < snapshot.length; i++) {
+	    cumulated += snapshot[i];
+	    if (cumulated >= rank) {
+		return Math.min(bucketHighestValue(i), getMax());
+	    }
+	}
+	return getMax();
+    }
+
+    public long getCount() {
+	return count.sum();
+    }
+
+    public double getMean() {
+	long currentCount = count.sum();
+	return currentCount == 0 ? 0 : (double) sum.sum() / currentCount;
+    }
+
+    public long getMax() {
+	return max.get();
+    }
+
+    public long getP50() {
+	return getValueAtPercentile(50);
+    }
+
+    public long getP90() {
+	return getValueAtPercentile(90);
+    }
+
+    public long getP99() {
+	return getValueAtPercentile(99);
+    }
+
+    public long getP999() {
+	return getValueAtPercentile(99.9);
+    }
+
+    public void reset() {
+	for (int i = 0; i < counts.length(); i++) {
+	    counts.set(i, 0);
+	}
+	count.set(0);
+	sum.set(0);
+	max.set(0);
+    }
+
+}
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.stats;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link LatencyHistogram}s of the stages of the services, by
+ * {@link StatsUsageType} and stage name. The services get their histograms
+ * once (typically in static fields) and record the time of each stage :
+ *
+ * <pre>
+ * long start = System.nanoTime();
+ * ...
+ * SOLR_LATENCY.recordSince(start);
+ * </pre>
+ *
+ * Each histogram is registered in the platform MBean server as
+ * <code>com.gisgraphy:type=Latency,service=GEOCODING,stage=solr</code> and all
+ * of them can be serialized in JSON for the admin pages (see
+ * {@link #getAllInJson()}).
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class LatencyStats {
+
+    protected static final Logger logger = LoggerFactory.getLogger(LatencyStats.class);
+
+    public static final String JMX_DOMAIN = "com.gisgraphy";
+
+    /**
+     * The name of the stage of the whole call of a service
+     */
+    public static final String TOTAL_STAGE = "total";
+
+    private static final Map<StatsUsageType, ConcurrentMap<String, LatencyHistogram>> histograms = new EnumMap<StatsUsageType, ConcurrentMap<String, LatencyHistogram>>(
+	    StatsUsageType.class);
+
+    static {
+	for (StatsUsageType statsUsageType : StatsUsageType.values()) {
+	    histograms.put(statsUsageType, new ConcurrentSkipListMap<String, LatencyHistogram>());
+	}
+    }
+
+    private LatencyStats() {
+    }
+
+    /**
+     * @param stage
+     *                the name of the stage, a simple word
+     * @return the histogram of the stage of the service, it is created and
+     *         registered in JMX at the first call
+     */
+    public static LatencyHistogram getHistogram(StatsUsageType service, String stage) {
+	ConcurrentMap<String, LatencyHistogram> stages = histograms.get(service);
+	LatencyHistogram histogram = stages.get(stage);
+	if (histogram == null) {
+	    histogram = new LatencyHistogram();
+	    LatencyHistogram existing = stages.putIfAbsent(stage, histogram);
+	    if (existing != null) {
+		return existing;
+	    }
+	    registerInJmx(service, stage, histogram);
+	}
+	return histogram;
+    }
+
+    private static void registerInJmx(StatsUsageType service, String stage, LatencyHistogram histogram) {
+	try {
+	    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+	    ObjectName name = new ObjectName(JMX_DOMAIN + ":type=Latency,service=" + service.name() + ",stage=" + stage);
+	    if (server.isRegistered(name)) {
+		//an other webapp or classloader
+		server.unregisterMBean(name);
+	    }
+	    server.registerMBean(histogram, name);
+	} catch (JMException e) {
+	    logger.warn("can not register the latency of " + service + " / " + stage + " in JMX : " + e.getMessage());
+	} catch (SecurityException e) {
+	    logger.warn("can not register the latency of " + service + " / " + stage + " in JMX : " + e.getMessage());
+	}
+    }
+
+    /**
+     * @return all the histograms in JSON, by service and stage, with the
+     *         count, the mean, the max and the main percentiles in
+     *         microseconds
+     */
+    public static String getAllInJson() {
+	StringBuilder json = new StringBuilder("{\"unit\":\"microseconds\",\"services\":{");
+	boolean firstService = true;
+	for (Map.Entry<StatsUsageType, ConcurrentMap<String, LatencyHistogram>> service : histograms.entrySet()) {
+	    if (service.getValue().isEmpty()) {
+		continue;
+	    }
+	    if (!firstService) {
+		json.append(',');
+	    }
+	    firstService = false;
+	    json.append('"').append(service.getKey().name()).append("\":{");
+	    boolean firstStage = true;
+	    for (Map.Entry<String, LatencyHistogram> stage : service.getValue().entrySet()) {
+		if (!firstStage) {
+		    json.append(',');
+		}
+		firstStage = false;
+		LatencyHistogram histogram = stage.getValue();
+		json.append('"').append(stage.getKey()).append("\":{")
+		.append("\"count\":").append(histogram.getCount())
+		.append(",\"mean\":").append(Math.round(histogram.getMean()))
+		.append(",\"p50\":").append(histogram.getP50())
+		.append(",\"p90\":").append(histogram.getP90())
+		.append(",\"p99\":").append(histogram.getP99())
+		.append(",\"p999\":").append(histogram.getP999())
+		.append(",\"max\":").append(histogram.getMax())
+		.append('}');
+	    }
+	    json.append('}');
+	}
+	return json.append("}}").toString();
+    }
+
+    /**
+     * Forget the recorded values of all the histograms
+     */
+    public static void resetAll() {
+	for (ConcurrentMap<String, LatencyHistogram> stages : histograms.values()) {
+	    for (LatencyHistogram histogram : stages.values()) {
+		histogram.reset();
+	    }
+	}
+    }
+
+}
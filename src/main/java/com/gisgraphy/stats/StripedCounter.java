@@ -0,0 +1,120 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that spreads the increments of the different threads over several
+ * cells (stripes) so that concurrent updates don't contend on the same memory
+ * location. The value is the sum of the cells. This is the same idea as the
+ * jdk8 LongAdder, with a fixed number of stripes. This class is thread safe.
+ * 
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class StripedCounter {
+
+    /**
+     * The number of longs between two used cells, in order to put each cell
+     * on its own cache line and avoid false sharing
+     */
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells;
+
+    private final int mask;
+
+    /**
+     * Create a counter with a number of stripes related to the number of
+     * available processors
+     */
+    public StripedCounter() {
+	this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param stripes
+     *                the minimum number of stripes, it will be rounded to the
+     *                next power of two
+     */
+    public StripedCounter(int stripes) {
+	int size = 1;
+	while (size < stripes) {
+	    size <<= 1;
+	}
+	this.mask = size - 1;
+	this.cells = new AtomicLongArray(size * PADDING);
+    }
+
+    private int index() {
+	long id = Thread.currentThread().getId();
+	int hash = (int) (id ^ (id >>> 32));
+	hash ^= (hash >>> 16);
+	return (hash & mask) * PADDING;
+    }
+
+    /**
+     * Increment the counter by one
+     */
+    public void increment() {
+	cells.incrementAndGet(index());
+    }
+
+    /**
+     * @param delta
+     *                the value to add (can be negative)
+     */
+    public void add(long delta) {
+	cells.addAndGet(index(), delta);
+    }
+
+    /**
+     * @return the sum of all the stripes. The returned value is exact if no
+     *         concurrent updates occur during the call, otherwise it
+     *         includes only part of them, but no update is lost.
+     */
+    public long sum() {
+	long sum = 0;
+	for (int i = 0; i < cells.length(); i += PADDING) {
+	    sum += cells.get(i);
+	}
+	return sum;
+    }
+
+    /**
+     * Set the counter to the specified value, the updates that occurs
+     * concurrently are kept
+     * 
+     * @param value
+     *                the new value
+     */
+    public void set(long value) {
+	add(value - sum());
+    }
+
+    @Override
+    public String toString() {
+	return Long.toString(sum());
+    }
+
+}
@@ -0,0 +1,325 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.street;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collection;
+
+import com.gisgraphy.domain.geoloc.entity.HouseNumber;
+import com.gisgraphy.domain.geoloc.entity.OpenStreetMap;
+import com.gisgraphy.helper.GeolocHelper;
+import com.vividsolutions.jts.geom.Point;
+
+/**
+ * The house numbers of a street, encoded in one blob that is stored with the
+ * street (see {@link OpenStreetMap#getEncodedHouseNumbers()}), so that the
+ * reverse geocoding doesn't have to load the {@link HouseNumber} entities.
+ * <br/>
+ * The houses are sorted by longitude. The coordinates are stored as delta of
+ * 10<sup>-7</sup> degrees, the ids as delta, and the numbers, the normalized
+ * numbers and the names as they are, all as variable length integers. The
+ * houses without location are ignored.
+ * <br/>
+ * Once decoded, the houses are in primitive arrays and the nearest one is
+ * found with a scan of the projected coordinates from the longitude of the
+ * point, that stops when the remaining houses are too far in longitude.
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class EncodedHouseNumbers {
+
+	private static final byte VERSION = 1;
+
+	private static final double COORDINATE_FACTOR = 1E7;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	public static final int NO_NORMALIZED_NUMBER = -1;
+
+	private final long[] ids;
+
+	private final int[] longitudes;
+
+	private final int[] latitudes;
+
+	private final int[] normalizedNumbers;
+
+	private final String[] numbers;
+
+	private final String[] names;
+
+	private EncodedHouseNumbers(int size) {
+		ids = new long[size];
+		longitudes = new int[size];
+		latitudes = new int[size];
+		normalizedNumbers = new int[size];
+		numbers = new String[size];
+		names = new String[size];
+	}
+
+	/**
+	 * @param houseNumbers
+	 *            the house numbers of the street
+	 * @param countryCode
+	 *            the country code of the street, the house numbers of SK and
+	 *            CZ are normalized differently
+	 * @return the blob or null if there is no house number with a location
+	 */
+	public static byte[] encode(Collection<HouseNumber> houseNumbers, String countryCode) {
+		if (houseNumbers == null || houseNumbers.isEmpty()) {
+			return null;
+		}
+		boolean skCz = countryCode != null && ("SK".equalsIgnoreCase(countryCode) || "CZ".equalsIgnoreCase(countryCode));
+		HouseNumber[] houses = new HouseNumber[houseNumbers.size()];
+		//high bits : the longitude, low bits : the position in the collection, to keep the order of the collection for the same longitude
+		long[] keys = new long[houses.length];
+		int size = 0;
+		for (HouseNumber houseNumber : houseNumbers) {
+			if (houseNumber != null && houseNumber.getLocation() != null) {
+				houses[size] = houseNumber;
+				keys[size] = (((long) toFixed(houseNumber.getLocation().getX())) << 32) | size;
+				size++;
+			}
+		}
+		if (size == 0) {
+			return null;
+		}
+		Arrays.sort(keys, 0, size);
+		ByteArrayOutputStream out = new ByteArrayOutputStream(size * 16);
+		out.write(VERSION);
+		writeVarint(out, size);
+		long previousId = 0;
+		int previousLongitude = 0;
+		int previousLatitude = 0;
+		for (int i = 0; i < size; i++) {
+			HouseNumber house = houses[(int) keys[i]];
+			long id = house.getId() == null ? 0 : house.getId();
+			int longitude = toFixed(house.getLocation().getX());
+			int latitude = toFixed(house.getLocation().getY());
+			Integer normalized = skCz ? HouseNumberUtil.normalizeSkCzNumberToInt(house.getNumber())
+					: HouseNumberUtil.normalizeNumberToInt(house.getNumber());
+			writeVarint(out, zigzag(id - previousId));
+			writeVarint(out, zigzag(longitude - previousLongitude));
+			writeVarint(out, zigzag(latitude - previousLatitude));
+			writeVarint(out, normalized == null || normalized < 0 ? 0 : normalized.longValue() + 1);
+			writeString(out, house.getNumber());
+			writeString(out, house.getName());
+			previousId = id;
+			previousLongitude = longitude;
+			previousLatitude = latitude;
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * @return the decoded house numbers, or null if the blob is null or can
+	 *         not be decoded
+	 */
+	public static EncodedHouseNumbers decode(byte[] blob) {
+		if (blob == null || blob.length == 0 || blob[0] != VERSION) {
+			return null;
+		}
+		try {
+			int[] position = { 1 };
+			long size = readVarint(blob, position);
+			if (size > blob.length) {
+				//each house takes several bytes
+				return null;
+			}
+			EncodedHouseNumbers decoded = new EncodedHouseNumbers((int) size);
+			long id = 0;
+			int longitude = 0;
+			int latitude = 0;
+			for (int i = 0; i < size; i++) {
+				id += unzigzag(readVarint(blob, position));
+				longitude += (int) unzigzag(readVarint(blob, position));
+				latitude += (int) unzigzag(readVarint(blob, position));
+				decoded.ids[i] = id;
+				decoded.longitudes[i] = longitude;
+				decoded.latitudes[i] = latitude;
+				decoded.normalizedNumbers[i] = (int) readVarint(blob, position) - 1;
+				decoded.numbers[i] = readString(blob, position);
+				decoded.names[i] = readString(blob, position);
+			}
+			return decoded;
+		} catch (ArrayIndexOutOfBoundsException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return the position of the nearest house of the point, -1 if there is
+	 *         no house or if the point is null
+	 */
+	public int getNearest(Point point) {
+		if (point == null || longitudes.length == 0) {
+			return -1;
+		}
+		int longitude = toFixed(point.getX());
+		int latitude = toFixed(point.getY());
+		//an equirectangular projection, enough to compare the houses of a street
+		double longitudeScale = Math.cos(Math.toRadians(point.getY()));
+		int start = lowerBound(longitude);
+		int nearest = -1;
+		double smallest = Double.MAX_VALUE;
+		int east = start;
+		int west = start - 1;
+		while (east < longitudes.length || west >= 0) {
+			double eastDx = east < longitudes.length ? (longitudes[east] - (double) longitude) * longitudeScale : Double.MAX_VALUE;
+			double westDx = west >= 0 ? (longitude - (double) longitudes[west]) * longitudeScale : Double.MAX_VALUE;
+			int candidate;
+			double dx;
+			if (eastDx <= westDx) {
+				candidate = east++;
+				dx = eastDx;
+			} else {
+				candidate = west--;
+				dx = westDx;
+			}
+			if (dx * dx > smallest) {
+				//the remaining houses are further in longitude only
+				break;
+			}
+			double dy = latitudes[candidate] - (double) latitude;
+			double distance = dx * dx + dy * dy;
+			if (distance < smallest) {
+				smallest = distance;
+				nearest = candidate;
+			}
+		}
+		return nearest;
+	}
+
+	/**
+	 * @return a new (detached) house number for the house at the given
+	 *         position, in the given street
+	 */
+	public HouseNumber toHouseNumber(int position, OpenStreetMap street) {
+		HouseNumber houseNumber = new HouseNumber();
+		houseNumber.setId(ids[position] == 0 ? null : ids[position]);
+		houseNumber.setNumber(numbers[position]);
+		houseNumber.setName(names[position]);
+		houseNumber.setLocation(getLocation(position));
+		houseNumber.setStreet(street);
+		return houseNumber;
+	}
+
+	private int lowerBound(int longitude) {
+		int low = 0;
+		int high = longitudes.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (longitudes[middle] < longitude) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return the location of the house at the given position
+	 */
+	public Point getLocation(int position) {
+		return GeolocHelper.createPoint(longitudes[position] / COORDINATE_FACTOR, latitudes[position] / COORDINATE_FACTOR);
+	}
+
+	/**
+	 * @return the normalized number of the house at the given position or
+	 *         {@link #NO_NORMALIZED_NUMBER}
+	 */
+	public int getNormalizedNumber(int position) {
+		return normalizedNumbers[position];
+	}
+
+	/**
+	 * @return the number of the house at the given position, as it has been
+	 *         imported
+	 */
+	public String getNumber(int position) {
+		return numbers[position];
+	}
+
+	/**
+	 * @return the number of houses
+	 */
+	public int size() {
+		return longitudes.length;
+	}
+
+	private static int toFixed(double coordinate) {
+		return (int) Math.round(coordinate * COORDINATE_FACTOR);
+	}
+
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static void writeVarint(ByteArrayOutputStream out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	private static long readVarint(byte[] blob, int[] position) {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = blob[position[0]++];
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	private static void writeString(ByteArrayOutputStream out, String value) {
+		if (value == null) {
+			writeVarint(out, 0);
+			return;
+		}
+		byte[] bytes = value.getBytes(UTF8);
+		writeVarint(out, bytes.length + 1);
+		out.write(bytes, 0, bytes.length);
+	}
+
+	private static String readString(byte[] blob, int[] position) {
+		int length = (int) readVarint(blob, position) - 1;
+		if (length == -1) {
+			return null;
+		}
+		String value = new String(blob, position[0], length, UTF8);
+		position[0] += length;
+		return value;
+	}
+
+}
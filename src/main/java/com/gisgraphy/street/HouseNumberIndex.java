@@ -0,0 +1,176 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.street;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.vividsolutions.jts.geom.Point;
+
+/**
+ * The house numbers of a street, normalized to int and sorted, so that we can
+ * find an exact number or the nearest lower / upper ones with a binary search.
+ * The numbers that can not be normalized are ignored. When several house
+ * numbers have the same normalized value, the first one in the original list
+ * is the first one in the index.
+ *
+ * @author <a href="mailto:david.masclet@gisgraphy.com">David Masclet</a>
+ */
+public class HouseNumberIndex {
+
+	private final int[] numbers;
+
+	private final Point[] locations;
+
+	private final int sourceSize;
+
+	private final int sourceHash;
+
+	private final boolean skCz;
+
+	private HouseNumberIndex(int[] numbers, Point[] locations, int sourceSize, int sourceHash, boolean skCz) {
+		this.numbers = numbers;
+		this.locations = locations;
+		this.sourceSize = sourceSize;
+		this.sourceHash = sourceHash;
+		this.skCz = skCz;
+	}
+
+	/**
+	 * @param houseNumbers
+	 *            the house numbers of the street
+	 * @param countryCode
+	 *            the country code of the street, the house numbers of SK and
+	 *            CZ are normalized differently
+	 * @return the index, never null
+	 */
+	public static HouseNumberIndex build(List<HouseNumberDto> houseNumbers, String countryCode) {
+		boolean skCz = isSkCz(countryCode);
+		if (houseNumbers == null || houseNumbers.isEmpty()) {
+			return new HouseNumberIndex(new int[0], new Point[0], 0, hash(houseNumbers), skCz);
+		}
+		HouseNumberDto[] candidates = houseNumbers.toArray(new HouseNumberDto[houseNumbers.size()]);
+		//high bits : the number, low bits : the position in the list, to keep the list order for the same number
+		long[] keys = new long[candidates.length];
+		int size = 0;
+		for (int i = 0; i < candidates.length; i++) {
+			HouseNumberDto candidate = candidates[i];
+			if (candidate == null || candidate.getNumber() == null) {
+				continue;
+			}
+			Integer normalized = skCz ? HouseNumberUtil.normalizeSkCzNumberToInt(candidate.getNumber())
+					: HouseNumberUtil.normalizeNumberToInt(candidate.getNumber());
+			if (normalized != null) {
+				keys[size++] = (((long) normalized.intValue()) << 32) | i;
+			}
+		}
+		Arrays.sort(keys, 0, size);
+		int[] numbers = new int[size];
+		Point[] locations = new Point[size];
+		for (int i = 0; i < size; i++) {
+			numbers[i] = (int) (keys[i] >> 32);
+			locations[i] = candidates[(int) keys[i]].getLocation();
+		}
+		return new HouseNumberIndex(numbers, locations, houseNumbers.size(), hash(houseNumbers), skCz);
+	}
+
+	/**
+	 * @return a hash of the numbers and the locations of the list, in the
+	 *         order of the list
+	 */
+	static int hash(List<HouseNumberDto> houseNumbers) {
+		if (houseNumbers == null) {
+			return 0;
+		}
+		int hash = 1;
+		for (HouseNumberDto houseNumber : houseNumbers) {
+			hash = 31 * hash;
+			if (houseNumber != null) {
+				hash += houseNumber.getNumber() == null ? 0 : houseNumber.getNumber().hashCode();
+				Point location = houseNumber.getLocation();
+				if (location != null) {
+					long bits = 31 * Double.doubleToLongBits(location.getX()) + Double.doubleToLongBits(location.getY());
+					hash = 31 * hash + (int) (bits ^ (bits >>> 32));
+				}
+			}
+		}
+		return hash;
+	}
+
+	private static boolean isSkCz(String countryCode) {
+		return countryCode != null && ("SK".equalsIgnoreCase(countryCode) || "CZ".equalsIgnoreCase(countryCode));
+	}
+
+	/**
+	 * @return true if the index has been built from a list with the same
+	 *         numbers and locations, in the same order, for the given country
+	 *         code. It is a check in linear time (without the normalization
+	 *         and the sort of {@link #build(List, String)}) to know if a cached
+	 *         index can be reused, e.g. after the house numbers of the street
+	 *         have been updated
+	 */
+	public boolean isBuiltFrom(List<HouseNumberDto> houseNumbers, String countryCode) {
+		return houseNumbers != null && houseNumbers.size() == sourceSize && skCz == isSkCz(countryCode)
+				&& hash(houseNumbers) == sourceHash;
+	}
+
+	/**
+	 * @return the position of the first house number that is greater or
+	 *         equals to the given number, {@link #size()} if there is none
+	 */
+	public int lowerBound(int number) {
+		int low = 0;
+		int high = numbers.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (numbers[middle] < number) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return the normalized house number at the given position
+	 */
+	public int getNumber(int position) {
+		return numbers[position];
+	}
+
+	/**
+	 * @return the location of the house number at the given position
+	 */
+	public Point getLocation(int position) {
+		return locations[position];
+	}
+
+	/**
+	 * @return the number of (normalized) house numbers
+	 */
+	public int size() {
+		return numbers.length;
+	}
+
+}
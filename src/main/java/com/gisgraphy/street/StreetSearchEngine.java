@@ -45,6 +45,8 @@ import com.gisgraphy.domain.valueobject.StreetSearchResultsDto;
 import com.gisgraphy.serializer.common.UniversalSerializerConstant;
 import com.gisgraphy.service.IStatsUsageService;
 import com.gisgraphy.service.ServiceException;
+import com.gisgraphy.stats.LatencyHistogram;
+import com.gisgraphy.stats.LatencyStats;
 import com.gisgraphy.stats.StatsUsageType;
 
 /**
@@ -70,11 +72,16 @@ public class StreetSearchEngine implements IStreetSearchEngine {
     protected static final Logger logger = LoggerFactory
 	    .getLogger(StreetSearchEngine.class);
 
+    private static final LatencyHistogram STREET_LATENCY = LatencyStats.getHistogram(StatsUsageType.STREET, LatencyStats.TOTAL_STAGE);
+    private static final LatencyHistogram DATABASE_LATENCY = LatencyStats.getHistogram(StatsUsageType.STREET, "database");
+    private static final LatencyHistogram SERIALIZE_LATENCY = LatencyStats.getHistogram(StatsUsageType.STREET, "serialize");
+
     public StreetSearchResultsDto executeQuery(StreetSearchQuery query)
 	    throws ServiceException {
 	statsUsageService.increaseUsage(StatsUsageType.STREET);
 	Assert.notNull(query, "Can not execute a null query");
 	long start = System.currentTimeMillis();
+	long startNanos = System.nanoTime();
 
 	List<StreetDistance> results = openStreetMapDao
 		.getNearestAndDistanceFrom(query.getPoint(), query.getRadius(),
@@ -82,12 +89,15 @@ public class StreetSearchEngine implements IStreetSearchEngine {
 				.getMaxNumberOfResults(),
 			query.getStreetType(), query.getOneWay(), query
 				.getName(),query.getStreetSearchMode(), query.hasDistanceField());
+	DATABASE_LATENCY.recordSince(startNanos);
 
 	long end = System.currentTimeMillis();
 	long qTime = end - start;
 	logger.info(query + " took " + (qTime) + " ms and returns "
 		+ results.size() + " results");
-	return new StreetSearchResultsDto(results, qTime,query.getName());
+	StreetSearchResultsDto resultsDto = new StreetSearchResultsDto(results, qTime,query.getName());
+	STREET_LATENCY.recordSince(startNanos);
+	return resultsDto;
 
     }
 
@@ -103,12 +113,14 @@ public class StreetSearchEngine implements IStreetSearchEngine {
 	Assert.notNull(outputStream,
 		"Can not serialize into a null outputStream");
 	StreetSearchResultsDto streetSearchResultsDto = executeQuery(query);
+	long start = System.nanoTime();
 	Map<String, Object> extraParameter = new HashMap<String, Object>();
 	extraParameter.put(StreetSearchResultsDtoSerializer.START_PAGINATION_INDEX_EXTRA_PARAMETER, query.getFirstPaginationIndex());
 	extraParameter.put(UniversalSerializerConstant.CALLBACK_METHOD_NAME, query.getCallback());
 	streetSearchResultsDtoSerializer.serialize(outputStream, query
 		.getOutputFormat(), streetSearchResultsDto, query.isOutputIndented(),
 		extraParameter);
+	SERIALIZE_LATENCY.recordSince(start);
 	}
 
     /*
@@ -35,6 +35,7 @@ import org.springframework.transaction.support.DefaultTransactionDefinition;
 
 import com.gisgraphy.domain.geoloc.entity.AlternateName;
 import com.gisgraphy.domain.geoloc.entity.GisFeature;
+import com.gisgraphy.domain.geoloc.entity.event.IEventManager;
 import com.gisgraphy.domain.repository.IAlternateNameDao;
 import com.gisgraphy.domain.repository.IGisFeatureDao;
 import com.gisgraphy.domain.repository.ISolRSynchroniser;
@@ -64,6 +65,8 @@ public class EditAlternateNameAction extends BaseAction implements Preparable {
     private IInternationalisationService internationalisationService;
 
     private ISolRSynchroniser solRSynchroniser;
+
+    private IEventManager eventManager;
     /**
      * The transaction manager
      */
@@ -173,6 +176,9 @@ public class EditAlternateNameAction extends BaseAction implements Preparable {
 
     private void commitTransaction() {
 	transactionManager.commit(txStatus);
+	if (eventManager != null) {
+	    eventManager.flush();
+	}
 	solRSynchroniser.commit();
     }
 
@@ -288,6 +294,10 @@ public class EditAlternateNameAction extends BaseAction implements Preparable {
     public void setSolRSynchroniser(ISolRSynchroniser solRSynchroniser) {
 	this.solRSynchroniser = solRSynchroniser;
     }
+
+    public void setEventManager(IEventManager eventManager) {
+	this.eventManager = eventManager;
+    }
     
     @Required
     public void setAlternateNameDao(IAlternateNameDao alternateNameDao) {
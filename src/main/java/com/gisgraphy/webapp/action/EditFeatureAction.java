@@ -38,6 +38,7 @@ import org.springframework.transaction.support.DefaultTransactionDefinition;
 
 import com.gisgraphy.domain.geoloc.entity.Country;
 import com.gisgraphy.domain.geoloc.entity.GisFeature;
+import com.gisgraphy.domain.geoloc.entity.event.IEventManager;
 import com.gisgraphy.domain.repository.CountryDao;
 import com.gisgraphy.domain.repository.IGisFeatureDao;
 import com.gisgraphy.domain.repository.IIdGenerator;
@@ -76,6 +77,8 @@ public class EditFeatureAction extends BaseAction implements Preparable {
 	
 	private ISolRSynchroniser solRSynchroniser;
 
+	private IEventManager eventManager;
+
 	private PlatformTransactionManager transactionManager;
 
 	private TransactionStatus txStatus = null;
@@ -245,6 +248,9 @@ public class EditFeatureAction extends BaseAction implements Preparable {
 
 	private void commitTransaction() {
 		transactionManager.commit(txStatus);
+		if (eventManager != null) {
+			eventManager.flush();
+		}
 		solRSynchroniser.commit();
 	}
 
@@ -442,6 +448,10 @@ public class EditFeatureAction extends BaseAction implements Preparable {
 	    this.solRSynchroniser = solRSynchroniser;
 	}
 
+	public void setEventManager(IEventManager eventManager) {
+	    this.eventManager = eventManager;
+	}
+
 	/**
 	 * @return the classcode
 	 */
@@ -37,6 +37,7 @@ import org.springframework.transaction.support.DefaultTransactionDefinition;
 
 import com.gisgraphy.domain.geoloc.entity.Country;
 import com.gisgraphy.domain.geoloc.entity.OpenStreetMap;
+import com.gisgraphy.domain.geoloc.entity.event.IEventManager;
 import com.gisgraphy.domain.repository.CountryDao;
 import com.gisgraphy.domain.repository.IIdGenerator;
 import com.gisgraphy.domain.repository.IOpenStreetMapDao;
@@ -84,6 +85,8 @@ public class EditStreetAction extends BaseAction implements Preparable {
 	
 	private ISolRSynchroniser solRSynchroniser;
 
+	private IEventManager eventManager;
+
 
 	/*
 	 * Those specific fields needs to be process separately because of decimal
@@ -213,6 +216,9 @@ public class EditStreetAction extends BaseAction implements Preparable {
 
 	private void commitTransaction() {
 		transactionManager.commit(txStatus);
+		if (eventManager != null) {
+			eventManager.flush();
+		}
 		solRSynchroniser.commit();
 	}
 
@@ -466,6 +472,10 @@ public class EditStreetAction extends BaseAction implements Preparable {
 	    this.solRSynchroniser = solRSynchroniser;
 	}
 
+	public void setEventManager(IEventManager eventManager) {
+	    this.eventManager = eventManager;
+	}
+
 	
 
 }
@@ -35,6 +35,7 @@ import org.springframework.transaction.support.DefaultTransactionDefinition;
 
 import com.gisgraphy.domain.geoloc.entity.GisFeature;
 import com.gisgraphy.domain.geoloc.entity.ZipCode;
+import com.gisgraphy.domain.geoloc.entity.event.IEventManager;
 import com.gisgraphy.domain.repository.IGisFeatureDao;
 import com.gisgraphy.domain.repository.ISolRSynchroniser;
 import com.gisgraphy.domain.repository.IZipCodeDao;
@@ -63,6 +64,8 @@ public class EditZipCodeAction extends BaseAction implements Preparable {
     private IInternationalisationService internationalisationService;
 
     private ISolRSynchroniser solRSynchroniser;
+
+    private IEventManager eventManager;
     /**
      * The transaction manager
      */
@@ -171,6 +174,9 @@ public class EditZipCodeAction extends BaseAction implements Preparable {
 
     private void commitTransaction() {
 	transactionManager.commit(txStatus);
+	if (eventManager != null) {
+	    eventManager.flush();
+	}
 	solRSynchroniser.commit();
     }
 
@@ -285,6 +291,10 @@ public class EditZipCodeAction extends BaseAction implements Preparable {
     public void setSolRSynchroniser(ISolRSynchroniser solRSynchroniser) {
 	this.solRSynchroniser = solRSynchroniser;
     }
+
+    public void setEventManager(IEventManager eventManager) {
+	this.eventManager = eventManager;
+    }
     
     @Required
     public void setZipCodeDao(IZipCodeDao zipCodeDao) {
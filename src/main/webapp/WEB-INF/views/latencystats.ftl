@@ -0,0 +1 @@
+${latencyAsJson}
\ No newline at end of file
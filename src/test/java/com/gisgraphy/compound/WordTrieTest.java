@@ -0,0 +1,46 @@
+package com.gisgraphy.compound;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WordTrieTest {
+
+	@Test
+	public void longestMatchShouldReturnTheLongestWord() {
+		WordTrie trie = new WordTrie(Arrays.asList("str", "strasse", "weg"), true);
+		Assert.assertEquals(7, trie.longestMatch("fooStrasse", 3));
+		Assert.assertEquals(3, trie.longestMatch("fooStrassx", 3));
+		Assert.assertEquals(3, trie.longestMatch("WEG", 0));
+		Assert.assertEquals(-1, trie.longestMatch("fooweg", 0));
+		Assert.assertEquals(-1, trie.longestMatch("fooweg", 6));
+		Assert.assertEquals(-1, trie.longestMatch("st", 0));
+	}
+
+	@Test
+	public void longestMatchShouldIgnoreTheCase() {
+		WordTrie unicode = new WordTrie(Arrays.asList("plätze"), true);
+		Assert.assertEquals(6, unicode.longestMatch("PLÄTZE", 0));
+		WordTrie ascii = new WordTrie(Arrays.asList("plätze"), false);
+		Assert.assertEquals(6, ascii.longestMatch("PläTZE", 0));
+		Assert.assertEquals("only the case of the ASCII letters should be ignored", -1, ascii.longestMatch("PLÄTZE", 0));
+	}
+
+	@Test
+	public void blanksShouldMatchSeveralWhitespaces() {
+		WordTrie trie = new WordTrie(Arrays.asList(" rue  de "), true);
+		Assert.assertEquals(8, trie.longestMatch("rue \t de la paix", 0));
+		Assert.assertEquals(-1, trie.longestMatch("ruede", 0));
+	}
+
+	@Test
+	public void emptyTrieShouldMatchTheEmptyString() {
+		WordTrie trie = new WordTrie(new ArrayList<String>(), true);
+		Assert.assertEquals(0, trie.longestMatch("foo", 0));
+		Assert.assertEquals(0, trie.longestMatch("foo", 3));
+		Assert.assertEquals(0, new WordTrie(Arrays.asList(" ", ""), true).longestMatch("foo", 1));
+	}
+
+}
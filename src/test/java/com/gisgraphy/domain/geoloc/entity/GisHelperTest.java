@@ -84,6 +84,21 @@ public class GisHelperTest {
     	
     }
 
+    @Test
+    public void getBoundingBoxCoordinates(){
+    	double[] bbox = GisHelper.getBoundingBoxCoordinates(48.867D, 2.395D, 1000);
+    	Assert.assertEquals(4, bbox.length);
+    	Assert.assertTrue(bbox[0] < 2.395D && bbox[2] > 2.395D);
+    	Assert.assertTrue(bbox[1] < 48.867D && bbox[3] > 48.867D);
+    	Assert.assertTrue("the bounding box sql should use the same coordinates",GisHelper.getBoundingBox("C", 48.867D, 2.395D, 1000).contains(bbox[0]+" "+bbox[1]+","+bbox[2]+" "+bbox[3]));
+    }
+
+    @Test
+    public void parametersShouldNotDependOnTheCoordinates(){
+    	Assert.assertEquals("ST_SetSRID(ST_MakePoint(:lng,:lat),4326)", GisHelper.getPointWithParameters());
+    	Assert.assertEquals("C.location && ST_MakeEnvelope(:minX,:minY,:maxX,:maxY,4326)", GisHelper.getBoundingBoxWithParameters("C", GisFeature.LOCATION_COLUMN_NAME));
+    }
+
 
     
 }
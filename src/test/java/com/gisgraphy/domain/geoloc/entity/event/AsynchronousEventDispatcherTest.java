@@ -0,0 +1,230 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.domain.geoloc.entity.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.gisgraphy.domain.geoloc.entity.City;
+import com.gisgraphy.domain.geoloc.entity.GisFeature;
+
+public class AsynchronousEventDispatcherTest {
+
+    private static class RecordingListener implements IEventListener {
+
+	final List<IEvent> events = Collections.synchronizedList(new ArrayList<IEvent>());
+
+	final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+
+	public void handleEvent(IEvent event) {
+	    events.add(event);
+	    threads.add(Thread.currentThread());
+	}
+
+	public boolean supports(IEvent event) {
+	    return true;
+	}
+    }
+
+    private static class RecordingAsynchronousListener extends RecordingListener implements IAsynchronousEventListener {
+
+	public IEvent prepare(IEvent event) {
+	    return event;
+	}
+    }
+
+    private static GisFeatureStoredEvent createEvent(long featureId) {
+	GisFeature gisFeature = new GisFeature();
+	gisFeature.setFeatureId(featureId);
+	return new GisFeatureStoredEvent(gisFeature);
+    }
+
+    @Test
+    public void dispatchShouldDeliverTheEventsOfAFeatureInOrder() {
+	RecordingAsynchronousListener listener = new RecordingAsynchronousListener();
+	AsynchronousEventDispatcher dispatcher = new AsynchronousEventDispatcher(listener, 4, 5);
+	List<IEvent> sent = new ArrayList<IEvent>();
+	try {
+	    for (int i = 0; i < 1000; i++) {
+		IEvent event = createEvent(i % 13);
+		sent.add(event);
+		dispatcher.dispatch(event);
+	    }
+	    dispatcher.flush();
+	} finally {
+	    dispatcher.shutdown();
+	}
+	assertEquals(0, dispatcher.getPendingEvents());
+	assertEquals(sent.size(), listener.events.size());
+	Map<Long, List<IEvent>> sentByFeature = new HashMap<Long, List<IEvent>>();
+	Map<Long, List<IEvent>> receivedByFeature = new HashMap<Long, List<IEvent>>();
+	for (IEvent event : sent) {
+	    add(sentByFeature, event);
+	}
+	for (IEvent event : listener.events) {
+	    add(receivedByFeature, event);
+	}
+	assertEquals("the events of a feature should be received in the order they are sent", sentByFeature, receivedByFeature);
+	for (Thread thread : listener.threads) {
+	    assertNotSame(Thread.currentThread(), thread);
+	}
+    }
+
+    private static void add(Map<Long, List<IEvent>> eventsByFeature, IEvent event) {
+	Long featureId = AsynchronousEventDispatcher.getFeatureId(event);
+	List<IEvent> events = eventsByFeature.get(featureId);
+	if (events == null) {
+	    events = new ArrayList<IEvent>();
+	    eventsByFeature.put(featureId, events);
+	}
+	events.add(event);
+    }
+
+    @Test
+    public void dispatchShouldDeliverTheEventsWithoutFeatureAfterTheQueuedOnes() {
+	RecordingAsynchronousListener listener = new RecordingAsynchronousListener();
+	AsynchronousEventDispatcher dispatcher = new AsynchronousEventDispatcher(listener, 2, 100);
+	try {
+	    IEvent first = createEvent(1L);
+	    IEvent second = createEvent(2L);
+	    IEvent deleteAll = new PlaceTypeDeleteAllEvent(City.class);
+	    dispatcher.dispatch(first);
+	    dispatcher.dispatch(second);
+	    dispatcher.dispatch(deleteAll);
+	    assertEquals("the queued events should be delivered before an event without feature", 3, listener.events.size());
+	    assertTrue(listener.events.containsAll(Arrays.asList(first, second)));
+	    assertSame(deleteAll, listener.events.get(2));
+	    assertSame("an event without feature should be delivered from the calling thread", Thread.currentThread(), listener.threads.get(2));
+	} finally {
+	    dispatcher.shutdown();
+	}
+    }
+
+    @Test
+    public void dispatchShouldDeliverThePreparedEvents() {
+	final IEvent prepared = new IEvent() {
+	};
+	final List<Thread> preparingThreads = Collections.synchronizedList(new ArrayList<Thread>());
+	RecordingAsynchronousListener listener = new RecordingAsynchronousListener() {
+	    @Override
+	    public IEvent prepare(IEvent event) {
+		preparingThreads.add(Thread.currentThread());
+		return AsynchronousEventDispatcher.getFeatureId(event) == 1L ? prepared : null;
+	    }
+	};
+	AsynchronousEventDispatcher dispatcher = new AsynchronousEventDispatcher(listener, 2, 100);
+	try {
+	    dispatcher.dispatch(createEvent(1L));
+	    dispatcher.dispatch(createEvent(2L));
+	    dispatcher.flush();
+	} finally {
+	    dispatcher.shutdown();
+	}
+	assertEquals("the events should be prepared from the calling thread",
+		Arrays.asList(Thread.currentThread(), Thread.currentThread()), preparingThreads);
+	assertEquals("the null prepared events should not be delivered", Arrays.asList(prepared), listener.events);
+	assertNotSame(Thread.currentThread(), listener.threads.get(0));
+    }
+
+    @Test
+    public void dispatchShouldDeliverTheEventsOfAFeatureFromTheCallingThreadToTheSynchronousListeners() {
+	RecordingListener listener = new RecordingListener();
+	AsynchronousEventDispatcher dispatcher = new AsynchronousEventDispatcher(listener, 2, 100);
+	try {
+	    IEvent event = createEvent(1L);
+	    dispatcher.dispatch(event);
+	    assertEquals(Arrays.asList(event), listener.events);
+	    assertSame("the entities of the event must not be read from an other thread", Thread.currentThread(), listener.threads.get(0));
+	} finally {
+	    dispatcher.shutdown();
+	}
+    }
+
+    @Test
+    public void flushShouldThrowTheExceptionOfTheListener() {
+	final RuntimeException error = new RuntimeException("the fulltext engine is down");
+	IEventListener listener = new RecordingAsynchronousListener() {
+	    @Override
+	    public void handleEvent(IEvent event) {
+		throw error;
+	    }
+	};
+	AsynchronousEventDispatcher dispatcher = new AsynchronousEventDispatcher(listener, 1, 10);
+	try {
+	    dispatcher.dispatch(createEvent(1L));
+	    try {
+		dispatcher.flush();
+		fail("the exception of the listener should be thrown when flushing");
+	    } catch (RuntimeException e) {
+		assertSame(error, e);
+	    }
+	    //it is thrown only once
+	    dispatcher.flush();
+	} finally {
+	    dispatcher.shutdown();
+	}
+    }
+
+    @Test
+    public void eventManagerShouldDispatchToTheListenersThatSupportTheEvent() {
+	RecordingAsynchronousListener listener = new RecordingAsynchronousListener();
+	IEventListener notSupportingListener = new IEventListener() {
+	    public void handleEvent(IEvent event) {
+		fail("the event should not be sent to a listener that doesn't support it");
+	    }
+
+	    public boolean supports(IEvent event) {
+		return false;
+	    }
+	};
+	EventManager eventManager = new EventManager();
+	List<IEventListener> listeners = new ArrayList<IEventListener>();
+	listeners.add(listener);
+	listeners.add(notSupportingListener);
+	eventManager.setListeners(listeners);
+	eventManager.setAsynchronous(true);
+	eventManager.setThreadsPerListener(2);
+	try {
+	    for (long i = 0; i < 100; i++) {
+		eventManager.handleEvent(createEvent(i));
+	    }
+	    eventManager.flush();
+	    assertEquals(100, listener.events.size());
+	} finally {
+	    eventManager.shutdown();
+	}
+    }
+
+}
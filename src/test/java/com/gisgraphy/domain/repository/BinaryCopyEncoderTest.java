@@ -0,0 +1,114 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.domain.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.sql.Types;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gisgraphy.domain.valueobject.GISSource;
+import com.gisgraphy.domain.valueobject.SRID;
+import com.gisgraphy.helper.GeolocHelper;
+
+public class BinaryCopyEncoderTest {
+
+    private static DataInputStream readHeader(byte[] data) throws IOException {
+	DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+	byte[] signature = new byte[BinaryCopyEncoder.SIGNATURE.length];
+	in.readFully(signature);
+	Assert.assertArrayEquals(BinaryCopyEncoder.SIGNATURE, signature);
+	Assert.assertEquals("flags", 0, in.readInt());
+	Assert.assertEquals("header extension", 0, in.readInt());
+	return in;
+    }
+
+    private static byte[] readField(DataInputStream in) throws IOException {
+	int length = in.readInt();
+	if (length == -1) {
+	    return null;
+	}
+	byte[] field = new byte[length];
+	in.readFully(field);
+	return field;
+    }
+
+    @Test
+    public void finishShouldWriteTheHeaderAndTheTrailer() throws IOException {
+	BinaryCopyEncoder encoder = new BinaryCopyEncoder();
+	DataInputStream in = readHeader(encoder.finish());
+	Assert.assertEquals(-1, in.readShort());
+	Assert.assertEquals(-1, in.read());
+	Assert.assertEquals(0, encoder.getRows());
+    }
+
+    @Test
+    public void writeValueShouldEncodeTheValuesInTheBinaryFormat() throws IOException {
+	BinaryCopyEncoder encoder = new BinaryCopyEncoder();
+	encoder.startRow(9);
+	encoder.writeValue(123456789012L, Types.BIGINT);
+	encoder.writeValue("Évry", Types.VARCHAR);
+	encoder.writeValue(null, Types.INTEGER);
+	encoder.writeValue(42, Types.INTEGER);
+	encoder.writeValue(2.5D, Types.DOUBLE);
+	encoder.writeValue(Boolean.TRUE, Types.BOOLEAN);
+	encoder.writeValue(GISSource.OSM, Types.VARCHAR);
+	encoder.writeValue(GISSource.OSM, Types.INTEGER);
+	encoder.writeValue(new byte[] { 1, 2, 3 }, Types.VARBINARY);
+	Assert.assertEquals(1, encoder.getRows());
+
+	DataInputStream in = readHeader(encoder.finish());
+	Assert.assertEquals("the number of columns", 9, in.readShort());
+	Assert.assertEquals(123456789012L, new DataInputStream(new ByteArrayInputStream(readField(in))).readLong());
+	Assert.assertEquals("Évry", new String(readField(in), "UTF-8"));
+	Assert.assertNull(readField(in));
+	Assert.assertEquals(42, new DataInputStream(new ByteArrayInputStream(readField(in))).readInt());
+	Assert.assertEquals(2.5D, new DataInputStream(new ByteArrayInputStream(readField(in))).readDouble(), 0);
+	Assert.assertArrayEquals(new byte[] { 1 }, readField(in));
+	Assert.assertEquals("an enum stored by name", "OSM", new String(readField(in), "UTF-8"));
+	Assert.assertEquals("an enum stored by ordinal", GISSource.OSM.ordinal(), new DataInputStream(new ByteArrayInputStream(readField(in))).readInt());
+	Assert.assertArrayEquals(new byte[] { 1, 2, 3 }, readField(in));
+	Assert.assertEquals(-1, in.readShort());
+    }
+
+    @Test
+    public void toEWKBShouldWriteTheSRID() {
+	BinaryCopyEncoder encoder = new BinaryCopyEncoder();
+	byte[] ewkb = encoder.toEWKB(GeolocHelper.createPoint(2F, 48F));
+	Assert.assertEquals("big endian", 0, ewkb[0]);
+	//point type with the srid flag
+	Assert.assertArrayEquals(new byte[] { 0x20, 0, 0, 1 }, Arrays.copyOfRange(ewkb, 1, 5));
+	int srid = ((ewkb[5] & 0xFF) << 24) | ((ewkb[6] & 0xFF) << 16) | ((ewkb[7] & 0xFF) << 8) | (ewkb[8] & 0xFF);
+	Assert.assertEquals(SRID.WGS84_SRID.getSRID(), srid);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void writeValueShouldThrowForAnUnsupportedType() throws IOException {
+	new BinaryCopyEncoder().writeValue(new Object(), Types.OTHER);
+    }
+
+}
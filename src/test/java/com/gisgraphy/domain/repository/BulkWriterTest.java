@@ -0,0 +1,114 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.domain.repository;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.gisgraphy.domain.geoloc.entity.AlternateName;
+import com.gisgraphy.domain.geoloc.entity.AlternateOsmName;
+import com.gisgraphy.domain.geoloc.entity.GisFeature;
+import com.gisgraphy.domain.geoloc.entity.OpenStreetMap;
+import com.gisgraphy.domain.geoloc.entity.ZipCode;
+import com.gisgraphy.domain.valueobject.AlternateNameSource;
+import com.gisgraphy.fulltext.AbstractIntegrationHttpSolrTestCase;
+import com.gisgraphy.test.GisgraphyTestHelper;
+
+public class BulkWriterTest extends AbstractIntegrationHttpSolrTestCase {
+
+	private IBulkWriter bulkWriter;
+	private IGisFeatureDao gisFeatureDao;
+	private IOpenStreetMapDao openStreetMapDao;
+
+	@Test
+	public void saveShouldInsertTheFeatureWithItsAlternateNamesAndZipCodes() {
+		GisFeature gisFeature = GisgraphyTestHelper.createGisFeature("bulk", 3F, 4F, 1234L);
+		gisFeature.addZipCode(new ZipCode("75001"));
+		gisFeature.addAlternateName(new AlternateName("bulk alternate", "FR", AlternateNameSource.ALTERNATENAMES_FILE));
+		bulkWriter.save(gisFeature);
+		Assert.assertNotNull("the id should be set when the entity is queued", gisFeature.getId());
+		Assert.assertEquals("the feature, its zip code and its alternate name should be queued", 3, bulkWriter.getPendingEntities());
+		Assert.assertNull(gisFeatureDao.getByFeatureId(1234L));
+
+		bulkWriter.flush();
+
+		Assert.assertEquals(0, bulkWriter.getPendingEntities());
+		GisFeature retrieved = gisFeatureDao.getByFeatureId(1234L);
+		Assert.assertNotNull(retrieved);
+		Assert.assertEquals(gisFeature.getId(), retrieved.getId());
+		Assert.assertEquals("bulk", retrieved.getName());
+		Assert.assertEquals(gisFeature.getLocation(), retrieved.getLocation());
+		Assert.assertEquals(gisFeature.getModificationDate().getTime(), retrieved.getModificationDate().getTime());
+		Assert.assertEquals(gisFeature.getPopulation(), retrieved.getPopulation());
+		Assert.assertEquals(1, retrieved.getZipCodes().size());
+		Assert.assertEquals("75001", retrieved.getZipCodes().iterator().next().getCode());
+		Assert.assertEquals(1, retrieved.getAlternateNames().size());
+		Assert.assertEquals("bulk alternate", retrieved.getAlternateNames().iterator().next().getName());
+	}
+
+	@Test
+	public void saveShouldInsertTheStreetWithItsAlternateNames() {
+		OpenStreetMap street = GisgraphyTestHelper.createOpenStreetMapForJohnKenedyStreet();
+		street.addAlternateName(new AlternateOsmName("John Kennedy", AlternateNameSource.OPENSTREETMAP));
+		bulkWriter.save(street);
+		bulkWriter.flush();
+
+		OpenStreetMap retrieved = openStreetMapDao.getByGid(street.getGid());
+		Assert.assertNotNull(retrieved);
+		Assert.assertEquals(street.getName(), retrieved.getName());
+		Assert.assertEquals(street.getShape(), retrieved.getShape());
+		Assert.assertEquals(street.getStreetType(), retrieved.getStreetType());
+		Assert.assertEquals(street.isOneWay(), retrieved.isOneWay());
+		Assert.assertEquals(1, retrieved.getAlternateNames().size());
+	}
+
+	@Test
+	public void saveShouldUpdateAnExistingEntity() {
+		GisFeature gisFeature = GisgraphyTestHelper.createGisFeature("bulk", 3F, 4F, 1235L);
+		gisFeatureDao.save(gisFeature);
+		gisFeature.setName("updated");
+		bulkWriter.save(gisFeature);
+		Assert.assertEquals("an existing entity should not be queued", 0, bulkWriter.getPendingEntities());
+		bulkWriter.flush();
+		gisFeatureDao.flushAndClear();
+
+		Assert.assertEquals("updated", gisFeatureDao.getByFeatureId(1235L).getName());
+	}
+
+	@Autowired
+	public void setBulkWriter(IBulkWriter bulkWriter) {
+		this.bulkWriter = bulkWriter;
+	}
+
+	@Autowired
+	public void setGisFeatureDao(GisFeatureDao gisFeatureDao) {
+		this.gisFeatureDao = gisFeatureDao;
+	}
+
+	@Autowired
+	public void setOpenStreetMapDao(IOpenStreetMapDao openStreetMapDao) {
+		this.openStreetMapDao = openStreetMapDao;
+	}
+
+}
@@ -61,6 +61,8 @@ public class CityDaoTest extends AbstractIntegrationHttpSolrTestCase {
 
     private IGisFeatureDao gisFeatureDao;
 
+    private NearestNeighbourSearch nearestNeighbourSearch;
+
     @Resource
     private GisgraphyTestHelper geolocTestHelper;
 
@@ -553,6 +555,36 @@ public class CityDaoTest extends AbstractIntegrationHttpSolrTestCase {
 
     }
     
+    @Test
+    public void testgetNearestAndDistanceFromShouldPaginateInKNNMode() {
+	City p1 = GisgraphyTestHelper.createCity("paris", 48.86667F, 2.3333F, 1L);
+	City p2 = GisgraphyTestHelper.createCity("bordeaux", 44.83333F, -0.56667F,
+		3L);
+	City p3 = GisgraphyTestHelper.createCity("goussainville", 49.01667F,
+		2.46667F, 2L);
+
+	this.cityDao.save(p1);
+	this.cityDao.save(p2);
+	this.cityDao.save(p3);
+	nearestNeighbourSearch.setEnabled(true);
+	try {
+	    List<GisFeatureDistance> results = this.cityDao
+		    .getNearestAndDistanceFrom(p1.getLocation(), 1000000, 2, 5,true, false);
+	    assertEquals(2, results.size());
+	    // check values and sorted
+	    assertEquals(p3.getName(), results.get(0).getName());
+	    assertEquals(p2.getName(), results.get(1).getName());
+	    assertNotNull(results.get(0).getDistance());
+
+	    results = this.cityDao
+		    .getNearestAndDistanceFrom(p1.getLocation(), 1000000, 1, 1,true, false);
+	    assertEquals(1, results.size());
+	    assertEquals(p1.getName(), results.get(0).getName());
+	} finally {
+	    nearestNeighbourSearch.setEnabled(false);
+	}
+    }
+    
     @Test
     public void testgetNearestAndDistanceShouldSetPlacetypeIfFeatureClassCodeIsNotSet() {
 	City p1 = GisgraphyTestHelper.createCity("paris", 48.86667F, 2.3333F, 1L);
@@ -901,4 +933,9 @@ public class CityDaoTest extends AbstractIntegrationHttpSolrTestCase {
 	this.gisFeatureDao = gisFeatureDao;
     }
 
+    @Autowired
+    public void setNearestNeighbourSearch(NearestNeighbourSearch nearestNeighbourSearch) {
+	this.nearestNeighbourSearch = nearestNeighbourSearch;
+    }
+
 }
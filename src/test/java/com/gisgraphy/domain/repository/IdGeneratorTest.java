@@ -96,4 +96,33 @@ public class IdGeneratorTest {
 		
 	    }
 
+	 @Test
+	    public void syncShouldNotDecreaseTheIds(){
+		IdGenerator idgenerator = new IdGenerator() ;
+
+		IGisFeatureDao gisFeatureDao = EasyMock.createMock(IGisFeatureDao.class);
+		long maxFeatureId = IdGenerator.FEATUREID_INCREMENT_NO_CONFLICT+1000;
+		EasyMock.expect(gisFeatureDao.getMaxFeatureId()).andReturn(maxFeatureId).times(2);
+		EasyMock.replay(gisFeatureDao);
+		idgenerator.setGisFeatureDao(gisFeatureDao);
+
+		IOpenStreetMapDao openStreetMapDao = EasyMock.createMock(IOpenStreetMapDao.class);
+		long maxGid = IdGenerator.OPENSTREETMAP_GID_NO_CONFLICT+1000;
+		EasyMock.expect(openStreetMapDao.getMaxGid()).andReturn(maxGid).times(2);
+		EasyMock.replay(openStreetMapDao);
+		idgenerator.setOpenStreetMapDao(openStreetMapDao);
+		
+		idgenerator.sync();
+		//ids taken by an importer that are not in the database yet
+		long featureId = idgenerator.getNextFeatureId();
+		long gid = idgenerator.getNextGId();
+		idgenerator.sync();
+		
+		Assert.assertEquals(featureId+1, idgenerator.getNextFeatureId());
+		Assert.assertEquals(gid+1, idgenerator.getNextGId());
+		
+		EasyMock.verify(gisFeatureDao);
+		EasyMock.verify(openStreetMapDao);
+	    }
+
 }
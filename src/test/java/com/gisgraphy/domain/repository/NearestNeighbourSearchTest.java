@@ -0,0 +1,167 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.domain.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NearestNeighbourSearchTest {
+
+    private static final Comparator<Double> DISTANCE_COMPARATOR = new Comparator<Double>() {
+	public int compare(Double o1, Double o2) {
+	    return NearestNeighbourSearch.compareDistances(o1, o2);
+	}
+    };
+
+    @Test
+    public void isApplicableShouldNeedALimitAndADistance() {
+	NearestNeighbourSearch search = new NearestNeighbourSearch();
+	Assert.assertFalse("the mode should be disabled by default", search.isApplicable(10, true));
+	search.setEnabled(true);
+	Assert.assertTrue(search.isApplicable(10, true));
+	Assert.assertFalse(search.isApplicable(0, true));
+	Assert.assertFalse(search.isApplicable(-1, true));
+	Assert.assertFalse(search.isApplicable(10, false));
+    }
+
+    @Test
+    public void getNumberOfCandidatesShouldAddThePreviousPagesAndTheMargin() {
+	NearestNeighbourSearch search = new NearestNeighbourSearch();
+	search.setMargin(5);
+	Assert.assertEquals(15, search.getNumberOfCandidates(1, 10, 0));
+	Assert.assertEquals(15, search.getNumberOfCandidates(-1, 10, 0));
+	Assert.assertEquals(25, search.getNumberOfCandidates(11, 10, 0));
+    }
+
+    @Test
+    public void getNumberOfCandidatesShouldDependOnTheLatitude() {
+	NearestNeighbourSearch search = new NearestNeighbourSearch();
+	search.setMargin(5);
+	Assert.assertEquals("the degrees of longitude are two times shorter at 60 degrees", 25, search.getNumberOfCandidates(1, 10, 60));
+	Assert.assertEquals(25, search.getNumberOfCandidates(1, 10, -60));
+	Assert.assertEquals(45, search.getNumberOfCandidates(11, 10, 60));
+	Assert.assertEquals("the latitude should be capped", search.getNumberOfCandidates(1, 10, NearestNeighbourSearch.MAX_LATITUDE),
+		search.getNumberOfCandidates(1, 10, 90));
+    }
+
+    @Test
+    public void theCandidatesShouldContainTheNearestPlacesFarFromTheEquator() {
+	Random random = new Random(42);
+	NearestNeighbourSearch search = new NearestNeighbourSearch();
+	int placeCount = 5000;
+	int maxResults = 50;
+	double[][] places = new double[placeCount][];
+	for (int i = 0; i < placeCount; i++) {
+	    places[i] = new double[] { 10 + random.nextDouble(), 60 + random.nextDouble() };
+	}
+	for (int test = 0; test < 100; test++) {
+	    final double x = 10.25 + random.nextDouble() / 2;
+	    final double y = 60.25 + random.nextDouble() / 2;
+	    final double scale = Math.cos(Math.toRadians(y));
+	    List<double[]> indexOrder = new ArrayList<double[]>(Arrays.asList(places));
+	    //the order of the <-> operator : in degrees
+	    Collections.sort(indexOrder, new Comparator<double[]>() {
+		public int compare(double[] o1, double[] o2) {
+		    return Double.compare(distance(x, y, o1, 1), distance(x, y, o2, 1));
+		}
+	    });
+	    List<Double> distances = new ArrayList<Double>();
+	    List<Object[]> rows = new ArrayList<Object[]>();
+	    for (double[] place : indexOrder) {
+		distances.add(distance(x, y, place, scale));
+		rows.add(new Object[] { place, distances.get(distances.size() - 1) });
+	    }
+	    List<Double> expected = new ArrayList<Double>(distances);
+	    Collections.sort(expected);
+	    //as the daos : read more candidates until they contain the nearest places
+	    int numberOfCandidates = search.getNumberOfCandidates(1, maxResults, y);
+	    while (!search.containsTheNearest(rows.subList(0, Math.min(numberOfCandidates, placeCount)), 1, numberOfCandidates, 1, maxResults, y)) {
+		numberOfCandidates = search.getNextNumberOfCandidates(numberOfCandidates);
+	    }
+	    List<Double> candidates = distances.subList(0, Math.min(numberOfCandidates, placeCount));
+	    Assert.assertEquals(expected.subList(0, maxResults), search.rerank(candidates, 1, maxResults, DISTANCE_COMPARATOR));
+	}
+    }
+
+    @Test
+    public void containsTheNearestShouldCompareTheFarthestCandidateScaledByTheLatitude() {
+	NearestNeighbourSearch search = new NearestNeighbourSearch();
+	List<Object[]> rows = new ArrayList<Object[]>();
+	rows.add(new Object[] { 1D });
+	rows.add(new Object[] { 30D });
+	rows.add(new Object[] { 15D });
+	Assert.assertTrue(search.containsTheNearest(rows, 0, 3, 1, 2, 0));
+	Assert.assertTrue(search.containsTheNearest(rows, 0, 3, 1, 2, 60));
+	Assert.assertFalse("a place farther in degrees can be nearer than 15 at 60 degrees", search.containsTheNearest(rows, 0, 3, 2, 2, 60));
+	Assert.assertTrue(search.containsTheNearest(rows, 0, 3, 2, 2, 0));
+	Assert.assertTrue("all the places of the restrictions have been read", search.containsTheNearest(rows, 0, 4, 2, 2, 60));
+	Assert.assertTrue(search.containsTheNearest(new ArrayList<Object[]>(), 0, 4, 1, 2, 60));
+    }
+
+    @Test
+    public void getNextNumberOfCandidatesShouldNotOverflow() {
+	NearestNeighbourSearch search = new NearestNeighbourSearch();
+	Assert.assertEquals(40, search.getNextNumberOfCandidates(20));
+	Assert.assertEquals(Integer.MAX_VALUE, search.getNextNumberOfCandidates(Integer.MAX_VALUE / 2 + 1));
+    }
+
+    private double distance(double x, double y, double[] place, double scale) {
+	double dx = (place[0] - x) * scale;
+	double dy = place[1] - y;
+	return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setMarginShouldNotAcceptANegativeMargin() {
+	new NearestNeighbourSearch().setMargin(-1);
+    }
+
+    @Test
+    public void rerankShouldSortTheCandidatesAndReturnThePage() {
+	NearestNeighbourSearch search = new NearestNeighbourSearch();
+	//in the index order, not in the distance sphere one
+	List<Double> candidates = Arrays.asList(10D, 30D, 20D, null, 15D, 40D);
+	Assert.assertEquals(Arrays.asList(10D, 15D, 20D), search.rerank(candidates, 1, 3, DISTANCE_COMPARATOR));
+	Assert.assertEquals(Arrays.asList(10D, 15D, 20D), search.rerank(candidates, 0, 3, DISTANCE_COMPARATOR));
+	Assert.assertEquals(Arrays.asList(30D, 40D), search.rerank(candidates, 4, 2, DISTANCE_COMPARATOR));
+	Assert.assertEquals("the candidates without distance should be the last ones", Arrays.asList(40D, null),
+		search.rerank(candidates, 5, 10, DISTANCE_COMPARATOR));
+	Assert.assertTrue(search.rerank(candidates, 10, 3, DISTANCE_COMPARATOR).isEmpty());
+	Assert.assertEquals("the candidates should not be modified", Double.valueOf(30D), candidates.get(1));
+    }
+
+    @Test
+    public void rerankShouldReturnAnEmptyListForNoCandidates() {
+	NearestNeighbourSearch search = new NearestNeighbourSearch();
+	Assert.assertTrue(search.rerank(null, 1, 3, DISTANCE_COMPARATOR).isEmpty());
+	Assert.assertTrue(search.rerank(new ArrayList<Double>(), 1, 3, DISTANCE_COMPARATOR).isEmpty());
+    }
+
+}
@@ -490,6 +490,19 @@ public class OpenStreetMapDaoTest extends AbstractIntegrationHttpSolrTestCase{
     	Assert.assertEquals("the street should have the housenumber associated",1, houseNumbers.size());
     }
     
+    @Test
+    public void testClearEncodedHouseNumbers(){
+    	OpenStreetMap street = GisgraphyTestHelper.createOpenStreetMapForJohnKenedyStreet();
+    	street.addHouseNumber(GisgraphyTestHelper.createHouseNumber());
+    	street = openStreetMapDao.save(street);
+    	openStreetMapDao.flushAndClear();
+    	Assert.assertNotNull("the house numbers should be encoded when the street is saved", openStreetMapDao.get(street.getId()).getEncodedHouseNumbers());
+    	
+    	Assert.assertEquals(1, openStreetMapDao.clearEncodedHouseNumbers());
+    	openStreetMapDao.flushAndClear();
+    	Assert.assertNull("the street should have no encoded house numbers", openStreetMapDao.get(street.getId()).getEncodedHouseNumbers());
+    }
+    
     //*************************************************
     
     @Test
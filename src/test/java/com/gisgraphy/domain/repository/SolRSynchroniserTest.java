@@ -29,6 +29,7 @@ import static org.easymock.EasyMock.replay;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -38,6 +39,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -67,7 +69,9 @@ import com.gisgraphy.domain.geoloc.entity.Street;
 import com.gisgraphy.domain.geoloc.entity.ZipCode;
 import com.gisgraphy.domain.geoloc.entity.event.GisFeatureDeleteAllEvent;
 import com.gisgraphy.domain.geoloc.entity.event.GisFeatureDeletedEvent;
+import com.gisgraphy.domain.geoloc.entity.event.GisFeatureEvent;
 import com.gisgraphy.domain.geoloc.entity.event.GisFeatureStoredEvent;
+import com.gisgraphy.domain.geoloc.entity.event.IEvent;
 import com.gisgraphy.domain.geoloc.entity.event.PlaceTypeDeleteAllEvent;
 import com.gisgraphy.domain.valueobject.AlternateNameSource;
 import com.gisgraphy.domain.valueobject.Constants;
@@ -363,6 +367,39 @@ public class SolRSynchroniserTest extends AbstractIntegrationHttpSolrTestCase {
 	EasyMock.verify(mockSolrServer);
     }
     
+    @Test
+    public void testPrepareShouldBuildTheDocumentBeforeTheEventIsHandled() throws SolrServerException, IOException {
+	City city = GisgraphyTestHelper.createCityAtSpecificPoint("my city", 1.5F,
+		1.6F);
+	city.setFeatureId(2L);
+	
+	SolrServer mockSolrServer = createMock(SolrServer.class);
+	expect(mockSolrServer.add(((SolrInputDocument)EasyMock.anyObject()))).andReturn(null);
+	expect(mockSolrServer.deleteById("2")).andReturn(null);
+	expect(mockSolrServer.commit(true, true)).andReturn(null);
+	replay(mockSolrServer);
+	
+	IsolrClient mockSolrClient = createMock(IsolrClient.class);
+	expect(mockSolrClient.getServer()).andStubReturn(mockSolrServer);
+	replay(mockSolrClient);
+	
+	ISolRSynchroniser fakeSolrsynchroniser = new SolRSynchroniser(mockSolrClient);
+	
+	IEvent stored = fakeSolrsynchroniser.prepare(new GisFeatureStoredEvent(city));
+	IEvent deleted = fakeSolrsynchroniser.prepare(new GisFeatureDeletedEvent(city));
+	//the entity can be modified once the event is prepared
+	city.setName("an other name");
+	assertEquals("my city", ((SolRSynchroniser.DocumentStoredEvent) stored).getDocument().getFieldValue(FullTextFields.NAME.getValue()));
+	assertFalse(stored instanceof GisFeatureEvent);
+	assertFalse(deleted instanceof GisFeatureEvent);
+	city.setFeatureId(-1L);
+	assertNull("a feature that is not indexed should not be prepared", fakeSolrsynchroniser.prepare(new GisFeatureStoredEvent(city)));
+	
+	fakeSolrsynchroniser.handleEvent(stored);
+	fakeSolrsynchroniser.handleEvent(deleted);
+	EasyMock.verify(mockSolrServer);
+    }
+
     @Test
     public void testSaveAFeatureShouldFailWhenMaxNumberOfRetryIsReached() throws SolrServerException, IOException {
 	City city = GisgraphyTestHelper.createCityAtSpecificPoint("my city", 1.5F,
@@ -412,6 +449,58 @@ public class SolRSynchroniserTest extends AbstractIntegrationHttpSolrTestCase {
 	EasyMock.verify(mockSolrServer);
     }
     
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testSaveFeaturesInBatchModeShouldSendOneBatchOnCommit() throws SolrServerException, IOException {
+	SolrServer mockSolrServer = createMock(SolrServer.class);
+	expect(mockSolrServer.add((Collection<SolrInputDocument>) EasyMock.anyObject())).andThrow(new SolrServerException("exception"));
+	expect(mockSolrServer.add((Collection<SolrInputDocument>) EasyMock.anyObject())).andReturn(null);
+	expect(mockSolrServer.commit(true, true)).andReturn(null);
+	replay(mockSolrServer);
+	
+	IsolrClient mockSolrClient = createMock(IsolrClient.class);
+	expect(mockSolrClient.getServer()).andStubReturn(mockSolrServer);
+	replay(mockSolrClient);
+	
+	SolRSynchroniser fakeSolrsynchroniser = new SolRSynchroniser(mockSolrClient);
+	fakeSolrsynchroniser.setBatchSize(10);
+	fakeSolrsynchroniser.setFlushIntervalMillis(60000);
+	for (long i = 1; i <= 3; i++) {
+	    City city = GisgraphyTestHelper.createCityAtSpecificPoint("my city", 1.5F,
+		    1.6F);
+	    city.setFeatureId(i);
+	    fakeSolrsynchroniser.handleEvent(new GisFeatureStoredEvent(city));
+	}
+	Assert.assertTrue(fakeSolrsynchroniser.commit());
+	fakeSolrsynchroniser.destroy();
+	EasyMock.verify(mockSolrServer);
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testSaveFeaturesInBatchModeShouldThrowOnFlushWhenMaxNumberOfRetryIsReached() throws SolrServerException, IOException {
+	SolrServer mockSolrServer = createMock(SolrServer.class);
+	expect(mockSolrServer.add((Collection<SolrInputDocument>) EasyMock.anyObject())).andStubThrow(new SolrServerException("exception"));
+	replay(mockSolrServer);
+	
+	IsolrClient mockSolrClient = createMock(IsolrClient.class);
+	expect(mockSolrClient.getServer()).andStubReturn(mockSolrServer);
+	replay(mockSolrClient);
+	
+	SolRSynchroniser fakeSolrsynchroniser = new SolRSynchroniser(mockSolrClient);
+	fakeSolrsynchroniser.setBatchSize(10);
+	City city = GisgraphyTestHelper.createCityAtSpecificPoint("my city", 1.5F,
+		1.6F);
+	city.setFeatureId(2L);
+	fakeSolrsynchroniser.handleEvent(new GisFeatureStoredEvent(city));
+	try {
+	    fakeSolrsynchroniser.flush();
+	    fail("The solrSynchroniser should have throw");
+	} catch (GisgraphyCommunicationException ignore) {
+	}
+	fakeSolrsynchroniser.destroy();
+    }
+    
     @Test
     public void testCommitShouldRetryOnFailure() throws SolrServerException, IOException {
 	SolrServer mockSolrServer = createMock(SolrServer.class);
@@ -0,0 +1,135 @@
+package com.gisgraphy.geocoding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gisgraphy.addressparser.Address;
+import com.gisgraphy.addressparser.AddressQuery;
+import com.gisgraphy.addressparser.AddressResultsDto;
+import com.gisgraphy.geocoding.BulkGeocodingService.InputFormat;
+
+public class BulkGeocodingServiceTest {
+
+    @Test
+    public void parseCsvLine() {
+	Assert.assertArrayEquals(new String[] { "1 rue de la paix", null }, BulkGeocodingService.parseCsvLine("1 rue de la paix"));
+	Assert.assertArrayEquals(new String[] { "1 rue de la paix", "FR" }, BulkGeocodingService.parseCsvLine(" 1 rue de la paix , FR"));
+	Assert.assertArrayEquals(new String[] { "1, rue \"de\" la paix", "FR" }, BulkGeocodingService.parseCsvLine("\"1, rue \"\"de\"\" la paix\",FR,ignored"));
+	Assert.assertArrayEquals(new String[] { "1 rue de la paix", null }, BulkGeocodingService.parseCsvLine("1 rue de la paix,"));
+	try {
+	    BulkGeocodingService.parseCsvLine("\"1 rue de la paix,FR");
+	    Assert.fail("a quote that is not closed should throw");
+	} catch (IllegalArgumentException e) {
+	    //ok
+	}
+    }
+
+    @Test
+    public void parseJsonLine() {
+	Assert.assertArrayEquals(new String[] { "1 rue de la paix", "FR" },
+		BulkGeocodingService.parseJsonLine("{\"address\":\"1 rue de la paix\", \"country\" : \"FR\"}"));
+	Assert.assertArrayEquals(new String[] { "1 \"rue\" \u00e9", null },
+		BulkGeocodingService.parseJsonLine(" { \"id\":12,\"address\":\"1 \\\"rue\\\" \\u00e9\",\"country\":null,\"valid\":true } "));
+	Assert.assertArrayEquals(new String[] { null, null }, BulkGeocodingService.parseJsonLine("{}"));
+	String[] invalidLines = { "1 rue de la paix", "{\"address\":\"1 rue de la paix\"", "{\"address\":{\"a\":\"b\"}}",
+		"{\"address\":\"1 rue de la paix}", "{\"address\":\"1 rue de la paix\"} foo" };
+	for (String line : invalidLines) {
+	    try {
+		BulkGeocodingService.parseJsonLine(line);
+		Assert.fail(line + " should not be parsed");
+	    } catch (IllegalArgumentException e) {
+		//ok
+	    }
+	}
+    }
+
+    @Test
+    public void normalize() {
+	Assert.assertEquals(BulkGeocodingService.normalize("1, Rue de la Paix", "fr"),
+		BulkGeocodingService.normalize(" 1 rue de  la paix ", "FR"));
+	Assert.assertFalse(BulkGeocodingService.normalize("1 rue de la paix", "FR").equals(
+		BulkGeocodingService.normalize("1 rue de la paix", null)));
+    }
+
+    @Test
+    public void escapeJson() {
+	Assert.assertEquals("a\\\"b\\\\c\\nd\\u0001", BulkGeocodingService.escapeJson("a\"b\\c\nd\u0001"));
+    }
+
+    @Test
+    public void geocodeAndSerializeShouldWriteTheRowsInOrder() throws Exception {
+	IGeocodingService geocodingService = EasyMock.createMock(IGeocodingService.class);
+	EasyMock.expect(geocodingService.geocode((AddressQuery) EasyMock.anyObject())).andAnswer(new IAnswer<AddressResultsDto>() {
+	    public AddressResultsDto answer() throws Throwable {
+		AddressQuery query = (AddressQuery) EasyMock.getCurrentArguments()[0];
+		if (query.getAddress().startsWith("unknown")) {
+		    throw new GeocodingException("can not geocode " + query.getAddress());
+		}
+		//the next rows are geocoded before the first one
+		if (query.getAddress().startsWith("slow")) {
+		    Thread.sleep(100);
+		}
+		return new AddressResultsDto(new ArrayList<Address>(), 1L);
+	    }
+	}).times(5);
+	EasyMock.replay(geocodingService);
+
+	BulkGeocodingService bulkGeocodingService = new BulkGeocodingService();
+	bulkGeocodingService.setGeocodingService(geocodingService);
+	bulkGeocodingService.setNumberOfThreads(3);
+	bulkGeocodingService.setMaxPendingRows(2);
+	bulkGeocodingService.init();
+	try {
+	    String rows = "address,country\n" + "slow street,FR\n" + "1 rue de la paix,FR\n" + "\n"
+		    + "1, Rue de la Paix,FR\n" + "unknown street,FR\n" + "\"not closed,FR\n" + "5th avenue\n";
+	    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+	    int count = bulkGeocodingService.geocodeAndSerialize(new StringReader(rows), InputFormat.CSV, "US",
+		    outputStream);
+	    Assert.assertEquals(6, count);
+	    String[] lines = outputStream.toString("UTF-8").split("\n");
+	    Assert.assertEquals(6, lines.length);
+	    Assert.assertTrue(lines[0].startsWith("{\"row\":2,\"result\":"));
+	    Assert.assertTrue(lines[1].startsWith("{\"row\":3,\"result\":"));
+	    //the comma is a separator of the csv : the country is "Rue de la Paix"
+	    Assert.assertTrue(lines[2].startsWith("{\"row\":5,"));
+	    Assert.assertEquals("{\"row\":6,\"error\":\"can not geocode unknown street\"}", lines[3]);
+	    Assert.assertTrue(lines[4].startsWith("{\"row\":7,\"error\":"));
+	    Assert.assertTrue(lines[5].startsWith("{\"row\":8,\"result\":"));
+	    EasyMock.verify(geocodingService);
+	} finally {
+	    bulkGeocodingService.destroy();
+	}
+    }
+
+    @Test
+    public void geocodeAndSerializeShouldDeduplicateTheAddresses() throws Exception {
+	IGeocodingService geocodingService = EasyMock.createMock(IGeocodingService.class);
+	EasyMock.expect(geocodingService.geocode((AddressQuery) EasyMock.anyObject())).andReturn(
+		new AddressResultsDto(new ArrayList<Address>(), 1L)).times(2);
+	EasyMock.replay(geocodingService);
+
+	BulkGeocodingService bulkGeocodingService = new BulkGeocodingService();
+	bulkGeocodingService.setGeocodingService(geocodingService);
+	bulkGeocodingService.setNumberOfThreads(2);
+	bulkGeocodingService.init();
+	try {
+	    String rows = "{\"address\":\"1 rue de la paix\",\"country\":\"FR\"}\n"
+		    + "{\"address\":\"1, Rue de la Paix\",\"country\":\"fr\"}\n"
+		    + "{\"address\":\"1 rue de la paix\"}\n";
+	    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+	    Assert.assertEquals(3, bulkGeocodingService.geocodeAndSerialize(new StringReader(rows),
+		    InputFormat.JSON_LINES, null, outputStream));
+	    Assert.assertEquals(3, outputStream.toString("UTF-8").split("\n").length);
+	    EasyMock.verify(geocodingService);
+	} finally {
+	    bulkGeocodingService.destroy();
+	}
+    }
+
+}
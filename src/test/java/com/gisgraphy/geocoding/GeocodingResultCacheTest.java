@@ -0,0 +1,109 @@
+package com.gisgraphy.geocoding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gisgraphy.addressparser.Address;
+import com.gisgraphy.addressparser.AddressResultsDto;
+import com.gisgraphy.domain.geoloc.entity.GisFeature;
+import com.gisgraphy.domain.geoloc.entity.event.GisFeatureDeleteAllEvent;
+import com.gisgraphy.domain.geoloc.entity.event.IEvent;
+
+public class GeocodingResultCacheTest {
+
+    private static AddressResultsDto createResults(int numberOfAddresses) {
+	List<Address> addresses = new ArrayList<Address>();
+	for (int i = 0; i < numberOfAddresses; i++) {
+	    addresses.add(new Address());
+	}
+	return new AddressResultsDto(addresses, 1L);
+    }
+
+    @Test
+    public void getShouldReturnThePutResults() {
+	GeocodingResultCache cache = new GeocodingResultCache();
+	AddressResultsDto results = createResults(2);
+	Assert.assertNull(cache.get("paris"));
+	cache.put("paris", results, cache.getGeneration());
+	Assert.assertSame(results, cache.get("paris"));
+	Assert.assertEquals(1, cache.getHits());
+	Assert.assertEquals(1, cache.getMisses());
+	Assert.assertEquals(0.5, cache.getHitRate(), 0.0001);
+	Assert.assertEquals(1, cache.getSize());
+	Assert.assertEquals(3, cache.getWeight());
+    }
+
+    @Test
+    public void putShouldNotCacheWhenDisabled() {
+	GeocodingResultCache cache = new GeocodingResultCache();
+	cache.setEnabled(false);
+	cache.put("paris", createResults(1), cache.getGeneration());
+	Assert.assertNull(cache.get("paris"));
+	Assert.assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void theWeightShouldBeBounded() {
+	GeocodingResultCache cache = new GeocodingResultCache();
+	cache.setMaxWeight(100);
+	for (int i = 0; i < 100; i++) {
+	    cache.put("address" + i, createResults(1), cache.getGeneration());
+	    Assert.assertTrue(cache.getWeight() <= 100);
+	}
+	Assert.assertEquals(50, cache.getSize());
+	Assert.assertEquals(50, cache.getEvictions());
+	Assert.assertNull("the eldest results should be evicted", cache.get("address0"));
+	Assert.assertNotNull(cache.get("address99"));
+	//too big to be cached
+	cache.put("big", createResults(20), cache.getGeneration());
+	Assert.assertNull(cache.get("big"));
+    }
+
+    @Test
+    public void theResultsReadAgainShouldNotBeEvictedByTheResultsReadOnce() {
+	GeocodingResultCache cache = new GeocodingResultCache();
+	cache.setMaxWeight(100);
+	cache.put("frequent", createResults(1), cache.getGeneration());
+	Assert.assertNotNull(cache.get("frequent"));
+	for (int i = 0; i < 1000; i++) {
+	    cache.put("once" + i, createResults(1), cache.getGeneration());
+	}
+	Assert.assertNotNull(cache.get("frequent"));
+    }
+
+    @Test
+    public void invalidateAllShouldDropTheResults() {
+	GeocodingResultCache cache = new GeocodingResultCache();
+	cache.put("paris", createResults(1), cache.getGeneration());
+	long generation = cache.getGeneration();
+	cache.invalidateAll();
+	Assert.assertNull(cache.get("paris"));
+	Assert.assertEquals(0, cache.getSize());
+	//computed before the invalidation
+	cache.put("paris", createResults(1), generation);
+	Assert.assertNull(cache.get("paris"));
+	cache.put("paris", createResults(1), cache.getGeneration());
+	Assert.assertNotNull(cache.get("paris"));
+    }
+
+    @Test
+    public void theRepositoryEventsShouldInvalidateTheCache() {
+	GeocodingResultCache cache = new GeocodingResultCache();
+	cache.put("paris", createResults(1), cache.getGeneration());
+	Assert.assertFalse(cache.supports(new IEvent() {
+	}));
+	IEvent event = new GisFeatureDeleteAllEvent(new ArrayList<GisFeature>());
+	Assert.assertTrue(cache.supports(event));
+	cache.handleEvent(event);
+	Assert.assertNull(cache.get("paris"));
+    }
+
+    @Test
+    public void normalize() {
+	Assert.assertEquals("1 rue de la paix", GeocodingResultCache.normalize(" 1, Rue  de la Paix. "));
+    }
+
+}
@@ -2659,4 +2659,24 @@ public class GeocodingServiceTest {
   
 
    
+    @Test
+    public void geocodeShouldReturnTheCachedResults(){
+    	GeocodingService geocodingService = new GeocodingService();
+    	GeocodingResultCache geocodingResultCache = new GeocodingResultCache();
+    	geocodingService.setGeocodingResultCache(geocodingResultCache);
+    	IStatsUsageService statsUsageService = EasyMock.createMock(IStatsUsageService.class);
+    	statsUsageService.increaseUsage(StatsUsageType.GEOCODING);
+    	EasyMock.replay(statsUsageService);
+    	geocodingService.setStatsUsageService(statsUsageService);
+    	AddressResultsDto cached = new AddressResultsDto(new ArrayList<Address>(), 1L);
+    	String key = geocodingService.buildCacheKey(new AddressQuery("1 rue de la Paix, Paris", "fr"));
+    	geocodingResultCache.put(key, cached, geocodingResultCache.getGeneration());
+    	
+    	Assert.assertSame(cached, geocodingService.geocode(new AddressQuery(" 1 rue de la paix paris ", "FR")));
+    	EasyMock.verify(statsUsageService);
+    	Assert.assertNull("a structured address should not be cached",geocodingService.buildCacheKey(new StructuredAddressQuery(new Address(), "FR")));
+    	geocodingResultCache.setEnabled(false);
+    	Assert.assertNull(geocodingService.buildCacheKey(new AddressQuery("1 rue de la Paix, Paris", "fr")));
+    }
+    
 }
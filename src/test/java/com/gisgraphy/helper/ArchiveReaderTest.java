@@ -0,0 +1,77 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.helper;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ArchiveReaderTest {
+
+    @Test
+    public void isArchive() {
+	Assert.assertTrue(ArchiveReader.isArchive(new File("allcountries.gis")));
+	Assert.assertTrue(ArchiveReader.isArchive(new File("FR.tar.bz2")));
+	Assert.assertTrue(ArchiveReader.isArchive(new File("FR.TAR.GZ")));
+	Assert.assertTrue(ArchiveReader.isArchive(new File("FR.txt.bz2")));
+	Assert.assertFalse(ArchiveReader.isArchive(new File("FR.txt")));
+	Assert.assertFalse(ArchiveReader.isArchive(new File("test.tar.unknowext")));
+    }
+
+    @Test
+    public void nextEntryShouldReturnTheFilesOfAGzippedTar() throws IOException {
+	ArchiveReader archive = new ArchiveReader(new File("./data/tests/gis/test.tar.gz"), 0);
+	try {
+	    Assert.assertEquals("tarfilegzip.txt", archive.nextEntry());
+	    BufferedReader reader = new BufferedReader(new InputStreamReader(archive.getInputStream(), "UTF-8"));
+	    Assert.assertNotNull(reader.readLine());
+	    reader.close();
+	    Assert.assertNull(archive.nextEntry());
+	} finally {
+	    archive.close();
+	}
+    }
+
+    @Test
+    public void nextEntryShouldReturnTheFilesOfAGisFile() throws IOException {
+	ArchiveReader archive = new ArchiveReader(new File("./data/tests/gis/test.gis"), 2);
+	try {
+	    Assert.assertEquals("testgis", archive.nextEntry());
+	    Assert.assertEquals(0, archive.getEntrySize());
+	    Assert.assertEquals("the file is empty", -1, archive.getInputStream().read());
+	    Assert.assertNull(archive.nextEntry());
+	} finally {
+	    archive.close();
+	}
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorShouldThrowIfTheFileIsNotAnArchive() throws IOException {
+	new ArchiveReader(new File("./data/tests/gis/test.tar.unknowext"), 0);
+    }
+
+}
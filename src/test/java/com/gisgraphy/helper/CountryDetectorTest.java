@@ -32,6 +32,34 @@ public class CountryDetectorTest {
 	
 	}
 	
+	@Test
+	public void detectAndRemoveCountry_sanitize() {
+		CountryDetector detector = new CountryDetector();
+		CountryDetectorDto dto = detector.detectAndRemoveCountry("  via   alba,1 - 12100 Cuneo - united   states  ");
+		Assert.assertEquals("US", dto.getCountryCode());
+		Assert.assertEquals("via   alba,1 - 12100 Cuneo", dto.getAddress());
+		
+		dto = detector.detectAndRemoveCountry("rue de la paix, paris-france");
+		Assert.assertEquals("FR", dto.getCountryCode());
+		Assert.assertEquals("rue de la paix, paris", dto.getAddress());
+	}
+	
+	@Test
+	public void detectAndRemoveCountry_exclusions() {
+		CountryDetector detector = new CountryDetector();
+		CountryDetectorDto dto = detector.detectAndRemoveCountry("avenida juarez, Mexico");
+		Assert.assertEquals(null, dto.getCountryCode());
+		Assert.assertEquals("avenida juarez, Mexico", dto.getAddress());
+		
+		dto = detector.detectAndRemoveCountry("calle 50, Panama");
+		Assert.assertEquals(null, dto.getCountryCode());
+		Assert.assertEquals("calle 50, Panama", dto.getAddress());
+		
+		dto = detector.detectAndRemoveCountry(null);
+		Assert.assertEquals(null, dto.getCountryCode());
+		Assert.assertEquals(null, dto.getAddress());
+	}
+	
 	@Test
 	public void DetectAndRemoveCountry_performance() {
 		CountryDetector detector = new CountryDetector();
@@ -1,5 +1,7 @@
 package com.gisgraphy.helper;
 
+import java.util.Random;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -73,6 +75,47 @@ public class LevenshteinAlgorithmTest {
 	        .execute("a", "aa"));
 	  }
 
+	  @Test
+	  public void testThreshold() {
+	    LevenshteinAlgorithm levenshtein = new LevenshteinAlgorithm(1, 1, 1, 1);
+	    Assert.assertEquals(-1, levenshtein.execute(null, "a", 1));
+	    Assert.assertEquals(0, levenshtein.execute("NawKtYu", "NawKtYu", 0));
+	    Assert.assertEquals(1, levenshtein.execute("Jdc", "dJc", 1));
+	    Assert.assertEquals(1, levenshtein.execute("Timberpoint Drive", "Timber point Drive", 1));
+	    Assert.assertEquals(1, levenshtein.execute("Sallys Path", "Sally's Path", 3));
+	    Assert.assertEquals(4, levenshtein.execute("NJtQKcJE", "cJEtQKJN", 4));
+	    //over the threshold
+	    Assert.assertEquals(2, levenshtein.execute("NJtQKcJE", "cJEtQKJN", 1));
+	    Assert.assertEquals(4, levenshtein.execute("NawKtYu", "", 3));
+	    Assert.assertEquals(2, levenshtein.execute("rue de la paix", "rue de la", 1));
+	    Assert.assertEquals(2, levenshtein.execute("rue de la paix", "rue du la pain", 1));
+	  }
+
+	  @Test
+	  public void testThresholdShouldGiveTheSameDistanceAsExecute() {
+	    Random random = new Random(42);
+	    LevenshteinAlgorithm[] algorithms = { new LevenshteinAlgorithm(1, 1, 1, 1),
+	        new LevenshteinAlgorithm(2, 1, 3, 2), new LevenshteinAlgorithm(1, 3, 2, 2) };
+	    for (LevenshteinAlgorithm levenshtein : algorithms) {
+	      for (int i = 0; i < 20000; i++) {
+	        String source = randomString(random);
+	        String target = randomString(random);
+	        int threshold = random.nextInt(5);
+	        Assert.assertEquals(source + " / " + target + " / " + threshold,
+	            Math.min(levenshtein.execute(source, target), threshold + 1),
+	            levenshtein.execute(source, target, threshold));
+	      }
+	    }
+	  }
+
+	  private static String randomString(Random random) {
+	    char[] chars = new char[random.nextInt(8)];
+	    for (int i = 0; i < chars.length; i++) {
+	      chars[i] = (char) ('a' + random.nextInt(4));
+	    }
+	    return new String(chars);
+	  }
+
 	  @Test
 	  public void testInvalidCosts() {
 	    try {
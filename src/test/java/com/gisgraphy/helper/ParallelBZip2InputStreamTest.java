@@ -0,0 +1,142 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.helper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelBZip2InputStreamTest {
+
+    /**
+     * @return lines of text, that are compressed in several blocks of 100k
+     */
+    private static byte[] createText(int lines, long seed) {
+	Random random = new Random(seed);
+	StringBuilder text = new StringBuilder();
+	for (int i = 0; i < lines; i++) {
+	    text.append(i).append('\t').append("street ").append(random.nextInt(100000))
+	    .append('\t').append(random.nextDouble()).append('\t').append(Long.toHexString(random.nextLong())).append('\n');
+	}
+	return text.toString().getBytes();
+    }
+
+    private static byte[] compress(byte[] data) throws IOException {
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	BZip2CompressorOutputStream bzip2 = new BZip2CompressorOutputStream(out, 1);
+	bzip2.write(data);
+	bzip2.close();
+	return out.toByteArray();
+    }
+
+    private static byte[] readFully(InputStream in, int bufferSize) throws IOException {
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	byte[] buffer = new byte[bufferSize];
+	int count;
+	while ((count = in.read(buffer)) != -1) {
+	    out.write(buffer, 0, count);
+	}
+	in.close();
+	return out.toByteArray();
+    }
+
+    @Test
+    public void readShouldDecompressAllTheBlocksInOrder() throws IOException {
+	byte[] text = createText(20000, 1);
+	InputStream in = new ParallelBZip2InputStream(new ByteArrayInputStream(compress(text)), 3);
+	Assert.assertArrayEquals(text, readFully(in, 1000));
+    }
+
+    @Test
+    public void readShouldDecompressTheConcatenatedStreams() throws IOException {
+	byte[] first = createText(10000, 2);
+	byte[] second = createText(5, 3);
+	ByteArrayOutputStream concatenated = new ByteArrayOutputStream();
+	concatenated.write(compress(first));
+	concatenated.write(compress(new byte[0]));
+	concatenated.write(compress(second));
+	ByteArrayOutputStream expected = new ByteArrayOutputStream();
+	expected.write(first);
+	expected.write(second);
+	InputStream in = new ParallelBZip2InputStream(new ByteArrayInputStream(concatenated.toByteArray()), 2);
+	Assert.assertArrayEquals(expected.toByteArray(), readFully(in, 8192));
+    }
+
+    @Test
+    public void readShouldDecompressByteByByte() throws IOException {
+	byte[] text = createText(100, 4);
+	InputStream in = new ParallelBZip2InputStream(new ByteArrayInputStream(compress(text)), 1);
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	int value;
+	while ((value = in.read()) != -1) {
+	    out.write(value);
+	}
+	in.close();
+	Assert.assertArrayEquals(text, out.toByteArray());
+    }
+
+    @Test
+    public void readShouldDecompressAGisFile() throws IOException {
+	InputStream in = new ParallelBZip2InputStream(new FileInputStream(new File("./data/tests/gis/test.gis")), 0);
+	//an empty file in a tar
+	Assert.assertEquals(1536, readFully(in, 512).length);
+    }
+
+    @Test(expected = IOException.class)
+    public void readShouldThrowForACorruptedStream() throws IOException {
+	byte[] compressed = compress(createText(20000, 5));
+	//in the data of the second block
+	compressed[compressed.length / 2] ^= 0x10;
+	readFully(new ParallelBZip2InputStream(new ByteArrayInputStream(compressed), 2), 8192);
+    }
+
+    @Test(expected = IOException.class, timeout = 10000)
+    public void readShouldThrowIfTheStreamFailsWithARuntimeException() throws IOException {
+	InputStream failing = new InputStream() {
+	    private int position = 0;
+
+	    @Override
+	    public int read() {
+		if (position == 3) {
+		    throw new IllegalStateException("the stream failed");
+		}
+		return "BZh".charAt(position++);
+	    }
+	};
+	readFully(new ParallelBZip2InputStream(failing, 2), 8192);
+    }
+
+    @Test(expected = IOException.class)
+    public void constructorShouldThrowIfTheStreamIsNotBzip2() throws IOException {
+	new ParallelBZip2InputStream(new ByteArrayInputStream("not compressed".getBytes()), 2);
+    }
+
+}
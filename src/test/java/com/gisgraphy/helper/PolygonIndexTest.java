@@ -0,0 +1,75 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.helper;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+
+public class PolygonIndexTest {
+
+    private Geometry polygon(String wkt) throws ParseException {
+	return new WKTReader().read(wkt);
+    }
+
+    @Test
+    public void listContainingShouldSortByArea() throws ParseException {
+	PolygonIndex index = new PolygonIndex();
+	index.add(1L, polygon("POLYGON((0 0, 10 0, 10 10, 0 10, 0 0))"), false);
+	index.add(2L, polygon("POLYGON((0 0, 2 0, 2 2, 0 2, 0 0))"), true);
+	index.add(3L, polygon("POLYGON((0 0, 5 0, 5 5, 0 5, 0 0))"), true);
+	index.add(4L, polygon("POLYGON((20 20, 30 20, 30 30, 20 30, 20 20))"), true);
+	index.add(5L, null, true);
+	index.build();
+	Assert.assertEquals(4, index.size());
+
+	List<Long> ids = index.listContaining(GeolocHelper.createPoint(1F, 1F), false, true);
+	Assert.assertEquals(3, ids.size());
+	Assert.assertEquals(Long.valueOf(1L), ids.get(0));
+	Assert.assertEquals(Long.valueOf(3L), ids.get(1));
+	Assert.assertEquals(Long.valueOf(2L), ids.get(2));
+
+	ids = index.listContaining(GeolocHelper.createPoint(1F, 1F), true, false);
+	Assert.assertEquals(2, ids.size());
+	Assert.assertEquals(Long.valueOf(2L), ids.get(0));
+	Assert.assertEquals(Long.valueOf(3L), ids.get(1));
+    }
+
+    @Test
+    public void getSmallestContaining() throws ParseException {
+	PolygonIndex index = new PolygonIndex();
+	index.add(1L, polygon("POLYGON((0 0, 10 0, 10 10, 0 10, 0 0))"), true);
+	index.add(2L, polygon("POLYGON((0 0, 2 0, 2 2, 0 2, 0 0))"), false);
+	index.build();
+	Assert.assertEquals(Long.valueOf(2L), index.getSmallestContaining(GeolocHelper.createPoint(1F, 1F), false));
+	Assert.assertEquals(Long.valueOf(1L), index.getSmallestContaining(GeolocHelper.createPoint(1F, 1F), true));
+	Assert.assertEquals(Long.valueOf(1L), index.getSmallestContaining(GeolocHelper.createPoint(5F, 5F), false));
+	Assert.assertNull(index.getSmallestContaining(GeolocHelper.createPoint(15F, 15F), false));
+    }
+
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ *   Gisgraphy Project
+ *
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ *
+ *  Copyright 2008  Gisgraphy project
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *
+ *
+ *******************************************************************************/
+package com.gisgraphy.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+
+public class StreetNameIndexTest {
+
+    private Geometry shape(String wkt) throws ParseException {
+	return new WKTReader().read(wkt);
+    }
+
+    private StreetNameIndex createIndex() throws ParseException {
+	StreetNameIndex index = new StreetNameIndex("FR");
+	index.add(1L, Arrays.asList("Rue de Rivoli"), shape("LINESTRING(2.350 48.856, 2.360 48.856)"));
+	//same name, 330 meters to the north
+	index.add(2L, Arrays.asList("Rue de Rivoli"), shape("LINESTRING(2.350 48.859, 2.360 48.859)"));
+	index.add(3L, Arrays.asList("Avenue Victor Hugo", "Avenue du Poète"), shape("MULTILINESTRING((2.3540 48.8570, 2.3540 48.8580),(2.3560 48.8570, 2.3560 48.8580))"));
+	index.add(4L, new ArrayList<String>(), shape("LINESTRING(2.3549 48.8562, 2.3551 48.8562)"));
+	index.add(5L, Arrays.asList("Rue sans forme"), null);
+	index.build();
+	return index;
+    }
+
+    @Test
+    public void getNearestShouldReturnTheNearestStreetWithTheSameName() throws ParseException {
+	StreetNameIndex index = createIndex();
+	Assert.assertEquals(4, index.size());
+	Point point = GeolocHelper.createPoint(2.355F, 48.8562F);
+	Assert.assertEquals(Long.valueOf(1L), index.getNearest("rue de Rivoli", point, 500));
+	Assert.assertEquals(Long.valueOf(2L), index.getNearest("Rue de Rivoli", GeolocHelper.createPoint(2.355F, 48.8588F), 500));
+	Assert.assertEquals("the alternate names should be indexed", Long.valueOf(3L), index.getNearest("avenue du poete", point, 500));
+	Assert.assertNull(index.getNearest("Rue de Rivoli", GeolocHelper.createPoint(2.355F, 48.8700F), 500));
+	Assert.assertNull(index.getNearest("Rue inconnue", point, 500));
+	Assert.assertNull(index.getNearest("", point, 500));
+	Assert.assertNull(index.getNearest("Rue de Rivoli", null, 500));
+    }
+
+    @Test
+    public void getNearestShouldApplyTheStreetNameRules() throws ParseException {
+	StreetNameIndex index = createIndex();
+	Point point = GeolocHelper.createPoint(2.355F, 48.8562F);
+	Assert.assertEquals(Long.valueOf(1L), index.getNearest("Rue Rivoli", point, 500));
+	Assert.assertEquals(Long.valueOf(2L), index.getNearest("Rue Rivoli", GeolocHelper.createPoint(2.355F, 48.8588F), 500));
+	Assert.assertNull(index.getNearest("Rue Rivoli", GeolocHelper.createPoint(2.355F, 48.8700F), 500));
+    }
+
+    @Test
+    public void getNearestShouldReturnTheNearestStreetWithoutName() throws ParseException {
+	StreetNameIndex index = createIndex();
+	Assert.assertEquals(Long.valueOf(4L), index.getNearest(GeolocHelper.createPoint(2.355F, 48.8562F), 500));
+	Assert.assertEquals("the distance should be computed from the segments", Long.valueOf(3L),
+		index.getNearest(GeolocHelper.createPoint(2.3561F, 48.8575F), 500));
+	Assert.assertNull(index.getNearest(GeolocHelper.createPoint(3F, 49F), 500));
+    }
+
+    @Test
+    public void squaredDistanceToSegmentShouldProjectOnTheSegment() {
+	Assert.assertEquals(1D, StreetNameIndex.squaredDistanceToSegment(-1, 1, 1, 1), 0.0000001);
+	Assert.assertEquals(2D, StreetNameIndex.squaredDistanceToSegment(1, 1, 2, 2), 0.0000001);
+	Assert.assertEquals(4D, StreetNameIndex.squaredDistanceToSegment(2, 0, 2, 0), 0.0000001);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void getNearestShouldNotBeCalledBeforeBuild() {
+	new StreetNameIndex("FR").getNearest(GeolocHelper.createPoint(2F, 48F), 500);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void addShouldNotBeCalledAfterBuild() throws ParseException {
+	createIndex().add(6L, Arrays.asList("foo"), shape("LINESTRING(2 48, 3 49)"));
+    }
+
+    @Test
+    public void getNameKeyShouldNormalizeTheName() {
+	Assert.assertEquals("avenue du poete", StreetNameIndex.getNameKey(" Avenue du Poète"));
+	Assert.assertNull(StreetNameIndex.getNameKey(" "));
+	Assert.assertNull(StreetNameIndex.getNameKey(null));
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.gisgraphy.hibernate.projection;
+
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gisgraphy.domain.geoloc.entity.City;
+import com.gisgraphy.domain.geoloc.entity.GisFeature;
+import com.gisgraphy.domain.valueobject.GisFeatureDistance;
+import com.gisgraphy.helper.IntrospectionHelper;
+import com.gisgraphy.hibernate.criterion.ResultTransformerUtil;
+import com.gisgraphy.test.GisgraphyTestHelper;
+
+public class GisFeatureDistanceMapperTest {
+
+    /**
+     * @return the values of the fields of the feature, as projected by the
+     *         geoloc queries
+     */
+    static Object[] createTuple(GisFeature gisFeature, String[] aliases, Double distance) throws Exception {
+	Map<String, PropertyDescriptor> descriptors = new HashMap<String, PropertyDescriptor>();
+	for (PropertyDescriptor descriptor : Introspector.getBeanInfo(gisFeature.getClass()).getPropertyDescriptors()) {
+	    descriptors.put(descriptor.getName(), descriptor);
+	}
+	Object[] tuple = new Object[distance == null ? aliases.length : aliases.length + 1];
+	for (int i = 0; i < aliases.length; i++) {
+	    PropertyDescriptor descriptor = descriptors.get(aliases[i]);
+	    if (descriptor != null && descriptor.getReadMethod() != null) {
+		tuple[i] = descriptor.getReadMethod().invoke(gisFeature);
+	    }
+	}
+	if (distance != null) {
+	    tuple[aliases.length] = distance;
+	}
+	return tuple;
+    }
+
+    @Test
+    public void getInstanceShouldReturnTheSameMapperForAPlacetype() {
+	Assert.assertSame(GisFeatureDistanceMapper.getInstance(City.class), GisFeatureDistanceMapper.getInstance(City.class));
+	Assert.assertNotSame(GisFeatureDistanceMapper.getInstance(City.class), GisFeatureDistanceMapper.getInstance(GisFeature.class));
+    }
+
+    @Test
+    public void theAliasesShouldBeTheFieldsOfThePlacetype() {
+	GisFeatureDistanceMapper mapper = GisFeatureDistanceMapper.getInstance(City.class);
+	Assert.assertEquals(Arrays.asList(IntrospectionHelper.getFieldsAsArray(City.class)), Arrays.asList(mapper.getAliases()));
+	Assert.assertEquals("id", mapper.getAliases()[mapper.getIdIndex()]);
+	Assert.assertEquals(mapper.getAliases().length, mapper.createProjectionList().getLength());
+    }
+
+    @Test
+    public void transformShouldBeTheSameAsTheAliasToBeanTransformer() throws Exception {
+	GisFeatureDistanceMapper mapper = GisFeatureDistanceMapper.getInstance(City.class);
+	City paris = GisgraphyTestHelper.createCity("paris", 2.3333F, 48.86667F, 1L);
+	paris.setId(1L);
+	City lyon = GisgraphyTestHelper.createCity("lyon", 4.85F, 45.75F, 2L);
+	lyon.setId(2L);
+	for (Double distance : new Double[] { null, 12.5D }) {
+	    List<Object[]> tuples = new ArrayList<Object[]>();
+	    tuples.add(createTuple(paris, mapper.getAliases(), distance));
+	    tuples.add(createTuple(lyon, mapper.getAliases(), distance));
+	    //a duplicate
+	    tuples.add(createTuple(paris, mapper.getAliases(), distance));
+	    String[] aliases = mapper.getAliases();
+	    if (distance != null) {
+		aliases = Arrays.copyOf(aliases, aliases.length + 1);
+		aliases[aliases.length - 1] = GisFeatureDistanceMapper.DISTANCE_ALIAS;
+	    }
+	    Map<Long, Set<String>> zipCodes = new HashMap<Long, Set<String>>();
+	    zipCodes.put(1L, new HashSet<String>(Arrays.asList("75000")));
+
+	    List<GisFeatureDistance> expected = ResultTransformerUtil.transformToGisFeatureDistance(aliases, tuples, zipCodes, City.class);
+	    List<GisFeatureDistance> actual = mapper.transform(tuples, zipCodes);
+
+	    Assert.assertEquals(expected.size(), actual.size());
+	    for (int i = 0; i < expected.size(); i++) {
+		Assert.assertEquals(expected.get(i).getId(), actual.get(i).getId());
+		Assert.assertEquals(expected.get(i).getName(), actual.get(i).getName());
+		Assert.assertEquals(expected.get(i).getFeatureId(), actual.get(i).getFeatureId());
+		Assert.assertEquals(expected.get(i).getLocation(), actual.get(i).getLocation());
+		Assert.assertEquals(expected.get(i).getLat(), actual.get(i).getLat());
+		Assert.assertEquals(expected.get(i).getLng(), actual.get(i).getLng());
+		Assert.assertEquals(expected.get(i).getDistance(), actual.get(i).getDistance());
+		Assert.assertEquals(expected.get(i).getPlaceType(), actual.get(i).getPlaceType());
+		Assert.assertEquals(expected.get(i).getZipCodes(), actual.get(i).getZipCodes());
+		Assert.assertEquals(expected.get(i).getGoogle_map_url(), actual.get(i).getGoogle_map_url());
+	    }
+	}
+    }
+
+}
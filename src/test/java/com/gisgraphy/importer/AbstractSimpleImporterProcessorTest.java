@@ -2,12 +2,28 @@ package com.gisgraphy.importer;
 
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.easymock.EasyMock;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import com.gisgraphy.domain.valueobject.Constants;
+import com.gisgraphy.domain.valueobject.ImporterStatus;
 import com.gisgraphy.domain.valueobject.NameValueDTO;
 
 public class AbstractSimpleImporterProcessorTest {
@@ -127,5 +143,196 @@ public class AbstractSimpleImporterProcessorTest {
 		
 	}
 	
+	@Test
+	public void processWithWorkers() throws Exception {
+		final File file = File.createTempFile("importerWithWorkers", ".txt");
+		file.deleteOnExit();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), Constants.CHARSET);
+		writer.write("header\n");
+		writer.write("#comment\n");
+		for (int i = 0; i < 25; i++) {
+			writer.write("line" + i + "\n");
+		}
+		writer.close();
+		final List<String> processed = Collections.synchronizedList(new ArrayList<String>());
+		final Set<String> threads = Collections.synchronizedSet(new HashSet<String>());
+		AbstractSimpleImporterProcessor importerProcessor = new AbstractSimpleImporterProcessor() {
+			
+			public List<NameValueDTO<Integer>> rollback() {
+				return null;
+			}
+			
+			@Override
+			protected boolean shouldIgnoreFirstLine() {
+				return true;
+			}
+			
+			@Override
+			protected boolean shouldIgnoreComments() {
+				return true;
+			}
+			
+			@Override
+			protected void setCommitFlushMode() {
+				
+			}
+			
+			@Override
+			protected void processData(String line) throws ImporterException {
+				threads.add(Thread.currentThread().getName());
+				processed.add(line);
+			}
+			
+			@Override
+			protected boolean isParallelProcessingSupported() {
+				return true;
+			}
+			
+			@Override
+			protected int getNumberOfColumns() {
+				return 0;
+			}
+			
+			@Override
+			protected File[] getFiles() {
+				return new File[]{file};
+			}
+			
+			@Override
+			protected void flushAndClear() {
+				
+			}
+		};
+		ImporterConfig importerConfig = new ImporterConfig();
+		importerConfig.setNumberOfWorkers(3);
+		importerConfig.setMaxInsertsBeforeFlush(4);
+		importerProcessor.setImporterConfig(importerConfig);
+		PlatformTransactionManager transactionManager = EasyMock.createNiceMock(PlatformTransactionManager.class);
+		EasyMock.replay(transactionManager);
+		importerProcessor.setTransactionManager(transactionManager);
+		
+		importerProcessor.process();
+		
+		Assert.assertEquals(ImporterStatus.PROCESSED, importerProcessor.getStatus());
+		Assert.assertEquals(25, processed.size());
+		for (int i = 0; i < 25; i++) {
+			Assert.assertTrue(processed.contains("line" + i));
+		}
+		Assert.assertFalse(processed.contains("header"));
+		Assert.assertEquals(27, importerProcessor.getReadFileLine());
+		Assert.assertEquals(27, importerProcessor.getTotalReadLine());
+		Assert.assertFalse("the lines should be processed by the workers", threads.contains(Thread.currentThread().getName()));
+	}
+	
+	private static void addTarEntry(TarArchiveOutputStream tar, String name, String content) throws Exception {
+		byte[] bytes = content.getBytes(Constants.CHARSET);
+		TarArchiveEntry entry = new TarArchiveEntry(name);
+		entry.setSize(bytes.length);
+		tar.putArchiveEntry(entry);
+		tar.write(bytes);
+		tar.closeArchiveEntry();
+	}
+	
+	@Test
+	public void processArchive() throws Exception {
+		final File archive = File.createTempFile("importerArchive", ".gis");
+		archive.deleteOnExit();
+		TarArchiveOutputStream tar = new TarArchiveOutputStream(new BZip2CompressorOutputStream(new FileOutputStream(archive)));
+		addTarEntry(tar, "FR.txt", "header\nFR1\nFR2\nFR3");
+		addTarEntry(tar, "readme.txt", "not imported\n");
+		addTarEntry(tar, "dir/DE.txt", "header\n#comment\nDE1\n");
+		tar.close();
+		final List<String> processed = new ArrayList<String>();
+		AbstractSimpleImporterProcessor importerProcessor = new AbstractSimpleImporterProcessor() {
+			
+			public List<NameValueDTO<Integer>> rollback() {
+				return null;
+			}
+			
+			@Override
+			protected boolean shouldIgnoreFirstLine() {
+				return true;
+			}
+			
+			@Override
+			protected boolean shouldIgnoreComments() {
+				return true;
+			}
+			
+			@Override
+			protected void setCommitFlushMode() {
+				
+			}
+			
+			@Override
+			protected void processData(String line) throws ImporterException {
+				processed.add(line);
+			}
+			
+			@Override
+			protected int getNumberOfColumns() {
+				return 0;
+			}
+			
+			@Override
+			protected File[] getFiles() {
+				return new File[]{archive};
+			}
+			
+			@Override
+			protected void flushAndClear() {
+				
+			}
+		};
+		importerProcessor.setImporterConfig(new ImporterConfig());
+		PlatformTransactionManager transactionManager = EasyMock.createNiceMock(PlatformTransactionManager.class);
+		EasyMock.replay(transactionManager);
+		importerProcessor.setTransactionManager(transactionManager);
+		
+		importerProcessor.process();
+		
+		Assert.assertEquals(ImporterStatus.PROCESSED, importerProcessor.getStatus());
+		Assert.assertEquals("the files of the archive should be processed without the readme", 
+				Arrays.asList("FR1", "FR2", "FR3", "DE1"), processed);
+		Assert.assertEquals("the lines of the first file of the archive should be counted",
+				4, AbstractSimpleImporterProcessor.estimateArchiveLines(archive));
+	}
+	
+	@Test
+	public void countNewLines() {
+		Assert.assertEquals(0, AbstractSimpleImporterProcessor.countNewLines(ByteBuffer.wrap(new byte[0])));
+		Assert.assertEquals(3, AbstractSimpleImporterProcessor.countNewLines(ByteBuffer.wrap("a\nb\n\n".getBytes())));
+		byte[] bytes = new byte[1001];
+		int expected = 0;
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) (i % 7 == 0 ? '\n' : i % 3 == 0 ? 0x8A : 'x');
+			if (bytes[i] == '\n') {
+				expected++;
+			}
+		}
+		Assert.assertEquals(expected, AbstractSimpleImporterProcessor.countNewLines(ByteBuffer.wrap(bytes)));
+	}
+	
+	@Test
+	public void countOrEstimateLines() throws Exception {
+		File file = File.createTempFile("countLines", ".txt");
+		file.deleteOnExit();
+		Assert.assertEquals(0, AbstractSimpleImporterProcessor.countOrEstimateLines(file));
+		
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), Constants.CHARSET);
+		writer.write("line1\nline2\nline3");
+		writer.close();
+		Assert.assertEquals("the last line without new line should be counted", 3, AbstractSimpleImporterProcessor.countOrEstimateLines(file));
+		
+		//a file bigger than the sample, with lines of 10 bytes
+		writer = new OutputStreamWriter(new FileOutputStream(file), Constants.CHARSET);
+		int nbLines = (AbstractSimpleImporterProcessor.LINE_COUNT_SAMPLE_SIZE / 10) * 3;
+		for (int i = 0; i < nbLines; i++) {
+			writer.write("123456789\n");
+		}
+		writer.close();
+		long estimated = AbstractSimpleImporterProcessor.countOrEstimateLines(file);
+		Assert.assertTrue("estimated : " + estimated + ", expected " + nbLines, Math.abs(estimated - nbLines) <= nbLines / 100);
+	}
 
 }
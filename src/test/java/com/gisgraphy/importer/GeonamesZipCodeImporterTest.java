@@ -47,6 +47,7 @@ import com.gisgraphy.fulltext.FulltextResultsDto;
 import com.gisgraphy.fulltext.IFullTextSearchEngine;
 import com.gisgraphy.fulltext.SolrResponseDto;
 import com.gisgraphy.helper.GeolocHelper;
+import com.gisgraphy.test.GisgraphyTestHelper;
 import com.vividsolutions.jts.geom.Point;
 
 
@@ -169,6 +170,7 @@ public class GeonamesZipCodeImporterTest {
 		
 		importer.setCityDao(cityDao);
 		importer.setCitySubdivisionDao(citySubdivisionDao);
+		importer.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, citySubdivisionDao, null));
 		
 		boolean actual = importer.getByShape(countryCode, "code", location);
 		Assert.assertEquals(true, actual);
@@ -199,6 +201,7 @@ public class GeonamesZipCodeImporterTest {
 		
 		importer.setCityDao(cityDao);
 		importer.setCitySubdivisionDao(citySubdivisionDao);
+		importer.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, citySubdivisionDao, null));
 		
 		
 		boolean actual = importer.getByShape(countryCode, "code", location);
@@ -730,6 +733,7 @@ public class GeonamesZipCodeImporterTest {
     	EasyMock.expect(admDaoMock.ListByShape(EasyMock.anyObject(Point.class), EasyMock.anyObject(String.class))).andReturn(adms);
     	EasyMock.replay(admDaoMock);
     	importer.setAdmDao(admDaoMock);
+    	importer.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDaoMock, null, admDaoMock));
     	
     	
     	ImporterConfig importerConfig = new ImporterConfig();
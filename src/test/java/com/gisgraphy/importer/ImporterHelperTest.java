@@ -485,4 +485,16 @@ public class ImporterHelperTest {
 	    
 	   
 	
+	    @Test
+	    public void testGetCountryCodeFromFileName() {
+	    	Assert.assertEquals("FR", ImporterHelper.getCountryCodeFromFileName("FR.txt"));
+	    	Assert.assertEquals("DE", ImporterHelper.getCountryCodeFromFileName("/data/openstreetmap/de.txt"));
+	    	Assert.assertEquals("splited file", "US", ImporterHelper.getCountryCodeFromFileName("US_12.txt"));
+	    	Assert.assertNull(ImporterHelper.getCountryCodeFromFileName("FRx1.txt"));
+	    	Assert.assertNull(ImporterHelper.getCountryCodeFromFileName("allCountries.txt"));
+	    	Assert.assertNull(ImporterHelper.getCountryCodeFromFileName("allCountries_1.txt"));
+	    	Assert.assertNull(ImporterHelper.getCountryCodeFromFileName("localities.txt"));
+	    	Assert.assertNull(ImporterHelper.getCountryCodeFromFileName(null));
+	    }
+	    
 }
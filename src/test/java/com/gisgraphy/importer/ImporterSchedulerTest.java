@@ -0,0 +1,183 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.importer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gisgraphy.domain.valueobject.ImporterStatus;
+import com.gisgraphy.domain.valueobject.NameValueDTO;
+
+public class ImporterSchedulerTest {
+
+    private static class FakeImporter implements IImporterProcessor {
+
+	private final String name;
+	private final List<String> executionOrder;
+	private final CountDownLatch latch;
+	private final boolean fail;
+
+	FakeImporter(String name, List<String> executionOrder, CountDownLatch latch, boolean fail) {
+	    this.name = name;
+	    this.executionOrder = executionOrder;
+	    this.latch = latch;
+	    this.fail = fail;
+	}
+
+	public void process() {
+	    if (latch != null) {
+		latch.countDown();
+		try {
+		    //wait for the other importer to be started
+		    if (!latch.await(5, TimeUnit.SECONDS)) {
+			throw new ImporterException(name + " is not run concurrently");
+		    }
+		} catch (InterruptedException e) {
+		    throw new ImporterException(e);
+		}
+	    }
+	    if (fail) {
+		throw new ImporterException(name + " has failed");
+	    }
+	    executionOrder.add(name);
+	}
+
+	public long getReadFileLine() {
+	    return 0;
+	}
+
+	public long getTotalReadLine() {
+	    return 0;
+	}
+
+	public String getCurrentFileName() {
+	    return null;
+	}
+
+	public long getNumberOfLinesToProcess() {
+	    return 0;
+	}
+
+	public ImporterStatus getStatus() {
+	    return null;
+	}
+
+	public String getStatusMessage() {
+	    return null;
+	}
+
+	public List<NameValueDTO<Integer>> rollback() {
+	    return null;
+	}
+
+	public boolean shouldBeSkipped() {
+	    return false;
+	}
+
+	public void resetStatus() {
+	}
+    }
+
+    @Test
+    public void runWithoutPrerequisitesShouldBeSequential() {
+	List<String> order = Collections.synchronizedList(new ArrayList<String>());
+	List<IImporterProcessor> importers = new ArrayList<IImporterProcessor>();
+	for (int i = 0; i < 5; i++) {
+	    importers.add(new FakeImporter("importer" + i, order, null, false));
+	}
+	new ImporterScheduler(importers, null, 3).run();
+	Assert.assertEquals(Arrays.asList("importer0", "importer1", "importer2", "importer3", "importer4"), order);
+    }
+
+    @Test
+    public void runShouldRunIndependentImportersConcurrently() {
+	List<String> order = Collections.synchronizedList(new ArrayList<String>());
+	CountDownLatch latch = new CountDownLatch(2);
+	IImporterProcessor first = new FakeImporter("first", order, null, false);
+	IImporterProcessor pois = new FakeImporter("pois", order, latch, false);
+	IImporterProcessor houseNumbers = new FakeImporter("houseNumbers", order, latch, false);
+	IImporterProcessor last = new FakeImporter("last", order, null, false);
+	List<IImporterProcessor> importers = Arrays.asList(first, pois, houseNumbers, last);
+	Map<IImporterProcessor, List<IImporterProcessor>> prerequisites = new HashMap<IImporterProcessor, List<IImporterProcessor>>();
+	prerequisites.put(houseNumbers, Arrays.asList(first));
+
+	new ImporterScheduler(importers, prerequisites, 2).run();
+	Assert.assertEquals(4, order.size());
+	Assert.assertEquals("first", order.get(0));
+	Assert.assertEquals("last", order.get(3));
+    }
+
+    @Test
+    public void runShouldNotStartImportersAfterAFailure() {
+	List<String> order = Collections.synchronizedList(new ArrayList<String>());
+	IImporterProcessor first = new FakeImporter("first", order, null, true);
+	IImporterProcessor second = new FakeImporter("second", order, null, false);
+	try {
+	    new ImporterScheduler(Arrays.asList(first, second), null, 2).run();
+	    Assert.fail("the error of the importer should be thrown");
+	} catch (ImporterException e) {
+	    //ok
+	}
+	Assert.assertTrue(order.isEmpty());
+    }
+
+    @Test
+    public void prerequisitesWithCycleShouldThrow() {
+	List<String> order = new ArrayList<String>();
+	IImporterProcessor first = new FakeImporter("first", order, null, false);
+	IImporterProcessor second = new FakeImporter("second", order, null, false);
+	Map<IImporterProcessor, List<IImporterProcessor>> prerequisites = new HashMap<IImporterProcessor, List<IImporterProcessor>>();
+	prerequisites.put(first, Arrays.asList(second));
+	try {
+	    new ImporterScheduler(Arrays.asList(first, second), prerequisites, 2);
+	    Assert.fail("a cycle should be detected");
+	} catch (ImporterException e) {
+	    //ok
+	}
+    }
+
+    @Test
+    public void prerequisitesShouldBeInTheImportersList() {
+	List<String> order = new ArrayList<String>();
+	IImporterProcessor first = new FakeImporter("first", order, null, false);
+	IImporterProcessor unknown = new FakeImporter("unknown", order, null, false);
+	Map<IImporterProcessor, List<IImporterProcessor>> prerequisites = new HashMap<IImporterProcessor, List<IImporterProcessor>>();
+	prerequisites.put(first, Arrays.asList(unknown));
+	try {
+	    new ImporterScheduler(Arrays.asList(first), prerequisites, 2);
+	    Assert.fail("unknown prerequisite should be detected");
+	} catch (ImporterException e) {
+	    //ok
+	}
+    }
+
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gisgraphy.domain.geoloc.entity.Adm;
+import com.gisgraphy.domain.geoloc.entity.City;
+import com.gisgraphy.domain.repository.IAdmDao;
+import com.gisgraphy.domain.repository.ICityDao;
+import com.gisgraphy.helper.GeolocHelper;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.io.WKTReader;
+
+public class ImporterShapeIndexTest {
+
+    @Test
+    public void getCityByShapeShouldUseTheDaoWhenDisabled() {
+	Point point = GeolocHelper.createPoint(1F, 1F);
+	City city = new City();
+	ICityDao cityDao = EasyMock.createMock(ICityDao.class);
+	EasyMock.expect(cityDao.getByShape(point, "FR", true)).andReturn(city);
+	EasyMock.replay(cityDao);
+
+	ImporterShapeIndex index = new ImporterShapeIndex();
+	index.setCityDao(cityDao);
+	Assert.assertSame(city, index.getCityByShape(point, "FR", true));
+	EasyMock.verify(cityDao);
+    }
+
+    @Test
+    public void getCityByShapeShouldLoadTheShapesOnlyOncePerCountry() throws Exception {
+	List<Object[]> rows = new ArrayList<Object[]>();
+	rows.add(new Object[] { 1L, new WKTReader().read("POLYGON((0 0, 10 0, 10 10, 0 10, 0 0))"), true });
+	rows.add(new Object[] { 2L, new WKTReader().read("POLYGON((0 0, 2 0, 2 2, 0 2, 0 0))"), false });
+	City city1 = new City();
+	City city2 = new City();
+	ICityDao cityDao = EasyMock.createMock(ICityDao.class);
+	EasyMock.expect(cityDao.listIdShapeAndMunicipalityByCountryCode("FR")).andReturn(rows).once();
+	EasyMock.expect(cityDao.get(1L)).andReturn(city1);
+	EasyMock.expect(cityDao.get(2L)).andReturn(city2);
+	EasyMock.replay(cityDao);
+
+	ImporterShapeIndex index = new ImporterShapeIndex();
+	index.setCityDao(cityDao);
+	index.setEnabled(true);
+	Assert.assertSame(city1, index.getCityByShape(GeolocHelper.createPoint(1F, 1F), "FR", true));
+	Assert.assertSame(city2, index.getCityByShape(GeolocHelper.createPoint(1F, 1F), "fr", false));
+	Assert.assertNull(index.getCityByShape(GeolocHelper.createPoint(50F, 50F), "FR", false));
+	EasyMock.verify(cityDao);
+    }
+
+    @Test
+    public void listAdmByShapeShouldReturnTheLargestFirst() throws Exception {
+	List<Object[]> rows = new ArrayList<Object[]>();
+	rows.add(new Object[] { 1L, new WKTReader().read("POLYGON((0 0, 2 0, 2 2, 0 2, 0 0))") });
+	rows.add(new Object[] { 2L, new WKTReader().read("POLYGON((0 0, 10 0, 10 10, 0 10, 0 0))") });
+	Adm adm1 = new Adm(2);
+	Adm adm2 = new Adm(1);
+	IAdmDao admDao = EasyMock.createMock(IAdmDao.class);
+	EasyMock.expect(admDao.listIdAndShapeByCountryCode("FR")).andReturn(rows);
+	EasyMock.expect(admDao.get(1L)).andReturn(adm1);
+	EasyMock.expect(admDao.get(2L)).andReturn(adm2);
+	EasyMock.replay(admDao);
+
+	ImporterShapeIndex index = new ImporterShapeIndex();
+	index.setAdmDao(admDao);
+	index.setEnabled(true);
+	List<Adm> adms = index.listAdmByShape(GeolocHelper.createPoint(1F, 1F), "FR");
+	Assert.assertEquals(2, adms.size());
+	Assert.assertSame(adm2, adms.get(0));
+	Assert.assertSame(adm1, adms.get(1));
+	EasyMock.verify(admDao);
+    }
+
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gisgraphy.domain.geoloc.entity.OpenStreetMap;
+import com.gisgraphy.domain.repository.IOpenStreetMapDao;
+import com.gisgraphy.helper.GeolocHelper;
+import com.vividsolutions.jts.io.WKTReader;
+
+public class ImporterStreetIndexTest {
+
+    private List<Object[]> createStreetRows() throws Exception {
+	List<Object[]> rows = new ArrayList<Object[]>();
+	rows.add(new Object[] { 1L, "Rue de Rivoli", new WKTReader().read("LINESTRING(2.350 48.856, 2.360 48.856)") });
+	rows.add(new Object[] { 2L, null, new WKTReader().read("LINESTRING(2.350 48.8565, 2.360 48.8565)") });
+	return rows;
+    }
+
+    @Test
+    public void getNearestStreetShouldLoadTheStreetsOnlyOncePerCountry() throws Exception {
+	List<Object[]> alternateNames = new ArrayList<Object[]>();
+	alternateNames.add(new Object[] { 2L, "Passage Delorme" });
+	OpenStreetMap street1 = new OpenStreetMap();
+	OpenStreetMap street2 = new OpenStreetMap();
+	IOpenStreetMapDao openStreetMapDao = EasyMock.createMock(IOpenStreetMapDao.class);
+	EasyMock.expect(openStreetMapDao.listGidNameAndShapeByCountryCode("FR", 0, ImporterStreetIndex.BATCH_SIZE)).andReturn(createStreetRows()).once();
+	EasyMock.expect(openStreetMapDao.listAlternateNamesByCountryCode("FR", 0, 2L)).andReturn(alternateNames).once();
+	EasyMock.expect(openStreetMapDao.getByGid(1L)).andReturn(street1);
+	EasyMock.expect(openStreetMapDao.getByGid(2L)).andReturn(street2).times(2);
+	EasyMock.replay(openStreetMapDao);
+
+	ImporterStreetIndex index = new ImporterStreetIndex();
+	index.setOpenStreetMapDao(openStreetMapDao);
+	index.setEnabled(true);
+	Assert.assertSame(street1, index.getNearestStreet("rue de rivoli", GeolocHelper.createPoint(2.355F, 48.8565F), "FR", 500));
+	Assert.assertSame("the alternate names should be loaded", street2,
+		index.getNearestStreet("Passage Delorme", GeolocHelper.createPoint(2.355F, 48.8565F), "fr", 500));
+	Assert.assertSame(street2, index.getNearestStreet(null, GeolocHelper.createPoint(2.355F, 48.8565F), "FR", 500));
+	Assert.assertNull(index.getNearestStreet("Rue de Rivoli", GeolocHelper.createPoint(3F, 49F), "FR", 500));
+	Assert.assertNull(index.getNearestStreet("Rue de Rivoli", null, "FR", 500));
+	EasyMock.verify(openStreetMapDao);
+    }
+
+    @Test
+    public void clearShouldReloadTheStreets() throws Exception {
+	IOpenStreetMapDao openStreetMapDao = EasyMock.createMock(IOpenStreetMapDao.class);
+	EasyMock.expect(openStreetMapDao.listGidNameAndShapeByCountryCode("FR", 0, ImporterStreetIndex.BATCH_SIZE)).andReturn(createStreetRows()).times(2);
+	EasyMock.expect(openStreetMapDao.listAlternateNamesByCountryCode("FR", 0, 2L)).andReturn(new ArrayList<Object[]>()).times(2);
+	EasyMock.replay(openStreetMapDao);
+
+	ImporterStreetIndex index = new ImporterStreetIndex();
+	index.setOpenStreetMapDao(openStreetMapDao);
+	index.setEnabled(true);
+	Assert.assertNull(index.getNearestStreet("Rue inconnue", GeolocHelper.createPoint(2.355F, 48.8565F), "FR", 500));
+	index.clear();
+	Assert.assertNull(index.getNearestStreet("Rue inconnue", GeolocHelper.createPoint(2.355F, 48.8565F), "FR", 500));
+	EasyMock.verify(openStreetMapDao);
+    }
+
+}
@@ -1267,6 +1267,36 @@ public void testGenerateLabel_Adm(){
 		Assert.assertEquals(new HouseNumberDistance(house2_near, GeolocHelper.distance(searchPoint, houseLocation2)),nearestHouse);
 	}
 	
+	@Test
+	public void getNearestHouseOfStreet() {
+		Assert.assertNull(generator.getNearestHouseOfStreet(null, GeolocHelper.createPoint(3D, 4D)));
+		OpenStreetMap street = new OpenStreetMap();
+		street.setCountryCode("FR");
+		Assert.assertNull(generator.getNearestHouseOfStreet(street, GeolocHelper.createPoint(3D, 4D)));
+		
+		Point houseLocation = GeolocHelper.createPoint(4D, 5D);
+		HouseNumber house_far = new HouseNumber("far",houseLocation);
+		house_far.setId(1L);
+		Point houseLocation2 = GeolocHelper.createPoint(3.1D, 4.1D);
+		HouseNumber house2_near = new HouseNumber("near",houseLocation2);
+		house2_near.setId(2L);
+		house2_near.setName("the bakery");
+		street.addHouseNumber(house_far);
+		street.addHouseNumber(house2_near);
+		Point searchPoint = GeolocHelper.createPoint(3D, 4D);
+		//from the house number entities
+		Assert.assertEquals(new HouseNumberDistance(house2_near, GeolocHelper.distance(searchPoint, houseLocation2)),generator.getNearestHouseOfStreet(street, searchPoint));
+		
+		//from the encoded house numbers
+		street.encodeHouseNumbers();
+		street.setHouseNumbers(null);
+		HouseNumberDistance nearestHouse = generator.getNearestHouseOfStreet(street, searchPoint);
+		Assert.assertEquals(new HouseNumberDistance(house2_near, GeolocHelper.distance(searchPoint, houseLocation2)),nearestHouse);
+		Assert.assertEquals("near", nearestHouse.getHouseNumber().getNumber());
+		Assert.assertEquals("the bakery", nearestHouse.getHouseNumber().getName());
+		Assert.assertSame(street, nearestHouse.getHouseNumber().getStreet());
+	}
+	
 	@Test
 	public void buildAddressFromOpenstreetMap_NullOpenstreetmap(){
 		Assert.assertNull(generator.buildAddressFromOpenstreetMap(null));
@@ -2,9 +2,18 @@ package com.gisgraphy.importer;
 
 
 import org.apache.commons.lang.RandomStringUtils;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.gisgraphy.domain.geoloc.entity.HouseNumber;
+import com.gisgraphy.domain.geoloc.entity.OpenStreetMap;
+import com.gisgraphy.domain.repository.IOpenStreetMapDao;
+import com.gisgraphy.domain.repository.IhouseNumberDao;
+import com.gisgraphy.street.EncodedHouseNumbers;
+import com.vividsolutions.jts.geom.Point;
+
 public class OpenAddressesSimpleImporterTest {
 
 	@Test
@@ -136,4 +145,55 @@ public class OpenAddressesSimpleImporterTest {
 		Assert.assertEquals("32",importer.extractCasaNumber(" lot 4 CASA  32"));
 	}
 	
+	@Test
+	public void flushAndClearShouldEncodeTheNewHouseNumbersWithTheStreet(){
+		final OpenStreetMap street = new OpenStreetMap();
+		street.setId(1L);
+		OpenAddressesSimpleImporter importer = new OpenAddressesSimpleImporter(){
+			@Override
+			protected OpenStreetMap findNearestStreet(String streetName, Point location, String cleanedNumber, String[] fields) {
+				return street;
+			}
+		};
+		IhouseNumberDao houseNumberDao = EasyMock.createMock(IhouseNumberDao.class);
+		EasyMock.expect(houseNumberDao.save((HouseNumber) EasyMock.anyObject())).andAnswer(new IAnswer<HouseNumber>() {
+			public HouseNumber answer() throws Throwable {
+				HouseNumber houseNumber = (HouseNumber) EasyMock.getCurrentArguments()[0];
+				houseNumber.setId(Long.valueOf(houseNumber.getNumber()));
+				return houseNumber;
+			}
+		}).times(2);
+		EasyMock.replay(houseNumberDao);
+		IOpenStreetMapDao openStreetMapDao = EasyMock.createMock(IOpenStreetMapDao.class);
+		//encode like the dao does, the street should be saved once for its two houses
+		EasyMock.expect(openStreetMapDao.save(street)).andAnswer(new IAnswer<OpenStreetMap>() {
+			public OpenStreetMap answer() throws Throwable {
+				Assert.assertTrue(street.isHouseNumbersChanged());
+				street.encodeHouseNumbers();
+				return street;
+			}
+		});
+		EasyMock.replay(openStreetMapDao);
+		importer.houseNumberDao = houseNumberDao;
+		importer.openStreetMapDao = openStreetMapDao;
+
+		importer.processData("2.35,48.85,12,Rue de Rivoli,,Paris,,,75001,,fr:6b1a081120273836");
+		importer.processData("2.36,48.85,14,Rue de Rivoli,,Paris,,,75001,,fr:6b1a081120273837");
+		Assert.assertNull("the street should not be encoded for each house", street.getEncodedHouseNumbers());
+		importer.flushAndClear();
+
+		EncodedHouseNumbers encoded = EncodedHouseNumbers.decode(street.getEncodedHouseNumbers());
+		Assert.assertNotNull("the blob should be encoded when the street is saved", encoded);
+		Assert.assertEquals(2, encoded.size());
+		HouseNumber houseNumber = encoded.toHouseNumber(0, street);
+		Assert.assertEquals("12", houseNumber.getNumber());
+		Assert.assertEquals(Long.valueOf(12L), houseNumber.getId());
+		Assert.assertEquals("14", encoded.toHouseNumber(1, street).getNumber());
+		Assert.assertEquals("FR", street.getCountryCode());
+		Assert.assertFalse(street.isHouseNumbersChanged());
+		Assert.assertTrue("the saved streets should be forgotten", importer.streetsToSave.isEmpty());
+		EasyMock.verify(houseNumberDao);
+		EasyMock.verify(openStreetMapDao);
+	}
+
 }
@@ -278,6 +278,7 @@ public class OpenStreetMapAdmFileRetrieverTest {
 	EasyMock.expect(importerConfig.getOpenstreetMapAdmDownloadURL()).andStubReturn("");
 	EasyMock.expect(importerConfig.getOpenStreetMapAdmDownloadFilesListFromOption()).andStubReturn(new ArrayList<String>());
 	
+	EasyMock.expect(importerConfig.isStreamArchives()).andStubReturn(false);
 	EasyMock.replay(importerConfig);
 	openStreetMapAdmFileRetriever.setImporterConfig(importerConfig);
 	openStreetMapAdmFileRetriever.process();
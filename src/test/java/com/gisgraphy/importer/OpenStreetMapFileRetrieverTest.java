@@ -278,6 +278,7 @@ public class OpenStreetMapFileRetrieverTest {
 	EasyMock.expect(importerConfig.getOpenstreetMapDownloadURL()).andStubReturn("");
 	EasyMock.expect(importerConfig.getOpenStreetMapDownloadFilesListFromOption()).andStubReturn(new ArrayList<String>());
 	
+	EasyMock.expect(importerConfig.isStreamArchives()).andStubReturn(false);
 	EasyMock.replay(importerConfig);
 	openStreetMapFileRetriever.setImporterConfig(importerConfig);
 	openStreetMapFileRetriever.process();
@@ -277,6 +277,7 @@ public class OpenStreetMapHouseNumberFileRetrieverTest {
 	EasyMock.expect(importerConfig.getOpenstreetMaphouseNumbersDownloadURL()).andStubReturn("");
 	EasyMock.expect(importerConfig.getOpenStreetMapHouseNumberDownloadFilesListFromOption()).andStubReturn(new ArrayList<String>());
 	
+	EasyMock.expect(importerConfig.isStreamArchives()).andStubReturn(false);
 	EasyMock.replay(importerConfig);
 	openStreetMapHouseNumberFileRetriever.setImporterConfig(importerConfig);
 	openStreetMapHouseNumberFileRetriever.process();
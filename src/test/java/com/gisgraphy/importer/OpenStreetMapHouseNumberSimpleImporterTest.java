@@ -1,5 +1,6 @@
 package com.gisgraphy.importer;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -11,7 +12,9 @@ import org.junit.Test;
 import com.gisgraphy.domain.geoloc.entity.HouseNumber;
 import com.gisgraphy.domain.geoloc.entity.OpenStreetMap;
 import com.gisgraphy.domain.repository.IOpenStreetMapDao;
+import com.gisgraphy.domain.repository.IhouseNumberDao;
 import com.gisgraphy.domain.valueobject.HouseNumberType;
+import com.gisgraphy.domain.valueobject.NameValueDTO;
 import com.gisgraphy.domain.valueobject.Pagination;
 import com.gisgraphy.fulltext.FulltextQuery;
 import com.gisgraphy.fulltext.FulltextResultsDto;
@@ -26,6 +29,7 @@ import com.gisgraphy.importer.dto.InterpolationMember;
 import com.gisgraphy.importer.dto.InterpolationType;
 import com.gisgraphy.importer.dto.NodeHouseNumber;
 import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.io.WKTReader;
 
 public class OpenStreetMapHouseNumberSimpleImporterTest {
 	
@@ -484,6 +488,55 @@ public class OpenStreetMapHouseNumberSimpleImporterTest {
 		EasyMock.verify(openStreetMapDao);
 	}
 	
+	@Test
+	public void findNearestStreet_streetIndex() throws Exception{
+		OpenStreetMapHouseNumberSimpleImporter importer = new OpenStreetMapHouseNumberSimpleImporter();
+		importer.currentFile = new File("FR.txt");
+		Point point = GeolocHelper.createPoint(2.355F, 48.8562F);
+		Point farPoint = GeolocHelper.createPoint(3F, 49F);
+		List<Object[]> rows = new ArrayList<Object[]>();
+		rows.add(new Object[] { 1L, "Rue de Rivoli", new WKTReader().read("LINESTRING(2.350 48.856, 2.360 48.856)") });
+		OpenStreetMap openStreetMap = new OpenStreetMap();
+		OpenStreetMap streetWithoutCountry = new OpenStreetMap();
+		OpenStreetMap nearestWithoutCountry = new OpenStreetMap();
+		long openstreetmapId = 233L;
+		IOpenStreetMapDao openStreetMapDao = EasyMock.createMock(IOpenStreetMapDao.class);
+		EasyMock.expect(openStreetMapDao.listGidNameAndShapeByCountryCode("FR", 0, ImporterStreetIndex.BATCH_SIZE)).andReturn(rows).once();
+		EasyMock.expect(openStreetMapDao.listAlternateNamesByCountryCode("FR", 0, 1L)).andReturn(new ArrayList<Object[]>()).once();
+		EasyMock.expect(openStreetMapDao.getByGid(1L)).andReturn(openStreetMap).times(2);
+		EasyMock.expect(openStreetMapDao.getByOpenStreetMapId(openstreetmapId)).andReturn(streetWithoutCountry);
+		EasyMock.expect(openStreetMapDao.getNearestFrom(farPoint, OpenStreetMapHouseNumberSimpleImporter.DEFAULT_SEARCH_DISTANCE)).andReturn(nearestWithoutCountry);
+		EasyMock.replay(openStreetMapDao);
+		
+		//the streets that are not in the index are searched in the fulltext engine
+		List<SolrResponseDto> results = new ArrayList<SolrResponseDto>();
+		SolrResponseDto solrResponseDto = EasyMock.createMock(SolrResponseDto.class);
+		EasyMock.expect(solrResponseDto.getOpenstreetmap_id()).andStubReturn(openstreetmapId);
+		EasyMock.replay(solrResponseDto);
+		results.add(solrResponseDto);
+		FulltextResultsDto mockResultDTO = EasyMock.createMock(FulltextResultsDto.class);
+		EasyMock.expect(mockResultDTO.getResultsSize()).andReturn(1);
+		EasyMock.expect(mockResultDTO.getResults()).andReturn(results);
+		EasyMock.replay(mockResultDTO);
+		IFullTextSearchEngine fullTextSearchEngine = EasyMock.createMock(IFullTextSearchEngine.class);
+		EasyMock.expect(fullTextSearchEngine.executeQuery((FulltextQuery) EasyMock.anyObject())).andReturn(mockResultDTO).once();
+		EasyMock.replay(fullTextSearchEngine);
+		
+		ImporterStreetIndex importerStreetIndex = new ImporterStreetIndex();
+		importerStreetIndex.setOpenStreetMapDao(openStreetMapDao);
+		importerStreetIndex.setEnabled(true);
+		importer.setImporterStreetIndex(importerStreetIndex);
+		importer.fullTextSearchEngine = fullTextSearchEngine;
+		importer.openStreetMapDao = openStreetMapDao;
+		
+		org.junit.Assert.assertEquals(openStreetMap,importer.findNearestStreet("rue de rivoli", point));
+		org.junit.Assert.assertEquals(openStreetMap,importer.findNearestStreet("", point));
+		org.junit.Assert.assertEquals(streetWithoutCountry,importer.findNearestStreet("rue sans pays", point));
+		org.junit.Assert.assertEquals(nearestWithoutCountry,importer.findNearestStreet("", farPoint));
+		EasyMock.verify(openStreetMapDao);
+		EasyMock.verify(fullTextSearchEngine);
+	}
+	
 	
 	@Test
 	public void processAssociatedStreet_nohouse(){
@@ -1001,5 +1054,25 @@ public class OpenStreetMapHouseNumberSimpleImporterTest {
 	}
 	
 	
+	
+	@Test
+	public void rollbackShouldRemoveTheEncodedHouseNumbersOfTheStreets(){
+		OpenStreetMapHouseNumberSimpleImporter importer = new OpenStreetMapHouseNumberSimpleImporter();
+		IhouseNumberDao houseNumberDao = EasyMock.createMock(IhouseNumberDao.class);
+		EasyMock.expect(houseNumberDao.deleteAll()).andReturn(3);
+		EasyMock.expect(houseNumberDao.getPersistenceClass()).andStubReturn(HouseNumber.class);
+		EasyMock.replay(houseNumberDao);
+		IOpenStreetMapDao openStreetMapDao = EasyMock.createMock(IOpenStreetMapDao.class);
+		EasyMock.expect(openStreetMapDao.clearEncodedHouseNumbers()).andReturn(2);
+		EasyMock.replay(openStreetMapDao);
+		importer.setHouseNumberDao(houseNumberDao);
+		importer.setOpenStreetMapDao(openStreetMapDao);
+		
+		List<NameValueDTO<Integer>> deleted = importer.rollback();
+		Assert.assertEquals(1, deleted.size());
+		Assert.assertEquals(3, deleted.get(0).getValue().intValue());
+		EasyMock.verify(houseNumberDao);
+		EasyMock.verify(openStreetMapDao);
+	}
 
 }
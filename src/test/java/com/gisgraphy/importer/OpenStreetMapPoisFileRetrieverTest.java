@@ -256,6 +256,7 @@ public class OpenStreetMapPoisFileRetrieverTest {
 		EasyMock.expect(importerConfig.getOpenstreetMapPoisDownloadURL()).andStubReturn("");
 		EasyMock.expect(importerConfig.getOpenStreetMapPoisDownloadFilesListFromOption()).andStubReturn(new ArrayList<String>());
 		
+		EasyMock.expect(importerConfig.isStreamArchives()).andStubReturn(false);
 		EasyMock.replay(importerConfig);
 		openStreetMapPoiFileRetriever.setImporterConfig(importerConfig);
 		openStreetMapPoiFileRetriever.process();
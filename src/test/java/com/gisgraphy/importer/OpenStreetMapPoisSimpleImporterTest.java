@@ -28,6 +28,7 @@ import com.gisgraphy.domain.valueobject.AlternateNameSource;
 import com.gisgraphy.domain.valueobject.GISSource;
 import com.gisgraphy.helper.GeolocHelper;
 import com.gisgraphy.helper.StringHelper;
+import com.gisgraphy.test.GisgraphyTestHelper;
 import com.vividsolutions.jts.geom.Point;
 
 public class OpenStreetMapPoisSimpleImporterTest {
@@ -358,6 +359,7 @@ public class OpenStreetMapPoisSimpleImporterTest {
 			EasyMock.expect(cityDao.getNearest(location, countryCode, false, OpenStreetMapPoisSimpleImporter.DISTANCE)).andReturn(city);
 			EasyMock.replay(cityDao);
 			OpenStreetMapPoisSimpleImporter.setCityDao(cityDao);
+			OpenStreetMapPoisSimpleImporter.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, null, null));
 	    	
 			Restaurant restaurant = new Restaurant();
 	    	restaurant.setCountryCode(countryCode);
@@ -420,6 +422,7 @@ public class OpenStreetMapPoisSimpleImporterTest {
 			EasyMock.expect(cityDao.getNearest(location, countryCode, false, OpenStreetMapPoisSimpleImporter.DISTANCE)).andReturn(city2);
 	    	EasyMock.replay(cityDao);
 	    	OpenStreetMapPoisSimpleImporter.setCityDao(cityDao);
+	    	OpenStreetMapPoisSimpleImporter.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, null, null));
 
 	    	Restaurant restaurant = new Restaurant();
 	    	restaurant.setCountryCode(countryCode);
@@ -485,6 +488,7 @@ public class OpenStreetMapPoisSimpleImporterTest {
 			EasyMock.expect(cityDao.getNearest(location, countryCode, false, OpenStreetMapPoisSimpleImporter.DISTANCE)).andReturn(city2);
 			EasyMock.replay(cityDao);
 			OpenStreetMapPoisSimpleImporter.setCityDao(cityDao);
+			OpenStreetMapPoisSimpleImporter.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, null, null));
 	    	    	
 			Restaurant restaurant = new Restaurant();
 	    	restaurant.setCountryCode(countryCode);
@@ -556,6 +560,7 @@ public class OpenStreetMapPoisSimpleImporterTest {
 			EasyMock.expect(cityDao.getNearest(location, countryCode, false, OpenStreetMapPoisSimpleImporter.DISTANCE)).andReturn(city2);
 	    	EasyMock.replay(cityDao);
 	    	OpenStreetMapPoisSimpleImporter.setCityDao(cityDao);
+	    	OpenStreetMapPoisSimpleImporter.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, null, null));
 
 	    	Restaurant restaurant = new Restaurant();
 	    	restaurant.setCountryCode(countryCode);
@@ -607,6 +612,7 @@ public class OpenStreetMapPoisSimpleImporterTest {
 			EasyMock.expect(cityDao.getNearest(location, countryCode, false, OpenStreetMapPoisSimpleImporter.DISTANCE)).andReturn(null);
 	    	EasyMock.replay(cityDao);
 	    	OpenStreetMapPoisSimpleImporter.setCityDao(cityDao);
+	    	OpenStreetMapPoisSimpleImporter.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, null, null));
 	    	
 	    	Restaurant restaurant = new Restaurant();
 	    	restaurant.setCountryCode(countryCode);
@@ -656,6 +662,7 @@ public class OpenStreetMapPoisSimpleImporterTest {
 			EasyMock.expect(cityDao.getNearest(location, countryCode, false, OpenStreetMapPoisSimpleImporter.DISTANCE)).andReturn(null);
 	    	EasyMock.replay(cityDao);
 	    	OpenStreetMapPoisSimpleImporter.setCityDao(cityDao);
+	    	OpenStreetMapPoisSimpleImporter.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, null, null));
 	    	
 	    	Restaurant restaurant = new Restaurant();
 	    	restaurant.setCountryCode(countryCode);
@@ -697,6 +704,7 @@ public class OpenStreetMapPoisSimpleImporterTest {
 	    	EasyMock.expect(cityDao.getByShape(EasyMock.anyObject(Point.class),EasyMock.anyObject(String.class),EasyMock.eq(true))).andReturn(cityByShape);
 	    	EasyMock.replay(cityDao);
 	    	OpenStreetMapPoisSimpleImporter.setCityDao(cityDao);
+	    	OpenStreetMapPoisSimpleImporter.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, null, null));
 
 	    	Restaurant restaurant = new Restaurant();
 	    	restaurant.setCountryCode(countryCode);
@@ -733,6 +741,7 @@ public class OpenStreetMapPoisSimpleImporterTest {
 			EasyMock.expect(cityDao.getNearest(location, countryCode, false, OpenStreetMapPoisSimpleImporter.DISTANCE)).andReturn(null);
 	    	EasyMock.replay(cityDao);
 	    	OpenStreetMapPoisSimpleImporter.setCityDao(cityDao);
+	    	OpenStreetMapPoisSimpleImporter.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, null, null));
 
 	    	Restaurant restaurant = new Restaurant();
 	    	restaurant.setCountryCode(countryCode);
@@ -55,6 +55,7 @@ import com.gisgraphy.domain.valueobject.SpeedMode;
 import com.gisgraphy.fulltext.AbstractIntegrationHttpSolrTestCase;
 import com.gisgraphy.helper.GeolocHelper;
 import com.gisgraphy.street.StreetType;
+import com.gisgraphy.test.GisgraphyTestHelper;
 import com.vividsolutions.jts.geom.Point;
 
 
@@ -606,6 +607,7 @@ public class OpenStreetMapSimpleImporterTest extends AbstractIntegrationHttpSolr
 		//EasyMock.expect(cityDao.getNearest(location, countryCode, false, OpenStreetMapSimpleImporter.DISTANCE)).andReturn(city);
 		EasyMock.replay(cityDao);
 		openStreetMapSimpleImporter.setCityDao(cityDao);
+		openStreetMapSimpleImporter.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, null, null));
     	
     	OpenStreetMap street = new OpenStreetMap();
     	street.setCountryCode(countryCode);
@@ -689,6 +691,7 @@ public class OpenStreetMapSimpleImporterTest extends AbstractIntegrationHttpSolr
 		//EasyMock.expect(cityDao.getNearest(location, countryCode, false, OpenStreetMapSimpleImporter.DISTANCE)).andReturn(city2);
     	EasyMock.replay(cityDao);
     	openStreetMapSimpleImporter.setCityDao(cityDao);
+    	openStreetMapSimpleImporter.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, null, null));
 
     	OpenStreetMap street = new OpenStreetMap();
     	street.setCountryCode(countryCode);
@@ -774,6 +777,7 @@ public class OpenStreetMapSimpleImporterTest extends AbstractIntegrationHttpSolr
 		//EasyMock.expect(cityDao.getNearest(location, countryCode, false, OpenStreetMapSimpleImporter.DISTANCE)).andReturn(city2);
 		EasyMock.replay(cityDao);
 		openStreetMapSimpleImporter.setCityDao(cityDao);
+		openStreetMapSimpleImporter.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, null, null));
     	    	
     	OpenStreetMap street = new OpenStreetMap();
     	street.setCountryCode(countryCode);
@@ -858,6 +862,7 @@ public class OpenStreetMapSimpleImporterTest extends AbstractIntegrationHttpSolr
 		
 		EasyMock.replay(cityDao);
 		openStreetMapSimpleImporter.setCityDao(cityDao);
+		openStreetMapSimpleImporter.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, null, null));
     	    	
     	OpenStreetMap street = new OpenStreetMap();
     	street.setCountryCode(countryCode);
@@ -948,6 +953,7 @@ public class OpenStreetMapSimpleImporterTest extends AbstractIntegrationHttpSolr
     	
     	EasyMock.replay(cityDao);
     	openStreetMapSimpleImporter.setCityDao(cityDao);
+    	openStreetMapSimpleImporter.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, null, null));
 
     	OpenStreetMap street = new OpenStreetMap();
     	street.setCountryCode(countryCode);
@@ -1018,6 +1024,7 @@ public class OpenStreetMapSimpleImporterTest extends AbstractIntegrationHttpSolr
     	
     	EasyMock.replay(cityDao);
     	openStreetMapSimpleImporter.setCityDao(cityDao);
+    	openStreetMapSimpleImporter.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, null, null));
     	
     	OpenStreetMap street = new OpenStreetMap();
     	street.setCountryCode(countryCode);
@@ -1079,6 +1086,7 @@ public class OpenStreetMapSimpleImporterTest extends AbstractIntegrationHttpSolr
     	EasyMock.expect(cityDao.getNearests(location, countryCode, false,OpenStreetMapSimpleImporter.DISTANCE,10)).andReturn(cities);
     	EasyMock.replay(cityDao);
     	openStreetMapSimpleImporter.setCityDao(cityDao);
+    	openStreetMapSimpleImporter.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, null, null));
     	
     	OpenStreetMap street = new OpenStreetMap();
     	street.setCountryCode(countryCode);
@@ -1139,6 +1147,7 @@ public class OpenStreetMapSimpleImporterTest extends AbstractIntegrationHttpSolr
     	EasyMock.replay(citySubdivisionDao);
     	openStreetMapSimpleImporter.setCityDao(cityDao);
     	openStreetMapSimpleImporter.setCitySubdivisionDao(citySubdivisionDao);
+    	openStreetMapSimpleImporter.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, citySubdivisionDao, null));
 
     	OpenStreetMap street = new OpenStreetMap();
     	street.setCountryCode(countryCode);
@@ -1186,6 +1195,7 @@ public class OpenStreetMapSimpleImporterTest extends AbstractIntegrationHttpSolr
     	
     	EasyMock.replay(cityDao);
     	openStreetMapSimpleImporter.setCityDao(cityDao);
+    	openStreetMapSimpleImporter.setImporterShapeIndex(GisgraphyTestHelper.createImporterShapeIndex(cityDao, null, null));
 
     	OpenStreetMap street = new OpenStreetMap();
     	street.setCountryCode(countryCode);
@@ -1307,6 +1317,18 @@ public class OpenStreetMapSimpleImporterTest extends AbstractIntegrationHttpSolr
     	Assert.assertEquals("Marseille",importer.pplxToPPL("Marseille 01"));
     }
     
+    @Test
+    public void getNumberOfWorkersShouldBeTheOneOfTheConfig(){
+    	//each line inserts its own street
+    	OpenStreetMapSimpleImporter importer = new OpenStreetMapSimpleImporter();
+    	ImporterConfig importerConfig = new ImporterConfig();
+    	importer.setImporterConfig(importerConfig);
+    	importerConfig.setNumberOfWorkers(3);
+    	Assert.assertEquals(3, importer.getNumberOfWorkers());
+    	importerConfig.setNumberOfWorkers(1);
+    	Assert.assertEquals(0, importer.getNumberOfWorkers());
+    }
+    
     
     public void setIdGenerator(IIdGenerator idGenerator) {
         this.idGenerator = idGenerator;
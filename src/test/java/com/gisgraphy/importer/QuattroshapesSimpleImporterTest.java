@@ -532,4 +532,14 @@ public class QuattroshapesSimpleImporterTest {
 		Assert.assertTrue(importer.shouldBeSkipped());
 	}
 
+	@Test
+	public void getNumberOfWorkersShouldBeZero() {
+		//a line can update several features
+		QuattroshapesSimpleImporter importer = new QuattroshapesSimpleImporter();
+		ImporterConfig importerConfig = new ImporterConfig();
+		importerConfig.setNumberOfWorkers(3);
+		importer.setImporterConfig(importerConfig);
+		Assert.assertEquals(0, importer.getNumberOfWorkers());
+	}
+
 }
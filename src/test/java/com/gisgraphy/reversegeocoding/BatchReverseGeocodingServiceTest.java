@@ -0,0 +1,105 @@
+package com.gisgraphy.reversegeocoding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gisgraphy.addressparser.Address;
+import com.gisgraphy.addressparser.AddressResultsDto;
+import com.gisgraphy.helper.GeolocHelper;
+import com.gisgraphy.service.ServiceException;
+import com.vividsolutions.jts.geom.Point;
+
+public class BatchReverseGeocodingServiceTest {
+
+    @Test
+    public void hilbertIndex() {
+	Assert.assertEquals(0, BatchReverseGeocodingService.hilbertIndex(-180, -90));
+	//neighbouring points have near indexes
+	long paris = BatchReverseGeocodingService.hilbertIndex(2.35, 48.85);
+	long parisNeighbour = BatchReverseGeocodingService.hilbertIndex(2.351, 48.851);
+	long sydney = BatchReverseGeocodingService.hilbertIndex(151.2, -33.8);
+	Assert.assertTrue(Math.abs(paris - parisNeighbour) < Math.abs(paris - sydney));
+	//out of range coordinates are clamped
+	Assert.assertTrue(BatchReverseGeocodingService.hilbertIndex(200, 100) < (1L << 32));
+    }
+
+    @Test
+    public void sortByHilbertIndex() {
+	List<Point> points = new ArrayList<Point>();
+	points.add(GeolocHelper.createPoint(2.35F, 48.85F));
+	points.add(GeolocHelper.createPoint(151.2F, -33.8F));
+	points.add(GeolocHelper.createPoint(2.351F, 48.851F));
+	int[] order = BatchReverseGeocodingService.sortByHilbertIndex(points);
+	Assert.assertEquals(3, order.length);
+	for (int i = 0; i < order.length; i++) {
+	    if (order[i] == 0) {
+		Assert.assertTrue("the points of paris should be neighbours", (i > 0 && order[i - 1] == 2) || (i < 2 && order[i + 1] == 2));
+	    }
+	}
+    }
+
+    @Test
+    public void executeQueriesShouldReturnTheResultsInTheOrderOfThePoints() {
+	IReverseGeocodingService reverseGeocodingService = EasyMock.createMock(IReverseGeocodingService.class);
+	EasyMock.expect(reverseGeocodingService.executeQuery((ReverseGeocodingQuery) EasyMock.anyObject())).andAnswer(new IAnswer<AddressResultsDto>() {
+	    public AddressResultsDto answer() throws Throwable {
+		Point point = ((ReverseGeocodingQuery) EasyMock.getCurrentArguments()[0]).getPoint();
+		if (point.getX() == 0) {
+		    throw new RuntimeException("an error for one point should not stop the batch");
+		}
+		List<Address> addresses = new ArrayList<Address>();
+		Address address = new Address();
+		address.setLng(point.getX());
+		address.setLat(point.getY());
+		addresses.add(address);
+		return new AddressResultsDto(addresses, 1L);
+	    }
+	}).anyTimes();
+	EasyMock.replay(reverseGeocodingService);
+
+	BatchReverseGeocodingService batchService = new BatchReverseGeocodingService();
+	batchService.setReverseGeocodingService(reverseGeocodingService);
+	batchService.setNumberOfThreads(3);
+	batchService.setChunkSize(2);
+	batchService.init();
+	try {
+	    List<Point> points = new ArrayList<Point>();
+	    for (int i = 0; i < 50; i++) {
+		points.add(GeolocHelper.createPoint((float) ((i * 37) % 50 - 25), (float) (i % 10)));
+	    }
+	    List<AddressResultsDto> results = batchService.executeQueries(points);
+	    Assert.assertEquals(points.size(), results.size());
+	    for (int i = 0; i < points.size(); i++) {
+		if (points.get(i).getX() == 0) {
+		    Assert.assertEquals(0, results.get(i).getResult().size());
+		} else {
+		    Assert.assertEquals(points.get(i).getX(), results.get(i).getResult().get(0).getLng(), 0.0001);
+		    Assert.assertEquals(points.get(i).getY(), results.get(i).getResult().get(0).getLat(), 0.0001);
+		}
+	    }
+	} finally {
+	    batchService.destroy();
+	}
+    }
+
+    @Test(expected = ServiceException.class)
+    public void executeQueriesShouldCheckTheSizeOfTheBatch() {
+	BatchReverseGeocodingService batchService = new BatchReverseGeocodingService();
+	batchService.setMaxBatchSize(1);
+	batchService.init();
+	try {
+	    List<Point> points = new ArrayList<Point>();
+	    points.add(GeolocHelper.createPoint(1F, 2F));
+	    points.add(GeolocHelper.createPoint(1F, 2F));
+	    batchService.executeQueries(points);
+	} finally {
+	    batchService.destroy();
+	}
+    }
+
+}
@@ -26,6 +26,10 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.mock.web.MockHttpServletRequest;
@@ -35,6 +39,7 @@ import com.gisgraphy.domain.valueobject.Output.OutputStyle;
 import com.gisgraphy.serializer.common.OutputFormat;
 import com.gisgraphy.servlet.GisgraphyServlet;
 import com.gisgraphy.test.GisgraphyTestHelper;
+import com.vividsolutions.jts.geom.Point;
 
 
 public class ReverseGeocodingQueryHttpBuilderTest {
@@ -286,4 +291,62 @@ public class ReverseGeocodingQueryHttpBuilderTest {
 		return ReverseGeocodingQueryHttpBuilder.getInstance().buildFromHttpRequest(request);
 	}
 
+
+	   @Test
+	    public void buildPointsFromReader() throws IOException {
+		List<Point> points = ReverseGeocodingQueryHttpBuilder.getInstance().buildPointsFromReader(
+			new StringReader("48.85,2.35\n\n 10.5 ; -3.2 \n1,5\t2,5\n"), 10);
+		assertEquals(3, points.size());
+		assertEquals(2.35D, points.get(0).getX(), 0.0001);
+		assertEquals(48.85D, points.get(0).getY(), 0.0001);
+		assertEquals(-3.2D, points.get(1).getX(), 0.0001);
+		assertEquals(10.5D, points.get(1).getY(), 0.0001);
+		assertEquals(2.5D, points.get(2).getX(), 0.0001);
+		assertEquals(1.5D, points.get(2).getY(), 0.0001);
+
+		try {
+		    ReverseGeocodingQueryHttpBuilder.getInstance().buildPointsFromReader(new StringReader("48.85,2.35\n48.85"), 10);
+		    fail("a line without longitude should throw");
+		} catch (ReverseGeocodingException e) {
+		    assertTrue(e.getMessage().contains("line 2"));
+		}
+		try {
+		    ReverseGeocodingQueryHttpBuilder.getInstance().buildPointsFromReader(new StringReader("a;b"), 10);
+		    fail("a line that is not a number should throw");
+		} catch (ReverseGeocodingException e) {
+		    assertTrue(e.getMessage().contains("line 1"));
+		}
+	    }
+
+	   @Test
+	    public void buildPointsFromReaderShouldTryTheCommaFirst() throws IOException {
+		List<Point> points = ReverseGeocodingQueryHttpBuilder.getInstance().buildPointsFromReader(
+			new StringReader("48.85, 2.35\n48,85; 2,35\n48,85 2,35"), 10);
+		assertEquals(3, points.size());
+		for (Point point : points) {
+		    assertEquals(2.35D, point.getX(), 0.0001);
+		    assertEquals(48.85D, point.getY(), 0.0001);
+		}
+	    }
+
+	   @Test
+	    public void buildPointsFromReaderShouldCheckTheCoordinates() throws IOException {
+		try {
+		    ReverseGeocodingQueryHttpBuilder.getInstance().buildPointsFromReader(new StringReader("48.85,2.35\n91,2.35"), 10);
+		    fail("a latitude greater than 90 should throw");
+		} catch (ReverseGeocodingException e) {
+		    assertTrue(e.getMessage().contains("line 2"));
+		}
+		try {
+		    ReverseGeocodingQueryHttpBuilder.getInstance().buildPointsFromReader(new StringReader("48.85 -181"), 10);
+		    fail("a longitude lower than -180 should throw");
+		} catch (ReverseGeocodingException e) {
+		    assertTrue(e.getMessage().contains("line 1"));
+		}
+	    }
+
+	   @Test(expected = ReverseGeocodingException.class)
+	    public void buildPointsFromReaderShouldStopAfterTheMaxNumberOfPoints() throws IOException {
+		ReverseGeocodingQueryHttpBuilder.getInstance().buildPointsFromReader(new StringReader("1 1\n\n2 2\n3 3"), 2);
+	    }
 }
@@ -236,4 +236,36 @@ public class ReverseGeocodingServiceTest {
 		EasyMock.verify(openStreetMapDao);
 	}
 
+	@Test
+	public void testExecuteQuery_StreetIndexAvailable() {
+		Point searchPoint = GeolocHelper.createPoint(2D, 3D);
+		ReverseGeocodingQuery query = new ReverseGeocodingQuery(searchPoint);
+		ReverseGeocodingService reverseGeocodingService = new ReverseGeocodingService();
+		IStatsUsageService statsService = EasyMock.createMock(StatsUsageServiceImpl.class);
+		statsService.increaseUsage(StatsUsageType.REVERSEGEOCODING);
+		EasyMock.replay(statsService);
+
+		StreetSegmentLocator streetSegmentLocator = EasyMock.createMock(StreetSegmentLocator.class);
+		EasyMock.expect(streetSegmentLocator.isAvailable()).andReturn(true);
+		EasyMock.expect(streetSegmentLocator.getNearestStreetGid(searchPoint, DEFAULT_STREET_RADIUS, true)).andReturn(null);
+		EasyMock.expect(streetSegmentLocator.getNearestStreetGid(searchPoint, DEFAULT_STREET_RADIUS, false)).andReturn(123L);
+		EasyMock.replay(streetSegmentLocator);
+
+		IOpenStreetMapDao openStreetMapDao = EasyMock.createMock(IOpenStreetMapDao.class);
+		OpenStreetMap osm = GisgraphyTestHelper.createOpenStreetMapForJohnKenedyStreet();
+		EasyMock.expect(openStreetMapDao.getByGid(123L)).andReturn(osm);
+		EasyMock.replay(openStreetMapDao);
+
+		reverseGeocodingService.openStreetMapDao =openStreetMapDao;
+		reverseGeocodingService.statsUsageService = statsService;
+		reverseGeocodingService.streetSegmentLocator = streetSegmentLocator;
+
+		AddressResultsDto addressResultsDto = reverseGeocodingService.executeQuery(query);
+		Assert.assertEquals(1,addressResultsDto.getResult().size());
+		Assert.assertNotNull(addressResultsDto.getResult().get(0));
+
+		EasyMock.verify(streetSegmentLocator);
+		EasyMock.verify(openStreetMapDao);
+	}
+
 }
@@ -0,0 +1,115 @@
+package com.gisgraphy.reversegeocoding;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+
+public class StreetSegmentIndexTest {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private LineString line(double... coordinates) {
+	Coordinate[] points = new Coordinate[coordinates.length / 2];
+	for (int i = 0; i < points.length; i++) {
+	    points[i] = new Coordinate(coordinates[i * 2], coordinates[i * 2 + 1]);
+	}
+	return FACTORY.createLineString(points);
+    }
+
+    private StreetSegmentIndex write(StreetSegmentIndexWriter writer) throws IOException {
+	File file = File.createTempFile("streetindex", ".bin");
+	file.deleteOnExit();
+	writer.write(file);
+	return StreetSegmentIndex.open(file);
+    }
+
+    @Test
+    public void getNearestStreetGid() throws IOException {
+	StreetSegmentIndexWriter writer = new StreetSegmentIndexWriter();
+	writer.addStreet(1L, true, line(2.0, 48.0, 2.01, 48.0));
+	writer.addStreet(2L, false, line(2.0, 48.0005, 2.01, 48.0005));
+	writer.addStreet(3L, true, line(3.0, 48.0, 3.0, 48.01, 3.01, 48.01));
+	StreetSegmentIndex index = write(writer);
+	Assert.assertEquals(3, index.getStreetCount());
+	Assert.assertEquals(4, index.getSegmentCount());
+
+	Assert.assertEquals(Long.valueOf(2L), index.getNearestStreetGid(2.005, 48.0006, 1000, false));
+	Assert.assertEquals("the footway should be ignored", Long.valueOf(1L), index.getNearestStreetGid(2.005, 48.0006, 1000, true));
+	Assert.assertEquals(Long.valueOf(3L), index.getNearestStreetGid(3.005, 48.0101, 1000, true));
+	Assert.assertNull("the street is too far", index.getNearestStreetGid(2.5, 48.0, 1000, false));
+    }
+
+    @Test
+    public void getNearestStreetGidShouldBeTheNearestOne() throws IOException {
+	Random random = new Random(42);
+	StreetSegmentIndexWriter writer = new StreetSegmentIndexWriter();
+	int streetCount = 5000;
+	double[][] streets = new double[streetCount][];
+	for (int i = 0; i < streetCount; i++) {
+	    double x = 2 + random.nextDouble();
+	    double y = 48 + random.nextDouble();
+	    streets[i] = new double[] { x, y, x + random.nextDouble() / 100, y + random.nextDouble() / 100, x + random.nextDouble() / 100, y };
+	    writer.addStreet(i + 1, i % 3 != 0, line(streets[i]));
+	}
+	StreetSegmentIndex index = write(writer);
+	for (int test = 0; test < 500; test++) {
+	    double x = 2 + random.nextDouble();
+	    double y = 48 + random.nextDouble();
+	    boolean onlyRoad = test % 2 == 0;
+	    double scale = Math.cos(Math.toRadians(y));
+	    double nearest = Double.MAX_VALUE;
+	    long expected = 0;
+	    for (int i = 0; i < streetCount; i++) {
+		if (onlyRoad && i % 3 == 0) {
+		    continue;
+		}
+		for (int j = 2; j < streets[i].length; j += 2) {
+		    double distance = distance(x, y, (float) streets[i][j - 2], (float) streets[i][j - 1], (float) streets[i][j], (float) streets[i][j + 1], scale);
+		    if (distance < nearest) {
+			nearest = distance;
+			expected = i + 1;
+		    }
+		}
+	    }
+	    Assert.assertEquals(Long.valueOf(expected), index.getNearestStreetGid(x, y, 100000, onlyRoad));
+	}
+    }
+
+    private double distance(double x, double y, double x1, double y1, double x2, double y2, double scale) {
+	double ax = (x1 - x) * scale;
+	double ay = y1 - y;
+	double dx = (x2 - x) * scale - ax;
+	double dy = y2 - y - ay;
+	double length = dx * dx + dy * dy;
+	double t = length == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / length));
+	double px = ax + t * dx;
+	double py = ay + t * dy;
+	return px * px + py * py;
+    }
+
+    @Test
+    public void emptyIndex() throws IOException {
+	StreetSegmentIndex index = write(new StreetSegmentIndexWriter());
+	Assert.assertEquals(0, index.getSegmentCount());
+	Assert.assertNull(index.getNearestStreetGid(2, 48, 1000, false));
+    }
+
+    @Test(expected = IOException.class)
+    public void openShouldCheckTheFormat() throws IOException {
+	File file = File.createTempFile("streetindex", ".bin");
+	file.deleteOnExit();
+	FileOutputStream out = new FileOutputStream(file);
+	out.write(new byte[100]);
+	out.close();
+	StreetSegmentIndex.open(file);
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.gisgraphy.reversegeocoding;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gisgraphy.domain.repository.IOpenStreetMapDao;
+import com.gisgraphy.helper.GeolocHelper;
+import com.gisgraphy.street.StreetType;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+
+public class StreetSegmentLocatorTest {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private LineString line(double x1, double y1, double x2, double y2) {
+	return FACTORY.createLineString(new Coordinate[] { new Coordinate(x1, y1), new Coordinate(x2, y2) });
+    }
+
+    @Test
+    public void isRoadShouldBeTheSameAsTheNearestRoadOfTheDatabase() {
+	Assert.assertTrue(StreetSegmentLocator.isRoad(StreetType.RESIDENTIAL, "rue de la paix"));
+	Assert.assertFalse(StreetSegmentLocator.isRoad(StreetType.FOOTWAY, "rue de la paix"));
+	Assert.assertFalse(StreetSegmentLocator.isRoad(StreetType.RESIDENTIAL, null));
+	Assert.assertFalse(StreetSegmentLocator.isRoad(StreetType.RESIDENTIAL, " "));
+	Assert.assertFalse(StreetSegmentLocator.isRoad(null, "rue de la paix"));
+    }
+
+    @Test
+    public void exportSnapshotShouldNotFlagTheUnnamedStreetsAsRoads() throws IOException {
+	File file = File.createTempFile("streetindex", ".bin");
+	file.deleteOnExit();
+	List<Object[]> streets = new ArrayList<Object[]>();
+	streets.add(new Object[] { 1L, StreetType.RESIDENTIAL, null, line(2.0, 48.0, 2.01, 48.0) });
+	streets.add(new Object[] { 2L, StreetType.RESIDENTIAL, "rue de la paix", line(2.0, 48.001, 2.01, 48.001) });
+	IOpenStreetMapDao openStreetMapDao = EasyMock.createMock(IOpenStreetMapDao.class);
+	EasyMock.expect(openStreetMapDao.listGidStreetTypeNameAndShape(0, 10)).andReturn(streets);
+	EasyMock.replay(openStreetMapDao);
+
+	StreetSegmentLocator locator = new StreetSegmentLocator();
+	locator.setOpenStreetMapDao(openStreetMapDao);
+	locator.setSnapshotFile(file.getAbsolutePath());
+	locator.setExportBatchSize(10);
+	locator.exportSnapshot();
+	EasyMock.verify(openStreetMapDao);
+
+	Assert.assertTrue(locator.isAvailable());
+	Assert.assertEquals(Long.valueOf(1L), locator.getNearestStreetGid(GeolocHelper.createPoint(2.005F, 48.0001F), 1000, false));
+	Assert.assertEquals("the unnamed street should not be a road", Long.valueOf(2L),
+		locator.getNearestStreetGid(GeolocHelper.createPoint(2.005F, 48.0001F), 1000, true));
+    }
+
+}
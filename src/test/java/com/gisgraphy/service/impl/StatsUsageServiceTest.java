@@ -89,17 +89,29 @@ public class StatsUsageServiceTest extends AbstractTransactionalTestCase {
     }
 
     @Test
-    public void testIncreaseUsageShouldflush() {
+    public void testIncreaseUsageShouldNotflush() {
 	statsUsageService.resetUsage(StatsUsageType.FULLTEXT);
-	for (int i = 1; i < IStatsUsageService.FLUSH_THRESHOLD; i++) {
+	for (int i = 1; i <= 100; i++) {
 	    statsUsageService.increaseUsage(StatsUsageType.FULLTEXT);
 	    assertEquals(new Long(0), statsUsageDao.getByUsageType(
 		    StatsUsageType.FULLTEXT).getUsage());
 	}
+	assertEquals(new Long(100), statsUsageService
+		.getUsage(StatsUsageType.FULLTEXT));
+    }
+
+    @Test
+    public void testFlushAll() {
+	statsUsageService.resetUsage(StatsUsageType.FULLTEXT);
+	statsUsageService.resetUsage(StatsUsageType.GEOCODING);
 	statsUsageService.increaseUsage(StatsUsageType.FULLTEXT);
-	assertEquals(new Long(IStatsUsageService.FLUSH_THRESHOLD),
-		statsUsageDao.getByUsageType(StatsUsageType.FULLTEXT)
-			.getUsage());
+	statsUsageService.increaseUsage(StatsUsageType.GEOCODING);
+	statsUsageService.increaseUsage(StatsUsageType.GEOCODING);
+	statsUsageService.flushAll();
+	assertEquals(new Long(1), statsUsageDao.getByUsageType(
+		StatsUsageType.FULLTEXT).getUsage());
+	assertEquals(new Long(2), statsUsageDao.getByUsageType(
+		StatsUsageType.GEOCODING).getUsage());
     }
 
 }
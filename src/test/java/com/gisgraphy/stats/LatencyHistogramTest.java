@@ -0,0 +1,120 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.stats;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void theBucketsShouldContainTheirValues() {
+	long previousHighest = -1;
+	for (int index = 0; index < LatencyHistogram.bucketIndex(LatencyHistogram.MAX_VALUE); index++) {
+	    long highest = LatencyHistogram.bucketHighestValue(index);
+	    Assert.assertTrue(highest > previousHighest);
+	    Assert.assertEquals(index, LatencyHistogram.bucketIndex(previousHighest + 1));
+	    Assert.assertEquals(index, LatencyHistogram.bucketIndex(highest));
+	    previousHighest = highest;
+	}
+    }
+
+    @Test
+    public void percentiles() {
+	LatencyHistogram histogram = new LatencyHistogram();
+	Assert.assertEquals(0, histogram.getP50());
+	for (long i = 1; i <= 10000; i++) {
+	    histogram.record(i);
+	}
+	Assert.assertEquals(10000, histogram.getCount());
+	Assert.assertEquals(5000.5, histogram.getMean(), 0.001);
+	Assert.assertEquals(10000, histogram.getMax());
+	Assert.assertEquals(5000, histogram.getP50(), 5000 * 0.04);
+	Assert.assertEquals(9900, histogram.getP99(), 9900 * 0.04);
+	Assert.assertTrue(histogram.getP50() >= 5000);
+	Assert.assertEquals(10000, histogram.getValueAtPercentile(100));
+	Assert.assertEquals(1, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void recordShouldBoundTheValues() {
+	LatencyHistogram histogram = new LatencyHistogram();
+	histogram.record(-5);
+	histogram.record(Long.MAX_VALUE);
+	Assert.assertEquals(2, histogram.getCount());
+	Assert.assertEquals(0, histogram.getValueAtPercentile(50));
+	Assert.assertEquals(LatencyHistogram.MAX_VALUE, histogram.getMax());
+	Assert.assertEquals(LatencyHistogram.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void reset() {
+	LatencyHistogram histogram = new LatencyHistogram();
+	histogram.record(100);
+	histogram.reset();
+	Assert.assertEquals(0, histogram.getCount());
+	Assert.assertEquals(0, histogram.getMax());
+	Assert.assertEquals(0, histogram.getP999());
+    }
+
+    @Test
+    public void concurrentRecords() throws InterruptedException {
+	final LatencyHistogram histogram = new LatencyHistogram();
+	Thread[] threads = new Thread[4];
+	for (int i = 0; i < threads.length; i++) {
+	    threads[i] = new Thread() {
+		@Override
+		public void run() {
+		    for (int j = 0; j < 10000; j++) {
+			histogram.record(j % 100);
+		    }
+		}
+	    };
+	    threads[i].start();
+	}
+	for (Thread thread : threads) {
+	    thread.join();
+	}
+	Assert.assertEquals(40000, histogram.getCount());
+	Assert.assertEquals(99, histogram.getMax());
+    }
+
+    @Test
+    public void latencyStatsShouldRegisterTheHistogramsInJmxAndJson() throws Exception {
+	LatencyHistogram histogram = LatencyStats.getHistogram(StatsUsageType.ADDRESSPARSER, "test");
+	Assert.assertSame(histogram, LatencyStats.getHistogram(StatsUsageType.ADDRESSPARSER, "test"));
+	histogram.record(42);
+	Assert.assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(
+		new ObjectName("com.gisgraphy:type=Latency,service=ADDRESSPARSER,stage=test"), "Count"));
+	String json = LatencyStats.getAllInJson();
+	Assert.assertTrue(json, json.startsWith("{\"unit\":\"microseconds\",\"services\":{"));
+	Assert.assertTrue(json, json.contains("\"ADDRESSPARSER\":{\"test\":{\"count\":1,\"mean\":42,\"p50\":42,\"p90\":42,\"p99\":42,\"p999\":42,\"max\":42}}"));
+	LatencyStats.resetAll();
+	Assert.assertEquals(0, histogram.getCount());
+    }
+
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StripedCounterTest {
+
+    @Test
+    public void incrementAndSum() {
+	StripedCounter counter = new StripedCounter(3);
+	Assert.assertEquals(0L, counter.sum());
+	counter.increment();
+	counter.add(4);
+	Assert.assertEquals(5L, counter.sum());
+	counter.set(2);
+	Assert.assertEquals(2L, counter.sum());
+	counter.set(0);
+	Assert.assertEquals(0L, counter.sum());
+    }
+
+    @Test
+    public void incrementShouldNotLoseUpdatesUnderConcurrency() throws InterruptedException {
+	final StripedCounter counter = new StripedCounter();
+	final int increments = 100000;
+	List<Thread> threads = new ArrayList<Thread>();
+	for (int i = 0; i < 8; i++) {
+	    Thread thread = new Thread(new Runnable() {
+		public void run() {
+		    for (int j = 0; j < increments; j++) {
+			counter.increment();
+		    }
+		}
+	    });
+	    threads.add(thread);
+	    thread.start();
+	}
+	for (Thread thread : threads) {
+	    thread.join();
+	}
+	Assert.assertEquals(8L * increments, counter.sum());
+    }
+
+}
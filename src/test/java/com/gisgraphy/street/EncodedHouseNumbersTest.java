@@ -0,0 +1,124 @@
+package com.gisgraphy.street;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gisgraphy.domain.geoloc.entity.HouseNumber;
+import com.gisgraphy.domain.geoloc.entity.OpenStreetMap;
+import com.gisgraphy.helper.GeolocHelper;
+import com.vividsolutions.jts.geom.Point;
+
+public class EncodedHouseNumbersTest {
+
+	private static HouseNumber createHouseNumber(Long id, String number, double longitude, double latitude) {
+		HouseNumber houseNumber = new HouseNumber(number, GeolocHelper.createPoint(longitude, latitude));
+		houseNumber.setId(id);
+		return houseNumber;
+	}
+
+	/**
+	 * @return the coordinate in 10<sup>-7</sup> degrees, as encoded
+	 */
+	private static long toFixed(double coordinate) {
+		return Math.round(coordinate * 1E7);
+	}
+
+	/**
+	 * @return the squared projected distance, as computed by
+	 *         {@link EncodedHouseNumbers#getNearest(Point)}
+	 */
+	private static double squaredDistance(Point house, Point point) {
+		double dx = (toFixed(house.getX()) - (double) toFixed(point.getX())) * Math.cos(Math.toRadians(point.getY()));
+		double dy = toFixed(house.getY()) - (double) toFixed(point.getY());
+		return dx * dx + dy * dy;
+	}
+
+	@Test
+	public void encodeWithoutHouseNumbers() {
+		Assert.assertNull(EncodedHouseNumbers.encode(null, "FR"));
+		Assert.assertNull(EncodedHouseNumbers.encode(new ArrayList<HouseNumber>(), "FR"));
+		List<HouseNumber> houseNumbers = new ArrayList<HouseNumber>();
+		houseNumbers.add(null);
+		Assert.assertNull(EncodedHouseNumbers.encode(houseNumbers, "FR"));
+	}
+
+	@Test
+	public void decodeShouldReturnTheEncodedHouseNumbers() {
+		List<HouseNumber> houseNumbers = new ArrayList<HouseNumber>();
+		HouseNumber number3 = createHouseNumber(12L, "3", 2.3456789D, 48.1234567D);
+		number3.setName("the bakery");
+		HouseNumber number1 = createHouseNumber(10L, "1 bis", 2.3456700D, 48.1234500D);
+		HouseNumber west = createHouseNumber(null, "?", -2.5D, -48.5D);
+		houseNumbers.add(number3);
+		houseNumbers.add(number1);
+		houseNumbers.add(west);
+
+		EncodedHouseNumbers decoded = EncodedHouseNumbers.decode(EncodedHouseNumbers.encode(houseNumbers, "FR"));
+		Assert.assertEquals(3, decoded.size());
+		OpenStreetMap street = new OpenStreetMap();
+		//sorted by longitude
+		HouseNumber first = decoded.toHouseNumber(0, street);
+		Assert.assertNull(first.getId());
+		Assert.assertEquals("?", first.getNumber());
+		Assert.assertEquals(EncodedHouseNumbers.NO_NORMALIZED_NUMBER, decoded.getNormalizedNumber(0));
+		Assert.assertEquals(-2.5D, first.getLongitude(), 0.00001);
+		Assert.assertEquals(-48.5D, first.getLatitude(), 0.00001);
+		Assert.assertSame(street, first.getStreet());
+
+		HouseNumber second = decoded.toHouseNumber(1, street);
+		Assert.assertEquals(Long.valueOf(10L), second.getId());
+		Assert.assertEquals("1 bis", second.getNumber());
+		Assert.assertEquals(1, decoded.getNormalizedNumber(1));
+		Assert.assertNull(second.getName());
+
+		HouseNumber third = decoded.toHouseNumber(2, street);
+		Assert.assertEquals(Long.valueOf(12L), third.getId());
+		Assert.assertEquals("3", third.getNumber());
+		Assert.assertEquals(3, decoded.getNormalizedNumber(2));
+		Assert.assertEquals("the bakery", third.getName());
+		Assert.assertEquals(2.3456789D, third.getLongitude(), 0.00001);
+		Assert.assertEquals(48.1234567D, third.getLatitude(), 0.00001);
+	}
+
+	@Test
+	public void theNumbersOfSkAndCzShouldBeNormalizedDifferently() {
+		List<HouseNumber> houseNumbers = new ArrayList<HouseNumber>();
+		houseNumbers.add(createHouseNumber(1L, "1234/5", 17.1D, 48.1D));
+		Assert.assertEquals(5, EncodedHouseNumbers.decode(EncodedHouseNumbers.encode(houseNumbers, "SK")).getNormalizedNumber(0));
+		Assert.assertEquals(1234, EncodedHouseNumbers.decode(EncodedHouseNumbers.encode(houseNumbers, "FR")).getNormalizedNumber(0));
+	}
+
+	@Test
+	public void decodeWrongBlob() {
+		Assert.assertNull(EncodedHouseNumbers.decode(null));
+		Assert.assertNull(EncodedHouseNumbers.decode(new byte[0]));
+		Assert.assertNull(EncodedHouseNumbers.decode(new byte[] { 99 }));
+		Assert.assertNull("a truncated blob should not be decoded", EncodedHouseNumbers.decode(new byte[] { 1, 5 }));
+	}
+
+	@Test
+	public void getNearestShouldBeTheSameAsAFullScan() {
+		Random random = new Random(42);
+		List<HouseNumber> houseNumbers = new ArrayList<HouseNumber>();
+		for (int i = 0; i < 500; i++) {
+			houseNumbers.add(createHouseNumber(i + 1L, String.valueOf(i), 2.3D + random.nextDouble() / 100, 48.8D + random.nextDouble() / 100));
+		}
+		EncodedHouseNumbers decoded = EncodedHouseNumbers.decode(EncodedHouseNumbers.encode(houseNumbers, "FR"));
+		Assert.assertEquals(-1, decoded.getNearest(null));
+		for (int i = 0; i < 200; i++) {
+			Point point = GeolocHelper.createPoint(2.299D + random.nextDouble() / 80, 48.799D + random.nextDouble() / 80);
+			double smallest = Double.MAX_VALUE;
+			for (HouseNumber houseNumber : houseNumbers) {
+				smallest = Math.min(smallest, squaredDistance(houseNumber.getLocation(), point));
+			}
+			//the id is the position in the list plus one
+			HouseNumber nearest = houseNumbers.get(decoded.toHouseNumber(decoded.getNearest(point), null).getId().intValue() - 1);
+			Assert.assertEquals(smallest, squaredDistance(nearest.getLocation(), point), 0.000001);
+		}
+	}
+
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ *   Gisgraphy Project 
+ * 
+ *   This library is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation; either
+ *   version 2.1 of the License, or (at your option) any later version.
+ * 
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *   Lesser General Public License for more details.
+ * 
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the Free Software
+ *   Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA
+ * 
+ *  Copyright 2008  Gisgraphy project 
+ *  David Masclet <davidmasclet@gisgraphy.com>
+ *  
+ *  
+ *******************************************************************************/
+package com.gisgraphy.street;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gisgraphy.helper.GeolocHelper;
+
+public class HouseNumberIndexTest {
+
+	@Test
+	public void build() {
+		List<HouseNumberDto> houseNumbers = new ArrayList<HouseNumberDto>();
+		HouseNumberDto number200 = new HouseNumberDto(GeolocHelper.createPoint(2D, 3D), "200");
+		HouseNumberDto number3 = new HouseNumberDto(GeolocHelper.createPoint(4D, 5D), "3");
+		HouseNumberDto number3bis = new HouseNumberDto(GeolocHelper.createPoint(6D, 7D), "3 bis");
+		HouseNumberDto notANumber = new HouseNumberDto(GeolocHelper.createPoint(8D, 9D), "?");
+		houseNumbers.add(number200);
+		houseNumbers.add(null);
+		houseNumbers.add(number3);
+		houseNumbers.add(notANumber);
+		houseNumbers.add(number3bis);
+
+		HouseNumberIndex index = HouseNumberIndex.build(houseNumbers, "FR");
+		Assert.assertEquals(3, index.size());
+		Assert.assertEquals(3, index.getNumber(0));
+		Assert.assertEquals("the list order should be kept for the same number", number3.getLocation(), index.getLocation(0));
+		Assert.assertEquals(3, index.getNumber(1));
+		Assert.assertEquals(number3bis.getLocation(), index.getLocation(1));
+		Assert.assertEquals(200, index.getNumber(2));
+		Assert.assertEquals(number200.getLocation(), index.getLocation(2));
+
+		Assert.assertTrue(index.isBuiltFrom(houseNumbers, "FR"));
+		Assert.assertFalse(index.isBuiltFrom(houseNumbers, "SK"));
+		Assert.assertFalse(index.isBuiltFrom(houseNumbers.subList(0, 2), "FR"));
+		Assert.assertFalse(index.isBuiltFrom(null, "FR"));
+	}
+
+	@Test
+	public void isBuiltFromShouldCheckTheNumbersAndTheLocations() {
+		List<HouseNumberDto> houseNumbers = new ArrayList<HouseNumberDto>();
+		houseNumbers.add(new HouseNumberDto(GeolocHelper.createPoint(2D, 3D), "1"));
+		houseNumbers.add(new HouseNumberDto(GeolocHelper.createPoint(4D, 5D), "3"));
+		HouseNumberIndex index = HouseNumberIndex.build(houseNumbers, "FR");
+
+		List<HouseNumberDto> sameHouseNumbers = new ArrayList<HouseNumberDto>();
+		sameHouseNumbers.add(new HouseNumberDto(GeolocHelper.createPoint(2D, 3D), "1"));
+		sameHouseNumbers.add(new HouseNumberDto(GeolocHelper.createPoint(4D, 5D), "3"));
+		Assert.assertTrue("the house numbers are decoded again for each search", index.isBuiltFrom(sameHouseNumbers, "FR"));
+
+		List<HouseNumberDto> updatedNumber = new ArrayList<HouseNumberDto>();
+		updatedNumber.add(new HouseNumberDto(GeolocHelper.createPoint(2D, 3D), "1"));
+		updatedNumber.add(new HouseNumberDto(GeolocHelper.createPoint(4D, 5D), "5"));
+		Assert.assertFalse(index.isBuiltFrom(updatedNumber, "FR"));
+
+		List<HouseNumberDto> updatedLocation = new ArrayList<HouseNumberDto>();
+		updatedLocation.add(new HouseNumberDto(GeolocHelper.createPoint(2D, 3D), "1"));
+		updatedLocation.add(new HouseNumberDto(GeolocHelper.createPoint(4D, 6D), "3"));
+		Assert.assertFalse(index.isBuiltFrom(updatedLocation, "FR"));
+	}
+
+	@Test
+	public void buildWithNullOrEmptyList() {
+		Assert.assertEquals(0, HouseNumberIndex.build(null, "FR").size());
+		Assert.assertEquals(0, HouseNumberIndex.build(new ArrayList<HouseNumberDto>(), "FR").size());
+	}
+
+	@Test
+	public void lowerBound() {
+		List<HouseNumberDto> houseNumbers = new ArrayList<HouseNumberDto>();
+		houseNumbers.add(new HouseNumberDto(GeolocHelper.createPoint(2D, 3D), "10"));
+		houseNumbers.add(new HouseNumberDto(GeolocHelper.createPoint(2D, 3D), "2"));
+		houseNumbers.add(new HouseNumberDto(GeolocHelper.createPoint(2D, 3D), "2"));
+		houseNumbers.add(new HouseNumberDto(GeolocHelper.createPoint(2D, 3D), "6"));
+		HouseNumberIndex index = HouseNumberIndex.build(houseNumbers, "FR");
+
+		Assert.assertEquals(0, index.lowerBound(1));
+		Assert.assertEquals(0, index.lowerBound(2));
+		Assert.assertEquals(2, index.lowerBound(3));
+		Assert.assertEquals(2, index.lowerBound(6));
+		Assert.assertEquals(3, index.lowerBound(10));
+		Assert.assertEquals(4, index.lowerBound(11));
+	}
+
+}
@@ -69,6 +69,7 @@ import com.gisgraphy.domain.geoloc.entity.Street;
 import com.gisgraphy.domain.geoloc.entity.ZipCode;
 import com.gisgraphy.domain.repository.IAdmDao;
 import com.gisgraphy.domain.repository.ICityDao;
+import com.gisgraphy.domain.repository.ICitySubdivisionDao;
 import com.gisgraphy.domain.repository.ICountryDao;
 import com.gisgraphy.domain.valueobject.AlternateNameSource;
 import com.gisgraphy.domain.valueobject.Constants;
@@ -85,6 +86,7 @@ import com.gisgraphy.geoloc.GeolocQuery;
 import com.gisgraphy.geoloc.GeolocResultsDto;
 import com.gisgraphy.helper.GeolocHelper;
 import com.gisgraphy.helper.StringHelper;
+import com.gisgraphy.importer.ImporterShapeIndex;
 import com.gisgraphy.servlet.FulltextServlet;
 import com.gisgraphy.servlet.GisgraphyServlet;
 import com.gisgraphy.street.HouseNumberDto;
@@ -385,6 +387,19 @@ public class GisgraphyTestHelper {
     
 
 
+    /**
+     * @return a disabled shape index : the lookups by shape of the importers
+     *         are done with the given daos
+     */
+    public static ImporterShapeIndex createImporterShapeIndex(ICityDao cityDao,
+	    ICitySubdivisionDao citySubdivisionDao, IAdmDao admDao) {
+	ImporterShapeIndex importerShapeIndex = new ImporterShapeIndex();
+	importerShapeIndex.setCityDao(cityDao);
+	importerShapeIndex.setCitySubdivisionDao(citySubdivisionDao);
+	importerShapeIndex.setAdmDao(admDao);
+	return importerShapeIndex;
+    }
+
 	public static CitySubdivision createCitySubdivision() {
 		CitySubdivision citySubdivision = new CitySubdivision();
 		citySubdivision.setAdm1Code("A1");